@@ -0,0 +1,32 @@
+package com.rph.ticketservice.implementation;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event for the expiration of a seat hold, including the wait for the lock.
+ */
+@Name("com.rph.ticketservice.Expire")
+@Label("Expire")
+@Category("Ticket Service")
+@Description("Expiration of an unreserved seat hold")
+class ExpireEvent extends jdk.jfr.Event {
+
+    @Label("Seat Hold ID")
+    int seatHoldId;
+
+    @Label("Party Size")
+    int partySize;
+
+    @Label("Lag")
+    @Description("How late the expiration ran, compared with its deadline")
+    @Timespan(Timespan.MILLISECONDS)
+    long lagMillis;
+
+    @Label("Outcome")
+    @Description("EXPIRED, or the state of a seat hold that could not be expired")
+    String outcome;
+}
@@ -0,0 +1,37 @@
+package com.rph.ticketservice.implementation;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for one request to find and hold seats, including the wait for the lock.
+ */
+@Name("com.rph.ticketservice.Hold")
+@Label("Hold")
+@Category("Ticket Service")
+@Description("Request to find and hold the best available seats")
+class HoldEvent extends jdk.jfr.Event {
+
+    @Label("Party Size")
+    int partySize;
+
+    @Label("Entries Scanned")
+    @Description("Number of available seats examined")
+    int entriesScanned;
+
+    @Label("Candidates Evaluated")
+    int candidatesEvaluated;
+
+    @Label("Winning Average Bestness")
+    @Description("Average bestness of the held seats (lower is better), or NaN if none were held")
+    double winningAverageBestness;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Seat Hold ID")
+    @Description("ID of the new seat hold, or -1 if none")
+    int seatHoldId;
+}
@@ -0,0 +1,100 @@
+package com.rph.ticketservice.implementation;
+
+
+/**
+ * Emits the TicketService's events through Flight Recorder. Loaded reflectively by
+ * {@code FlightRecorderEvents.load}; requires a JVM with Flight Recorder ({@code jdk.jfr}).
+ */
+class JdkFlightRecorderEvents implements FlightRecorderEvents {
+
+    @Override
+    public Object beginSearch() {
+        SeatSearchEvent event = new SeatSearchEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitSearch(Object event, int partySize, int entriesScanned, int candidatesEvaluated,
+                             double winningAverageBestness, boolean found) {
+        SeatSearchEvent searchEvent = (SeatSearchEvent) event;
+        if ((searchEvent != null) && searchEvent.shouldCommit()) {
+            searchEvent.partySize = partySize;
+            searchEvent.entriesScanned = entriesScanned;
+            searchEvent.candidatesEvaluated = candidatesEvaluated;
+            searchEvent.winningAverageBestness = winningAverageBestness;
+            searchEvent.found = found;
+            searchEvent.commit();
+        }
+    }
+
+    @Override
+    public Object beginHold() {
+        HoldEvent event = new HoldEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitHold(Object event, int partySize, int entriesScanned, int candidatesEvaluated,
+                           double winningAverageBestness, String outcome, int seatHoldId) {
+        HoldEvent holdEvent = (HoldEvent) event;
+        if ((holdEvent != null) && holdEvent.shouldCommit()) {
+            holdEvent.partySize = partySize;
+            holdEvent.entriesScanned = entriesScanned;
+            holdEvent.candidatesEvaluated = candidatesEvaluated;
+            holdEvent.winningAverageBestness = winningAverageBestness;
+            holdEvent.outcome = outcome;
+            holdEvent.seatHoldId = seatHoldId;
+            holdEvent.commit();
+        }
+    }
+
+    @Override
+    public Object beginReserve() {
+        ReserveEvent event = new ReserveEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitReserve(Object event, int seatHoldId, String outcome) {
+        ReserveEvent reserveEvent = (ReserveEvent) event;
+        if ((reserveEvent != null) && reserveEvent.shouldCommit()) {
+            reserveEvent.seatHoldId = seatHoldId;
+            reserveEvent.outcome = outcome;
+            reserveEvent.commit();
+        }
+    }
+
+    @Override
+    public Object beginExpire() {
+        ExpireEvent event = new ExpireEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitExpire(Object event, int seatHoldId, int partySize, long lagMillis, String outcome) {
+        ExpireEvent expireEvent = (ExpireEvent) event;
+        if ((expireEvent != null) && expireEvent.shouldCommit()) {
+            expireEvent.seatHoldId = seatHoldId;
+            expireEvent.partySize = partySize;
+            expireEvent.lagMillis = lagMillis;
+            expireEvent.outcome = outcome;
+            expireEvent.commit();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.rph.ticketservice.implementation;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for one request to reserve a seat hold, including the wait for the lock.
+ */
+@Name("com.rph.ticketservice.Reserve")
+@Label("Reserve")
+@Category("Ticket Service")
+@Description("Request to reserve held seats")
+class ReserveEvent extends jdk.jfr.Event {
+
+    @Label("Seat Hold ID")
+    int seatHoldId;
+
+    @Label("Outcome")
+    String outcome;
+}
@@ -0,0 +1,33 @@
+package com.rph.ticketservice.implementation;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for one search for the best adjacent available seats.
+ */
+@Name("com.rph.ticketservice.SeatSearch")
+@Label("Seat Search")
+@Category("Ticket Service")
+@Description("Search for the best adjacent available seats")
+class SeatSearchEvent extends jdk.jfr.Event {
+
+    @Label("Party Size")
+    int partySize;
+
+    @Label("Entries Scanned")
+    @Description("Number of available seats examined")
+    int entriesScanned;
+
+    @Label("Candidates Evaluated")
+    int candidatesEvaluated;
+
+    @Label("Winning Average Bestness")
+    @Description("Average bestness of the chosen seats (lower is better), or NaN if none were found")
+    double winningAverageBestness;
+
+    @Label("Found")
+    boolean found;
+}
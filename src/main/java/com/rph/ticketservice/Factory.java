@@ -1,5 +1,7 @@
 package com.rph.ticketservice;
 
+import com.rph.ticketservice.implementation.LocalCluster;
+import com.rph.ticketservice.implementation.SeatSelectionStrategy;
 import com.rph.ticketservice.implementation.TicketServiceImpl;
 import com.rph.ticketservice.implementation.VenueImpl;
 
@@ -40,4 +42,30 @@ public class Factory {
     public TicketService createTicketService(Venue venue, int expireMillies) {
         return new TicketServiceImpl(venue, expireMillies);
     }
+
+    /**
+     * Creates a TicketService that uses the named seat selection strategy.
+     *
+     * @param venue the venue
+     * @param expireMillies number of milliseconds until an unreserved SeatHold is expired.
+     * @param seatSelectionStrategy name of the seat selection strategy ("topCandidates", "firstFit",
+     *                              "bestAverageRun" or "fragmentationAware")
+     * @return a new TicketService
+     */
+    public TicketService createTicketService(Venue venue, int expireMillies, String seatSelectionStrategy) {
+        TicketServiceImpl ticketService = new TicketServiceImpl(venue, expireMillies);
+        ticketService.setSeatSelectionStrategy(SeatSelectionStrategy.forName(seatSelectionStrategy));
+        return ticketService;
+    }
+
+    /**
+     * Creates an in-process cluster of simulated nodes, to which performances may be added.
+     *
+     * @param numNodes number of nodes
+     * @param numWorkersPerNode number of worker threads per node
+     * @return a new LocalCluster
+     */
+    public LocalCluster createLocalCluster(int numNodes, int numWorkersPerNode) {
+        return new LocalCluster(numNodes, numWorkersPerNode);
+    }
 }
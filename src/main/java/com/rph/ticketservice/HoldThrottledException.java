@@ -0,0 +1,36 @@
+package com.rph.ticketservice;
+
+/**
+ * A HoldThrottledException is thrown when a request for a seatHold is turned away by
+ * admission control before any seats are searched for. It is a SeatsUnavailableException,
+ * so callers that do not care why seats were not held need not distinguish it.
+ * <p>
+ * Throttling is routine, so no stack trace is captured.
+ */
+public class HoldThrottledException extends SeatsUnavailableException {
+
+    /** Why a request was turned away. */
+    public enum Reason {
+        RATE_LIMITED,     // the customer made too many requests recently
+        TOO_MANY_HOLDS,   // the customer already has too many unexpired, unreserved holds
+        OVERLOADED,       // the service is shedding load
+        INTERRUPTED,      // the customer gave up waiting to be admitted (the waiting thread was interrupted)
+    }
+
+    /** Why the request was turned away. */
+    private final Reason reason;
+
+    public HoldThrottledException(Reason reason) {
+        super(reason.toString());
+        this.reason = reason;
+    }
+
+    /**
+     * Why the request was turned away.
+     *
+     * @return the reason
+     */
+    public Reason getReason() {
+        return reason;
+    }
+}
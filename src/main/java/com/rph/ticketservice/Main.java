@@ -1,12 +1,33 @@
 package com.rph.ticketservice;
 
+import com.rph.ticketservice.implementation.LocalCluster;
+import com.rph.ticketservice.implementation.SectionedTicketService;
+import com.rph.ticketservice.implementation.SectionedVenue;
+import com.rph.ticketservice.implementation.TicketServiceImpl;
+import com.rph.ticketservice.implementation.TrafficRecorder;
+import com.rph.ticketservice.implementation.TrafficReplayer;
+import com.rph.ticketservice.implementation.TrafficTrace;
+import com.rph.ticketservice.implementation.VenueImpl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This class exercises this implementation of the ticket service.
@@ -26,6 +47,30 @@ public class Main {
     /** Some random customer email address. Insignificant. */
     private static final String EMAIL_ADDRESS = "ronald.hughes@gmail.com";
 
+    /** Seat selection strategies compared by the benchmark, unless one is specified. */
+    private static final String[] STRATEGIES = { "topCandidates", "firstFit", "bestAverageRun", "fragmentationAware" };
+
+    /** Default number of measured benchmark rounds (each round sells out a fresh venue). */
+    private static final int DEFAULT_BENCHMARK_ROUNDS = 20;
+
+    /** Default largest number of nodes in the cluster benchmark. */
+    private static final int DEFAULT_CLUSTER_NODES = 4;
+
+    /** Default number of performances in the cluster benchmark. */
+    private static final int DEFAULT_CLUSTER_PERFORMANCES = 16;
+
+    /** Default largest number of sections in the section benchmark. */
+    private static final int DEFAULT_SECTIONS = 4;
+
+    /** Difference between the bestness offsets of adjacent sections in the section benchmark. */
+    private static final int SECTION_BESTNESS_OFFSET = 10;
+
+    /** Default number of holds in the extension benchmark. */
+    private static final int DEFAULT_EXTENSION_HOLDS = 10000;
+
+    /** How long each extension in the extension benchmark is (milliseconds): "two more minutes". */
+    private static final long EXTENSION_MILLIES = 2 * 60 * 1000;
+
     /** Distribution of number of seats per SeatHold request. Zero implies anything up to row size. */
     private static final int[] DISTRIBUTION = { 1, 1, 2, 2, 2, 2, 2, 3, 3, 4, 4, 4, 4, 4, 5, 5, 6, 6, 6, 0};
 
@@ -44,6 +89,30 @@ public class Main {
     /** Venue parameters. */
     private int numRows = 10, numSeatsPerRow = 20, bestRowNum = 4;
 
+    /** The seed of the random number generator. */
+    private int randomSeed;
+
+    /** Number of measured benchmark rounds. */
+    private int benchmarkRounds = DEFAULT_BENCHMARK_ROUNDS;
+
+    /** Largest number of nodes in the cluster benchmark. */
+    private int clusterNodes = DEFAULT_CLUSTER_NODES;
+
+    /** Number of performances in the cluster benchmark. */
+    private int clusterPerformances = DEFAULT_CLUSTER_PERFORMANCES;
+
+    /** Largest number of sections in the section benchmark. */
+    private int numSections = DEFAULT_SECTIONS;
+
+    /** Number of holds in the extension benchmark. */
+    private int extensionHolds = DEFAULT_EXTENSION_HOLDS;
+
+    /** Where -ticketService records its traffic, or null. */
+    private String recordFilename = null;
+
+    /** How many times faster than recorded to replay a trace (zero: as fast as possible). */
+    private double replaySpeed = TrafficReplayer.AS_FAST_AS_POSSIBLE;
+
     /**
      * Entry point for the viewer.
      *
@@ -74,7 +143,7 @@ public class Main {
         if ((argsList.size() == 0)
                 || argsList.contains("-u") || argsList.contains("-usage") || argsList.contains("-Usage")) {
             System.err.println();
-            System.err.println("usage: java -cp ticketService.jar RunMe [ -ticketService | -bestSeats ] [ options ]");
+            System.err.println("usage: java -cp ticketService.jar RunMe [ -ticketService | -bestSeats | -benchmark | -clusterBenchmark | -sectionBenchmark | -extensionBenchmark | -replay traceFile ] [ options ]");
             System.err.println("  where options include:");
             System.err.println("    -usage (you'll also get this message if no args are specified)");
             System.err.println("    -outputFile fileName (default: standard output)");
@@ -83,11 +152,20 @@ public class Main {
             System.err.println("    -seatsPerRow numberOfSeatsPerRow (default: 20)");
             System.err.println("    -bestRow rowWithTheBestSeat (default: 4)");
             System.err.println("    -randomSeed seedValue (default: a number between 0 and 99)");
+            System.err.println("    -strategy strategyName (default: all, for -benchmark)");
+            System.err.println("      topCandidates, firstFit, bestAverageRun or fragmentationAware");
+            System.err.println("    -benchmarkRounds numberOfRounds (default: 20; extensions per hold, for -extensionBenchmark)");
+            System.err.println("    -sections largestNumberOfSections (default: 4, for -sectionBenchmark)");
+            System.err.println("    -nodes largestNumberOfNodes (default: 4, for -clusterBenchmark)");
+            System.err.println("    -performances numberOfPerformances (default: 16, for -clusterBenchmark)");
+            System.err.println("    -holds numberOfHolds (default: 10000, for -extensionBenchmark)");
+            System.err.println("    -recordFile traceFile (default: none, for -ticketService)");
+            System.err.println("    -replaySpeed speedFactor (default: 0, as fast as possible, for -replay)");
             System.err.println();
             return;
         }
 
-        int randomSeed = 0;
+        randomSeed = 0;
         int randomSeedFlag = argsList.indexOf("-randomSeed");
         if (randomSeedFlag >= 0) {
             randomSeed = Integer.parseInt(argsList.get(randomSeedFlag + 1));
@@ -123,7 +201,79 @@ public class Main {
             bestRowNum = Integer.parseInt(argsList.get(bestRowNumFlag + 1));
         }
 
+        String[] strategies = STRATEGIES;
+        int strategyFlag = argsList.indexOf("-strategy");
+        if (strategyFlag >= 0) {
+            strategies = new String[] { argsList.get(strategyFlag + 1) };
+        }
+
+        int benchmarkRoundsFlag = argsList.indexOf("-benchmarkRounds");
+        if (benchmarkRoundsFlag >= 0) {
+            benchmarkRounds = Integer.parseInt(argsList.get(benchmarkRoundsFlag + 1));
+        }
+
+        int clusterNodesFlag = argsList.indexOf("-nodes");
+        if (clusterNodesFlag >= 0) {
+            clusterNodes = Integer.parseInt(argsList.get(clusterNodesFlag + 1));
+        }
+
+        int clusterPerformancesFlag = argsList.indexOf("-performances");
+        if (clusterPerformancesFlag >= 0) {
+            clusterPerformances = Integer.parseInt(argsList.get(clusterPerformancesFlag + 1));
+        }
+
+        int numSectionsFlag = argsList.indexOf("-sections");
+        if (numSectionsFlag >= 0) {
+            numSections = Integer.parseInt(argsList.get(numSectionsFlag + 1));
+        }
+
+        int extensionHoldsFlag = argsList.indexOf("-holds");
+        if (extensionHoldsFlag >= 0) {
+            extensionHolds = Integer.parseInt(argsList.get(extensionHoldsFlag + 1));
+        }
+
+        int recordFileFlag = argsList.indexOf("-recordFile");
+        if (recordFileFlag >= 0) {
+            recordFilename = argsList.get(recordFileFlag + 1);
+        }
+
+        int replaySpeedFlag = argsList.indexOf("-replaySpeed");
+        if (replaySpeedFlag >= 0) {
+            replaySpeed = Double.parseDouble(argsList.get(replaySpeedFlag + 1));
+        }
+
+        int replayFlag = argsList.indexOf("-replay");
+
         try {
+            if (replayFlag >= 0) {
+                runReplay(argsList.get(replayFlag + 1));
+                return;
+            }
+            if (argsList.contains("-extensionBenchmark")) {
+                runExtensionBenchmark();   // warmup, not printed
+                out.println(runExtensionBenchmark());
+                return;
+            }
+            if (argsList.contains("-clusterBenchmark")) {
+                runClusterBenchmark(clusterNodes);   // warmup, not printed
+                for (int numNodes = 1; numNodes <= clusterNodes; numNodes = nextNodeCount(numNodes, clusterNodes)) {
+                    out.println(runClusterBenchmark(numNodes));
+                }
+                return;
+            }
+            if (argsList.contains("-sectionBenchmark")) {
+                runSectionBenchmark(numSections);   // warmup, not printed
+                for (int sections = 1; sections <= numSections; sections = nextNodeCount(sections, numSections)) {
+                    out.println(runSectionBenchmark(sections));
+                }
+                return;
+            }
+            if (argsList.contains("-benchmark")) {
+                for (String strategy : strategies) {
+                    runBenchmark(strategy);
+                }
+                return;
+            }
             if (argsList.contains("-bestSeats")) {
                 runVenue();
                 return;
@@ -159,11 +309,21 @@ public class Main {
      * Some SeatHolds are reserved; some are not. Prints each SeatHold, which
      * may or may not be reserved. Moniters unreserved SeatHolds to see if they
      * become expired; if so, the expired SeatHold is printed. Runs until the
-     * venue is full.
+     * venue is full. If a record file is specified, the TicketService's traffic is recorded.
      */
     private void runTicketService() {
         Venue venue = factory.createVenue(numRows, numSeatsPerRow, bestRowNum);
         TicketService ticketService = factory.createTicketService(venue, EXPIRE_MILLIES);
+        TrafficRecorder recorder = null;
+        if (recordFilename != null) {
+            try {
+                recorder = new TrafficRecorder(ticketService, new DataOutputStream(
+                        new BufferedOutputStream(new FileOutputStream(recordFilename))));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            ticketService = recorder;
+        }
 
         try {
             out.println(getVenueString(venue));
@@ -214,7 +374,311 @@ public class Main {
         } finally {
             out.println();
             out.println();
+            if (recorder != null) {
+                closeRecorder(recorder);
+            }
+        }
+    }
+
+    /**
+     * Stops recording, and closes the trace.
+     *
+     * @param recorder the recorder
+     */
+    private void closeRecorder(TrafficRecorder recorder) {
+        try {
+            recorder.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Replays a trace (recorded by -ticketService -recordFile) against a fresh TicketService for
+     * a venue of the same size, and prints the replay report: whether every call had its recorded
+     * outcome and seats, the latency of each kind of call, and the throughput. Holds expire only
+     * when the trace says they did.
+     *
+     * @param traceFilename the trace file
+     */
+    private void runReplay(String traceFilename) {
+        Venue venue = factory.createVenue(numRows, numSeatsPerRow, bestRowNum);
+        TicketService ticketService = factory.createTicketService(venue, Integer.MAX_VALUE);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(traceFilename)))) {
+            TrafficReplayer.Report report = new TrafficReplayer(ticketService)
+                    .replay(new TrafficTrace.Reader(in), replaySpeed);
+            out.print(report);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Measures the throughput and seat quality of a seat selection strategy. Each round sells
+     * out a fresh venue with random party sizes (nothing is reserved or expired). Every strategy
+     * sees the same sequence of party sizes. A few unmeasured warmup rounds are run first.
+     * Since a sold out venue always has the same seats sold, quality is the mean bestness of
+     * the seats held before the venue was half sold (lower is better).
+     *
+     * @param strategy name of the seat selection strategy
+     */
+    private void runBenchmark(String strategy) {
+        Venue venue = factory.createVenue(numRows, numSeatsPerRow, bestRowNum);
+        int numWarmupRounds = Math.max(benchmarkRounds / 4, 1);
+        for (int round = 0; round < numWarmupRounds; round++) {
+            runBenchmarkRound(venue, strategy, round);
+        }
+        long numHolds = 0;
+        long totalBestness = 0;
+        long numSeatsCounted = 0;
+        long startNanos = System.nanoTime();
+        for (int round = 0; round < benchmarkRounds; round++) {
+            int numSeatsHeld = 0;
+            for (SeatHold seatHold : runBenchmarkRound(venue, strategy, round)) {
+                numHolds += 1;
+                for (int i = 0; (i < seatHold.numSeatsHeld()) && (numSeatsHeld * 2 < venue.bestSeats().size()); i++) {
+                    totalBestness += seatHold.getSeat(i).getBestness();
+                    numSeatsCounted += 1;
+                }
+                numSeatsHeld += seatHold.numSeatsHeld();
+            }
+        }
+        long elapsedNanos = Math.max(System.nanoTime() - startNanos, 1);
+        out.println(String.format("Benchmark %s %s: %d rounds, %d holds, %.0f holds/sec, first half mean bestness %.2f",
+                strategy, getVenueString(venue), benchmarkRounds, numHolds,
+                numHolds * 1e9 / elapsedNanos, (double) totalBestness / Math.max(numSeatsCounted, 1)));
+    }
+
+    /**
+     * Sells out a fresh TicketService for the specified venue, holding seats for random parties
+     * until no seats are available.
+     *
+     * @param venue the venue
+     * @param strategy name of the seat selection strategy
+     * @param round the round number, which seeds the party sizes
+     * @return the SeatHolds, in the order they were held
+     */
+    private List<SeatHold> runBenchmarkRound(Venue venue, String strategy, int round) {
+        TicketService ticketService = factory.createTicketService(venue, Integer.MAX_VALUE, strategy);
+        randomNumberGenerator = new Random(randomSeed + round);
+        List<SeatHold> seatHolds = new ArrayList<>();
+        while (ticketService.numSeatsAvailable() > 0) {
+            try {
+                seatHolds.add(ticketService.findAndHoldSeats(getNumSeatsInParty(numSeatsPerRow), EMAIL_ADDRESS));
+            } catch (SeatsUnavailableException e) {
+                // try a different party size
+            }
+        }
+        return seatHolds;
+    }
+
+    /**
+     * Measures the aggregate hold throughput of a cluster of simulated nodes, each with a single
+     * worker thread, selling out a number of performances at once. Client threads (twice the
+     * largest number of nodes) send hold requests for random performances until every
+     * performance is sold out. Since each node serves its performances one request at a time,
+     * throughput grows with the number of nodes, up to the number of processors.
+     *
+     * @param numNodes number of nodes
+     * @return the results, as a printable line
+     */
+    private String runClusterBenchmark(int numNodes) {
+        Venue venue = factory.createVenue(numRows, numSeatsPerRow, bestRowNum);
+        LocalCluster cluster = factory.createLocalCluster(numNodes, 1);
+        List<TicketService> performances = new ArrayList<>();
+        for (int i = 0; i < clusterPerformances; i++) {
+            String key = LocalCluster.getRoutingKey("performance-" + i, null);
+            cluster.addPerformance(key, venue, Integer.MAX_VALUE);
+            performances.add(cluster.getTicketService(key));
+        }
+        AtomicIntegerArray soldOut = new AtomicIntegerArray(clusterPerformances);
+        AtomicLong numHolds = new AtomicLong();
+        List<Thread> clients = new ArrayList<>();
+        for (int client = 0; client < 2 * clusterNodes; client++) {
+            Random random = new Random(randomSeed + client);
+            clients.add(new Thread(() -> {
+                int numSoldOut = 0;
+                while (numSoldOut < clusterPerformances) {
+                    int performance = random.nextInt(clusterPerformances);
+                    if (soldOut.get(performance) != 0) {
+                        numSoldOut = 0;
+                        for (int i = 0; i < clusterPerformances; i++) {
+                            numSoldOut += soldOut.get(i);
+                        }
+                        continue;
+                    }
+                    TicketService ticketService = performances.get(performance);
+                    try {
+                        ticketService.findAndHoldSeats(getNumSeatsInParty(random, numSeatsPerRow), EMAIL_ADDRESS);
+                        numHolds.incrementAndGet();
+                    } catch (SeatsUnavailableException e) {
+                        if (ticketService.numSeatsAvailable() == 0) {
+                            soldOut.set(performance, 1);
+                        }
+                    }
+                }
+            }));
+        }
+        long startNanos = System.nanoTime();
+        for (Thread client : clients) {
+            client.start();
         }
+        try {
+            for (Thread client : clients) {
+                client.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long elapsedNanos = Math.max(System.nanoTime() - startNanos, 1);
+        cluster.shutdown();
+        return String.format("Cluster benchmark %d nodes: %d performances of %s, %d clients, %d holds, %.0f holds/sec",
+                numNodes, clusterPerformances, getVenueString(venue), clients.size(), numHolds.get(),
+                numHolds.get() * 1e9 / elapsedNanos);
+    }
+
+    /**
+     * Measures the throughput of a sectioned venue. Round after round, clients (twice as many
+     * as the largest number of sections) send hold requests to a fresh SectionedTicketService
+     * until it is sold out. Each section is a venue of the specified size, and each is a little
+     * worse than the one before it. Since each section is served one request at a time, but
+     * sections are ranked without their locks, throughput grows with the number of sections,
+     * up to the number of processors.
+     *
+     * @param numSections number of sections
+     * @return the results, as a printable line
+     */
+    private String runSectionBenchmark(int numSections) {
+        List<SectionedVenue.Section> sections = new ArrayList<>();
+        for (int section = 0; section < numSections; section++) {
+            sections.add(new SectionedVenue.Section("section-" + section,
+                    (VenueImpl) factory.createVenue(numRows, numSeatsPerRow, bestRowNum),
+                    section * SECTION_BESTNESS_OFFSET));
+        }
+        SectionedVenue venue = new SectionedVenue(sections);
+        AtomicLong numHolds = new AtomicLong();
+        long elapsedNanos = 1;
+        int numClients = 2 * this.numSections;
+        for (int round = 0; round < benchmarkRounds; round++) {
+            SectionedTicketService ticketService = new SectionedTicketService(venue, Integer.MAX_VALUE);
+            List<Thread> clients = new ArrayList<>();
+            for (int client = 0; client < numClients; client++) {
+                Random random = new Random(randomSeed + (round * numClients) + client);
+                clients.add(new Thread(() -> {
+                    while (ticketService.numSeatsAvailable() > 0) {
+                        try {
+                            ticketService.findAndHoldSeats(getNumSeatsInParty(random, numSeatsPerRow), EMAIL_ADDRESS);
+                            numHolds.incrementAndGet();
+                        } catch (SeatsUnavailableException e) {
+                            // too large for what is left; try another party
+                        }
+                    }
+                }));
+            }
+            long startNanos = System.nanoTime();
+            for (Thread client : clients) {
+                client.start();
+            }
+            try {
+                for (Thread client : clients) {
+                    client.join();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            elapsedNanos += System.nanoTime() - startNanos;
+        }
+        return String.format("Section benchmark %d sections: %d rounds of %d sections of %s, %d clients, %d holds, %.0f holds/sec",
+                numSections, benchmarkRounds, numSections, getVenueString(sections.get(0).getVenue()), numClients,
+                numHolds.get(), numHolds.get() * 1e9 / elapsedNanos);
+    }
+
+    /**
+     * Measures the cost of extending holds. A fresh TicketService holds a single seat for each
+     * of many customers (as many as the venue seats), then every hold is extended by two minutes, round after round, as a
+     * checkout flow that needs more time would. For comparison, the same extensions are made
+     * with a {@code java.util.Timer}, one task per hold, where each extension cancels the hold's
+     * task and schedules a new one; the cancelled tasks stay queued until purged. The timing
+     * wheel figure is for the whole {@code extendHold} call (lock, lookup and checks included);
+     * the Timer figure is for the rescheduling alone.
+     *
+     * @return the results, as a printable line
+     */
+    private String runExtensionBenchmark() {
+        int numRowsNeeded = (extensionHolds + 99) / 100;
+        Venue venue = factory.createVenue(numRowsNeeded, 100, numRowsNeeded / 2);
+        TicketServiceImpl ticketService = (TicketServiceImpl) factory.createTicketService(venue, Integer.MAX_VALUE);
+        int numHolds = Math.min(extensionHolds, venue.bestSeats().size());
+        int[] seatHoldIds = new int[numHolds];
+        for (int i = 0; i < seatHoldIds.length; i++) {
+            try {
+                seatHoldIds[i] = ticketService.findAndHoldSeats(1, EMAIL_ADDRESS).getSeatHoldId();
+            } catch (SeatsUnavailableException e) {
+                throw new RuntimeException("Unexpected SeatsUnavailableException!");   // should not happen
+            }
+        }
+        long startNanos = System.nanoTime();
+        for (int round = 0; round < benchmarkRounds; round++) {
+            for (int seatHoldId : seatHoldIds) {
+                try {
+                    ticketService.extendHold(seatHoldId, EXTENSION_MILLIES);
+                } catch (SeatHoldNotFoundException | SeatHoldExpiredException e) {
+                    throw new RuntimeException("Unexpected " + e.getClass().getSimpleName() + "!");   // should not happen
+                }
+            }
+        }
+        long wheelNanos = Math.max(System.nanoTime() - startNanos, 1);
+
+        Timer timer = new Timer(true);   // isDaemon: true
+        TimerTask[] tasks = new TimerTask[numHolds];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = newIdleTimerTask();
+            timer.schedule(tasks[i], Integer.MAX_VALUE);
+        }
+        startNanos = System.nanoTime();
+        for (int round = 0; round < benchmarkRounds; round++) {
+            for (int i = 0; i < tasks.length; i++) {
+                tasks[i].cancel();
+                tasks[i] = newIdleTimerTask();
+                timer.schedule(tasks[i], Integer.MAX_VALUE + (round + 1) * EXTENSION_MILLIES);
+            }
+        }
+        long timerNanos = Math.max(System.nanoTime() - startNanos, 1);
+        int numStaleTasks = timer.purge();
+        timer.cancel();
+
+        long numExtensions = (long) numHolds * benchmarkRounds;
+        return String.format("Extension benchmark: %d holds, %d extensions each: extendHold %.0f extensions/sec;"
+                        + " java.util.Timer rescheduling alone %.0f extensions/sec, %d stale tasks left queued",
+                numHolds, benchmarkRounds, numExtensions * 1e9 / wheelNanos,
+                numExtensions * 1e9 / timerNanos, numStaleTasks);
+    }
+
+    /**
+     * A timer task that does nothing, for the extension benchmark.
+     *
+     * @return a new timer task
+     */
+    private static TimerTask newIdleTimerTask() {
+        return new TimerTask() {
+            @Override
+            public void run() {
+                // never runs; cancelled first
+            }
+        };
+    }
+
+    /**
+     * The next number of nodes to be benchmarked: double the current number, but no more than the largest.
+     *
+     * @param numNodes the current number of nodes
+     * @param maxNodes the largest number of nodes
+     * @return the next number of nodes, which is greater than maxNodes after maxNodes
+     */
+    private static int nextNodeCount(int numNodes, int maxNodes) {
+        return (numNodes < maxNodes) ? Math.min(numNodes * 2, maxNodes) : (maxNodes + 1);
     }
 
     /**
@@ -282,10 +746,21 @@ public class Main {
      * @return the number of seats to be attempted
      */
     private int getNumSeatsInParty(int maximum) {
+        return getNumSeatsInParty(randomNumberGenerator, maximum);
+    }
+
+    /**
+     * Generates a random number of seats for the next attempt to hold some seats.
+     *
+     * @param random the random number generator
+     * @param maximum the maximum number of seats
+     * @return the number of seats to be attempted
+     */
+    private static int getNumSeatsInParty(Random random, int maximum) {
         maximum = Math.max(maximum, 1);
-        int numSeats = DISTRIBUTION[randomNumberGenerator.nextInt(DISTRIBUTION.length)];
+        int numSeats = DISTRIBUTION[random.nextInt(DISTRIBUTION.length)];
         if (numSeats <= 0 || numSeats > maximum) {
-            numSeats = randomNumberGenerator.nextInt(maximum) + 1;
+            numSeats = random.nextInt(maximum) + 1;
         }
         return numSeats;
     }
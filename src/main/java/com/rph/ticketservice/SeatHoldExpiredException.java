@@ -3,6 +3,8 @@ package com.rph.ticketservice;
 /**
  * A SeatHoldExpiredException is thrown when a seatHold expires
  * before the reserve request was made.
+ * <p>
+ * Expiration is routine, so no stack trace is captured.
  */
 public class SeatHoldExpiredException extends Exception {
 
@@ -21,4 +23,14 @@ public class SeatHoldExpiredException extends Exception {
     public SeatHoldExpiredException(Throwable cause) {
         super(cause);
     }
+
+    /**
+     * Does not capture a stack trace.
+     *
+     * @return this exception
+     */
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
 }
@@ -3,22 +3,64 @@ package com.rph.ticketservice;
 /**
  * A SeatHoldNotFoundException is thrown when the SeatHold specified by a seat hold ID
  * cannot be found.
+ * <p>
+ * No stack trace is captured; the seat hold ID alone explains the failure, so the ID is
+ * carried by the exception, when it is known.
  */
 public class SeatHoldNotFoundException extends Exception {
 
+    /** The seat hold ID returned by {@code getSeatHoldId} when the ID is not known. */
+    public static final int UNKNOWN_SEAT_HOLD_ID = -1;
+
+    /** The seat hold ID that could not be found, or UNKNOWN_SEAT_HOLD_ID. */
+    private final int seatHoldId;
+
     public SeatHoldNotFoundException() {
         super();
+        this.seatHoldId = UNKNOWN_SEAT_HOLD_ID;
+    }
+
+    /**
+     * Constructs a new SeatHoldNotFoundException for the specified seat hold ID.
+     *
+     * @param seatHoldId the seat hold ID that could not be found
+     */
+    public SeatHoldNotFoundException(int seatHoldId) {
+        super("seat hold not found: " + seatHoldId);
+        this.seatHoldId = seatHoldId;
     }
 
     public SeatHoldNotFoundException(String message) {
         super(message);
+        this.seatHoldId = UNKNOWN_SEAT_HOLD_ID;
     }
 
     public SeatHoldNotFoundException(String message, Throwable cause) {
         super(message, cause);
+        this.seatHoldId = UNKNOWN_SEAT_HOLD_ID;
     }
 
     public SeatHoldNotFoundException(Throwable cause) {
         super(cause);
+        this.seatHoldId = UNKNOWN_SEAT_HOLD_ID;
+    }
+
+    /**
+     * The seat hold ID that could not be found.
+     *
+     * @return the seat hold ID, or UNKNOWN_SEAT_HOLD_ID if it is not known
+     */
+    public int getSeatHoldId() {
+        return seatHoldId;
+    }
+
+    /**
+     * Does not capture a stack trace.
+     *
+     * @return this exception
+     */
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
     }
 }
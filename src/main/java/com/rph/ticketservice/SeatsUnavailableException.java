@@ -3,6 +3,9 @@ package com.rph.ticketservice;
 /**
  * A NoSeatsAvailableException is thrown when a request for a seatHold is made
  * but there are not sufficient adjacent seats available.
+ * <p>
+ * This is a routine outcome, not a programming error, so no stack trace is captured
+ * (capturing one would cost far more than the operation that failed).
  */
 public class SeatsUnavailableException extends Exception {
 
@@ -21,4 +24,14 @@ public class SeatsUnavailableException extends Exception {
     public SeatsUnavailableException(Throwable cause) {
         super(cause);
     }
+
+    /**
+     * Does not capture a stack trace.
+     *
+     * @return this exception
+     */
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
 }
@@ -15,7 +15,8 @@ public interface Venue {
     int getNumRows();
 
     /**
-     * Number of seats per row in this Venue
+     * Number of seats per row in this Venue. If rows differ in length, this is the
+     * number of seat positions (including aisles and blocked seats) in the longest row.
      *
      * @return number of seats per row
      */
@@ -0,0 +1,481 @@
+package com.rph.ticketservice.implementation;
+
+import com.rph.ticketservice.HoldThrottledException;
+import com.rph.ticketservice.SeatHold;
+import com.rph.ticketservice.SeatHoldExpiredException;
+import com.rph.ticketservice.SeatHoldNotFoundException;
+import com.rph.ticketservice.SeatsUnavailableException;
+import com.rph.ticketservice.TicketService;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * An {@code AdmissionController} is a TicketService that turns away hold requests before they
+ * reach the TicketServiceImpl lock, so that clients hammering {@code findAndHoldSeats} cannot
+ * starve everyone else. A request is admitted only if:
+ * <ul>
+ *     <li>the customer's token bucket has a token (each customer may make {@code holdsPerSecond}
+ *         requests per second on average, in bursts of up to {@code burst});</li>
+ *     <li>the customer has fewer than {@code maxHoldsPerCustomer} holds that are neither
+ *         reserved nor expired; and</li>
+ *     <li>the service is not overloaded, or the customer has been quiet recently. The service is
+ *         overloaded when more than {@code maxHoldsInFlight} hold requests are queued for (or
+ *         holding) the lock, or when the recent average hold latency exceeds
+ *         {@code maxHoldLatencyMillis}. Customers whose bucket is less than half full are shed
+ *         first, so buyers who make the occasional request keep a low latency.</li>
+ * </ul>
+ * A request that is turned away throws {@code HoldThrottledException}. The customer's holds are
+ * counted before a token is taken, so a request turned away for too many holds costs no token,
+ * and a client retrying at its hold limit does not drain its bucket.
+ * <p>
+ * Per-customer state lives in a ConcurrentHashMap, and is updated with compare-and-set only, so
+ * admission never blocks. The map is bounded: a new customer must first claim one of
+ * {@code maxCustomers} places. When none is free, a few of the longest-tracked customers are
+ * examined, oldest first (a clock, or second chance, policy): those idle for longer than
+ * {@code idleMillis} with no outstanding holds (or hold requests in flight) are evicted, and the
+ * others are moved to the back of the line. If that does not make room, the new customer is
+ * shed. So eviction costs a bounded amount of work per new customer, never a pass over the map.
+ * <p>
+ * Holds are counted as they are made, and uncounted as they are reserved or expired, by
+ * listening to the TicketServiceImpl's seat map changes. The listener runs on the thread that
+ * makes the change, while the lock is held, so a hold is attributed to its customer before
+ * anyone else can reserve it or let it expire; holds made by other callers of the
+ * TicketServiceImpl are not tracked at all.
+ */
+public class AdmissionController implements TicketService {
+
+    /** Default average number of hold requests per second allowed per customer. */
+    public static final double DEFAULT_HOLDS_PER_SECOND = 2;
+
+    /** Default number of hold requests a customer may make at once. */
+    public static final int DEFAULT_BURST = 5;
+
+    /** Default maximum number of outstanding holds per customer. */
+    public static final int DEFAULT_MAX_HOLDS_PER_CUSTOMER = 4;
+
+    /** Default number of concurrent hold requests above which load is shed. */
+    public static final int DEFAULT_MAX_HOLDS_IN_FLIGHT = 64;
+
+    /** Default average hold latency (milliseconds) above which load is shed. */
+    public static final long DEFAULT_MAX_HOLD_LATENCY_MILLIS = 50;
+
+    /** Default maximum number of customers tracked. */
+    public static final int DEFAULT_MAX_CUSTOMERS = 100000;
+
+    /** Default time (milliseconds) a customer must be idle before it may be forgotten. */
+    public static final long DEFAULT_IDLE_MILLIS = 60 * 1000;   // one minute
+
+    /** Weight of each new hold latency sample in the moving average is 1 / 2^EWMA_SHIFT. */
+    private static final int EWMA_SHIFT = 3;
+
+    /** Greatest number of customers examined for eviction when a new customer finds no free place. */
+    private static final int EVICTION_BATCH = 8;
+
+    /** The TicketService whose holds are controlled. */
+    private final TicketServiceImpl ticketService;
+
+    /** Minimum average interval between a customer's hold requests. */
+    private final long emissionIntervalNanos;
+
+    /** How far a customer's bucket may be drawn ahead of time: {@code burst} intervals. */
+    private final long burstToleranceNanos;
+
+    private final int maxHoldsPerCustomer;
+
+    private final int maxHoldsInFlight;
+
+    private final long maxHoldLatencyNanos;
+
+    private final int maxCustomers;
+
+    private final long idleNanos;
+
+    /** Per-customer state, by customer email. */
+    private final ConcurrentMap<String, CustomerState> customers = new ConcurrentHashMap<>();
+
+    /** Number of places claimed in {@code customers}; never more than {@code maxCustomers}. */
+    private final AtomicInteger numCustomers = new AtomicInteger();
+
+    /** The tracked customers, in the order they are to be examined for eviction. */
+    private final Queue<CustomerState> evictionQueue = new ConcurrentLinkedQueue<>();
+
+    /** The customer owning each outstanding seatHold made through this controller, by seatHold ID. */
+    private final ConcurrentMap<Integer, CustomerState> holdOwners = new ConcurrentHashMap<>();
+
+    /** The customer whose hold request the calling thread is making, if any. */
+    private final ThreadLocal<CustomerState> holdingCustomer = new ThreadLocal<>();
+
+    /** Number of admitted hold requests that have not yet returned. */
+    private final AtomicInteger holdsInFlight = new AtomicInteger();
+
+    /** Exponentially weighted moving average of the latency of admitted hold requests. */
+    private final AtomicLong holdLatencyNanosAverage = new AtomicLong();
+
+    private final AtomicLong numAdmitted = new AtomicLong();
+
+    private final AtomicLong numRateLimited = new AtomicLong();
+
+    private final AtomicLong numTooManyHolds = new AtomicLong();
+
+    private final AtomicLong numShed = new AtomicLong();
+
+
+    /**
+     * Constructs a new AdmissionController with the default limits.
+     *
+     * @param ticketService the TicketService whose holds are controlled
+     */
+    public AdmissionController(TicketServiceImpl ticketService) {
+        this(ticketService, DEFAULT_HOLDS_PER_SECOND, DEFAULT_BURST, DEFAULT_MAX_HOLDS_PER_CUSTOMER,
+             DEFAULT_MAX_HOLDS_IN_FLIGHT, DEFAULT_MAX_HOLD_LATENCY_MILLIS, DEFAULT_MAX_CUSTOMERS, DEFAULT_IDLE_MILLIS);
+    }
+
+    /**
+     * Constructs a new AdmissionController.
+     *
+     * @param ticketService the TicketService whose holds are controlled
+     * @param holdsPerSecond the average number of hold requests per second allowed per customer
+     * @param burst the number of hold requests a customer may make at once
+     * @param maxHoldsPerCustomer the maximum number of outstanding holds per customer
+     * @param maxHoldsInFlight the number of concurrent hold requests above which load is shed
+     * @param maxHoldLatencyMillis the average hold latency above which load is shed
+     * @param maxCustomers the maximum number of customers tracked
+     * @param idleMillis how long a customer must be idle before it may be forgotten
+     */
+    public AdmissionController(TicketServiceImpl ticketService, double holdsPerSecond, int burst,
+                               int maxHoldsPerCustomer, int maxHoldsInFlight, long maxHoldLatencyMillis,
+                               int maxCustomers, long idleMillis) {
+        if (holdsPerSecond <= 0 || burst <= 0 || maxHoldsPerCustomer <= 0 || maxHoldsInFlight <= 0
+                || maxHoldLatencyMillis <= 0 || maxCustomers <= 0 || idleMillis < 0) {
+            throw new IllegalArgumentException("bad limits");
+        }
+        this.ticketService = ticketService;
+        this.emissionIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / holdsPerSecond);
+        this.burstToleranceNanos = emissionIntervalNanos * burst;
+        this.maxHoldsPerCustomer = maxHoldsPerCustomer;
+        this.maxHoldsInFlight = maxHoldsInFlight;
+        this.maxHoldLatencyNanos = TimeUnit.MILLISECONDS.toNanos(maxHoldLatencyMillis);
+        this.maxCustomers = maxCustomers;
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+        ticketService.addSeatMapChangeListener(this::seatMapChanged);
+    }
+
+    @Override
+    public int numSeatsAvailable() {
+        return ticketService.numSeatsAvailable();
+    }
+
+    /**
+     * Find and hold the best available seats for a customer, if the request is admitted.
+     *
+     * @param numSeats      the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @return a SeatHold object identifying the specific seats and related information
+     * @throws HoldThrottledException if the request was turned away
+     * @throws SeatsUnavailableException if there are insufficient adjacent available seats
+     */
+    @Override
+    public SeatHold findAndHoldSeats(int numSeats, String customerEmail) throws SeatsUnavailableException {
+        long nowNanos = System.nanoTime();
+        CustomerState customer;
+        do {
+            customer = getCustomerState(customerEmail, nowNanos);
+            if (customer == null) {
+                numShed.incrementAndGet();
+                throw new HoldThrottledException(HoldThrottledException.Reason.OVERLOADED);
+            }
+        } while (!customer.pin());   // evicted in the meantime: look it up again
+        HoldThrottledException.Reason reason = admit(customer, nowNanos);
+        if (reason != null) {
+            customer.numHolds.decrementAndGet();
+            throw new HoldThrottledException(reason);
+        }
+        numAdmitted.incrementAndGet();
+        holdsInFlight.incrementAndGet();
+        holdingCustomer.set(customer);   // the hold is attributed to the customer as it is made
+        SeatHold seatHold = null;
+        try {
+            HoldResult result = ticketService.tryFindAndHoldSeats(numSeats, customerEmail, new HoldResult());
+            if (!result.isHeld()) {
+                throw new SeatsUnavailableException();
+            }
+            seatHold = result.getSeatHold();
+        } finally {
+            holdingCustomer.remove();
+            holdsInFlight.decrementAndGet();
+            recordHoldLatency(System.nanoTime() - nowNanos);
+            if (seatHold == null) {
+                customer.numHolds.decrementAndGet();
+            }
+        }
+        return seatHold;
+    }
+
+    @Override
+    public String reserveSeats(int seatHoldId, String customerEmail)
+            throws SeatHoldNotFoundException, SeatHoldExpiredException {
+        return ticketService.reserveSeats(seatHoldId, customerEmail);
+    }
+
+    /**
+     * Decides whether to admit a hold request. A token is taken from the customer's bucket,
+     * unless the customer has too many outstanding holds, the bucket is empty or load is being
+     * shed. The request is already counted among the customer's outstanding holds.
+     *
+     * @param customer the customer's state, pinned
+     * @param nowNanos the current time ({@code System.nanoTime()})
+     * @return null if the request is admitted, else why it was turned away
+     */
+    private HoldThrottledException.Reason admit(CustomerState customer, long nowNanos) {
+        customer.lastAccessNanos = nowNanos;
+        if (customer.numHolds.get() > maxHoldsPerCustomer) {   // before taking a token
+            numTooManyHolds.incrementAndGet();
+            return HoldThrottledException.Reason.TOO_MANY_HOLDS;
+        }
+        // The bucket is kept as the time at which it will be full again (the generic cell rate
+        // algorithm), so taking a token is a single compare-and-set.
+        long fullAtNanos;
+        long newFullAtNanos;
+        do {
+            fullAtNanos = customer.bucketFullAtNanos.get();
+            newFullAtNanos = Math.max(fullAtNanos - nowNanos, 0) + emissionIntervalNanos;
+            if (newFullAtNanos > burstToleranceNanos) {
+                numRateLimited.incrementAndGet();
+                return HoldThrottledException.Reason.RATE_LIMITED;
+            }
+            if (isOverloaded() && (newFullAtNanos > burstToleranceNanos / 2)) {
+                numShed.incrementAndGet();   // not the customer's first request in a while
+                return HoldThrottledException.Reason.OVERLOADED;
+            }
+        } while (!customer.bucketFullAtNanos.compareAndSet(fullAtNanos, nowNanos + newFullAtNanos));
+        return null;
+    }
+
+    /**
+     * Folds the latency of an admitted hold request into the moving average.
+     *
+     * @param latencyNanos the latency of the request
+     */
+    @VisibleForTesting
+    void recordHoldLatency(long latencyNanos) {
+        holdLatencyNanosAverage.getAndUpdate(average -> average + ((latencyNanos - average) >> EWMA_SHIFT));
+    }
+
+    /**
+     * Returns true if too many hold requests are in flight, or recent holds have been slow.
+     *
+     * @return whether load should be shed
+     */
+    @VisibleForTesting
+    boolean isOverloaded() {
+        return (holdsInFlight.get() > maxHoldsInFlight) || (holdLatencyNanosAverage.get() > maxHoldLatencyNanos);
+    }
+
+    /**
+     * Returns the state of the specified customer, creating it if need be. A new customer must
+     * claim a place first; if none is free, a few customers are examined for eviction.
+     *
+     * @param customerEmail the customer
+     * @param nowNanos the current time ({@code System.nanoTime()})
+     * @return the customer's state, or null if there is no room for a new customer
+     */
+    private CustomerState getCustomerState(String customerEmail, long nowNanos) {
+        CustomerState customer = customers.get(customerEmail);
+        if (customer != null) {
+            return customer;
+        }
+        if (!claimPlace() && !(evictIdleCustomer(nowNanos) && claimPlace())) {
+            return null;
+        }
+        CustomerState newCustomer = new CustomerState(customerEmail, nowNanos);
+        customer = customers.putIfAbsent(customerEmail, newCustomer);
+        if (customer != null) {
+            numCustomers.decrementAndGet();   // another request added the customer first
+            return customer;
+        }
+        evictionQueue.add(newCustomer);
+        return newCustomer;
+    }
+
+    /**
+     * Claims one of the places for customers.
+     *
+     * @return true if a place was claimed, false if none is free
+     */
+    private boolean claimPlace() {
+        int n;
+        do {
+            n = numCustomers.get();
+            if (n >= maxCustomers) {
+                return false;
+            }
+        } while (!numCustomers.compareAndSet(n, n + 1));
+        return true;
+    }
+
+    /**
+     * Examines up to {@code EVICTION_BATCH} of the longest-tracked customers, evicting the first
+     * that has been idle for too long and has no outstanding holds. The others go to the back
+     * of the line. Several threads may evict at once.
+     *
+     * @param nowNanos the current time ({@code System.nanoTime()})
+     * @return true if a customer was evicted, freeing a place
+     */
+    private boolean evictIdleCustomer(long nowNanos) {
+        for (int i = 0; i < EVICTION_BATCH; i++) {
+            CustomerState customer = evictionQueue.poll();
+            if (customer == null) {
+                return false;
+            }
+            if ((nowNanos - customer.lastAccessNanos > idleNanos) && customer.evict()) {
+                customers.remove(customer.email, customer);
+                numCustomers.decrementAndGet();
+                return true;
+            }
+            evictionQueue.add(customer);   // a second chance
+        }
+        return false;
+    }
+
+    /**
+     * Attributes each seatHold made through this controller to its customer, and uncounts it as
+     * it is reserved or expired. Invoked while the TicketServiceImpl lock is held, on the thread
+     * that made the change.
+     *
+     * @param change the seat map change
+     */
+    private void seatMapChanged(SeatMapChange change) {
+        if (change.getType() == SeatMapChange.Type.HELD) {
+            CustomerState customer = holdingCustomer.get();
+            if (customer != null) {
+                holdOwners.put(change.getSeatHoldId(), customer);
+            }
+            return;
+        }
+        if (change.getType() == SeatMapChange.Type.EXTENDED) {
+            return;
+        }
+        CustomerState customer = holdOwners.remove(change.getSeatHoldId());
+        if (customer != null) {
+            customer.numHolds.decrementAndGet();
+        }
+    }
+
+    /**
+     * Number of seatHolds made through this controller that are neither reserved nor expired.
+     *
+     * @return number of outstanding seatHolds
+     */
+    @VisibleForTesting
+    int getNumHoldOwners() {
+        return holdOwners.size();
+    }
+
+    /**
+     * Number of customers currently tracked.
+     *
+     * @return number of customers
+     */
+    public int getNumCustomers() {
+        return customers.size();
+    }
+
+    /**
+     * Number of hold requests admitted.
+     *
+     * @return number of admitted requests
+     */
+    public long getNumAdmitted() {
+        return numAdmitted.get();
+    }
+
+    /**
+     * Number of hold requests turned away because the customer's token bucket was empty.
+     *
+     * @return number of rate limited requests
+     */
+    public long getNumRateLimited() {
+        return numRateLimited.get();
+    }
+
+    /**
+     * Number of hold requests turned away because the customer had too many outstanding holds.
+     *
+     * @return number of requests turned away
+     */
+    public long getNumTooManyHolds() {
+        return numTooManyHolds.get();
+    }
+
+    /**
+     * Number of hold requests turned away to shed load.
+     *
+     * @return number of shed requests
+     */
+    public long getNumShed() {
+        return numShed.get();
+    }
+
+    /**
+     * The admission state of one customer. Every field is updated without locking.
+     */
+    private static class CustomerState {
+
+        /** The outstanding hold count of a customer that has been evicted. */
+        private static final int EVICTED = -1;
+
+        /** The customer. */
+        final String email;
+
+        /** When the customer's token bucket will be full again ({@code System.nanoTime()}). */
+        final AtomicLong bucketFullAtNanos;
+
+        /**
+         * Number of the customer's holds that are neither reserved nor expired (including
+         * requests in flight), or EVICTED.
+         */
+        final AtomicInteger numHolds = new AtomicInteger();
+
+        /** When the customer last made a request ({@code System.nanoTime()}). */
+        volatile long lastAccessNanos;
+
+        CustomerState(String email, long nowNanos) {
+            this.email = email;
+            this.bucketFullAtNanos = new AtomicLong(nowNanos);
+            this.lastAccessNanos = nowNanos;
+        }
+
+        /**
+         * Counts a hold request among the customer's outstanding holds, so the customer cannot
+         * be evicted until it is uncounted.
+         *
+         * @return true if counted, false if the customer has already been evicted
+         */
+        boolean pin() {
+            int n;
+            do {
+                n = numHolds.get();
+                if (n == EVICTED) {
+                    return false;
+                }
+            } while (!numHolds.compareAndSet(n, n + 1));
+            return true;
+        }
+
+        /**
+         * Marks the customer evicted, if it has no outstanding holds or hold requests in flight.
+         *
+         * @return true if evicted
+         */
+        boolean evict() {
+            return numHolds.compareAndSet(0, EVICTED);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.rph.ticketservice.implementation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * An exact seat selection strategy: of all runs of adjacent available seats of the needed
+ * length, in any row, the run with the lowest total (and so average) bestness is chosen.
+ * Each row is examined with a sliding window over the venue's bestness prefix sums for the row,
+ * so a search costs O(row width) per row, and only the winning run is materialized.
+ * Ties are resolved in favor of the lower row number, and then the lower seat number.
+ */
+public class BestAverageRunStrategy implements SeatSelectionStrategy {
+
+    @Override
+    public List<SeatImpl> selectSeats(int numSeats, List<SeatImpl> bestAvailableSeats, SeatGrid seatGrid,
+                                      SearchStats searchStats) {
+        int numEntriesScanned = 0;
+        int numCandidatesEvaluated = 0;
+        int bestTotalSoFar = Integer.MAX_VALUE;
+        int bestRowNum = -1;
+        int bestFirstSeatNumInRow = -1;
+        for (int rowNum = 0; rowNum < seatGrid.getNumRows(); rowNum++) {
+            int[] prefixSums = seatGrid.getBestnessPrefixSums(rowNum);
+            final int numSeatsInRow = seatGrid.getRowLength(rowNum);
+            int runLength = 0;   // number of consecutive available seats ending at seatNumInRow
+            for (int seatNumInRow = 0; seatNumInRow < numSeatsInRow; seatNumInRow++) {
+                numEntriesScanned += 1;
+                runLength = seatGrid.isAvailable(rowNum, seatNumInRow) ? (runLength + 1) : 0;
+                if (runLength >= numSeats) {
+                    numCandidatesEvaluated += 1;
+                    int firstSeatNumInRow = seatNumInRow - numSeats + 1;
+                    int total = prefixSums[seatNumInRow + 1] - prefixSums[firstSeatNumInRow];
+                    if (total < bestTotalSoFar) {   // smaller bestness values implies better seats
+                        bestTotalSoFar = total;
+                        bestRowNum = rowNum;
+                        bestFirstSeatNumInRow = firstSeatNumInRow;
+                    }
+                }
+            }
+        }
+        if (bestRowNum < 0) {
+            searchStats.recordSearch(numEntriesScanned, numCandidatesEvaluated, Double.NaN);
+            return null;   // insufficient adjacent available seats
+        }
+        List<SeatImpl> winner = new ArrayList<>(numSeats);
+        for (int seatNumInRow = bestFirstSeatNumInRow; seatNumInRow < bestFirstSeatNumInRow + numSeats; seatNumInRow++) {
+            winner.add(seatGrid.getSeat(bestRowNum, seatNumInRow));
+        }
+        searchStats.recordSearch(numEntriesScanned, numCandidatesEvaluated, (double) bestTotalSoFar / numSeats);
+        return winner;
+    }
+}
@@ -0,0 +1,77 @@
+package com.rph.ticketservice.implementation;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * A {@code BlockIdGenerator} issues IDs from blocks of consecutive IDs. Each thread claims a
+ * block of {@code blockSize} IDs from a shared counter with a single atomic add, and then
+ * issues IDs from its block without touching shared state, so contending threads meet only
+ * once per block.
+ * <p>
+ * Generators (one per shard, say) that are constructed on the same counter claim disjoint
+ * blocks, so their IDs never collide. A block that is not used up is abandoned when its thread
+ * dies, leaving a gap. With a block size of 1, IDs are issued in order, with no gaps.
+ */
+public class BlockIdGenerator implements IdGenerator {
+
+    /** The first ID of the next unclaimed block. Possibly shared with other generators. */
+    private final AtomicLong nextBlockStart;
+
+    /** Number of IDs in each block. */
+    private final int blockSize;
+
+    /** The calling thread's block: {next ID, end of block}. */
+    private final ThreadLocal<long[]> threadBlock = ThreadLocal.withInitial(() -> new long[2]);
+
+
+    /**
+     * Constructs a new BlockIdGenerator with its own counter.
+     *
+     * @param firstId the first ID to be issued
+     * @param blockSize the number of IDs claimed at a time
+     */
+    public BlockIdGenerator(long firstId, int blockSize) {
+        this(new AtomicLong(firstId), blockSize);
+    }
+
+    /**
+     * Constructs a new BlockIdGenerator that claims its blocks from the specified counter,
+     * which may be shared with other generators.
+     *
+     * @param nextBlockStart the shared counter
+     * @param blockSize the number of IDs claimed at a time
+     */
+    public BlockIdGenerator(AtomicLong nextBlockStart, int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("blockSize must be positive");
+        }
+        if (nextBlockStart.get() < 0) {
+            throw new IllegalArgumentException("negative first ID");
+        }
+        this.nextBlockStart = nextBlockStart;
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public long nextId() {
+        if (blockSize == 1) {
+            return nextBlockStart.getAndIncrement();
+        }
+        long[] block = threadBlock.get();
+        if (block[0] == block[1]) {
+            block[0] = nextBlockStart.getAndAdd(blockSize);
+            block[1] = block[0] + blockSize;
+        }
+        return block[0]++;
+    }
+
+    /**
+     * Number of IDs in each block.
+     *
+     * @return the block size
+     */
+    public int getBlockSize() {
+        return blockSize;
+    }
+}
@@ -0,0 +1,188 @@
+package com.rph.ticketservice.implementation;
+
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+
+/**
+ * A {@code ClusterNode} is a simulated node of a {@code LocalCluster}. It owns the
+ * TicketServiceImpl (engine) of each performance routed to it, and serves requests for them on
+ * its own pool of worker threads. Requests reach a node through an in-memory channel (its
+ * executor's queue), and a request is only ever executed by a worker of the node that owns the
+ * performance, as it would be on a real node.
+ * <p>
+ * A request for a performance the node does not own (it has just been moved away, say) fails
+ * with a {@code NotOwnerException}, and the caller routes it again. A request sent to a node
+ * that has shut down fails with a {@code NodeShutDownException}.
+ */
+public class ClusterNode {
+
+    /** Thrown by a node that does not own the requested performance. */
+    static class NotOwnerException extends RuntimeException {
+
+        NotOwnerException(String message) {
+            super(message);
+        }
+
+        /**
+         * Does not capture a stack trace; the caller simply routes the request again.
+         *
+         * @return this exception
+         */
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    /** Thrown by a node that has shut down, and accepts no more requests. */
+    static class NodeShutDownException extends IllegalStateException {
+
+        NodeShutDownException(String message) {
+            super(message);
+        }
+    }
+
+    /** This node's ID. */
+    private final int nodeId;
+
+    /** The engine of each performance owned by this node, by routing key. */
+    private final ConcurrentMap<String, TicketServiceImpl> engines = new ConcurrentHashMap<>();
+
+    /** The node's worker threads. Its queue is the node's inbound channel. */
+    private final ExecutorService workers;
+
+    /** Number of requests executed. */
+    private final AtomicLong numRequests = new AtomicLong();
+
+
+    /**
+     * Constructs a new ClusterNode, which owns no performances.
+     *
+     * @param nodeId the node ID
+     * @param numWorkers number of worker threads
+     */
+    ClusterNode(int nodeId, int numWorkers) {
+        this.nodeId = nodeId;
+        this.workers = Executors.newFixedThreadPool(numWorkers, runnable -> {
+            Thread thread = new Thread(runnable, "node-" + nodeId + "-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * This node's ID.
+     *
+     * @return the node ID
+     */
+    public int getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * The routing keys of the performances owned by this node.
+     *
+     * @return the routing keys, in order
+     */
+    public Set<String> getRoutingKeys() {
+        return new TreeSet<>(engines.keySet());
+    }
+
+    /**
+     * Number of requests executed by this node, including those for performances it no
+     * longer owned.
+     *
+     * @return number of requests
+     */
+    public long getNumRequests() {
+        return numRequests.get();
+    }
+
+    /**
+     * The engine of the specified performance.
+     *
+     * @param key the routing key
+     * @return the engine, or null if this node does not own the performance
+     */
+    TicketServiceImpl getEngine(String key) {
+        return engines.get(key);
+    }
+
+    /**
+     * Takes ownership of a performance.
+     *
+     * @param key the routing key
+     * @param engine the performance's engine
+     */
+    void addEngine(String key, TicketServiceImpl engine) {
+        engines.put(key, engine);
+    }
+
+    /**
+     * Gives up ownership of a performance. Requests already executing on its engine complete.
+     *
+     * @param key the routing key
+     * @return the engine, or null if this node did not own the performance
+     */
+    TicketServiceImpl removeEngine(String key) {
+        return engines.remove(key);
+    }
+
+    /**
+     * Sends a request for the specified performance to this node, and waits for the response.
+     *
+     * @param key the routing key
+     * @param request the request, applied to the performance's engine by a worker thread
+     * @param <T> the type of the response
+     * @return the response
+     * @throws NotOwnerException if this node does not own the performance
+     * @throws NodeShutDownException if this node has shut down
+     */
+    <T> T call(String key, Function<TicketServiceImpl, T> request) {
+        Future<T> future;
+        try {
+            future = workers.submit(() -> {
+                numRequests.incrementAndGet();
+                TicketServiceImpl engine = engines.get(key);
+                if (engine == null) {
+                    throw new NotOwnerException("node " + nodeId + " does not own " + key);
+                }
+                return request.apply(engine);
+            });
+        } catch (RejectedExecutionException e) {
+            throw new NodeShutDownException("node " + nodeId + " has shut down");
+        }
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for node " + nodeId, e);
+        }
+    }
+
+    /**
+     * Stops accepting requests. Requests already sent are still executed.
+     */
+    void shutdown() {
+        workers.shutdown();
+    }
+}
@@ -0,0 +1,110 @@
+package com.rph.ticketservice.implementation;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+
+/**
+ * A {@code ConsistentHashRouter} maps routing keys (performances, or sections of performances;
+ * see {@code LocalCluster.getRoutingKey}) to node IDs. Each node is placed on a hash ring at
+ * many points (virtual nodes), and a key is routed to the node at the first point at or after
+ * the key's hash. Adding or removing a node therefore moves only about 1/N of the keys, and the
+ * keys are spread evenly even when there are few nodes.
+ * <p>
+ * Routing never blocks; nodes may be added and removed while keys are being routed.
+ */
+public class ConsistentHashRouter {
+
+    /** Default number of points on the ring per node. */
+    public static final int DEFAULT_VIRTUAL_NODES = 128;
+
+    /** Number of points on the ring per node. */
+    private final int numVirtualNodes;
+
+    /** Node ID by ring position. */
+    private final NavigableMap<Long, Integer> ring = new ConcurrentSkipListMap<>();
+
+
+    /**
+     * Constructs a new ConsistentHashRouter with no nodes.
+     *
+     * @param numVirtualNodes number of points on the ring per node
+     */
+    public ConsistentHashRouter(int numVirtualNodes) {
+        if (numVirtualNodes < 1) {
+            throw new IllegalArgumentException("numVirtualNodes must be positive");
+        }
+        this.numVirtualNodes = numVirtualNodes;
+    }
+
+    /**
+     * Adds a node to the ring. Adding a node that is already on the ring has no effect.
+     *
+     * @param nodeId the node ID
+     */
+    public synchronized void addNode(int nodeId) {
+        for (int i = 0; i < numVirtualNodes; i++) {
+            ring.putIfAbsent(hash(nodeId + "#" + i), nodeId);   // a (very rare) collision keeps the first node
+        }
+    }
+
+    /**
+     * Removes a node from the ring. Its keys are routed to the following nodes on the ring.
+     *
+     * @param nodeId the node ID
+     */
+    public synchronized void removeNode(int nodeId) {
+        for (int i = 0; i < numVirtualNodes; i++) {
+            ring.remove(hash(nodeId + "#" + i), nodeId);
+        }
+    }
+
+    /**
+     * The IDs of the nodes on the ring.
+     *
+     * @return the node IDs, in increasing order
+     */
+    public Set<Integer> getNodeIds() {
+        return new TreeSet<>(ring.values());
+    }
+
+    /**
+     * Routes the specified key to a node.
+     *
+     * @param key the routing key
+     * @return the node ID
+     * @throws IllegalStateException if there are no nodes
+     */
+    public int route(String key) {
+        Map.Entry<Long, Integer> entry = ring.ceilingEntry(hash(key));
+        if (entry == null) {
+            entry = ring.firstEntry();   // wrap around
+            if (entry == null) {
+                throw new IllegalStateException("no nodes");
+            }
+        }
+        return entry.getValue();
+    }
+
+    /**
+     * A well-mixed 64-bit hash of the specified string: FNV-1a over its UTF-8 bytes, followed by
+     * the MurmurHash3 finalizer, so that similar keys land far apart on the ring.
+     *
+     * @param s the string
+     * @return the hash
+     */
+    @VisibleForTesting
+    static long hash(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : s.getBytes(StandardCharsets.UTF_8)) {
+            h = (h ^ (b & 0xFF)) * 0x100000001b3L;
+        }
+        h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+        h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+}
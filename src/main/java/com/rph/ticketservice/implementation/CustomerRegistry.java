@@ -0,0 +1,220 @@
+package com.rph.ticketservice.implementation;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+
+/**
+ * A {@code CustomerRegistry} interns the email addresses of one TicketServiceImpl's customers:
+ * each customer is assigned a dense int ID (0, 1, 2, ...), so that seatHolds store an int, and
+ * the address is stored once, however many holds refer to it, rather than once per request that
+ * parsed it.
+ * <p>
+ * IDs are reference counted. A request holds a reference from before the TicketServiceImpl's
+ * lock is taken until it returns, and a seatHold holds one until it expires (a reserved
+ * seatHold keeps its reference). When the last reference to a customer is released, the customer
+ * is forgotten and its ID is reused, so the registry holds only the customers with outstanding
+ * requests, holds or reservations, and never more than {@code maxCustomers} of them.
+ * <p>
+ * No lock is shared by all customers. A customer's reference count is updated atomically within
+ * its ConcurrentHashMap entry, free IDs are kept in a lock-free queue, and the table of customers
+ * by ID is allocated in chunks as it fills, so it is never copied. An address is validated only
+ * when its customer is registered.
+ */
+class CustomerRegistry {
+
+    /** The ID of no customer. */
+    static final int NO_CUSTOMER = -1;
+
+    /** Default maximum number of customers registered at once. */
+    static final int DEFAULT_MAX_CUSTOMERS = 1 << 20;
+
+    /** log2 of the number of customers in each chunk of the table. */
+    private static final int CHUNK_SHIFT = 10;
+
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+    /**
+     * A registered customer.
+     */
+    private static final class Customer {
+
+        private final int customerId;
+
+        private final String customerEmail;
+
+        /** Number of references to the customer. Updated only within its map entry's compute. */
+        private int numReferences = 0;
+
+        private Customer(int customerId, String customerEmail) {
+            this.customerId = customerId;
+            this.customerEmail = customerEmail;
+        }
+    }
+
+    private final int maxCustomers;
+
+    /** Registered customers, by email address. */
+    private final ConcurrentMap<String, Customer> customersByEmail = new ConcurrentHashMap<>();
+
+    /** Registered customers, by ID, in chunks of {@code CHUNK_SIZE}; a chunk is allocated when first needed. */
+    private final AtomicReferenceArray<AtomicReferenceArray<Customer>> customersById;
+
+    /** Number of IDs ever drawn; IDs below this that are not registered are in {@code freeCustomerIds}. */
+    private final AtomicInteger numCustomerIdsDrawn = new AtomicInteger();
+
+    /** IDs of forgotten customers, to be reused. */
+    private final Queue<Integer> freeCustomerIds = new ConcurrentLinkedQueue<>();
+
+
+    /**
+     * Constructs a new CustomerRegistry, for up to {@code DEFAULT_MAX_CUSTOMERS} customers at once.
+     */
+    CustomerRegistry() {
+        this(DEFAULT_MAX_CUSTOMERS);
+    }
+
+    /**
+     * Constructs a new CustomerRegistry.
+     *
+     * @param maxCustomers the maximum number of customers registered at once
+     */
+    CustomerRegistry(int maxCustomers) {
+        if (maxCustomers <= 0) {
+            throw new IllegalArgumentException("bad maximum number of customers: " + maxCustomers);
+        }
+        this.maxCustomers = maxCustomers;
+        this.customersById = new AtomicReferenceArray<>(((maxCustomers - 1) >>> CHUNK_SHIFT) + 1);
+    }
+
+    /**
+     * Returns the ID of the specified customer, registering the customer if need be, and takes
+     * a reference to it, which the caller must release (or hand on to a seatHold).
+     *
+     * @param customerEmail the customer's email address
+     * @return the customer ID
+     * @throws IllegalArgumentException if the email address is invalid
+     * @throws IllegalStateException if {@code maxCustomers} customers are already registered
+     */
+    int acquire(String customerEmail) {
+        if (customerEmail == null) {
+            throw new IllegalArgumentException("invalid email address: null");
+        }
+        return customersByEmail.compute(customerEmail, (email, customer) -> {
+            if (customer == null) {
+                SeatHoldImpl.checkEmailAddress(email);
+                customer = new Customer(drawCustomerId(), email);
+                getChunk(customer.customerId).set(customer.customerId & (CHUNK_SIZE - 1), customer);
+            }
+            customer.numReferences += 1;
+            return customer;
+        }).customerId;
+    }
+
+    /**
+     * Takes another reference to a customer. The caller must already hold a reference to it.
+     *
+     * @param customerId the customer ID
+     */
+    void retain(int customerId) {
+        customersByEmail.computeIfPresent(getRegisteredCustomer(customerId).customerEmail, (email, customer) -> {
+            customer.numReferences += 1;
+            return customer;
+        });
+    }
+
+    /**
+     * Releases a reference to a customer. When the last reference is released, the customer is
+     * forgotten, and its ID may be reused.
+     *
+     * @param customerId the customer ID
+     */
+    void release(int customerId) {
+        customersByEmail.computeIfPresent(getRegisteredCustomer(customerId).customerEmail, (email, customer) -> {
+            customer.numReferences -= 1;
+            if (customer.numReferences > 0) {
+                return customer;
+            }
+            getChunk(customerId).set(customerId & (CHUNK_SIZE - 1), null);
+            freeCustomerIds.add(customerId);
+            return null;
+        });
+    }
+
+    /**
+     * Returns the email address of the specified customer.
+     *
+     * @param customerId the customer ID
+     * @return the customer's email address, or null if no customer has the ID
+     */
+    String getCustomerEmail(int customerId) {
+        if ((customerId < 0) || (customerId >= maxCustomers)) {
+            return null;
+        }
+        AtomicReferenceArray<Customer> chunk = customersById.get(customerId >>> CHUNK_SHIFT);
+        Customer customer = (chunk == null) ? null : chunk.get(customerId & (CHUNK_SIZE - 1));
+        return (customer == null) ? null : customer.customerEmail;
+    }
+
+    /**
+     * Returns the ID of the specified customer, without registering it or taking a reference.
+     *
+     * @param customerEmail the customer's email address
+     * @return the customer ID, or NO_CUSTOMER if the customer is not registered
+     */
+    @VisibleForTesting
+    int getCustomerId(String customerEmail) {
+        Customer customer = (customerEmail == null) ? null : customersByEmail.get(customerEmail);
+        return (customer == null) ? NO_CUSTOMER : customer.customerId;
+    }
+
+    /**
+     * Number of customers registered.
+     *
+     * @return number of customers
+     */
+    int getNumCustomers() {
+        return customersByEmail.size();
+    }
+
+    /**
+     * Draws an unused ID: a forgotten customer's, if any, else the next never used.
+     */
+    private int drawCustomerId() {
+        Integer customerId = freeCustomerIds.poll();
+        if (customerId != null) {
+            return customerId;
+        }
+        int n;
+        do {
+            n = numCustomerIdsDrawn.get();
+            if (n >= maxCustomers) {
+                throw new IllegalStateException("too many customers: " + maxCustomers);
+            }
+        } while (!numCustomerIdsDrawn.compareAndSet(n, n + 1));
+        return n;
+    }
+
+    private AtomicReferenceArray<Customer> getChunk(int customerId) {
+        int chunkNum = customerId >>> CHUNK_SHIFT;
+        AtomicReferenceArray<Customer> chunk = customersById.get(chunkNum);
+        if (chunk == null) {
+            customersById.compareAndSet(chunkNum, null, new AtomicReferenceArray<>(CHUNK_SIZE));
+            chunk = customersById.get(chunkNum);
+        }
+        return chunk;
+    }
+
+    private Customer getRegisteredCustomer(int customerId) {
+        AtomicReferenceArray<Customer> chunk = customersById.get(customerId >>> CHUNK_SHIFT);
+        Customer customer = (chunk == null) ? null : chunk.get(customerId & (CHUNK_SIZE - 1));
+        if (customer == null) {
+            throw new IllegalStateException("no customer has ID " + customerId);
+        }
+        return customer;
+    }
+}
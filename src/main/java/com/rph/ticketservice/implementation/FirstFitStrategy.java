@@ -0,0 +1,33 @@
+package com.rph.ticketservice.implementation;
+
+import java.util.List;
+
+
+/**
+ * The cheapest seat selection strategy: the first (best) available seat having enough adjacent
+ * available seats is chosen, spreading outward from it. Only one candidate is ever built.
+ * The scan skips the best seats already known to be too crowded for the party.
+ */
+public class FirstFitStrategy implements SeatSelectionStrategy {
+
+    @Override
+    public List<SeatImpl> selectSeats(int numSeats, List<SeatImpl> bestAvailableSeats, SeatGrid seatGrid,
+                                      SearchStats searchStats) {
+        int numEntriesScanned = 0;
+        final int numAvailableSeats = bestAvailableSeats.size();
+        for (int index = seatGrid.getScanStartIndex(numSeats, bestAvailableSeats); index < numAvailableSeats; index++) {
+            SeatImpl nextBestAvailableSeat = bestAvailableSeats.get(index);
+            numEntriesScanned += 1;
+            int firstSeatNumInRow = TicketServiceImpl.getAdjacentRunStart(numSeats, nextBestAvailableSeat, seatGrid);
+            if (firstSeatNumInRow >= 0) {
+                seatGrid.recordFirstFit(numSeats, nextBestAvailableSeat.getBestness());
+                int total = seatGrid.getTotalBestness(nextBestAvailableSeat.getRowNum(), firstSeatNumInRow, numSeats);
+                searchStats.recordSearch(numEntriesScanned, 1, (double) total / numSeats);
+                return TicketServiceImpl.collectAdjacentSeats(numSeats, nextBestAvailableSeat, seatGrid);
+            }
+        }
+        seatGrid.recordFirstFit(numSeats, Integer.MAX_VALUE);   // nothing fits
+        searchStats.recordSearch(numEntriesScanned, 0, Double.NaN);
+        return null;
+    }
+}
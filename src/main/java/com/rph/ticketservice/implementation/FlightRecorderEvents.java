@@ -0,0 +1,122 @@
+package com.rph.ticketservice.implementation;
+
+
+/**
+ * {@code FlightRecorderEvents} emits the TicketService's Flight Recorder events: seat searches,
+ * holds, reservations and expirations. Each event is begun before the operation (so its duration
+ * includes the wait for the lock) and committed after it.
+ * <p>
+ * The event classes extend {@code jdk.jfr.Event}, which is not part of the Java 8 API, so they
+ * are compiled separately (from {@code src/jfr/java}) and their implementation of this interface
+ * is loaded reflectively. Without it, or on a JVM without Flight Recorder, the default methods
+ * apply: nothing is emitted and nothing is allocated. A begin method returns the event, or null
+ * if the event is not enabled; the commit methods accept null and do nothing.
+ */
+interface FlightRecorderEvents {
+
+    /** The class that emits events through Flight Recorder. */
+    String JDK_FLIGHT_RECORDER_EVENTS = "com.rph.ticketservice.implementation.JdkFlightRecorderEvents";
+
+    /** Emits nothing. */
+    FlightRecorderEvents NONE = new FlightRecorderEvents() { };
+
+    /**
+     * Loads the Flight Recorder implementation, if it and Flight Recorder are available.
+     *
+     * @return the Flight Recorder implementation, or NONE
+     */
+    static FlightRecorderEvents load() {
+        try {
+            return (FlightRecorderEvents) Class.forName(JDK_FLIGHT_RECORDER_EVENTS).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError | ClassCastException e) {
+            return NONE;
+        }
+    }
+
+    /**
+     * Begins a seat search event.
+     *
+     * @return the event, or null
+     */
+    default Object beginSearch() {
+        return null;
+    }
+
+    /**
+     * Commits a seat search event.
+     *
+     * @param event the event returned by {@code beginSearch}, or null
+     * @param partySize the number of seats needed
+     * @param entriesScanned number of available seats examined
+     * @param candidatesEvaluated number of candidates evaluated
+     * @param winningAverageBestness average bestness of the chosen seats, or NaN if none were found
+     * @param found true if seats were found
+     */
+    default void commitSearch(Object event, int partySize, int entriesScanned, int candidatesEvaluated,
+                              double winningAverageBestness, boolean found) {
+    }
+
+    /**
+     * Begins a hold event.
+     *
+     * @return the event, or null
+     */
+    default Object beginHold() {
+        return null;
+    }
+
+    /**
+     * Commits a hold event.
+     *
+     * @param event the event returned by {@code beginHold}, or null
+     * @param partySize the number of seats requested
+     * @param entriesScanned number of available seats examined
+     * @param candidatesEvaluated number of candidates evaluated
+     * @param winningAverageBestness average bestness of the held seats, or NaN if none were held
+     * @param outcome the outcome
+     * @param seatHoldId ID of the new seat hold, or -1 if none
+     */
+    default void commitHold(Object event, int partySize, int entriesScanned, int candidatesEvaluated,
+                            double winningAverageBestness, String outcome, int seatHoldId) {
+    }
+
+    /**
+     * Begins a reservation event.
+     *
+     * @return the event, or null
+     */
+    default Object beginReserve() {
+        return null;
+    }
+
+    /**
+     * Commits a reservation event.
+     *
+     * @param event the event returned by {@code beginReserve}, or null
+     * @param seatHoldId the seat hold ID
+     * @param outcome the outcome
+     */
+    default void commitReserve(Object event, int seatHoldId, String outcome) {
+    }
+
+    /**
+     * Begins an expiration event.
+     *
+     * @return the event, or null
+     */
+    default Object beginExpire() {
+        return null;
+    }
+
+    /**
+     * Commits an expiration event.
+     *
+     * @param event the event returned by {@code beginExpire}, or null
+     * @param seatHoldId the seat hold ID
+     * @param partySize the number of seats held
+     * @param lagMillis how late the expiration ran, compared with its deadline
+     * @param outcome EXPIRED, or the state of a seat hold that could not be expired
+     */
+    default void commitExpire(Object event, int seatHoldId, int partySize, long lagMillis, String outcome) {
+    }
+}
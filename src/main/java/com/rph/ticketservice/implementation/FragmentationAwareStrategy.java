@@ -0,0 +1,155 @@
+package com.rph.ticketservice.implementation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * A seat selection strategy that avoids leaving orphan seats (single available seats, which
+ * no party but a party of one can use). Like {@code TopCandidatesStrategy}, it examines the
+ * runs around the first few seats having enough adjacent available seats. For each, it also
+ * considers the placements shifted one seat either way, and the placements flush against
+ * either end of the enclosing run of available seats. Each placement is scored by its total
+ * bestness plus a penalty for each orphan seat it would leave behind.
+ * <p>
+ * The penalty is expressed in sideways seat moves: an orphan penalty of 1.0 means that each
+ * party member would accept a seat about one position further from the center of its row
+ * (about {@code numRows} bestness units) to avoid leaving an orphan. A split penalty may also
+ * be charged for each placement that leaves available seats on both sides of the party, splitting
+ * a run in two; a large split penalty packs parties against the ends of runs, which keeps the
+ * remaining seats in as few runs as possible.
+ */
+public class FragmentationAwareStrategy implements SeatSelectionStrategy {
+
+    /** Default orphan penalty, in sideways seat moves per party member. */
+    public static final double DEFAULT_ORPHAN_PENALTY = 1.0;
+
+    /** Number of seats examined as initial seats. */
+    private final int numCandidates;
+
+    /** Orphan penalty, in sideways seat moves per party member. */
+    private final double orphanPenalty;
+
+    /** Split penalty, in sideways seat moves per party member. */
+    private final double splitPenalty;
+
+
+    /**
+     * Constructs a new FragmentationAwareStrategy.
+     *
+     * @param numCandidates the maximum number of initial seats examined per search
+     * @param orphanPenalty the penalty for each orphan seat left behind, in sideways seat moves per party member
+     */
+    public FragmentationAwareStrategy(int numCandidates, double orphanPenalty) {
+        this(numCandidates, orphanPenalty, 0.0);
+    }
+
+    /**
+     * Constructs a new FragmentationAwareStrategy that also penalizes splitting a run in two.
+     *
+     * @param numCandidates the maximum number of initial seats examined per search
+     * @param orphanPenalty the penalty for each orphan seat left behind, in sideways seat moves per party member
+     * @param splitPenalty the penalty for leaving available seats on both sides of the party,
+     *                     in sideways seat moves per party member
+     */
+    public FragmentationAwareStrategy(int numCandidates, double orphanPenalty, double splitPenalty) {
+        if (numCandidates <= 0) {
+            throw new IllegalArgumentException("bad numCandidates: " + numCandidates);
+        }
+        if (!(orphanPenalty >= 0)) {
+            throw new IllegalArgumentException("bad orphanPenalty: " + orphanPenalty);
+        }
+        if (!(splitPenalty >= 0)) {
+            throw new IllegalArgumentException("bad splitPenalty: " + splitPenalty);
+        }
+        this.numCandidates = numCandidates;
+        this.orphanPenalty = orphanPenalty;
+        this.splitPenalty = splitPenalty;
+    }
+
+    @Override
+    public List<SeatImpl> selectSeats(int numSeats, List<SeatImpl> bestAvailableSeats, SeatGrid seatGrid,
+                                      SearchStats searchStats) {
+        final double penaltyPerOrphan = orphanPenalty * numSeats * seatGrid.getNumRows();
+        final double penaltyPerSplit = splitPenalty * numSeats * seatGrid.getNumRows();
+        int numCandidatesRemaining = numCandidates;
+        int numEntriesScanned = 0;
+        int numPlacementsEvaluated = 0;
+        double bestScoreSoFar = Double.MAX_VALUE;
+        int bestTotalSoFar = 0;
+        int bestRowNum = -1;
+        int bestFirstSeatNumInRow = -1;
+        int[] placements = new int[5];
+        final int numAvailableSeats = bestAvailableSeats.size();
+        for (int index = seatGrid.getScanStartIndex(numSeats, bestAvailableSeats); index < numAvailableSeats; index++) {
+            SeatImpl nextBestAvailableSeat = bestAvailableSeats.get(index);
+            numEntriesScanned += 1;
+            int adjacentRunStart = TicketServiceImpl.getAdjacentRunStart(numSeats, nextBestAvailableSeat, seatGrid);
+            if (adjacentRunStart < 0) {
+                continue;
+            }
+            if (numCandidatesRemaining == numCandidates) {
+                seatGrid.recordFirstFit(numSeats, nextBestAvailableSeat.getBestness());
+            }
+            final int rowNum = nextBestAvailableSeat.getRowNum();
+            int runStart = getRunEnd(rowNum, nextBestAvailableSeat.getSeatNumInRow(), -1, seatGrid);
+            int runEnd = getRunEnd(rowNum, nextBestAvailableSeat.getSeatNumInRow(), +1, seatGrid);
+            placements[0] = adjacentRunStart;
+            placements[1] = adjacentRunStart - 1;
+            placements[2] = adjacentRunStart + 1;
+            placements[3] = runStart;
+            placements[4] = runEnd - numSeats + 1;
+            for (int firstSeatNumInRow : placements) {
+                if (firstSeatNumInRow < runStart || firstSeatNumInRow + numSeats - 1 > runEnd) {
+                    continue;   // not within the run
+                }
+                numPlacementsEvaluated += 1;
+                int total = seatGrid.getTotalBestness(rowNum, firstSeatNumInRow, numSeats);
+                int numOrphans = ((firstSeatNumInRow - runStart == 1) ? 1 : 0)
+                        + ((runEnd - (firstSeatNumInRow + numSeats - 1) == 1) ? 1 : 0);
+                boolean splits = (firstSeatNumInRow > runStart) && (firstSeatNumInRow + numSeats - 1 < runEnd);
+                double score = total + (numOrphans * penaltyPerOrphan) + (splits ? penaltyPerSplit : 0);
+                if (score < bestScoreSoFar) {
+                    bestScoreSoFar = score;
+                    bestTotalSoFar = total;
+                    bestRowNum = rowNum;
+                    bestFirstSeatNumInRow = firstSeatNumInRow;
+                }
+            }
+            if (--numCandidatesRemaining == 0) {
+                break;
+            }
+        }
+        if (bestRowNum < 0) {
+            seatGrid.recordFirstFit(numSeats, Integer.MAX_VALUE);   // nothing fits
+            searchStats.recordSearch(numEntriesScanned, numPlacementsEvaluated, Double.NaN);
+            return null;
+        }
+        searchStats.recordSearch(numEntriesScanned, numPlacementsEvaluated, (double) bestTotalSoFar / numSeats);
+        List<SeatImpl> winner = new ArrayList<>(numSeats);
+        for (int seatNumInRow = bestFirstSeatNumInRow; seatNumInRow < bestFirstSeatNumInRow + numSeats; seatNumInRow++) {
+            winner.add(seatGrid.getSeat(bestRowNum, seatNumInRow));
+        }
+        return winner;
+    }
+
+    /**
+     * Finds one end of the run of adjacent available seats containing the specified seat.
+     *
+     * @param rowNum the row number
+     * @param seatNumInRow the seat number in the row of an available seat
+     * @param direction -1 for the left (first) end, +1 for the right (last) end
+     * @param seatGrid the grid of all seats
+     * @return the seat number in the row of the end seat of the run
+     */
+    @VisibleForTesting
+    static int getRunEnd(int rowNum, int seatNumInRow, int direction, SeatGrid seatGrid) {
+        final int numSeatsInRow = seatGrid.getRowLength(rowNum);
+        int end = seatNumInRow;
+        for (int next = seatNumInRow + direction;
+             (next >= 0) && (next < numSeatsInRow) && seatGrid.isAvailable(rowNum, next); next += direction) {
+            end = next;
+        }
+        return end;
+    }
+}
@@ -0,0 +1,157 @@
+package com.rph.ticketservice.implementation;
+
+/**
+ * A {@code FragmentationReport} describes how the available seats of a seat map snapshot are
+ * broken up into runs of adjacent available seats, and so how many parties of each size the
+ * seat map could still seat together. It is immutable, and is built without the TicketService lock.
+ */
+public class FragmentationReport {
+
+    /** Version of the snapshot this report describes. */
+    private final long version;
+
+    /** Number of available seats. */
+    private final int numSeatsAvailable;
+
+    /** Element n is the number of runs of exactly n adjacent available seats. */
+    private final int[] numRunsOfLength;
+
+    /** Element n is the number of parties of n that could be seated together, one after another. */
+    private final int[] numPartiesThatFit;
+
+
+    /**
+     * Constructs a new FragmentationReport. The arrays are not copied.
+     *
+     * @param version version of the described snapshot
+     * @param numSeatsAvailable number of available seats
+     * @param numRunsOfLength number of runs of each length
+     */
+    private FragmentationReport(long version, int numSeatsAvailable, int[] numRunsOfLength) {
+        this.version = version;
+        this.numSeatsAvailable = numSeatsAvailable;
+        this.numRunsOfLength = numRunsOfLength;
+        this.numPartiesThatFit = buildNumPartiesThatFit(numRunsOfLength);
+    }
+
+    /**
+     * Builds the report for a seat map snapshot. This takes time proportional to the number of seats.
+     *
+     * @param snapshot the seat map snapshot
+     * @return the report
+     */
+    static FragmentationReport build(SeatMapSnapshot snapshot) {
+        final int numSeatsPerRow = snapshot.getNumSeatsPerRow();
+        int[] numRunsOfLength = new int[numSeatsPerRow + 1];
+        for (int rowNum = 0; rowNum < snapshot.getNumRows(); rowNum++) {
+            if (snapshot.getNumSeatsAvailableInRow(rowNum) == 0) {
+                continue;
+            }
+            int run = 0;
+            for (int seatNumInRow = 0; seatNumInRow < snapshot.getRowLength(rowNum); seatNumInRow++) {
+                if (snapshot.isAvailable(rowNum, seatNumInRow)) {
+                    run += 1;
+                } else if (run > 0) {
+                    numRunsOfLength[run] += 1;
+                    run = 0;
+                }
+            }
+            if (run > 0) {
+                numRunsOfLength[run] += 1;
+            }
+        }
+        return new FragmentationReport(snapshot.getVersion(), snapshot.getNumSeatsAvailable(), numRunsOfLength);
+    }
+
+    /**
+     * Computes, for each party size n, the total over all runs of (run length / n).
+     *
+     * @param numRunsOfLength number of runs of each length
+     * @return the number of parties of each size that fit
+     */
+    @VisibleForTesting
+    static int[] buildNumPartiesThatFit(int[] numRunsOfLength) {
+        int[] numPartiesThatFit = new int[numRunsOfLength.length];
+        for (int partySize = 1; partySize < numRunsOfLength.length; partySize++) {
+            for (int length = partySize; length < numRunsOfLength.length; length++) {
+                numPartiesThatFit[partySize] += numRunsOfLength[length] * (length / partySize);
+            }
+        }
+        return numPartiesThatFit;
+    }
+
+    /**
+     * Version of the seat map snapshot this report describes.
+     *
+     * @return the version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Number of available seats.
+     *
+     * @return number of available seats
+     */
+    public int getNumSeatsAvailable() {
+        return numSeatsAvailable;
+    }
+
+    /**
+     * Number of runs of exactly the specified number of adjacent available seats.
+     *
+     * @param length the run length
+     * @return number of runs of the length (zero if longer than a row)
+     */
+    public int getNumRunsOfLength(int length) {
+        return (length > 0 && length < numRunsOfLength.length) ? numRunsOfLength[length] : 0;
+    }
+
+    /**
+     * Number of orphan seats: available seats with no adjacent available seat. No party but
+     * a party of one can use them.
+     *
+     * @return number of orphan seats
+     */
+    public int getNumOrphans() {
+        return getNumRunsOfLength(1);
+    }
+
+    /**
+     * Length of the longest run of adjacent available seats.
+     *
+     * @return length of the longest run (zero if no seats are available)
+     */
+    public int getLongestRun() {
+        for (int length = numRunsOfLength.length - 1; length > 0; length--) {
+            if (numRunsOfLength[length] > 0) {
+                return length;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Number of parties of the specified size that the available seats could still seat
+     * together, if only parties of that size were seated from now on.
+     *
+     * @param partySize the party size
+     * @return number of parties that fit (zero if larger than a row)
+     */
+    public int getNumPartiesThatFit(int partySize) {
+        if (partySize <= 0) {
+            throw new IllegalArgumentException("bad partySize: " + partySize);
+        }
+        return (partySize < numPartiesThatFit.length) ? numPartiesThatFit[partySize] : 0;
+    }
+
+    /**
+     * The fraction of available seats that are orphans.
+     *
+     * @return orphan seats divided by available seats (zero if no seats are available)
+     */
+    public double getOrphanRatio() {
+        return (numSeatsAvailable == 0) ? 0.0 : (double) getNumOrphans() / numSeatsAvailable;
+    }
+}
@@ -0,0 +1,71 @@
+package com.rph.ticketservice.implementation;
+
+import com.rph.ticketservice.SeatHold;
+
+/**
+ * A {@code HoldResult} contains the outcome of a request to find and hold seats,
+ * reported as a status rather than as an exception. A HoldResult may be reused.
+ */
+public class HoldResult {
+
+    /** Possible outcomes of a hold request. */
+    public enum Status {
+        HELD,          // the seats are held
+        UNAVAILABLE,   // there were insufficient adjacent available seats
+    }
+
+    /** The outcome. */
+    private Status status;
+
+    /** The seatHold, if held. */
+    private SeatHold seatHold;
+
+    /**
+     * Constructs a new HoldResult.
+     */
+    public HoldResult() {
+    }
+
+    /**
+     * Sets the outcome.
+     *
+     * @param status the outcome
+     * @param seatHold the seatHold if held, otherwise null
+     */
+    void set(Status status, SeatHold seatHold) {
+        this.status = status;
+        this.seatHold = seatHold;
+    }
+
+    /**
+     * The outcome.
+     *
+     * @return the status
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * True if the seats are held.
+     *
+     * @return true if the status is HELD, otherwise false
+     */
+    public boolean isHeld() {
+        return status == Status.HELD;
+    }
+
+    /**
+     * The seatHold.
+     *
+     * @return the seatHold if held, otherwise null
+     */
+    public SeatHold getSeatHold() {
+        return seatHold;
+    }
+
+    @Override
+    public String toString() {
+        return (seatHold == null) ? String.valueOf(status) : (status + " " + seatHold.getSeatHoldId());
+    }
+}
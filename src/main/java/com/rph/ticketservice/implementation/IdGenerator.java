@@ -0,0 +1,17 @@
+package com.rph.ticketservice.implementation;
+
+
+/**
+ * An {@code IdGenerator} issues unique IDs. Implementations are thread-safe and lock-free; they
+ * do not rely on the TicketServiceImpl lock, so an ID may be drawn from any thread, inside or
+ * outside that lock. IDs are unique but are not necessarily issued in increasing order.
+ */
+public interface IdGenerator {
+
+    /**
+     * Issues a new ID. An ID is never issued twice by the same generator.
+     *
+     * @return the ID, never negative
+     */
+    long nextId();
+}
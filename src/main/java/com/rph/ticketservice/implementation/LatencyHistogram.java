@@ -0,0 +1,135 @@
+package com.rph.ticketservice.implementation;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@code LatencyHistogram} counts non-negative values (such as durations) in power-of-two
+ * buckets. Recording is lock free and allocation free, so it may be done on the hot path
+ * by any number of threads. Percentiles are approximate (within a factor of two).
+ */
+public class LatencyHistogram {
+
+    /** Number of buckets. Bucket zero counts zeros; bucket n counts values in [2^(n-1), 2^n). */
+    static final int NUM_BUCKETS = 64;
+
+    /** Count of values in each bucket. */
+    private final AtomicLongArray bucketCounts = new AtomicLongArray(NUM_BUCKETS);
+
+    /** Number of values recorded. */
+    private final LongAdder count = new LongAdder();
+
+    /** Sum of the values recorded. */
+    private final LongAdder sum = new LongAdder();
+
+    /** Largest value recorded. */
+    private final AtomicLong max = new AtomicLong();
+
+
+    /**
+     * Records a value. Negative values are recorded as zero.
+     *
+     * @param value the value
+     */
+    public void record(long value) {
+        value = Math.max(value, 0);
+        bucketCounts.incrementAndGet(getBucketIndex(value));
+        count.increment();
+        sum.add(value);
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    /**
+     * Determines which bucket counts the specified value.
+     *
+     * @param value the (non-negative) value
+     * @return the bucket index
+     */
+    @VisibleForTesting
+    static int getBucketIndex(long value) {
+        return 64 - Long.numberOfLeadingZeros(value);
+    }
+
+    /**
+     * Number of values recorded.
+     *
+     * @return the count
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Sum of the values recorded.
+     *
+     * @return the sum
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * Largest value recorded.
+     *
+     * @return the maximum, or zero if nothing was recorded
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Average of the values recorded.
+     *
+     * @return the mean, or zero if nothing was recorded
+     */
+    public double getMean() {
+        long n = getCount();
+        return (n == 0) ? 0 : ((double) getSum()) / n;
+    }
+
+    /**
+     * Number of values recorded in the specified bucket.
+     *
+     * @param bucketIndex the bucket index
+     * @return the bucket count
+     */
+    public long getBucketCount(int bucketIndex) {
+        return bucketCounts.get(bucketIndex);
+    }
+
+    /**
+     * The largest value counted by the specified bucket.
+     *
+     * @param bucketIndex the bucket index
+     * @return the bucket's upper bound (inclusive)
+     */
+    public static long getBucketUpperBound(int bucketIndex) {
+        return (bucketIndex >= 63) ? Long.MAX_VALUE : (1L << bucketIndex) - 1;
+    }
+
+    /**
+     * An approximation of the specified percentile: the upper bound of the bucket containing
+     * it, but no more than the largest value recorded.
+     *
+     * @param percentile the percentile (0 to 100)
+     * @return the approximate percentile value, or zero if nothing was recorded
+     */
+    public long getPercentile(double percentile) {
+        long n = getCount();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max((long) Math.ceil((percentile / 100) * n), 1);
+        long seen = 0;
+        for (int bucketIndex = 0; bucketIndex < NUM_BUCKETS; bucketIndex++) {
+            seen += bucketCounts.get(bucketIndex);
+            if (seen >= rank) {
+                return Math.min(getBucketUpperBound(bucketIndex), getMax());
+            }
+        }
+        return getMax();   // recording raced with this calculation
+    }
+}
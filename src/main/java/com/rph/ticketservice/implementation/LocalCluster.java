@@ -0,0 +1,356 @@
+package com.rph.ticketservice.implementation;
+
+import com.rph.ticketservice.SeatHold;
+import com.rph.ticketservice.SeatHoldExpiredException;
+import com.rph.ticketservice.SeatHoldNotFoundException;
+import com.rph.ticketservice.SeatsUnavailableException;
+import com.rph.ticketservice.TicketService;
+import com.rph.ticketservice.Venue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+
+/**
+ * A {@code LocalCluster} runs a number of simulated nodes in one process, for testing and
+ * benchmarking a sharded deployment. Each performance (or, for a huge venue, each section of a
+ * performance) has its own TicketServiceImpl (engine), which is owned by exactly one node,
+ * chosen by a {@code ConsistentHashRouter}. Requests travel to the owning node over an in-memory
+ * channel and are executed by that node's workers, so a node's capacity is its own worker pool,
+ * whatever the number of performances it owns.
+ * <p>
+ * Ownership of a performance may be moved from one node to another (when nodes are added or
+ * removed, and the cluster is rebalanced). The engine itself is handed over, with all its holds,
+ * reservations and expiration timers, so nothing is lost. The new owner takes it before the
+ * routing table is updated and the old owner gives it up only after, so there is always an
+ * owner; a request that reaches the old owner after the hand-over is routed again.
+ * <p>
+ * Clients use {@code getTicketService}, which presents one performance as a TicketService.
+ * Seat hold IDs are per performance. Cluster membership changes (adding, removing, moving and
+ * rebalancing) are serialized; routing never blocks. A request is routed again at most
+ * {@code MAX_ROUTING_ATTEMPTS} times. Once the cluster has shut down, its routing table is
+ * cleared, and every request fails with an {@code IllegalStateException}.
+ */
+public class LocalCluster {
+
+    /** Separates a performance ID from a section name in a routing key. */
+    private static final String SECTION_SEPARATOR = "/";
+
+    /**
+     * Greatest number of times a request is sent before giving up. Each membership change can
+     * redirect a request only once, so this is only reached if the cluster is being reshaped
+     * continually.
+     */
+    private static final int MAX_ROUTING_ATTEMPTS = 100;
+
+    /** Places routing keys on nodes. */
+    private final ConsistentHashRouter router = new ConsistentHashRouter(ConsistentHashRouter.DEFAULT_VIRTUAL_NODES);
+
+    /** The nodes, by node ID. */
+    private final ConcurrentMap<Integer, ClusterNode> nodes = new ConcurrentHashMap<>();
+
+    /** The routing table: the ID of the node that owns each performance, by routing key. */
+    private final ConcurrentMap<String, Integer> owners = new ConcurrentHashMap<>();
+
+    /** Number of worker threads per node. */
+    private final int numWorkersPerNode;
+
+    /** The ID of the next node to be added. Guarded by this cluster's monitor. */
+    private int nextNodeId = 0;
+
+    /** Number of requests that reached a node that no longer owned the performance. */
+    private final AtomicLong numRedirects = new AtomicLong();
+
+    /** Whether the cluster has shut down. */
+    private volatile boolean shutDown = false;
+
+
+    /**
+     * Constructs a new LocalCluster with no performances.
+     *
+     * @param numNodes number of nodes
+     * @param numWorkersPerNode number of worker threads per node
+     */
+    public LocalCluster(int numNodes, int numWorkersPerNode) {
+        if ((numNodes < 1) || (numWorkersPerNode < 1)) {
+            throw new IllegalArgumentException("numNodes and numWorkersPerNode must be positive");
+        }
+        this.numWorkersPerNode = numWorkersPerNode;
+        for (int i = 0; i < numNodes; i++) {
+            addNode();
+        }
+    }
+
+    /**
+     * The routing key of a performance, or of one section of a performance.
+     *
+     * @param performanceId the performance ID
+     * @param sectionName the section name, or null for the whole performance
+     * @return the routing key
+     */
+    public static String getRoutingKey(String performanceId, String sectionName) {
+        return (sectionName == null) ? performanceId : (performanceId + SECTION_SEPARATOR + sectionName);
+    }
+
+    /**
+     * Adds a performance, with a new engine for the specified venue, to the node chosen by the router.
+     *
+     * @param key the routing key
+     * @param venue the venue
+     * @param expireMillies seatHold expiration duration
+     * @return the ID of the owning node
+     */
+    public int addPerformance(String key, Venue venue, long expireMillies) {
+        return addPerformance(key, new TicketServiceImpl(venue, expireMillies));
+    }
+
+    /**
+     * Adds a performance, with the specified engine, to the node chosen by the router.
+     *
+     * @param key the routing key
+     * @param engine the performance's engine
+     * @return the ID of the owning node
+     * @throws IllegalArgumentException if the performance has already been added
+     */
+    public synchronized int addPerformance(String key, TicketServiceImpl engine) {
+        checkNotShutDown();
+        if (owners.containsKey(key)) {
+            throw new IllegalArgumentException("performance already added: " + key);
+        }
+        int nodeId = router.route(key);
+        nodes.get(nodeId).addEngine(key, engine);
+        owners.put(key, nodeId);
+        return nodeId;
+    }
+
+    /**
+     * Adds a node. It owns nothing until the cluster is rebalanced.
+     *
+     * @return the new node's ID
+     */
+    public synchronized int addNode() {
+        checkNotShutDown();
+        int nodeId = nextNodeId++;
+        nodes.put(nodeId, new ClusterNode(nodeId, numWorkersPerNode));
+        router.addNode(nodeId);
+        return nodeId;
+    }
+
+    /**
+     * Removes a node, first moving each of its performances to the node that the router now
+     * chooses. Requests already sent to the node are still executed.
+     *
+     * @param nodeId the node ID
+     * @throws IllegalArgumentException if there is no such node
+     * @throws IllegalStateException if it is the last node
+     */
+    public synchronized void removeNode(int nodeId) {
+        ClusterNode node = getNode(nodeId);
+        if (nodes.size() == 1) {
+            throw new IllegalStateException("cannot remove the last node");
+        }
+        router.removeNode(nodeId);
+        for (String key : node.getRoutingKeys()) {
+            movePerformance(key, router.route(key));
+        }
+        nodes.remove(nodeId);
+        node.shutdown();
+    }
+
+    /**
+     * Moves every performance that is not owned by the node the router chooses for it.
+     *
+     * @return the number of performances moved
+     */
+    public synchronized int rebalance() {
+        int numMoved = 0;
+        for (Map.Entry<String, Integer> entry : owners.entrySet()) {
+            int nodeId = router.route(entry.getKey());
+            if (nodeId != entry.getValue()) {
+                movePerformance(entry.getKey(), nodeId);
+                numMoved += 1;
+            }
+        }
+        return numMoved;
+    }
+
+    /**
+     * Moves ownership of a performance to the specified node, handing over its engine.
+     *
+     * @param key the routing key
+     * @param toNodeId the ID of the new owner
+     * @throws IllegalArgumentException if there is no such performance or node
+     */
+    public synchronized void movePerformance(String key, int toNodeId) {
+        int fromNodeId = getOwner(key);
+        ClusterNode toNode = getNode(toNodeId);
+        if (fromNodeId == toNodeId) {
+            return;
+        }
+        ClusterNode fromNode = nodes.get(fromNodeId);
+        toNode.addEngine(key, fromNode.getEngine(key));
+        owners.put(key, toNodeId);
+        fromNode.removeEngine(key);
+    }
+
+    /**
+     * The ID of the node that owns the specified performance.
+     *
+     * @param key the routing key
+     * @return the node ID
+     * @throws IllegalArgumentException if there is no such performance
+     * @throws IllegalStateException if the cluster has shut down
+     */
+    public int getOwner(String key) {
+        checkNotShutDown();
+        Integer nodeId = owners.get(key);
+        if (nodeId == null) {
+            throw new IllegalArgumentException("unknown performance: " + key);
+        }
+        return nodeId;
+    }
+
+    /**
+     * The nodes.
+     *
+     * @return the nodes, in node ID order
+     */
+    public List<ClusterNode> getNodes() {
+        List<ClusterNode> nodeList = new ArrayList<>();
+        for (int nodeId : new TreeSet<>(nodes.keySet())) {
+            nodeList.add(nodes.get(nodeId));
+        }
+        return nodeList;
+    }
+
+    /**
+     * Number of requests that reached a node that no longer owned the performance, and were
+     * routed again.
+     *
+     * @return number of redirects
+     */
+    public long getNumRedirects() {
+        return numRedirects.get();
+    }
+
+    /**
+     * Presents the specified performance as a TicketService. Each operation is routed to the
+     * performance's current owner.
+     *
+     * @param key the routing key
+     * @return the TicketService
+     * @throws IllegalArgumentException if there is no such performance
+     */
+    public TicketService getTicketService(String key) {
+        getOwner(key);   // validates the key
+        return new RoutedTicketService(key);
+    }
+
+    /**
+     * Shuts down every node, and clears the routing table. Requests already sent are still
+     * executed; later requests fail. Shutting down more than once has no further effect.
+     */
+    public synchronized void shutdown() {
+        shutDown = true;
+        owners.clear();
+        for (ClusterNode node : nodes.values()) {
+            node.shutdown();
+        }
+    }
+
+    /**
+     * Sends a request to the owner of the specified performance, and waits for the response.
+     * If ownership moved, or the owner was removed, before the request was executed, it is
+     * routed again, up to {@code MAX_ROUTING_ATTEMPTS} times in all.
+     *
+     * @param key the routing key
+     * @param request the request
+     * @param <T> the type of the response
+     * @return the response
+     * @throws IllegalStateException if the cluster has shut down, or the request could not be routed
+     */
+    <T> T invoke(String key, Function<TicketServiceImpl, T> request) {
+        for (int attempt = 0; attempt < MAX_ROUTING_ATTEMPTS; attempt++) {
+            ClusterNode node = nodes.get(getOwner(key));
+            if (node != null) {
+                try {
+                    return node.call(key, request);
+                } catch (ClusterNode.NotOwnerException e) {
+                    // moved in the meantime
+                } catch (ClusterNode.NodeShutDownException e) {
+                    checkNotShutDown();   // otherwise the node was removed in the meantime
+                }
+            }
+            numRedirects.incrementAndGet();
+        }
+        throw new IllegalStateException("could not route a request for " + key
+                + " in " + MAX_ROUTING_ATTEMPTS + " attempts");
+    }
+
+    /**
+     * Checks that the cluster has not shut down.
+     *
+     * @throws IllegalStateException if it has
+     */
+    private void checkNotShutDown() {
+        if (shutDown) {
+            throw new IllegalStateException("the cluster has shut down");
+        }
+    }
+
+    private ClusterNode getNode(int nodeId) {
+        ClusterNode node = nodes.get(nodeId);
+        if (node == null) {
+            throw new IllegalArgumentException("unknown node: " + nodeId);
+        }
+        return node;
+    }
+
+    /**
+     * One performance of the cluster, presented as a TicketService.
+     */
+    private class RoutedTicketService implements TicketService {
+
+        /** The performance's routing key. */
+        private final String key;
+
+        RoutedTicketService(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public int numSeatsAvailable() {
+            return invoke(key, TicketServiceImpl::numSeatsAvailable);
+        }
+
+        @Override
+        public SeatHold findAndHoldSeats(int numSeats, String customerEmail) throws SeatsUnavailableException {
+            HoldResult result = invoke(key, engine -> engine.tryFindAndHoldSeats(numSeats, customerEmail));
+            if (!result.isHeld()) {
+                throw new SeatsUnavailableException();
+            }
+            return result.getSeatHold();
+        }
+
+        @Override
+        public String reserveSeats(int seatHoldId, String customerEmail)
+                throws SeatHoldNotFoundException, SeatHoldExpiredException {
+            ReserveResult result =
+                    invoke(key, engine -> engine.tryReserveSeats(seatHoldId, customerEmail, new ReserveResult()));
+            switch (result.getStatus()) {
+                case NOT_FOUND:
+                    throw new SeatHoldNotFoundException(seatHoldId);
+                case EXPIRED:
+                    throw new SeatHoldExpiredException();
+                default:
+                    return result.getReservationId();
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.rph.ticketservice.implementation;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * A {@code LockProfiler} records, per kind of operation, how long each operation waited
+ * for the TicketService lock and how long it then held it, along with how much searching
+ * each hold did. It answers the question of whether the lock, the search, or the number
+ * of operations is the bottleneck for a particular seat map. Recording is lock free.
+ */
+public class LockProfiler {
+
+    /** The kinds of operation that take the lock. */
+    public enum Operation {
+        HOLD,            // findAndHoldSeats (one party)
+        HOLD_BATCH,      // findAndHoldSeats (many parties)
+        RESERVE,         // reserveSeats (one seatHold)
+        RESERVE_BATCH,   // reserveSeats (many seatHolds)
+        EXPIRE,          // expiration of a seatHold
+        EXTEND,          // extendHold
+        SWEEP,           // reclaiming expired seatHolds
+        PEEK,            // peekBestAverageBestness (search without holding)
+    }
+
+    /** Time spent waiting for the lock, in nanoseconds, per kind of operation. */
+    private final Map<Operation, LatencyHistogram> lockWaitNanos = new EnumMap<>(Operation.class);
+
+    /** Time spent holding the lock, in nanoseconds, per kind of operation. */
+    private final Map<Operation, LatencyHistogram> lockHoldNanos = new EnumMap<>(Operation.class);
+
+    /** Number of {@code bestAvailableSeats} entries scanned by each search. */
+    private final LatencyHistogram entriesScanned = new LatencyHistogram();
+
+    /** Number of candidates evaluated by each search. */
+    private final LatencyHistogram candidatesEvaluated = new LatencyHistogram();
+
+
+    /**
+     * Constructs a new LockProfiler.
+     */
+    LockProfiler() {
+        for (Operation operation : Operation.values()) {
+            lockWaitNanos.put(operation, new LatencyHistogram());
+            lockHoldNanos.put(operation, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Records the lock timing of one operation.
+     *
+     * @param operation the kind of operation
+     * @param lockRequestedNanos when the lock was requested ({@code System.nanoTime()})
+     * @param lockAcquiredNanos when the lock was acquired
+     * @param lockReleasedNanos when the lock was (about to be) released
+     */
+    void recordLock(Operation operation, long lockRequestedNanos, long lockAcquiredNanos, long lockReleasedNanos) {
+        lockWaitNanos.get(operation).record(lockAcquiredNanos - lockRequestedNanos);
+        lockHoldNanos.get(operation).record(lockReleasedNanos - lockAcquiredNanos);
+    }
+
+    /**
+     * Records the work done by searches, averaged per search.
+     *
+     * @param searchStats the accumulated search work
+     */
+    void recordSearches(SearchStats searchStats) {
+        int numSearches = searchStats.getNumSearches();
+        if (numSearches > 0) {
+            entriesScanned.record(searchStats.getNumEntriesScanned() / numSearches);
+            candidatesEvaluated.record(searchStats.getNumCandidatesEvaluated() / numSearches);
+        }
+    }
+
+    /**
+     * Time spent waiting for the lock by the specified kind of operation.
+     *
+     * @param operation the kind of operation
+     * @return the histogram, in nanoseconds
+     */
+    public LatencyHistogram getLockWaitNanos(Operation operation) {
+        return lockWaitNanos.get(operation);
+    }
+
+    /**
+     * Time spent holding the lock by the specified kind of operation.
+     *
+     * @param operation the kind of operation
+     * @return the histogram, in nanoseconds
+     */
+    public LatencyHistogram getLockHoldNanos(Operation operation) {
+        return lockHoldNanos.get(operation);
+    }
+
+    /**
+     * Number of {@code bestAvailableSeats} entries scanned per search.
+     *
+     * @return the histogram
+     */
+    public LatencyHistogram getEntriesScanned() {
+        return entriesScanned;
+    }
+
+    /**
+     * Number of candidates evaluated per search.
+     *
+     * @return the histogram
+     */
+    public LatencyHistogram getCandidatesEvaluated() {
+        return candidatesEvaluated;
+    }
+
+    /**
+     * Builds a histogram report of everything recorded so far.
+     *
+     * @return the report
+     */
+    public String report() {
+        StringBuilder buf = new StringBuilder(8192);
+        for (Operation operation : Operation.values()) {
+            appendHistogram(buf, operation + " lock wait (ns)", lockWaitNanos.get(operation));
+            appendHistogram(buf, operation + " lock hold (ns)", lockHoldNanos.get(operation));
+        }
+        appendHistogram(buf, "entries scanned per search", entriesScanned);
+        appendHistogram(buf, "candidates evaluated per search", candidatesEvaluated);
+        return buf.toString();
+    }
+
+    /**
+     * Arranges for the report to be printed when the JVM shuts down.
+     *
+     * @param out where to print the report
+     */
+    public void reportAtShutdown(final PrintStream out) {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> out.print(report()), "LockProfiler report"));
+    }
+
+    private static void appendHistogram(StringBuilder buf, String title, LatencyHistogram histogram) {
+        long count = histogram.getCount();
+        if (count == 0) {
+            return;
+        }
+        buf.append(String.format("%s: count %d, mean %.1f, p50 %d, p99 %d, max %d%n", title, count,
+                histogram.getMean(), histogram.getPercentile(50), histogram.getPercentile(99), histogram.getMax()));
+        long largestBucketCount = 1;
+        for (int bucketIndex = 0; bucketIndex < LatencyHistogram.NUM_BUCKETS; bucketIndex++) {
+            largestBucketCount = Math.max(largestBucketCount, histogram.getBucketCount(bucketIndex));
+        }
+        for (int bucketIndex = 0; bucketIndex < LatencyHistogram.NUM_BUCKETS; bucketIndex++) {
+            long bucketCount = histogram.getBucketCount(bucketIndex);
+            if (bucketCount > 0) {
+                char[] bar = new char[(int) Math.max((bucketCount * 40) / largestBucketCount, 1)];
+                Arrays.fill(bar, '#');
+                buf.append(String.format("  <= %19d %10d %s%n",
+                        LatencyHistogram.getBucketUpperBound(bucketIndex), bucketCount, new String(bar)));
+            }
+        }
+    }
+}
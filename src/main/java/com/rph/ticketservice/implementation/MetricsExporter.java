@@ -0,0 +1,17 @@
+package com.rph.ticketservice.implementation;
+
+import java.io.IOException;
+
+/**
+ * A {@code MetricsExporter} publishes a TicketService's metrics somewhere outside the process.
+ */
+public interface MetricsExporter {
+
+    /**
+     * Exports the current values of the specified metrics.
+     *
+     * @param metrics the metrics
+     * @throws IOException if the metrics cannot be exported
+     */
+    void export(TicketServiceMetrics metrics) throws IOException;
+}
@@ -0,0 +1,96 @@
+package com.rph.ticketservice.implementation;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * A {@code PrometheusTextExporter} writes metrics to a local file in the Prometheus text
+ * exposition format (suitable for the node exporter's textfile collector). The file is
+ * replaced atomically, so a scraper never sees a partially written file. The replica lag
+ * gauges are written only for a replica's engine.
+ */
+public class PrometheusTextExporter implements MetricsExporter {
+
+    /** The destination file. */
+    private final File file;
+
+    /** The value of the {@code performance} label on every sample. */
+    private final String performance;
+
+    /**
+     * Constructs a new PrometheusTextExporter.
+     *
+     * @param file the destination file
+     * @param performance identifies the performance (the {@code performance} label)
+     */
+    public PrometheusTextExporter(File file, String performance) {
+        this.file = file;
+        this.performance = performance;
+    }
+
+    @Override
+    public void export(TicketServiceMetrics metrics) throws IOException {
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(Files.newOutputStream(tempFile.toPath()), StandardCharsets.UTF_8)) {
+            writer.write(format(metrics, performance));
+        }
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Formats the specified metrics in the Prometheus text exposition format.
+     *
+     * @param metrics the metrics
+     * @param performance the value of the {@code performance} label
+     * @return the formatted metrics
+     */
+    static String format(TicketServiceMetrics metrics, String performance) {
+        String labels = "performance=\"" + performance.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+        StringBuilder buf = new StringBuilder(4096);
+        appendCounter(buf, "ticketservice_holds_total", labels, metrics.getHoldCount());
+        appendCounter(buf, "ticketservice_unavailable_total", labels, metrics.getUnavailableCount());
+        appendCounter(buf, "ticketservice_reserves_total", labels, metrics.getReserveCount());
+        appendCounter(buf, "ticketservice_reserve_not_found_total", labels, metrics.getReserveNotFoundCount());
+        appendCounter(buf, "ticketservice_reserve_expired_total", labels, metrics.getReserveExpiredCount());
+        appendCounter(buf, "ticketservice_expirations_total", labels, metrics.getExpirationCount());
+        appendHistogram(buf, "ticketservice_hold_search_nanoseconds", labels, metrics.getHoldSearchNanos());
+        appendHistogram(buf, "ticketservice_lock_wait_nanoseconds", labels, metrics.getLockWaitNanos());
+        appendHistogram(buf, "ticketservice_expiration_lag_milliseconds", labels, metrics.getExpirationLagMillis());
+        if (metrics.isReplica()) {
+            appendGauge(buf, "ticketservice_replica_lag_changes", labels, metrics.getReplicaLag());
+            appendGauge(buf, "ticketservice_replica_lag_milliseconds", labels, metrics.getReplicaLagMillis());
+        }
+        return buf.toString();
+    }
+
+    private static void appendCounter(StringBuilder buf, String name, String labels, long value) {
+        buf.append("# TYPE ").append(name).append(" counter\n");
+        buf.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+    }
+
+    private static void appendGauge(StringBuilder buf, String name, String labels, long value) {
+        buf.append("# TYPE ").append(name).append(" gauge\n");
+        buf.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+    }
+
+    private static void appendHistogram(StringBuilder buf, String name, String labels, LatencyHistogram histogram) {
+        buf.append("# TYPE ").append(name).append(" histogram\n");
+        long cumulativeCount = 0;
+        int lastBucketIndex = LatencyHistogram.getBucketIndex(histogram.getMax());
+        for (int bucketIndex = 0; bucketIndex <= lastBucketIndex; bucketIndex++) {
+            cumulativeCount += histogram.getBucketCount(bucketIndex);
+            buf.append(name).append("_bucket{").append(labels).append(",le=\"")
+                    .append(LatencyHistogram.getBucketUpperBound(bucketIndex)).append("\"} ")
+                    .append(cumulativeCount).append('\n');
+        }
+        buf.append(name).append("_bucket{").append(labels).append(",le=\"+Inf\"} ")
+                .append(histogram.getCount()).append('\n');
+        buf.append(name).append("_sum{").append(labels).append("} ").append(histogram.getSum()).append('\n');
+        buf.append(name).append("_count{").append(labels).append("} ").append(histogram.getCount()).append('\n');
+    }
+}
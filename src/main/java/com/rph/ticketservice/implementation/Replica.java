@@ -0,0 +1,235 @@
+package com.rph.ticketservice.implementation;
+
+import com.rph.ticketservice.SeatHold;
+import com.rph.ticketservice.SeatHoldExpiredException;
+import com.rph.ticketservice.SeatHoldNotFoundException;
+import com.rph.ticketservice.SeatsUnavailableException;
+import com.rph.ticketservice.TicketService;
+import com.rph.ticketservice.Venue;
+
+
+/**
+ * A {@code Replica} is a read-only copy of a primary TicketServiceImpl, kept up to date by
+ * applying batches of the primary's replication log (see {@code ReplicationSource}). Its engine
+ * makes exactly the primary's changes, in the same order and with the same sequence numbers, so
+ * its seat map snapshots, fragmentation reports and reservations can serve read traffic, none of
+ * which touches the primary's lock.
+ * <p>
+ * Entries are applied in sequence number order. A batch may overlap those already applied (a
+ * batch sent again after a lost acknowledgement, say); the entries already applied are skipped.
+ * A batch that leaves a gap is rejected.
+ * <p>
+ * On failover the replica is promoted. It then schedules the expirations of the holds that are
+ * still outstanding at the primary's deadlines (including any extensions), so they expire
+ * when they would have on the primary, continues issuing
+ * seatHold IDs after the largest it has seen, and serves holds and reservations itself.
+ */
+public class Replica implements TicketService {
+
+    /** The replica's engine. */
+    private final TicketServiceImpl engine;
+
+    /** The largest seatHold ID applied. Guarded by this replica's monitor. */
+    private int maxSeatHoldId = -1;
+
+    /** Sequence number of the last entry applied. */
+    private volatile long appliedSequenceNumber = 0;
+
+    /** The primary's latest sequence number, as of the latest batch. */
+    private volatile long headSequenceNumber = 0;
+
+    /** When the primary made the last change applied (milliseconds since the epoch). */
+    private volatile long appliedTimestampMillis = 0;
+
+    /** True once promoted. */
+    private volatile boolean promoted = false;
+
+
+    /**
+     * Constructs a new Replica, which starts empty, like its primary.
+     *
+     * @param venue the venue served by the primary
+     * @param expireMillies seatHold expiration duration, once promoted
+     */
+    public Replica(Venue venue, long expireMillies) {
+        this.engine = new TicketServiceImpl(venue, expireMillies);
+        engine.getMetrics().setReplica(this);
+    }
+
+    /**
+     * Applies a batch of the primary's replication log.
+     *
+     * @param batch the batch
+     * @return the sequence number of the last entry applied, to be acknowledged to the primary
+     * @throws IllegalStateException if the batch leaves a gap, or the replica has been promoted
+     */
+    public synchronized long apply(ReplicationBatch batch) {
+        if (promoted) {
+            throw new IllegalStateException("promoted");
+        }
+        for (ReplicationBatch.Entry entry : batch.getEntries()) {
+            if (entry.getSequenceNumber() <= appliedSequenceNumber) {
+                continue;   // already applied
+            }
+            if (entry.getSequenceNumber() != appliedSequenceNumber + 1) {
+                throw new IllegalStateException("gap before " + entry.getSequenceNumber()
+                        + "; expected " + (appliedSequenceNumber + 1));
+            }
+            engine.applyReplicated(entry);
+            if (entry.getType() == SeatMapChange.Type.HELD) {
+                maxSeatHoldId = Math.max(maxSeatHoldId, entry.getSeatHoldId());
+            }
+            appliedTimestampMillis = entry.getTimestampMillis();
+            appliedSequenceNumber = entry.getSequenceNumber();
+        }
+        headSequenceNumber = Math.max(headSequenceNumber, batch.getHeadSequenceNumber());
+        return appliedSequenceNumber;
+    }
+
+    /**
+     * Sequence number of the last entry applied.
+     *
+     * @return the applied sequence number, or zero if nothing has been applied
+     */
+    public long getAppliedSequenceNumber() {
+        return appliedSequenceNumber;
+    }
+
+    /**
+     * Number of the primary's changes, as of the latest batch, not yet applied.
+     *
+     * @return the replica lag, in changes
+     */
+    public long getLag() {
+        return Math.max(headSequenceNumber - appliedSequenceNumber, 0);
+    }
+
+    /**
+     * How far behind the primary the replica is: zero if it has applied every change in the
+     * latest batch, otherwise the time since the primary made the last change applied.
+     *
+     * @return the replica lag, in milliseconds
+     */
+    public long getLagMillis() {
+        if (getLag() == 0) {
+            return 0;
+        }
+        return Math.max(System.currentTimeMillis() - appliedTimestampMillis, 0);
+    }
+
+    /**
+     * The metrics of the replica's engine, which also report the replica lag until the replica
+     * is promoted.
+     *
+     * @return the metrics
+     */
+    public TicketServiceMetrics getMetrics() {
+        return engine.getMetrics();
+    }
+
+    /**
+     * The number of seats in the venue that are neither held nor reserved, as of the last change
+     * applied. This never blocks.
+     *
+     * @return the number of tickets available in the venue
+     */
+    @Override
+    public int numSeatsAvailable() {
+        return engine.numSeatsAvailable();
+    }
+
+    /**
+     * The seat map snapshot as of the last change applied. This never blocks. Its version is the
+     * applied sequence number.
+     *
+     * @return the seat map snapshot
+     */
+    public SeatMapSnapshot getSeatMapSnapshot() {
+        return engine.getSeatMapSnapshot();
+    }
+
+    /**
+     * Reports how the available seats are broken up into runs. This never blocks.
+     *
+     * @return the fragmentation report
+     */
+    public FragmentationReport getFragmentationReport() {
+        return engine.getFragmentationReport();
+    }
+
+    /**
+     * Finds and returns the reservation associated with the specified reservation ID. This
+     * takes the replica's lock, not the primary's.
+     *
+     * @param reservationId the reservation ID
+     * @return the corresponding reservation, or null if none (yet)
+     */
+    public Reservation getReservation(String reservationId) {
+        return engine.getReservation(reservationId);
+    }
+
+    /**
+     * Checks whether the replica has been promoted.
+     *
+     * @return true if promoted, otherwise false
+     */
+    public boolean isPromoted() {
+        return promoted;
+    }
+
+    /**
+     * Promotes the replica, which takes over from the primary. No more batches are applied.
+     * Outstanding holds expire when they would have on the primary (at once, if that time has
+     * passed), and new seatHold IDs follow on from the largest applied. Promoting more than once
+     * has no further effect.
+     *
+     * @return the replica's engine, which may now be used as a primary
+     */
+    public synchronized TicketServiceImpl promote() {
+        if (!promoted) {
+            promoted = true;
+            engine.getMetrics().setReplica(null);   // a primary now, with no lag to report
+            engine.setSeatHoldIdGenerator(new BlockIdGenerator(maxSeatHoldId + 1L, 1));
+            engine.scheduleReplicatedExpirations();
+        }
+        return engine;
+    }
+
+    /**
+     * Find and hold the best available seats for a customer. Only a promoted replica holds seats.
+     *
+     * @param numSeats      the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @return a SeatHold object identifying the specific seats and related information
+     * @throws SeatsUnavailableException if there are insufficient adjacent available seats
+     * @throws IllegalStateException if the replica has not been promoted
+     */
+    @Override
+    public SeatHold findAndHoldSeats(int numSeats, String customerEmail) throws SeatsUnavailableException {
+        checkPromoted();
+        return engine.findAndHoldSeats(numSeats, customerEmail);
+    }
+
+    /**
+     * Commit seats held for a specific customer. Only a promoted replica reserves seats.
+     *
+     * @param seatHoldId    the seat hold identifier
+     * @param customerEmail the email address of the customer to which the seat hold is assigned
+     * @return a reservation confirmation code
+     * @throws SeatHoldNotFoundException if the seat hold is not found
+     * @throws SeatHoldExpiredException  if the seat hold has expired
+     * @throws IllegalStateException if the replica has not been promoted
+     */
+    @Override
+    public String reserveSeats(int seatHoldId, String customerEmail)
+            throws SeatHoldNotFoundException, SeatHoldExpiredException {
+        checkPromoted();
+        return engine.reserveSeats(seatHoldId, customerEmail);
+    }
+
+    private void checkPromoted() {
+        if (!promoted) {
+            throw new IllegalStateException("a replica is read-only until it is promoted");
+        }
+    }
+}
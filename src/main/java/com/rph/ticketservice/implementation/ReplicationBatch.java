@@ -0,0 +1,249 @@
+package com.rph.ticketservice.implementation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * A {@code ReplicationBatch} carries consecutive entries of a primary's replication log (see
+ * {@code ReplicationSource}) to a {@code Replica}. Each entry is one change to the hold and
+ * reservation state of the primary, numbered with the sequence number of the corresponding
+ * seat map change. A batch also carries the primary's latest sequence number when the batch
+ * was made, from which the replica's lag is derived.
+ * <p>
+ * A batch may be shipped in-process as is, or written to a stream (a localhost socket, say)
+ * with {@code writeTo} and read back with {@code readFrom}. A ReplicationBatch is immutable.
+ */
+public class ReplicationBatch {
+
+    /**
+     * One change to the hold and reservation state of the primary. An Entry is immutable.
+     */
+    public static class Entry {
+
+        /** The sequence number of the change. */
+        private final long sequenceNumber;
+
+        /** The kind of change. */
+        private final SeatMapChange.Type type;
+
+        /** The ID of the seatHold whose seats changed. */
+        private final int seatHoldId;
+
+        /** The customer's email address. Customer IDs are local to a process, so addresses are shipped. */
+        private final String customerEmail;
+
+        /** The seatHold's seats. */
+        private final List<SeatRun> seatRuns;   // unmodifiable
+
+        /** The reservation ID, if the change is RESERVED, otherwise null. */
+        private final String reservationId;
+
+        /** When the seatHold expires (milliseconds since the epoch), if it is HELD or EXTENDED, otherwise zero. */
+        private final long expirationMillis;
+
+        /** When the primary made the change (milliseconds since the epoch). */
+        private final long timestampMillis;
+
+        /**
+         * Constructs a new immutable Entry.
+         *
+         * @param sequenceNumber the sequence number
+         * @param type the kind of change
+         * @param seatHoldId the seatHold ID
+         * @param customerEmail the customer's email address
+         * @param seatRuns the seatHold's seats (unmodifiable)
+         * @param reservationId the reservation ID, or null
+         * @param expirationMillis when the seatHold expires, or zero
+         * @param timestampMillis when the change was made
+         */
+        Entry(long sequenceNumber, SeatMapChange.Type type, int seatHoldId, String customerEmail,
+              List<SeatRun> seatRuns, String reservationId, long expirationMillis, long timestampMillis) {
+            this.sequenceNumber = sequenceNumber;
+            this.type = type;
+            this.seatHoldId = seatHoldId;
+            this.customerEmail = customerEmail;
+            this.seatRuns = seatRuns;
+            this.reservationId = reservationId;
+            this.expirationMillis = expirationMillis;
+            this.timestampMillis = timestampMillis;
+        }
+
+        /**
+         * The sequence number of the change.
+         *
+         * @return the sequence number
+         */
+        public long getSequenceNumber() {
+            return sequenceNumber;
+        }
+
+        /**
+         * The kind of change.
+         *
+         * @return the type
+         */
+        public SeatMapChange.Type getType() {
+            return type;
+        }
+
+        /**
+         * The ID of the seatHold whose seats changed.
+         *
+         * @return the seatHold ID
+         */
+        public int getSeatHoldId() {
+            return seatHoldId;
+        }
+
+        /**
+         * The customer's email address.
+         *
+         * @return the customer email address
+         */
+        public String getCustomerEmail() {
+            return customerEmail;
+        }
+
+        /**
+         * The seatHold's seats, run-length encoded per row. This list is unmodifiable.
+         *
+         * @return the seats
+         */
+        public List<SeatRun> getSeatRuns() {
+            return seatRuns;
+        }
+
+        /**
+         * The reservation ID, if the change is RESERVED.
+         *
+         * @return the reservation ID, or null
+         */
+        public String getReservationId() {
+            return reservationId;
+        }
+
+        /**
+         * When the seatHold expires, if the change is HELD or EXTENDED: the primary's deadline,
+         * which may have been set by the hold's own duration, or moved by an extension.
+         *
+         * @return milliseconds since the epoch, or zero
+         */
+        public long getExpirationMillis() {
+            return expirationMillis;
+        }
+
+        /**
+         * When the primary made the change.
+         *
+         * @return milliseconds since the epoch
+         */
+        public long getTimestampMillis() {
+            return timestampMillis;
+        }
+
+        private void writeTo(DataOutput out) throws IOException {
+            out.writeLong(sequenceNumber);
+            out.writeByte(type.ordinal());
+            out.writeInt(seatHoldId);
+            out.writeUTF(customerEmail);
+            out.writeInt(seatRuns.size());
+            for (SeatRun seatRun : seatRuns) {
+                out.writeInt(seatRun.getRowNum());
+                out.writeInt(seatRun.getFirstSeatNumInRow());
+                out.writeInt(seatRun.getNumSeats());
+            }
+            out.writeBoolean(reservationId != null);
+            if (reservationId != null) {
+                out.writeUTF(reservationId);
+            }
+            out.writeLong(expirationMillis);
+            out.writeLong(timestampMillis);
+        }
+
+        private static Entry readFrom(DataInput in) throws IOException {
+            long sequenceNumber = in.readLong();
+            SeatMapChange.Type type = SeatMapChange.Type.values()[in.readByte()];
+            int seatHoldId = in.readInt();
+            String customerEmail = in.readUTF();
+            int numSeatRuns = in.readInt();
+            List<SeatRun> seatRuns = new ArrayList<>(numSeatRuns);
+            for (int i = 0; i < numSeatRuns; i++) {
+                seatRuns.add(new SeatRun(in.readInt(), in.readInt(), in.readInt()));
+            }
+            String reservationId = in.readBoolean() ? in.readUTF() : null;
+            return new Entry(sequenceNumber, type, seatHoldId, customerEmail, Collections.unmodifiableList(seatRuns),
+                    reservationId, in.readLong(), in.readLong());
+        }
+    }
+
+    /** The entries, in sequence number order, with no gaps. */
+    private final List<Entry> entries;   // unmodifiable
+
+    /** The primary's latest sequence number when the batch was made. */
+    private final long headSequenceNumber;
+
+    /**
+     * Constructs a new immutable ReplicationBatch.
+     *
+     * @param entries the entries, in order (unmodifiable)
+     * @param headSequenceNumber the primary's latest sequence number
+     */
+    ReplicationBatch(List<Entry> entries, long headSequenceNumber) {
+        this.entries = entries;
+        this.headSequenceNumber = headSequenceNumber;
+    }
+
+    /**
+     * The entries, in sequence number order, with no gaps. This list is unmodifiable.
+     *
+     * @return the entries (possibly none)
+     */
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * The primary's latest sequence number when the batch was made.
+     *
+     * @return the head sequence number
+     */
+    public long getHeadSequenceNumber() {
+        return headSequenceNumber;
+    }
+
+    /**
+     * Writes this batch to a stream.
+     *
+     * @param out the stream
+     * @throws IOException if the batch cannot be written
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeLong(headSequenceNumber);
+        out.writeInt(entries.size());
+        for (Entry entry : entries) {
+            entry.writeTo(out);
+        }
+    }
+
+    /**
+     * Reads a batch written by {@code writeTo}.
+     *
+     * @param in the stream
+     * @return the batch
+     * @throws IOException if the batch cannot be read
+     */
+    public static ReplicationBatch readFrom(DataInput in) throws IOException {
+        long headSequenceNumber = in.readLong();
+        int numEntries = in.readInt();
+        List<Entry> entries = new ArrayList<>(numEntries);
+        for (int i = 0; i < numEntries; i++) {
+            entries.add(Entry.readFrom(in));
+        }
+        return new ReplicationBatch(Collections.unmodifiableList(entries), headSequenceNumber);
+    }
+}
@@ -0,0 +1,104 @@
+package com.rph.ticketservice.implementation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * A {@code ReplicationSource} records the replication log of a primary TicketServiceImpl: every
+ * hold, extension, reservation and expiration, in order, with what a replica needs to take over
+ * (customer, reservation ID and deadline). It listens to the primary's seat map changes, so entries
+ * share their sequence numbers, and it retains the most recent entries in a bounded ring buffer
+ * from which replicas are sent batches.
+ * <p>
+ * Recording an entry is a quick addition to the primary's critical section. Batches are made
+ * under this source's own monitor, never the primary's lock, so shipping them does not slow the
+ * primary down.
+ */
+public class ReplicationSource implements SeatMapChangeListener {
+
+    /** Default number of entries retained. */
+    public static final int DEFAULT_CAPACITY = 64 * 1024;
+
+    /** The primary. */
+    private final TicketServiceImpl primary;
+
+    /** Ring buffer of the most recent entries, indexed by sequence number modulo capacity. */
+    private final ReplicationBatch.Entry[] recentEntries;
+
+    /** Sequence number of the most recently recorded entry (zero if none). Guarded by this source's monitor. */
+    private long lastSequenceNumber = 0;
+
+
+    /**
+     * Constructs a new ReplicationSource, and starts recording the primary's changes. The primary
+     * must not have changed yet, so that replicas, which start empty, see every change.
+     *
+     * @param primary the primary
+     * @param capacity the number of entries retained
+     * @throws IllegalStateException if the primary has already changed
+     */
+    public ReplicationSource(TicketServiceImpl primary, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("bad capacity: " + capacity);
+        }
+        this.primary = primary;
+        this.recentEntries = new ReplicationBatch.Entry[capacity];
+        if (primary.addSeatMapChangeListener(this) != 0) {
+            primary.removeSeatMapChangeListener(this);
+            throw new IllegalStateException("the primary has already changed");
+        }
+    }
+
+    /**
+     * Records a change. Invoked while the primary's lock is held.
+     *
+     * @param change the change
+     */
+    @Override
+    public void seatMapChanged(SeatMapChange change) {
+        SeatHoldImpl seatHold = primary.getSeatHold(change.getSeatHoldId());
+        boolean held = (change.getType() == SeatMapChange.Type.HELD) || (change.getType() == SeatMapChange.Type.EXTENDED);
+        ReplicationBatch.Entry entry = new ReplicationBatch.Entry(change.getSequenceNumber(), change.getType(),
+                change.getSeatHoldId(), seatHold.getCustomerEmail(), change.getSeatRuns(),
+                (change.getType() == SeatMapChange.Type.RESERVED) ? seatHold.getReservationId() : null,
+                held ? seatHold.getDeadlineMillis() : 0, System.currentTimeMillis());
+        synchronized (this) {
+            recentEntries[(int) (entry.getSequenceNumber() % recentEntries.length)] = entry;
+            lastSequenceNumber = entry.getSequenceNumber();
+        }
+    }
+
+    /**
+     * Sequence number of the most recently recorded entry.
+     *
+     * @return the last sequence number, or zero if nothing has been recorded
+     */
+    public synchronized long getLastSequenceNumber() {
+        return lastSequenceNumber;
+    }
+
+    /**
+     * Makes a batch of the entries recorded after the specified sequence number.
+     *
+     * @param sequenceNumber the sequence number of the last entry the replica has applied
+     * @param maxEntries the largest number of entries in the batch
+     * @return the batch (possibly empty), or null if some of the entries are no longer retained,
+     *         in which case the replica cannot catch up, and must be rebuilt
+     */
+    public synchronized ReplicationBatch getBatch(long sequenceNumber, int maxEntries) {
+        if ((sequenceNumber < 0) || (maxEntries <= 0)) {
+            throw new IllegalArgumentException("bad sequenceNumber or maxEntries");
+        }
+        if (lastSequenceNumber - sequenceNumber > recentEntries.length) {
+            return null;   // too far behind
+        }
+        long endSequenceNumber = Math.min(lastSequenceNumber, sequenceNumber + maxEntries);
+        List<ReplicationBatch.Entry> entries = new ArrayList<>((int) Math.max(endSequenceNumber - sequenceNumber, 0));
+        for (long n = sequenceNumber + 1; n <= endSequenceNumber; n++) {
+            entries.add(recentEntries[(int) (n % recentEntries.length)]);
+        }
+        return new ReplicationBatch(Collections.unmodifiableList(entries), lastSequenceNumber);
+    }
+}
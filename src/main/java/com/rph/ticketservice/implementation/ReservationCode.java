@@ -0,0 +1,86 @@
+package com.rph.ticketservice.implementation;
+
+import java.util.Arrays;
+
+
+/**
+ * Encodes 64-bit IDs as compact reservation codes, and decodes them again. A code is 13
+ * characters of Crockford's base 32 (digits and upper case letters, without I, L, O and U),
+ * so it is short enough to read over the phone, and contains no characters that are easily
+ * confused. Decoding ignores case and hyphens, and reads I and L as 1, and O as 0.
+ */
+public final class ReservationCode {
+
+    /** Number of characters in a code. 13 * 5 bits covers 64 bits. */
+    public static final int LENGTH = 13;
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    /** Digit value by character, or -1 if the character is not a digit. */
+    private static final int[] DIGIT_VALUES = buildDigitValues();
+
+    private ReservationCode() {
+    }
+
+    /**
+     * Encodes the specified ID.
+     *
+     * @param id the ID
+     * @return the reservation code
+     */
+    public static String encode(long id) {
+        char[] code = new char[LENGTH];
+        for (int i = LENGTH - 1; i >= 0; i--) {
+            code[i] = ALPHABET[(int) (id & 0x1F)];
+            id >>>= 5;
+        }
+        return new String(code);
+    }
+
+    /**
+     * Decodes the specified reservation code.
+     *
+     * @param code the reservation code
+     * @return the ID
+     * @throws IllegalArgumentException if the code is malformed
+     */
+    public static long decode(String code) {
+        if (code == null) {
+            throw new IllegalArgumentException("null reservation code");
+        }
+        long id = 0;
+        int numDigits = 0;
+        for (int i = 0; i < code.length(); i++) {
+            char c = code.charAt(i);
+            if (c == '-') {
+                continue;
+            }
+            int value = (c < DIGIT_VALUES.length) ? DIGIT_VALUES[c] : -1;
+            if ((value < 0) || (++numDigits > LENGTH) || ((numDigits == 1) && (value > 0xF))) {
+                throw new IllegalArgumentException("invalid reservation code: " + code);
+            }
+            id = (id << 5) | value;
+        }
+        if (numDigits != LENGTH) {
+            throw new IllegalArgumentException("invalid reservation code: " + code);
+        }
+        return id;
+    }
+
+    @VisibleForTesting
+    static int[] buildDigitValues() {
+        int[] digitValues = new int[128];
+        Arrays.fill(digitValues, -1);
+        for (int value = 0; value < ALPHABET.length; value++) {
+            digitValues[ALPHABET[value]] = value;
+            digitValues[Character.toLowerCase(ALPHABET[value])] = value;
+        }
+        for (char c : "oO".toCharArray()) {
+            digitValues[c] = 0;
+        }
+        for (char c : "iIlL".toCharArray()) {
+            digitValues[c] = 1;
+        }
+        return digitValues;
+    }
+}
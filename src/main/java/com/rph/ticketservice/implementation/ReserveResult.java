@@ -0,0 +1,70 @@
+package com.rph.ticketservice.implementation;
+
+/**
+ * A {@code ReserveResult} contains the outcome of a request to reserve a seatHold,
+ * reported as a status rather than as an exception. A ReserveResult may be reused.
+ */
+public class ReserveResult {
+
+    /** Possible outcomes of a reserve request. */
+    public enum Status {
+        RESERVED,    // the seatHold is reserved (now, or previously)
+        NOT_FOUND,   // no such seatHold
+        EXPIRED,     // the seatHold expired before it could be reserved
+    }
+
+    /** The outcome. */
+    private Status status;
+
+    /** The reservation ID, if reserved. */
+    private String reservationId;
+
+    /**
+     * Constructs a new ReserveResult.
+     */
+    public ReserveResult() {
+    }
+
+    /**
+     * Sets the outcome.
+     *
+     * @param status the outcome
+     * @param reservationId the reservation ID if reserved, otherwise null
+     */
+    void set(Status status, String reservationId) {
+        this.status = status;
+        this.reservationId = reservationId;
+    }
+
+    /**
+     * The outcome.
+     *
+     * @return the status
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * True if the seatHold is reserved.
+     *
+     * @return true if the status is RESERVED, otherwise false
+     */
+    public boolean isReserved() {
+        return status == Status.RESERVED;
+    }
+
+    /**
+     * The reservation ID.
+     *
+     * @return the reservation ID if reserved, otherwise null
+     */
+    public String getReservationId() {
+        return reservationId;
+    }
+
+    @Override
+    public String toString() {
+        return (reservationId == null) ? String.valueOf(status) : (status + " " + reservationId);
+    }
+}
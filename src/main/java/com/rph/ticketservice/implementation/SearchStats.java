@@ -0,0 +1,80 @@
+package com.rph.ticketservice.implementation;
+
+/**
+ * A {@code SearchStats} accumulates the work done by searches for the best adjacent seats.
+ * It is not thread safe; it is used while the TicketService lock is held.
+ */
+public class SearchStats {
+
+    /** Number of searches. */
+    private int numSearches;
+
+    /** Number of {@code bestAvailableSeats} entries examined. */
+    private int numEntriesScanned;
+
+    /** Number of candidate seat lists built and evaluated. */
+    private int numCandidatesEvaluated;
+
+    /** Average bestness of the seats chosen by the most recent search (NaN if none were found). */
+    private double winningAverageBestness = Double.NaN;
+
+    /**
+     * Starts over (all counts are zero).
+     */
+    void reset() {
+        numSearches = 0;
+        numEntriesScanned = 0;
+        numCandidatesEvaluated = 0;
+        winningAverageBestness = Double.NaN;
+    }
+
+    /**
+     * Accumulates the work done by one search.
+     *
+     * @param entriesScanned number of {@code bestAvailableSeats} entries examined
+     * @param candidatesEvaluated number of candidate seat lists built and evaluated
+     * @param averageBestness average bestness of the chosen seats (NaN if none were found)
+     */
+    void recordSearch(int entriesScanned, int candidatesEvaluated, double averageBestness) {
+        numSearches += 1;
+        numEntriesScanned += entriesScanned;
+        numCandidatesEvaluated += candidatesEvaluated;
+        winningAverageBestness = averageBestness;
+    }
+
+    /**
+     * Number of searches.
+     *
+     * @return the number of searches
+     */
+    public int getNumSearches() {
+        return numSearches;
+    }
+
+    /**
+     * Number of {@code bestAvailableSeats} entries examined.
+     *
+     * @return the number of entries scanned
+     */
+    public int getNumEntriesScanned() {
+        return numEntriesScanned;
+    }
+
+    /**
+     * Number of candidate seat lists built and evaluated.
+     *
+     * @return the number of candidates evaluated
+     */
+    public int getNumCandidatesEvaluated() {
+        return numCandidatesEvaluated;
+    }
+
+    /**
+     * Average bestness of the seats chosen by the most recent search.
+     *
+     * @return the winning average bestness, or NaN if no seats were found
+     */
+    public double getWinningAverageBestness() {
+        return winningAverageBestness;
+    }
+}
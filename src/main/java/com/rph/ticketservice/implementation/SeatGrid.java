@@ -1,16 +1,45 @@
 package com.rph.ticketservice.implementation;
 
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
 
 /**
  * This class contains seat information (static and dynamic).
  */
 public class SeatGrid {
 
+    /** Largest party size whose scan start is cached. Larger parties always scan from the best seat. */
+    static final int MAX_CACHED_PARTY_SIZE = 16;
+
     /** The venue containing the seats. */
     private final VenueImpl venue;
 
-    /** A rectangular grid containing the availability of each seat. */
-    private boolean[][] seatIsAvailable;
+    /** Per row, the index in {@code seatIsAvailable} of the first position of the row (see {@code VenueImpl}). */
+    private final int[] rowOffsets;
+
+    /** The availability of each position, row after row. Aisles and blocked seats are never available. */
+    private final BitSet seatIsAvailable;
+
+    /** Rows whose availability changed since the last call to {@code takeDirtyRows()}. */
+    private BitSet dirtyRows = new BitSet();
+
+    /** Per row, the lowest (best) bestness of any seat in the row. */
+    private final int[] rowMinBestness;
+
+    /** Per row, the number of available seats. */
+    private final int[] numSeatsAvailableInRow;
+
+    /** Per number of rows, the first rows of the blocks of that many consecutive rows, best block first (when needed). */
+    private final int[][] rowBlocksByBestness;
+
+    /**
+     * Per party size, every available seat with a lower bestness is known to have too few adjacent
+     * available seats for the party. Holding seats never makes more seats adjacent, so only making
+     * seats available lowers these values (to the best seat in the affected row).
+     */
+    private final int[] noFitBelowBestness = new int[MAX_CACHED_PARTY_SIZE + 1];
 
 
     /**
@@ -20,28 +49,21 @@ public class SeatGrid {
      */
     SeatGrid(VenueImpl venue) {
         this.venue = venue;
-        this.seatIsAvailable = buildSeatAvailabilityGrid(venue.getNumRows(), venue.getNumSeatsPerRow());
-    }
-
-    /**
-     * Builds a rectangular array of booleans. Each element indicates whether the seat
-     * at the corresponding coordinates is available (true) or not (false). Initially
-     * all values are true (all seats are available).
-     *
-     * @param numRows number of rows in the grid
-     * @param numSeatsPerRow number of columns in the grid
-     * @return the two dimensional boolean array
-     */
-    @VisibleForTesting
-    static boolean[][] buildSeatAvailabilityGrid(int numRows, int numSeatsPerRow) {
-        boolean[][] seatAvailableGrid = new boolean[numRows][];
-        for (int rowNum = 0; rowNum < numRows; rowNum++) {
-            seatAvailableGrid[rowNum] = new boolean[numSeatsPerRow];
-            for (int seatNumInRow = 0; seatNumInRow < numSeatsPerRow; seatNumInRow++) {
-                seatAvailableGrid[rowNum][seatNumInRow] = true;
+        this.rowOffsets = venue.getRowOffsets();
+        this.seatIsAvailable = venue.getSeatPositions();   // initially every seat is available
+        this.rowMinBestness = new int[venue.getNumRows()];
+        this.numSeatsAvailableInRow = new int[venue.getNumRows()];
+        this.rowBlocksByBestness = new int[venue.getNumRows() + 1][];
+        for (int rowNum = 0; rowNum < rowMinBestness.length; rowNum++) {
+            rowMinBestness[rowNum] = Integer.MAX_VALUE;   // a row without seats is never searched
+            for (int seatNumInRow = 0; seatNumInRow < venue.getRowLength(rowNum); seatNumInRow++) {
+                SeatImpl seat = venue.getSeat(rowNum, seatNumInRow);
+                if (seat != null) {
+                    numSeatsAvailableInRow[rowNum] += 1;
+                    rowMinBestness[rowNum] = Math.min(rowMinBestness[rowNum], seat.getBestness());
+                }
             }
         }
-        return seatAvailableGrid;
     }
 
     /**
@@ -54,44 +76,191 @@ public class SeatGrid {
     }
 
     /**
-     * Number of seats per row.
+     * Number of seat positions in the longest row.
      *
-     * @return number of seats per row
+     * @return number of seat positions in the longest row
      */
     public int getNumSeatsPerRow() {
         return venue.getNumSeatsPerRow();
     }
 
+    /**
+     * Number of seat positions (seats, aisles, and blocked seats) in the specified row.
+     * No seat number in the row is this large.
+     *
+     * @param rowNum the row number
+     * @return number of positions in the row
+     */
+    public int getRowLength(int rowNum) {
+        return rowOffsets[rowNum + 1] - rowOffsets[rowNum];
+    }
+
     /**
      * Returns the seat at the specified coordinates.
      *
      * @param rowNum the row number
      * @param seatNumInRow the seat number in the row
-     * @return the seat
+     * @return the seat, or null for an aisle or blocked seat
      */
     public SeatImpl getSeat(int rowNum, int seatNumInRow) {
         return venue.getSeat(rowNum, seatNumInRow);
     }
 
     /**
-     * Returns true if the specified seat is available, else false.
+     * The total bestness of a run of adjacent seats in a row, in constant time.
+     *
+     * @param rowNum the row containing the seats
+     * @param firstSeatNumInRow the seat number of the first (leftmost) seat in the run
+     * @param numSeats the number of seats in the run
+     * @return the total bestness of the seats
+     */
+    int getTotalBestness(int rowNum, int firstSeatNumInRow, int numSeats) {
+        return venue.getTotalBestness(rowNum, firstSeatNumInRow, numSeats);
+    }
+
+    /**
+     * The bestness prefix sums of a row. Element i is the total bestness of the first i seats
+     * in the row. The returned array must not be modified.
+     *
+     * @param rowNum the row number
+     * @return the prefix sums
+     */
+    int[] getBestnessPrefixSums(int rowNum) {
+        return venue.getBestnessPrefixSums(rowNum);
+    }
+
+    /**
+     * Returns true if the specified seat is available, else false. Aisles, blocked seats, and
+     * positions beyond the end of the row are never available.
      *
      * @param rowNum the row number
      * @param seatNumInRow the seat number in the row
      * @return the seat availability
      */
     public boolean isAvailable(int rowNum, int seatNumInRow) {
-        return seatIsAvailable[rowNum][seatNumInRow];
+        int rowOffset = rowOffsets[rowNum];
+        return (rowOffset + seatNumInRow < rowOffsets[rowNum + 1]) && seatIsAvailable.get(rowOffset + seatNumInRow);
+    }
+
+    /**
+     * Number of available seats in the specified row.
+     *
+     * @param rowNum the row number
+     * @return number of available seats in the row
+     */
+    int getNumSeatsAvailableInRow(int rowNum) {
+        return numSeatsAvailableInRow[rowNum];
     }
 
     /**
-     * Sets the availability of the specified seat.
+     * The lowest (best) bestness of any seat in the specified row.
+     *
+     * @param rowNum the row number
+     * @return the best bestness in the row
+     */
+    int getRowMinBestness(int rowNum) {
+        return rowMinBestness[rowNum];
+    }
+
+    /**
+     * The blocks of consecutive rows of the specified size, best first: by the sum of the rows'
+     * best bestnesses, which depends only on the venue, so the order is computed once per size.
+     *
+     * @param numRows the number of rows in a block (1 to the number of rows)
+     * @return the first row number of each block, best block first; must not be modified
+     */
+    int[] getRowBlocksByBestness(int numRows) {
+        if (rowBlocksByBestness[numRows] == null) {
+            int numBlocks = rowMinBestness.length - numRows + 1;
+            long[] blockBestness = new long[numBlocks];   // a row without seats has the largest int bestness
+            Integer[] firstRowNums = new Integer[numBlocks];
+            for (int firstRowNum = 0; firstRowNum < numBlocks; firstRowNum++) {
+                for (int rowNum = firstRowNum; rowNum < firstRowNum + numRows; rowNum++) {
+                    blockBestness[firstRowNum] += rowMinBestness[rowNum];
+                }
+                firstRowNums[firstRowNum] = firstRowNum;
+            }
+            Arrays.sort(firstRowNums, (r1, r2) -> Long.compare(blockBestness[r1], blockBestness[r2]));
+            int[] blocks = new int[numBlocks];
+            for (int block = 0; block < numBlocks; block++) {
+                blocks[block] = firstRowNums[block];
+            }
+            rowBlocksByBestness[numRows] = blocks;
+        }
+        return rowBlocksByBestness[numRows];
+    }
+
+    /**
+     * Sets the availability of the specified seat, which must not be an aisle or blocked seat.
      *
      * @param rowNum the row number
      * @param seatNumInRow the seat number in the row
      * @param available the seat availability (true implies available)
      */
     void setAvailability(int rowNum, int seatNumInRow, boolean available) {
-        seatIsAvailable[rowNum][seatNumInRow] = available;
+        int position = rowOffsets[rowNum] + seatNumInRow;
+        if (seatIsAvailable.get(position) != available) {
+            numSeatsAvailableInRow[rowNum] += available ? 1 : -1;
+        }
+        seatIsAvailable.set(position, available);
+        dirtyRows.set(rowNum);
+        if (available) {
+            int bestness = rowMinBestness[rowNum];
+            for (int partySize = 1; partySize <= MAX_CACHED_PARTY_SIZE; partySize++) {
+                noFitBelowBestness[partySize] = Math.min(noFitBelowBestness[partySize], bestness);
+            }
+        }
+    }
+
+    /**
+     * Returns the index in {@code bestAvailableSeats} from which a search for adjacent seats for a
+     * party should start. Every available seat before it is known to have too few adjacent
+     * available seats for the party.
+     *
+     * @param partySize the number of seats needed
+     * @param bestAvailableSeats the available seats, ordered by bestness
+     * @return the index of the first seat that might fit the party (possibly the list size)
+     */
+    int getScanStartIndex(int partySize, List<SeatImpl> bestAvailableSeats) {
+        if (partySize > MAX_CACHED_PARTY_SIZE) {
+            return 0;
+        }
+        int bestness = noFitBelowBestness[partySize];
+        int low = 0;
+        int high = bestAvailableSeats.size();
+        while (low < high) {   // binary search for the first seat whose bestness is not below
+            int mid = (low + high) >>> 1;
+            if (bestAvailableSeats.get(mid).getBestness() < bestness) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Records the outcome of a scan for adjacent seats for a party: no available seat better than
+     * the first fit has enough adjacent available seats for the party, or for any larger party.
+     *
+     * @param partySize the number of seats needed
+     * @param firstFitBestness the bestness of the first seat found to fit the party, or
+     *                         {@code Integer.MAX_VALUE} if no seat fits
+     */
+    void recordFirstFit(int partySize, int firstFitBestness) {
+        for (int size = partySize; size <= MAX_CACHED_PARTY_SIZE; size++) {
+            noFitBelowBestness[size] = Math.max(noFitBelowBestness[size], firstFitBestness);
+        }
+    }
+
+    /**
+     * Returns the rows whose availability changed since the previous call, and starts over.
+     *
+     * @return the changed row numbers
+     */
+    BitSet takeDirtyRows() {
+        BitSet rows = dirtyRows;
+        dirtyRows = new BitSet();
+        return rows;
     }
 }
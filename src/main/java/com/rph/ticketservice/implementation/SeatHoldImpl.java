@@ -3,6 +3,7 @@ package com.rph.ticketservice.implementation;
 import com.rph.ticketservice.SeatHold;
 
 import java.util.List;
+import java.util.regex.Pattern;
 
 
 /**
@@ -17,11 +18,20 @@ public class SeatHoldImpl implements SeatHold {
         EXPIRED,    // may not transition to any other state
     }
 
+    /** Compiled once. This is overly simplistic. */
+    private static final Pattern EMAIL_ADDRESS_PATTERN = Pattern.compile("^[.a-zA-Z0-9]+@[a-zA-Z0-9]+(.[a-zA-Z]{2,})$");
+
     /** The seatHold identifier, unique for this particular performance. */
     private final int seatHoldId;
 
-    /** The customer's email address. */
-    private final String customerEmail;
+    /** The registry of the TicketService's customers. */
+    private final CustomerRegistry customers;
+
+    /**
+     * The customer's ID in {@code customers}, or NO_CUSTOMER once the seatHold has expired and
+     * released its reference. Written only while the TicketService's lock is held.
+     */
+    private volatile int customerId;
 
     /** The list of held seats. Order is unspecified. */
     private final List<SeatImpl> seats;
@@ -29,19 +39,47 @@ public class SeatHoldImpl implements SeatHold {
     /** The state of this seatHold. */
     private volatile SeatHoldImpl.State state = State.HELD;
 
+    /** The reservation ID, once reserved. Written before the state becomes RESERVED. */
+    private volatile String reservationId = null;
+
     /**
-     * Constructs a new SeatHold.
+     * When the seatHold expires (milliseconds since the epoch), or Long.MAX_VALUE if it has no
+     * deadline (a replica's seatHold, say), and expires only when {@code expire} is invoked.
+     */
+    private volatile long deadlineMillis = Long.MAX_VALUE;
+
+    /** The seatHold's place in its TicketService's expiration wheel, if any. Guarded by the TicketService's lock. */
+    private TimingWheel.Timeout<SeatHoldImpl> expirationTimeout = null;
+
+    /**
+     * Constructs a new SeatHold, whose customer is registered in a registry of its own.
      *
      * @param seatHoldId this seatHold's ID
      * @param customerEmail the customer's email address
      * @param seats the held seats
+     * @throws IllegalArgumentException if the email address is invalid
      */
+    @VisibleForTesting
     SeatHoldImpl(int seatHoldId, String customerEmail, List<SeatImpl> seats) {
-        if (!isValidEmailAddress(customerEmail)) {
-            throw new IllegalArgumentException("invalid email address: " + customerEmail);
-        }
+        this(seatHoldId, new CustomerRegistry(), customerEmail, seats);
+    }
+
+    private SeatHoldImpl(int seatHoldId, CustomerRegistry customers, String customerEmail, List<SeatImpl> seats) {
+        this(seatHoldId, customers, customers.acquire(customerEmail), seats);
+    }
+
+    /**
+     * Constructs a new SeatHold, which takes over a reference to its customer.
+     *
+     * @param seatHoldId this seatHold's ID
+     * @param customers the registry of the TicketService's customers
+     * @param customerId the customer's ID, to which the caller has taken a reference for the seatHold
+     * @param seats the held seats
+     */
+    SeatHoldImpl(int seatHoldId, CustomerRegistry customers, int customerId, List<SeatImpl> seats) {
         this.seatHoldId = seatHoldId;
-        this.customerEmail = customerEmail;
+        this.customers = customers;
+        this.customerId = customerId;
         this.seats = seats;
     }
 
@@ -55,12 +93,39 @@ public class SeatHoldImpl implements SeatHold {
     }
 
     /**
-     * The customer email address.
+     * The customer email address. Once the seatHold has expired, its customer may have been
+     * forgotten (see {@code CustomerRegistry}).
      *
-     * @return the customer email address
+     * @return the customer email address, or null if the customer has been forgotten
      */
     public String getCustomerEmail() {
-        return customerEmail;
+        int id = customerId;
+        if (id == CustomerRegistry.NO_CUSTOMER) {
+            return null;
+        }
+        String customerEmail = customers.getCustomerEmail(id);
+        return (customerId == id) ? customerEmail : null;   // else the ID may have been reused meanwhile
+    }
+
+    /**
+     * The customer ID, which identifies the customer among the TicketService's customers.
+     *
+     * @return the customer ID, or NO_CUSTOMER if the customer has been forgotten
+     */
+    int getCustomerId() {
+        return customerId;
+    }
+
+    /**
+     * Releases the seatHold's reference to its customer, once it has expired and the expiration
+     * has been published. Invoked while the TicketService's lock is held.
+     */
+    void forgetCustomer() {
+        int id = customerId;
+        if (id != CustomerRegistry.NO_CUSTOMER) {
+            customerId = CustomerRegistry.NO_CUSTOMER;   // before the ID can be reused
+            customers.release(id);
+        }
     }
 
     public int numSeatsHeld() {
@@ -72,11 +137,22 @@ public class SeatHoldImpl implements SeatHold {
     }
 
     /**
-     * The held state of the seatHold.
+     * The held state of the seatHold. A seatHold whose deadline has passed is no longer held,
+     * even if its seats have not yet been reclaimed.
      *
-     * @return true if the state of the seatHold is HELD, otherwise false
+     * @return true if the state of the seatHold is HELD, and its deadline has not passed, otherwise false
      */
     public boolean isHeld() {
+        return (state == State.HELD) && !isPastDeadline();
+    }
+
+    /**
+     * Checks whether the seatHold's seats are still taken by the hold: it is neither reserved
+     * nor expired, though its deadline may have passed.
+     *
+     * @return true if the state of the seatHold is HELD, otherwise false
+     */
+    boolean isPending() {
         return state == State.HELD;
     }
 
@@ -90,12 +166,65 @@ public class SeatHoldImpl implements SeatHold {
     }
 
     /**
-     * The expired state of the seatHold.
+     * The expired state of the seatHold. A seatHold whose deadline has passed is expired, even
+     * if its seats have not yet been reclaimed.
      *
-     * @return true if the state of the seatHold is EXPIRED, otherwise false
+     * @return true if the state of the seatHold is EXPIRED, or it is HELD and its deadline has passed, otherwise false
      */
     public boolean isExpired() {
-        return state == State.EXPIRED;
+        State currentState = state;
+        return (currentState == State.EXPIRED) || ((currentState == State.HELD) && isPastDeadline());
+    }
+
+    /**
+     * When the seatHold expires.
+     *
+     * @return the deadline (milliseconds since the epoch), or Long.MAX_VALUE if none
+     */
+    long getDeadlineMillis() {
+        return deadlineMillis;
+    }
+
+    /**
+     * Sets when the seatHold expires. It is expired as soon as the deadline passes, but its
+     * seats are reclaimed only when {@code expire} is invoked.
+     *
+     * @param deadlineMillis the deadline (milliseconds since the epoch)
+     */
+    void setDeadlineMillis(long deadlineMillis) {
+        this.deadlineMillis = deadlineMillis;
+    }
+
+    /**
+     * The seatHold's place in its TicketService's expiration wheel.
+     *
+     * @return the timeout, or null if the seatHold is not in the wheel
+     */
+    TimingWheel.Timeout<SeatHoldImpl> getExpirationTimeout() {
+        return expirationTimeout;
+    }
+
+    /**
+     * Sets the seatHold's place in its TicketService's expiration wheel.
+     *
+     * @param expirationTimeout the timeout, or null
+     */
+    void setExpirationTimeout(TimingWheel.Timeout<SeatHoldImpl> expirationTimeout) {
+        this.expirationTimeout = expirationTimeout;
+    }
+
+    private boolean isPastDeadline() {
+        long deadline = deadlineMillis;
+        return (deadline != Long.MAX_VALUE) && (System.currentTimeMillis() >= deadline);
+    }
+
+    /**
+     * The reservation ID.
+     *
+     * @return the reservation ID, or null if the seatHold is not reserved
+     */
+    public String getReservationId() {
+        return isReserved() ? reservationId : null;
     }
 
     /**
@@ -125,12 +254,14 @@ public class SeatHoldImpl implements SeatHold {
     /**
      * Reserves the seatHold. This method may be invoked more than once without trauma.
      * If the current state is EXPIRED or RESERVED then nothing happens -- it remains
-     * in that state.
+     * in that state, and keeps its original reservation ID.
      *
+     * @param reservationId the reservation ID
      * @return true if the seatHold is now RESERVED, otherwise false
      */
-    boolean reserve() {
+    boolean reserve(String reservationId) {
         if (state == State.HELD) {
+            this.reservationId = reservationId;
             state = State.RESERVED;
         }
         return state == State.RESERVED;
@@ -144,11 +275,20 @@ public class SeatHoldImpl implements SeatHold {
      */
     @VisibleForTesting
     static boolean isValidEmailAddress(String customerEmail) {
-        if (customerEmail == null) {
-            return false;
+        return (customerEmail != null) && EMAIL_ADDRESS_PATTERN.matcher(customerEmail).matches();
+    }
+
+    /**
+     * Checks that the specified email address is valid. TicketServiceImpl checks (as it registers
+     * the customer) before it takes its lock, so that the check does not add to the lock hold time.
+     *
+     * @param customerEmail the email address
+     * @throws IllegalArgumentException if the email address is invalid
+     */
+    static void checkEmailAddress(String customerEmail) {
+        if (!isValidEmailAddress(customerEmail)) {
+            throw new IllegalArgumentException("invalid email address: " + customerEmail);
         }
-        // this is overly simplistic
-        return customerEmail.matches("^[.a-zA-Z0-9]+@[a-zA-Z0-9]+(.[a-zA-Z]{2,})$");
     }
 
     @Override
@@ -0,0 +1,98 @@
+package com.rph.ticketservice.implementation;
+
+import java.util.List;
+
+/**
+ * A {@code SeatMapChange} describes a single change to the seat map of a performance
+ * (seats held, reserved or released, or a hold extended). Changes are numbered consecutively, starting at one,
+ * in the order in which they were applied. A SeatMapChange is immutable.
+ */
+public class SeatMapChange {
+
+    /** The kinds of seat map change. */
+    public enum Type {
+        HELD,       // available seats became held
+        RESERVED,   // held seats became reserved
+        RELEASED,   // held seats became available again (the seatHold expired)
+        EXTENDED,   // held seats stay held for longer (the seatHold's deadline moved)
+    }
+
+    /** The sequence number of this change. */
+    private final long sequenceNumber;
+
+    /** The kind of change. */
+    private final Type type;
+
+    /** The ID of the seatHold whose seats changed. */
+    private final int seatHoldId;
+
+    /** The changed seats (the seatHold's seats, if EXTENDED), run-length encoded per row. */
+    private final List<SeatRun> seatRuns;   // unmodifiable
+
+    /**
+     * Constructs a new immutable SeatMapChange.
+     *
+     * @param sequenceNumber the sequence number
+     * @param type the kind of change
+     * @param seatHoldId the seatHold ID
+     * @param seatRuns the changed seats (unmodifiable)
+     */
+    SeatMapChange(long sequenceNumber, Type type, int seatHoldId, List<SeatRun> seatRuns) {
+        this.sequenceNumber = sequenceNumber;
+        this.type = type;
+        this.seatHoldId = seatHoldId;
+        this.seatRuns = seatRuns;
+    }
+
+    /**
+     * The sequence number of this change.
+     *
+     * @return the sequence number
+     */
+    public long getSequenceNumber() {
+        return sequenceNumber;
+    }
+
+    /**
+     * The kind of change.
+     *
+     * @return the type
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * The ID of the seatHold whose seats changed.
+     *
+     * @return the seatHold ID
+     */
+    public int getSeatHoldId() {
+        return seatHoldId;
+    }
+
+    /**
+     * The changed seats, run-length encoded per row. This list is unmodifiable.
+     *
+     * @return the changed seats
+     */
+    public List<SeatRun> getSeatRuns() {
+        return seatRuns;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buf = new StringBuilder(30 + (10 * seatRuns.size()));
+        buf.append(sequenceNumber);
+        buf.append(" ");
+        buf.append(type.toString());
+        buf.append(" ");
+        buf.append(seatHoldId);
+        buf.append(":");
+        for (SeatRun seatRun : seatRuns) {
+            buf.append(" ");
+            buf.append(seatRun.toString());
+        }
+        return buf.toString();
+    }
+}
@@ -0,0 +1,133 @@
+package com.rph.ticketservice.implementation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A {@code SeatMapChangeFeed} numbers each seat map change, delivers it to the registered
+ * listeners, and retains the most recent changes in a bounded ring buffer so that a
+ * subscriber that fell behind can catch up without re-reading the whole seat map.
+ * <p>
+ * Publishing and catching up are not thread safe; the caller synchronizes. Listeners
+ * may be added and removed at any time. A listener that throws is logged and skipped: by the
+ * time a change is published the seats have been committed, so the failure must not reach
+ * the caller (leaking the hold), nor kill the expiration timer's thread.
+ */
+public class SeatMapChangeFeed {
+
+    private static final Logger LOGGER = Logger.getLogger(SeatMapChangeFeed.class.getName());
+
+    /** Default number of changes retained for catching up. */
+    static final int DEFAULT_CAPACITY = 1024;
+
+    /** The registered listeners. */
+    private final List<SeatMapChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    /** Ring buffer of the most recent changes, indexed by sequence number modulo capacity. */
+    private final SeatMapChange[] recentChanges;
+
+    /** Sequence number of the most recently published change (zero if none). */
+    private long lastSequenceNumber = 0;
+
+    /** Number of times a listener has thrown. */
+    private long numListenerFailures = 0;
+
+
+    /**
+     * Constructs a new SeatMapChangeFeed.
+     *
+     * @param capacity the number of changes retained for catching up
+     */
+    SeatMapChangeFeed(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("bad capacity: " + capacity);
+        }
+        this.recentChanges = new SeatMapChange[capacity];
+    }
+
+    /**
+     * Registers a listener.
+     *
+     * @param listener the listener
+     */
+    void addListener(SeatMapChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a listener.
+     *
+     * @param listener the listener
+     */
+    void removeListener(SeatMapChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Sequence number of the most recently published change.
+     *
+     * @return the last sequence number, or zero if nothing has been published
+     */
+    long getLastSequenceNumber() {
+        return lastSequenceNumber;
+    }
+
+    /**
+     * Numbers, retains and delivers a change to the seats of the specified seatHold.
+     *
+     * @param type the kind of change
+     * @param seatHold the seatHold whose seats changed
+     * @return the published change
+     */
+    SeatMapChange publish(SeatMapChange.Type type, SeatHoldImpl seatHold) {
+        SeatMapChange change = new SeatMapChange(
+                ++lastSequenceNumber, type, seatHold.getSeatHoldId(), SeatRun.encode(seatHold.getHeldSeats()));
+        recentChanges[(int) (change.getSequenceNumber() % recentChanges.length)] = change;
+        for (SeatMapChangeListener listener : listeners) {
+            try {
+                listener.seatMapChanged(change);
+            } catch (RuntimeException e) {
+                numListenerFailures += 1;
+                LOGGER.log(Level.WARNING, "seat map change listener failed on change " + change.getSequenceNumber(), e);
+            }
+        }
+        return change;
+    }
+
+    /**
+     * Number of times a listener has thrown (each failure is logged, and the listener skipped).
+     *
+     * @return the number of listener failures
+     */
+    long getNumListenerFailures() {
+        return numListenerFailures;
+    }
+
+    /**
+     * Returns the retained changes published after the specified sequence number, in order.
+     *
+     * @param sequenceNumber the sequence number of the last change already seen (zero if none)
+     * @return the subsequent changes (possibly empty), or null if some of them are no longer
+     *         retained, in which case the caller must resynchronize from the full seat map
+     */
+    List<SeatMapChange> getChangesSince(long sequenceNumber) {
+        if (sequenceNumber < 0) {
+            throw new IllegalArgumentException("bad sequenceNumber: " + sequenceNumber);
+        }
+        if (sequenceNumber >= lastSequenceNumber) {
+            return Collections.emptyList();
+        }
+        if (lastSequenceNumber - sequenceNumber > recentChanges.length) {
+            return null;   // too far behind
+        }
+        List<SeatMapChange> changes = new ArrayList<>((int) (lastSequenceNumber - sequenceNumber));
+        for (long n = sequenceNumber + 1; n <= lastSequenceNumber; n++) {
+            changes.add(recentChanges[(int) (n % recentChanges.length)]);
+        }
+        return changes;
+    }
+}
@@ -0,0 +1,16 @@
+package com.rph.ticketservice.implementation;
+
+/**
+ * A {@code SeatMapChangeListener} is notified of each change to the seat map of a performance.
+ */
+public interface SeatMapChangeListener {
+
+    /**
+     * Invoked once for each change, in sequence number order. This method is invoked while
+     * the TicketService lock is held, so it must be quick, and it must not call back into
+     * the TicketService from another thread.
+     *
+     * @param change the change
+     */
+    void seatMapChanged(SeatMapChange change);
+}
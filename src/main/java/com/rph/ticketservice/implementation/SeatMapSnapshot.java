@@ -0,0 +1,291 @@
+package com.rph.ticketservice.implementation;
+
+import java.util.BitSet;
+
+/**
+ * A {@code SeatMapSnapshot} is an immutable, consistent copy of the availability of every
+ * seat at the moment it was published. Snapshots are published copy-on-write: rows that
+ * did not change since the previous snapshot are shared with it, so publishing costs
+ * time proportional to the number of rows plus the size of the changed rows. Readers
+ * never need the TicketService lock.
+ * <p>
+ * Each snapshot also carries a per-row availability summary (number of available seats,
+ * length of the longest run of adjacent available seats, and number of orphan seats),
+ * recomputed only for changed rows, so that row range queries take time proportional to
+ * the number of rows queried.
+ */
+public class SeatMapSnapshot {
+
+    /** Sequence number of the last seat map change reflected in this snapshot. */
+    private final long version;
+
+    /** Number of available seats. */
+    private final int numSeatsAvailable;
+
+    /** Number of seat positions in the longest row. */
+    private final int numSeatsPerRow;
+
+    /** Availability of each seat, one array per row, as long as the row. Neither the outer nor the inner arrays are ever modified. */
+    private final boolean[][] seatIsAvailable;
+
+    /** Number of available seats in each row. Never modified. */
+    private final int[] numSeatsAvailableInRow;
+
+    /** Length of the longest run of adjacent available seats in each row. Never modified. */
+    private final int[] longestRunInRow;
+
+    /** Number of orphan seats (available, with no adjacent available seat) in each row. Never modified. */
+    private final int[] numOrphansInRow;
+
+    /** Length of the longest run of adjacent available seats in any row. */
+    private final int longestRun;
+
+
+    /**
+     * Constructs a new immutable SeatMapSnapshot. The arrays are not copied.
+     *
+     * @param version sequence number of the last change reflected in this snapshot
+     * @param numSeatsAvailable number of available seats
+     * @param numSeatsPerRow number of seat positions in the longest row
+     * @param seatIsAvailable availability of each seat
+     * @param numSeatsAvailableInRow number of available seats in each row
+     * @param longestRunInRow length of the longest run of adjacent available seats in each row
+     * @param numOrphansInRow number of orphan seats in each row
+     */
+    private SeatMapSnapshot(long version, int numSeatsAvailable, int numSeatsPerRow, boolean[][] seatIsAvailable,
+                            int[] numSeatsAvailableInRow, int[] longestRunInRow, int[] numOrphansInRow) {
+        this.version = version;
+        this.numSeatsAvailable = numSeatsAvailable;
+        this.numSeatsPerRow = numSeatsPerRow;
+        this.seatIsAvailable = seatIsAvailable;
+        this.numSeatsAvailableInRow = numSeatsAvailableInRow;
+        this.longestRunInRow = longestRunInRow;
+        this.numOrphansInRow = numOrphansInRow;
+        int longest = 0;
+        for (int run : longestRunInRow) {
+            longest = Math.max(longest, run);
+        }
+        this.longestRun = longest;
+    }
+
+    /**
+     * Builds the initial snapshot of the specified seat grid.
+     *
+     * @param seatGrid the grid of all seats
+     * @param numSeatsAvailable number of available seats
+     * @return the snapshot
+     */
+    static SeatMapSnapshot build(SeatGrid seatGrid, int numSeatsAvailable) {
+        seatGrid.takeDirtyRows();   // everything is copied
+        boolean[][] rows = new boolean[seatGrid.getNumRows()][];
+        int[] numSeatsAvailableInRow = new int[rows.length];
+        int[] longestRunInRow = new int[rows.length];
+        int[] numOrphansInRow = new int[rows.length];
+        for (int rowNum = 0; rowNum < rows.length; rowNum++) {
+            copyRow(seatGrid, rowNum, rows, numSeatsAvailableInRow, longestRunInRow, numOrphansInRow);
+        }
+        return new SeatMapSnapshot(0, numSeatsAvailable, seatGrid.getNumSeatsPerRow(),
+                rows, numSeatsAvailableInRow, longestRunInRow, numOrphansInRow);
+    }
+
+    /**
+     * Builds a new snapshot from the previous one, copying only the rows of the seat grid
+     * that have changed since the previous snapshot was built.
+     *
+     * @param previous the previous snapshot of the same seat grid
+     * @param seatGrid the grid of all seats
+     * @param numSeatsAvailable number of available seats
+     * @param version sequence number of the last change reflected in the new snapshot
+     * @return the new snapshot
+     */
+    static SeatMapSnapshot update(SeatMapSnapshot previous, SeatGrid seatGrid, int numSeatsAvailable, long version) {
+        BitSet dirtyRows = seatGrid.takeDirtyRows();
+        boolean[][] rows = previous.seatIsAvailable;
+        int[] numSeatsAvailableInRow = previous.numSeatsAvailableInRow;
+        int[] longestRunInRow = previous.longestRunInRow;
+        int[] numOrphansInRow = previous.numOrphansInRow;
+        if (!dirtyRows.isEmpty()) {
+            rows = rows.clone();   // shallow: unchanged rows are shared
+            numSeatsAvailableInRow = numSeatsAvailableInRow.clone();
+            longestRunInRow = longestRunInRow.clone();
+            numOrphansInRow = numOrphansInRow.clone();
+            for (int rowNum = dirtyRows.nextSetBit(0); rowNum >= 0; rowNum = dirtyRows.nextSetBit(rowNum + 1)) {
+                copyRow(seatGrid, rowNum, rows, numSeatsAvailableInRow, longestRunInRow, numOrphansInRow);
+            }
+        }
+        return new SeatMapSnapshot(
+                version, numSeatsAvailable, previous.numSeatsPerRow, rows, numSeatsAvailableInRow, longestRunInRow, numOrphansInRow);
+    }
+
+    /**
+     * Copies the availability of one row of the seat grid, and summarizes it.
+     *
+     * @param seatGrid the grid of all seats
+     * @param rowNum the row to be copied
+     * @param rows destination for the copied row
+     * @param numSeatsAvailableInRow destination for the number of available seats in the row
+     * @param longestRunInRow destination for the longest run of adjacent available seats in the row
+     * @param numOrphansInRow destination for the number of orphan seats in the row
+     */
+    private static void copyRow(SeatGrid seatGrid, int rowNum, boolean[][] rows,
+                                int[] numSeatsAvailableInRow, int[] longestRunInRow, int[] numOrphansInRow) {
+        boolean[] row = new boolean[seatGrid.getRowLength(rowNum)];
+        int numAvailable = 0;
+        int run = 0;
+        int longestRun = 0;
+        int numOrphans = 0;
+        for (int seatNumInRow = 0; seatNumInRow < row.length; seatNumInRow++) {
+            row[seatNumInRow] = seatGrid.isAvailable(rowNum, seatNumInRow);
+            if (row[seatNumInRow]) {
+                numAvailable += 1;
+                longestRun = Math.max(longestRun, ++run);
+            } else {
+                numOrphans += (run == 1) ? 1 : 0;
+                run = 0;
+            }
+        }
+        numOrphans += (run == 1) ? 1 : 0;
+        rows[rowNum] = row;
+        numSeatsAvailableInRow[rowNum] = numAvailable;
+        longestRunInRow[rowNum] = longestRun;
+        numOrphansInRow[rowNum] = numOrphans;
+    }
+
+    /**
+     * Sequence number of the last seat map change reflected in this snapshot. A subscriber
+     * can catch up from here using {@code TicketServiceImpl.getSeatMapChangesSince()}.
+     *
+     * @return the version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Number of seats that were available.
+     *
+     * @return number of available seats
+     */
+    public int getNumSeatsAvailable() {
+        return numSeatsAvailable;
+    }
+
+    /**
+     * Number of rows.
+     *
+     * @return number of rows
+     */
+    public int getNumRows() {
+        return seatIsAvailable.length;
+    }
+
+    /**
+     * Number of seat positions in the longest row.
+     *
+     * @return number of seat positions in the longest row
+     */
+    public int getNumSeatsPerRow() {
+        return numSeatsPerRow;
+    }
+
+    /**
+     * Number of seat positions (seats, aisles, and blocked seats) in the specified row.
+     *
+     * @param rowNum the row number
+     * @return number of positions in the row
+     */
+    public int getRowLength(int rowNum) {
+        return seatIsAvailable[rowNum].length;
+    }
+
+    /**
+     * Returns true if the specified seat was available, else false. Aisles, blocked seats, and
+     * positions beyond the end of the row are never available.
+     *
+     * @param rowNum the row number
+     * @param seatNumInRow the seat number in the row
+     * @return the seat availability
+     */
+    public boolean isAvailable(int rowNum, int seatNumInRow) {
+        boolean[] row = seatIsAvailable[rowNum];
+        return (seatNumInRow < row.length) && row[seatNumInRow];
+    }
+
+    /**
+     * Number of seats that were available in the specified row.
+     *
+     * @param rowNum the row number
+     * @return number of available seats in the row
+     */
+    public int getNumSeatsAvailableInRow(int rowNum) {
+        return numSeatsAvailableInRow[rowNum];
+    }
+
+    /**
+     * Length of the longest run of adjacent available seats in the specified row.
+     *
+     * @param rowNum the row number
+     * @return length of the longest run in the row
+     */
+    public int getLongestRunInRow(int rowNum) {
+        return longestRunInRow[rowNum];
+    }
+
+    /**
+     * Number of seats that were available in the specified range of rows.
+     *
+     * @param firstRowNum the first row number of the range (inclusive)
+     * @param lastRowNum the last row number of the range (inclusive)
+     * @return number of available seats in the rows
+     */
+    public int getNumSeatsAvailable(int firstRowNum, int lastRowNum) {
+        checkRowRange(firstRowNum, lastRowNum);
+        int total = 0;
+        for (int rowNum = firstRowNum; rowNum <= lastRowNum; rowNum++) {
+            total += numSeatsAvailableInRow[rowNum];
+        }
+        return total;
+    }
+
+    /**
+     * Length of the longest run of adjacent available seats in the specified range of rows.
+     *
+     * @param firstRowNum the first row number of the range (inclusive)
+     * @param lastRowNum the last row number of the range (inclusive)
+     * @return length of the longest run in the rows
+     */
+    public int getLongestRun(int firstRowNum, int lastRowNum) {
+        checkRowRange(firstRowNum, lastRowNum);
+        int longestRun = 0;
+        for (int rowNum = firstRowNum; rowNum <= lastRowNum; rowNum++) {
+            longestRun = Math.max(longestRun, longestRunInRow[rowNum]);
+        }
+        return longestRun;
+    }
+
+    /**
+     * Number of orphan seats (available, but with no adjacent available seat) in the specified row.
+     *
+     * @param rowNum the row number
+     * @return number of orphan seats in the row
+     */
+    public int getNumOrphansInRow(int rowNum) {
+        return numOrphansInRow[rowNum];
+    }
+
+    /**
+     * Length of the longest run of adjacent available seats in any row. No party larger than
+     * this can be seated together.
+     *
+     * @return length of the longest run
+     */
+    public int getLongestRun() {
+        return longestRun;
+    }
+
+    private void checkRowRange(int firstRowNum, int lastRowNum) {
+        if (firstRowNum < 0 || lastRowNum >= getNumRows() || firstRowNum > lastRowNum) {
+            throw new IllegalArgumentException("bad row range: " + firstRowNum + "-" + lastRowNum);
+        }
+    }
+}
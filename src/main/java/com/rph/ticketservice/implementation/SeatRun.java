@@ -0,0 +1,104 @@
+package com.rph.ticketservice.implementation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A {@code SeatRun} is a run-length encoding of adjacent seats in a single row.
+ * A SeatRun is immutable.
+ */
+public class SeatRun {
+
+    /** The row number containing the run. */
+    private final int rowNum;
+
+    /** The seat number in the row of the first (leftmost) seat in the run. */
+    private final int firstSeatNumInRow;
+
+    /** The number of seats in the run. */
+    private final int numSeats;
+
+    /**
+     * Constructs a new immutable SeatRun.
+     *
+     * @param rowNum the row number
+     * @param firstSeatNumInRow the seat number in the row of the first seat in the run
+     * @param numSeats the number of seats in the run
+     */
+    SeatRun(int rowNum, int firstSeatNumInRow, int numSeats) {
+        this.rowNum = rowNum;
+        this.firstSeatNumInRow = firstSeatNumInRow;
+        this.numSeats = numSeats;
+    }
+
+    /**
+     * The row number containing the run.
+     *
+     * @return the row number
+     */
+    public int getRowNum() {
+        return rowNum;
+    }
+
+    /**
+     * The seat number in the row of the first (leftmost) seat in the run.
+     *
+     * @return the first seat number in the row
+     */
+    public int getFirstSeatNumInRow() {
+        return firstSeatNumInRow;
+    }
+
+    /**
+     * The number of seats in the run.
+     *
+     * @return the number of seats
+     */
+    public int getNumSeats() {
+        return numSeats;
+    }
+
+    /**
+     * Encodes the specified seats as a list of runs, ordered by row number and then by seat
+     * number. The seats may be in any order, and need not be adjacent.
+     *
+     * @param seats the seats to be encoded (not modified)
+     * @return an unmodifiable list of runs covering exactly the specified seats
+     */
+    static List<SeatRun> encode(List<SeatImpl> seats) {
+        List<SeatImpl> sortedSeats = new ArrayList<>(seats);   // don't change the passed-in list; make a copy
+        sortedSeats.sort(Comparator.comparingInt(SeatImpl::getRowNum).thenComparingInt(SeatImpl::getSeatNumInRow));
+        List<SeatRun> runs = new ArrayList<>();
+        int runRowNum = -1;
+        int runFirstSeatNumInRow = -1;
+        int runNumSeats = 0;
+        for (SeatImpl seat : sortedSeats) {
+            if ((seat.getRowNum() == runRowNum) && (seat.getSeatNumInRow() == runFirstSeatNumInRow + runNumSeats)) {
+                runNumSeats += 1;   // extends the current run
+                continue;
+            }
+            if (runNumSeats > 0) {
+                runs.add(new SeatRun(runRowNum, runFirstSeatNumInRow, runNumSeats));
+            }
+            runRowNum = seat.getRowNum();
+            runFirstSeatNumInRow = seat.getSeatNumInRow();
+            runNumSeats = 1;
+        }
+        if (runNumSeats > 0) {
+            runs.add(new SeatRun(runRowNum, runFirstSeatNumInRow, runNumSeats));
+        }
+        return Collections.unmodifiableList(runs);
+    }
+
+    /**
+     * A string representation of this run, such as "5x8-11" (one-based, like {@code SeatImpl}).
+     *
+     * @return a string representation of this run
+     */
+    @Override
+    public String toString() {
+        return (getRowNum() + 1) + "x" + (getFirstSeatNumInRow() + 1) + "-" + (getFirstSeatNumInRow() + getNumSeats());
+    }
+}
@@ -0,0 +1,62 @@
+package com.rph.ticketservice.implementation;
+
+import java.util.List;
+
+
+/**
+ * A {@code SeatSelectionStrategy} chooses which adjacent available seats to hold for a party.
+ * A strategy only chooses; the caller holds the chosen seats. Strategies are invoked while
+ * the TicketService lock is held, or without it against a private copy of the seat grid built
+ * from a snapshot, so one strategy may run several searches at once: it must keep no per-search
+ * state in its fields, and must not modify {@code bestAvailableSeats} or the seat grid.
+ */
+public interface SeatSelectionStrategy {
+
+    /**
+     * Chooses available seats for a party: adjacent seats in one row, unless the strategy
+     * splits parties across rows (see {@code getMaxRowsPerParty}). The strategy must record
+     * its work by calling {@code searchStats.recordSearch} exactly once.
+     *
+     * @param numSeats number of seats needed
+     * @param bestAvailableSeats the available seats, ordered by bestness
+     * @param seatGrid the grid of all seats
+     * @param searchStats accumulates the work done by the search
+     * @return the chosen seats, or null if there are insufficient adjacent available seats
+     */
+    List<SeatImpl> selectSeats(int numSeats, List<SeatImpl> bestAvailableSeats, SeatGrid seatGrid,
+                               SearchStats searchStats);
+
+    /**
+     * The greatest number of rows across which this strategy may seat one party. A party larger
+     * than this many times the longest run of adjacent available seats is turned away without
+     * a search.
+     *
+     * @return the number of rows (one, unless parties may be split)
+     */
+    default int getMaxRowsPerParty() {
+        return 1;
+    }
+
+    /**
+     * Returns the built-in strategy with the specified name: "topCandidates" (the default),
+     * "firstFit", "bestAverageRun" or "fragmentationAware".
+     *
+     * @param name the strategy name
+     * @return a new instance of the named strategy
+     */
+    static SeatSelectionStrategy forName(String name) {
+        switch (name) {
+            case "topCandidates":
+                return new TopCandidatesStrategy(TopCandidatesStrategy.DEFAULT_NUM_CANDIDATES);
+            case "firstFit":
+                return new FirstFitStrategy();
+            case "bestAverageRun":
+                return new BestAverageRunStrategy();
+            case "fragmentationAware":
+                return new FragmentationAwareStrategy(TopCandidatesStrategy.DEFAULT_NUM_CANDIDATES,
+                        FragmentationAwareStrategy.DEFAULT_ORPHAN_PENALTY);
+            default:
+                throw new IllegalArgumentException("unknown seat selection strategy: " + name);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.rph.ticketservice.implementation;
+
+import com.rph.ticketservice.Seat;
+import com.rph.ticketservice.SeatHold;
+
+
+/**
+ * A {@code SectionSeatHold} is a seat hold in one section of a {@code SectionedTicketService}.
+ * It has a venue-wide seat hold ID, and otherwise presents the section's seat hold. The row
+ * and seat numbers of its seats are those within the section.
+ */
+public class SectionSeatHold implements SeatHold {
+
+    /** The venue-wide seat hold ID. */
+    private final int seatHoldId;
+
+    /** The name of the section containing the seats. */
+    private final String sectionName;
+
+    /** The section's seat hold. */
+    private final SeatHold sectionSeatHold;
+
+
+    /**
+     * Constructs a new SectionSeatHold.
+     *
+     * @param seatHoldId the venue-wide seat hold ID
+     * @param sectionName the name of the section containing the seats
+     * @param sectionSeatHold the section's seat hold
+     */
+    SectionSeatHold(int seatHoldId, String sectionName, SeatHold sectionSeatHold) {
+        this.seatHoldId = seatHoldId;
+        this.sectionName = sectionName;
+        this.sectionSeatHold = sectionSeatHold;
+    }
+
+    /**
+     * The venue-wide seat hold ID.
+     *
+     * @return the seat hold ID
+     */
+    @Override
+    public int getSeatHoldId() {
+        return seatHoldId;
+    }
+
+    /**
+     * The name of the section containing the seats.
+     *
+     * @return the section name
+     */
+    public String getSectionName() {
+        return sectionName;
+    }
+
+    @Override
+    public int numSeatsHeld() {
+        return sectionSeatHold.numSeatsHeld();
+    }
+
+    @Override
+    public Seat getSeat(int index) {
+        return sectionSeatHold.getSeat(index);
+    }
+
+    @Override
+    public boolean isHeld() {
+        return sectionSeatHold.isHeld();
+    }
+
+    @Override
+    public boolean isReserved() {
+        return sectionSeatHold.isReserved();
+    }
+
+    @Override
+    public boolean isExpired() {
+        return sectionSeatHold.isExpired();
+    }
+}
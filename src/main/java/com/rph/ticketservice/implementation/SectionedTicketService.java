@@ -0,0 +1,212 @@
+package com.rph.ticketservice.implementation;
+
+import com.rph.ticketservice.SeatHold;
+import com.rph.ticketservice.SeatHoldExpiredException;
+import com.rph.ticketservice.SeatHoldNotFoundException;
+import com.rph.ticketservice.SeatsUnavailableException;
+import com.rph.ticketservice.TicketService;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+
+/**
+ * A {@code TicketService} for a {@code SectionedVenue}. Each section has its own
+ * {@code TicketServiceImpl}, and so its own availability structures and lock; sections are the
+ * unit of concurrency. A hold request ranks the sections in parallel, each by the seats its own
+ * seat selection strategy would choose from its latest seat map snapshot, taking no lock, and
+ * then holds seats only in the section offering the best seats, taking only that section's lock.
+ * If that section's seats are taken in the meantime, the sections are ranked again; a section
+ * that turned the party away is passed over until its seat map changes. The request fails only
+ * once no section can fit the party.
+ * <p>
+ * Seat hold IDs are venue wide: the ID space is split into one range per section, and each
+ * section issues its seat hold IDs from its own range, so a seat hold ID identifies its section
+ * and is the section's own seat hold ID too. A reservation ID is the reservation code issued by
+ * the section; the sections share the process-wide reservation ID generator, so codes are
+ * unique across sections.
+ */
+public class SectionedTicketService implements TicketService {
+
+    /** The venue. */
+    private final SectionedVenue venue;
+
+    /** The TicketService of each section, in the same order as the venue's sections. */
+    private final TicketServiceImpl[] sectionTicketServices;
+
+    /** Number of seat hold IDs in each section's range. Section {@code s} issues IDs from {@code s * seatHoldIdRangeSize}. */
+    private final long seatHoldIdRangeSize;
+
+
+    /**
+     * Constructs a new SectionedTicketService.
+     *
+     * @param venue the venue to be served by this TicketService
+     * @param expireMillies seatHold expiration duration
+     */
+    public SectionedTicketService(SectionedVenue venue, long expireMillies) {
+        this.venue = venue;
+        List<SectionedVenue.Section> sections = venue.getSections();
+        this.sectionTicketServices = new TicketServiceImpl[sections.size()];
+        this.seatHoldIdRangeSize = (Integer.MAX_VALUE + 1L) / sectionTicketServices.length;
+        for (int section = 0; section < sectionTicketServices.length; section++) {
+            sectionTicketServices[section] = new TicketServiceImpl(sections.get(section).getVenue(), expireMillies);
+            sectionTicketServices[section].setSeatHoldIdGenerator(
+                    newSeatHoldIdGenerator(section * seatHoldIdRangeSize));
+        }
+    }
+
+    /**
+     * Creates the generator of a section's seat hold IDs, which issues the IDs of the section's
+     * range in order, wrapping around at the end of the range (the section skips the IDs still
+     * in use).
+     *
+     * @param firstId the first ID of the section's range
+     * @return the generator
+     */
+    private IdGenerator newSeatHoldIdGenerator(long firstId) {
+        AtomicLong numIssued = new AtomicLong();
+        return () -> firstId + (numIssued.getAndIncrement() % seatHoldIdRangeSize);
+    }
+
+    /**
+     * The venue served by this TicketService.
+     *
+     * @return the venue
+     */
+    public SectionedVenue getVenue() {
+        return venue;
+    }
+
+    /**
+     * The TicketService of the named section, for section-specific operations such as
+     * choosing its seat selection strategy or reading its metrics.
+     *
+     * @param sectionName the section name
+     * @return the section's TicketService
+     */
+    public TicketServiceImpl getSectionTicketService(String sectionName) {
+        List<SectionedVenue.Section> sections = venue.getSections();
+        for (int section = 0; section < sections.size(); section++) {
+            if (sections.get(section).getName().equals(sectionName)) {
+                return sectionTicketServices[section];
+            }
+        }
+        throw new IllegalArgumentException("unknown section: " + sectionName);
+    }
+
+    /**
+     * The number of seats in the venue that are neither held nor reserved. This never blocks.
+     *
+     * @return the number of tickets available in the venue
+     */
+    @Override
+    public int numSeatsAvailable() {
+        int numSeatsAvailable = 0;
+        for (TicketServiceImpl sectionTicketService : sectionTicketServices) {
+            numSeatsAvailable += sectionTicketService.numSeatsAvailable();
+        }
+        return numSeatsAvailable;
+    }
+
+    /**
+     * Find and hold the best available seats for a customer, in whichever section offers
+     * the best seats.
+     *
+     * @param numSeats      the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @return a SeatHold object identifying the specific seats and related information
+     * @throws SeatsUnavailableException if no section has sufficient adjacent available seats
+     */
+    @Override
+    public SeatHold findAndHoldSeats(int numSeats, String customerEmail) throws SeatsUnavailableException {
+        long[] failedVersions = new long[sectionTicketServices.length];
+        Arrays.fill(failedVersions, -1);
+        while (true) {
+            int section = findBestSection(numSeats, failedVersions);
+            if (section < 0) {
+                throw new SeatsUnavailableException();
+            }
+            TicketServiceImpl sectionTicketService = sectionTicketServices[section];
+            long version = sectionTicketService.getSeatMapSnapshot().getVersion();
+            HoldResult holdResult = sectionTicketService.tryFindAndHoldSeats(numSeats, customerEmail);
+            if (holdResult.getStatus() == HoldResult.Status.HELD) {
+                SeatHold sectionSeatHold = holdResult.getSeatHold();
+                return new SectionSeatHold(sectionSeatHold.getSeatHoldId(),
+                        venue.getSections().get(section).getName(), sectionSeatHold);
+            }
+            if (sectionTicketService.getSeatMapSnapshot().getVersion() == version) {
+                failedVersions[section] = version;   // the party cannot fit this seat map
+            }
+            // Otherwise another request took the seats after the search. Search again.
+        }
+    }
+
+    /**
+     * Commit seats held for a specific customer.
+     *
+     * @param seatHoldId    the venue-wide seat hold identifier
+     * @param customerEmail the email address of the customer to which the seat hold is assigned
+     * @return a reservation confirmation code
+     * @throws SeatHoldNotFoundException if the seat hold is not found (possibly due to invalid seatHoldId)
+     * @throws SeatHoldExpiredException  if the seat hold has expired
+     */
+    @Override
+    public String reserveSeats(int seatHoldId, String customerEmail)
+            throws SeatHoldNotFoundException, SeatHoldExpiredException {
+        long section = (seatHoldId < 0) ? -1 : (seatHoldId / seatHoldIdRangeSize);
+        if ((section < 0) || (section >= sectionTicketServices.length)) {
+            throw new SeatHoldNotFoundException(seatHoldId);
+        }
+        return sectionTicketServices[(int) section].reserveSeats(seatHoldId, customerEmail);
+    }
+
+    /**
+     * Ranks the sections by the seats they offer (lowest average bestness, after the section's
+     * bestness offset), and determines which is best. Each section is scored by its own seat
+     * selection strategy, run against its latest seat map snapshot, so no lock is taken; the
+     * sections are scored in parallel, in the common fork-join pool. Ties go to the earlier
+     * section.
+     *
+     * @param numSeats the number of seats needed
+     * @return the section index, or -1 if no section has sufficient adjacent available seats
+     */
+    @VisibleForTesting
+    int findBestSection(int numSeats) {
+        long[] failedVersions = new long[sectionTicketServices.length];
+        Arrays.fill(failedVersions, -1);
+        return findBestSection(numSeats, failedVersions);
+    }
+
+    /**
+     * Ranks the sections by the seats they offer, passing over each section whose seat map is
+     * still the one that the party could not fit.
+     *
+     * @param numSeats the number of seats needed
+     * @param failedVersions for each section, the version of the seat map the party could not
+     *                       fit, or -1
+     * @return the section index, or -1 if no section may fit the party
+     */
+    private int findBestSection(int numSeats, long[] failedVersions) {
+        List<SectionedVenue.Section> sections = venue.getSections();
+        double[] averageBestness = new double[sectionTicketServices.length];
+        IntStream.range(0, sectionTicketServices.length).parallel().forEach(section -> {
+            TicketServiceImpl sectionTicketService = sectionTicketServices[section];
+            averageBestness[section] =
+                    (sectionTicketService.getSeatMapSnapshot().getVersion() == failedVersions[section])
+                            ? Double.NaN
+                            : sectionTicketService.snapshotBestAverageBestness(numSeats)
+                                    + sections.get(section).getBestnessOffset();
+        });
+        int bestSection = -1;
+        for (int section = 0; section < averageBestness.length; section++) {
+            if (!Double.isNaN(averageBestness[section])
+                    && ((bestSection < 0) || (averageBestness[section] < averageBestness[bestSection]))) {
+                bestSection = section;
+            }
+        }
+        return bestSection;
+    }
+}
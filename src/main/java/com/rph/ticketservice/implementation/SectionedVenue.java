@@ -0,0 +1,126 @@
+package com.rph.ticketservice.implementation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+
+/**
+ * A {@code SectionedVenue} is an immutable venue made of several independently shaped sections
+ * (for example orchestra, mezzanine and balcony). Each section is a {@code VenueImpl}, which may
+ * be rectangular or have irregular rows (with aisles and blocked seats), and whose seats have
+ * their own bestness values, starting from zero. A per-section bestness offset places the
+ * sections on one scale, so that seats in different sections can be compared.
+ */
+public class SectionedVenue {
+
+    /**
+     * One section of a sectioned venue.
+     */
+    public static class Section {
+
+        /** The section name, unique within the venue. */
+        private final String name;
+
+        /** The seats of the section. */
+        private final VenueImpl venue;
+
+        /** Added to the bestness of each seat in the section, to compare it with other sections. */
+        private final int bestnessOffset;
+
+        /**
+         * Constructs a new immutable section.
+         *
+         * @param name the section name
+         * @param venue the seats of the section
+         * @param bestnessOffset added to the bestness of each seat in the section
+         */
+        public Section(String name, VenueImpl venue, int bestnessOffset) {
+            if (name == null || name.isEmpty()) {
+                throw new IllegalArgumentException("bad section name: " + name);
+            }
+            if (venue == null) {
+                throw new IllegalArgumentException("null venue for section " + name);
+            }
+            if (bestnessOffset < 0) {
+                throw new IllegalArgumentException("bad bestnessOffset: " + bestnessOffset);
+            }
+            this.name = name;
+            this.venue = venue;
+            this.bestnessOffset = bestnessOffset;
+        }
+
+        /**
+         * The section name.
+         *
+         * @return the section name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * The seats of the section.
+         *
+         * @return the section venue
+         */
+        public VenueImpl getVenue() {
+            return venue;
+        }
+
+        /**
+         * The amount added to the bestness of each seat in the section.
+         *
+         * @return the bestness offset
+         */
+        public int getBestnessOffset() {
+            return bestnessOffset;
+        }
+    }
+
+    /** The sections. */
+    private final List<Section> sections;   // unmodifiable
+
+
+    /**
+     * Constructs a new immutable sectioned venue.
+     *
+     * @param sections the sections, each with a unique name
+     */
+    public SectionedVenue(List<Section> sections) {
+        if (sections == null || sections.isEmpty()) {
+            throw new IllegalArgumentException("no sections");
+        }
+        Set<String> names = new HashSet<>();
+        for (Section section : sections) {
+            if (!names.add(section.getName())) {
+                throw new IllegalArgumentException("duplicate section name: " + section.getName());
+            }
+        }
+        this.sections = Collections.unmodifiableList(new ArrayList<>(sections));
+    }
+
+    /**
+     * The sections. This list is unmodifiable.
+     *
+     * @return the sections
+     */
+    public List<Section> getSections() {
+        return sections;
+    }
+
+    /**
+     * Number of seats in all sections.
+     *
+     * @return number of seats in the venue
+     */
+    public int getNumberOfSeats() {
+        int numSeats = 0;
+        for (Section section : sections) {
+            numSeats += section.getVenue().getNumberOfSeats();
+        }
+        return numSeats;
+    }
+}
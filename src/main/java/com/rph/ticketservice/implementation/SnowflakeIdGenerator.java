@@ -0,0 +1,130 @@
+package com.rph.ticketservice.implementation;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+
+/**
+ * A {@code SnowflakeIdGenerator} issues 64-bit IDs that are unique across processes: each
+ * process (node) is configured with its own node ID, which is embedded in every ID it issues.
+ * An ID is laid out, from the most significant bit, as
+ * <pre>
+ *     0 | 41 bits: milliseconds since EPOCH_MILLIS | 10 bits: node ID | 12 bits: sequence
+ * </pre>
+ * so IDs are positive, and those of one node increase with time. Up to 4096 IDs are issued per
+ * millisecond per node. Beyond that, and whenever the clock steps backwards, the generator keeps
+ * counting from its last timestamp instead of waiting, running a little ahead of the clock until
+ * the clock catches up. (A node restarted while it was running ahead could repeat an ID, so a
+ * restarted node should be given a fresh node ID, or be restarted more than a second later.)
+ * <p>
+ * The timestamp and sequence of the last ID issued are kept in a single AtomicLong, updated by
+ * compare-and-set, so no lock is taken. Every generator in a process should be constructed with
+ * a different node ID, or one generator should be shared.
+ */
+public class SnowflakeIdGenerator implements IdGenerator {
+
+    /** The start of time for IDs: 2020-01-01T00:00:00Z. */
+    public static final long EPOCH_MILLIS = 1577836800000L;
+
+    /** Number of bits of node ID. */
+    public static final int NODE_ID_BITS = 10;
+
+    /** Number of bits of sequence. */
+    public static final int SEQUENCE_BITS = 12;
+
+    /** The largest node ID. */
+    public static final int MAX_NODE_ID = (1 << NODE_ID_BITS) - 1;
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    /** This node's ID. */
+    private final int nodeId;
+
+    /** The node ID, shifted into place. */
+    private final long nodeBits;
+
+    /** Milliseconds since the Unix epoch. */
+    private final LongSupplier clock;
+
+    /** The last timestamp (milliseconds since EPOCH_MILLIS) and sequence issued: timestamp << SEQUENCE_BITS | sequence. */
+    private final AtomicLong lastTimestampAndSequence = new AtomicLong(-1);
+
+
+    /**
+     * Constructs a new SnowflakeIdGenerator.
+     *
+     * @param nodeId this node's ID, from 0 to MAX_NODE_ID
+     */
+    public SnowflakeIdGenerator(int nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    /**
+     * Constructs a new SnowflakeIdGenerator.
+     *
+     * @param nodeId this node's ID, from 0 to MAX_NODE_ID
+     * @param clock milliseconds since the Unix epoch
+     */
+    @VisibleForTesting
+    SnowflakeIdGenerator(int nodeId, LongSupplier clock) {
+        if ((nodeId < 0) || (nodeId > MAX_NODE_ID)) {
+            throw new IllegalArgumentException("nodeId must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeId = nodeId;
+        this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+        this.clock = clock;
+    }
+
+    @Override
+    public long nextId() {
+        long now = (clock.getAsLong() - EPOCH_MILLIS) << SEQUENCE_BITS;
+        while (true) {
+            long last = lastTimestampAndSequence.get();
+            // Sequence overflow carries into the timestamp, borrowing the next millisecond.
+            long next = Math.max(last + 1, now);
+            if (lastTimestampAndSequence.compareAndSet(last, next)) {
+                return ((next & ~SEQUENCE_MASK) << NODE_ID_BITS) | nodeBits | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    /**
+     * This node's ID.
+     *
+     * @return the node ID
+     */
+    public int getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * The time at which the specified ID was issued (or, if its node was running ahead of its
+     * clock, a little later).
+     *
+     * @param id an ID issued by a SnowflakeIdGenerator
+     * @return milliseconds since the Unix epoch
+     */
+    public static long getTimestampMillis(long id) {
+        return (id >>> (NODE_ID_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+    }
+
+    /**
+     * The ID of the node that issued the specified ID.
+     *
+     * @param id an ID issued by a SnowflakeIdGenerator
+     * @return the node ID
+     */
+    public static int getNodeId(long id) {
+        return (int) (id >>> SEQUENCE_BITS) & MAX_NODE_ID;
+    }
+
+    /**
+     * The sequence number of the specified ID within its millisecond.
+     *
+     * @param id an ID issued by a SnowflakeIdGenerator
+     * @return the sequence number
+     */
+    public static int getSequence(long id) {
+        return (int) (id & SEQUENCE_MASK);
+    }
+}
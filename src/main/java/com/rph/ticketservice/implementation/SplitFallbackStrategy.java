@@ -0,0 +1,225 @@
+package com.rph.ticketservice.implementation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * A seat selection strategy that falls back to seating a party across consecutive rows when
+ * another strategy finds no single row with enough adjacent available seats. The party is
+ * split as evenly as possible (a party of 7 across 2 rows sits as 4 + 3), and the parts are
+ * vertically aligned: they occupy the same seat numbers, the smaller parts centered under the
+ * larger. Fewer rows are always preferred; within that, the lowest total bestness wins.
+ * <p>
+ * Rows without enough available seats for their part are skipped using the per-row available
+ * seat counts, and the free runs of a row are computed only when the row is needed. The work
+ * done by one fallback search (seats and positions examined) is capped; once the cap is reached
+ * the best placement found so far is used; checking a row's available seat count counts as
+ * work too. Row blocks are examined best first (in an order computed once per venue; see
+ * {@code SeatGrid.getRowBlocksByBestness}), so the cap costs seat quality rather than missing
+ * the best rows.
+ */
+public class SplitFallbackStrategy implements SeatSelectionStrategy {
+
+    /** Default greatest number of rows a party may be split across. */
+    public static final int DEFAULT_MAX_ROWS_PER_PARTY = 2;
+
+    /** Default cap on the seats and positions examined by one fallback search. */
+    public static final int DEFAULT_MAX_WORK = 10000;
+
+    /** The strategy tried first. */
+    private final SeatSelectionStrategy primary;
+
+    /** Greatest number of rows a party may be split across. */
+    private final int maxRowsPerParty;
+
+    /** Cap on the seats and positions examined by one fallback search. */
+    private final int maxWork;
+
+
+    /**
+     * Constructs a new SplitFallbackStrategy.
+     *
+     * @param primary the strategy tried first
+     * @param maxRowsPerParty greatest number of rows a party may be split across (at least 2)
+     * @param maxWork cap on the seats and positions examined by one fallback search
+     */
+    public SplitFallbackStrategy(SeatSelectionStrategy primary, int maxRowsPerParty, int maxWork) {
+        if (primary == null) {
+            throw new IllegalArgumentException("null primary strategy");
+        }
+        if (maxRowsPerParty < 2) {
+            throw new IllegalArgumentException("bad maxRowsPerParty: " + maxRowsPerParty);
+        }
+        if (maxWork <= 0) {
+            throw new IllegalArgumentException("bad maxWork: " + maxWork);
+        }
+        this.primary = primary;
+        this.maxRowsPerParty = maxRowsPerParty;
+        this.maxWork = maxWork;
+    }
+
+    @Override
+    public int getMaxRowsPerParty() {
+        return Math.max(maxRowsPerParty, primary.getMaxRowsPerParty());
+    }
+
+    @Override
+    public List<SeatImpl> selectSeats(int numSeats, List<SeatImpl> bestAvailableSeats, SeatGrid seatGrid,
+                                      SearchStats searchStats) {
+        SearchStats primarySearchStats = new SearchStats();   // per search, as searches may run at once
+        List<SeatImpl> seats = primary.selectSeats(numSeats, bestAvailableSeats, seatGrid, primarySearchStats);
+        int numEntriesScanned = primarySearchStats.getNumEntriesScanned();
+        int numCandidatesEvaluated = primarySearchStats.getNumCandidatesEvaluated();
+        if (seats != null || numSeats < 2) {
+            searchStats.recordSearch(numEntriesScanned, numCandidatesEvaluated,
+                    primarySearchStats.getWinningAverageBestness());
+            return seats;
+        }
+        SplitSearch search = new SplitSearch(seatGrid, maxWork);
+        for (int numRows = 2; (numRows <= maxRowsPerParty) && (numRows <= numSeats)
+                && (numRows <= seatGrid.getNumRows()) && !search.isWorkExhausted(); numRows++) {
+            seats = search.findBestSplit(numSeats, numRows);
+            if (seats != null) {
+                break;   // fewer rows are better
+            }
+        }
+        searchStats.recordSearch(numEntriesScanned + search.work,
+                numCandidatesEvaluated + search.numPlacementsEvaluated,
+                (seats != null) ? TicketServiceImpl.getAverageBestness(seats) : Double.NaN);
+        return seats;
+    }
+
+    /**
+     * Splits a party as evenly as possible, larger parts first.
+     *
+     * @param numSeats number of seats in the party
+     * @param numRows number of parts
+     * @return the part sizes
+     */
+    @VisibleForTesting
+    static int[] getPartSizes(int numSeats, int numRows) {
+        int[] partSizes = new int[numRows];
+        for (int part = 0; part < numRows; part++) {
+            partSizes[part] = (numSeats / numRows) + ((part < numSeats % numRows) ? 1 : 0);
+        }
+        return partSizes;
+    }
+
+    /**
+     * The state of one work-capped fallback search.
+     */
+    private static class SplitSearch {
+
+        /** The grid of all seats. */
+        private final SeatGrid seatGrid;
+
+        /** Cap on the work done. */
+        private final int maxWork;
+
+        /** Per row, element i is the number of adjacent available seats from seat i rightward (when needed). */
+        private final int[][] runFrom;
+
+        /** Seats and positions examined so far. */
+        private int work = 0;
+
+        /** Number of complete placements scored so far. */
+        private int numPlacementsEvaluated = 0;
+
+        SplitSearch(SeatGrid seatGrid, int maxWork) {
+            this.seatGrid = seatGrid;
+            this.maxWork = maxWork;
+            this.runFrom = new int[seatGrid.getNumRows()][];
+        }
+
+        boolean isWorkExhausted() {
+            return work >= maxWork;
+        }
+
+        /**
+         * Finds the best vertically aligned placement of a party across a block of consecutive rows.
+         *
+         * @param numSeats number of seats in the party
+         * @param numRows number of rows in the block
+         * @return the seats, row by row, or null if none was found before the work ran out
+         */
+        List<SeatImpl> findBestSplit(int numSeats, int numRows) {
+            final int numSeatsPerRow = seatGrid.getNumSeatsPerRow();
+            final int[] partSizes = getPartSizes(numSeats, numRows);
+            final int widestPart = partSizes[0];
+            if (widestPart > numSeatsPerRow) {
+                return null;
+            }
+            int[] firstRowNums = seatGrid.getRowBlocksByBestness(numRows);   // best blocks first
+            int bestTotalSoFar = Integer.MAX_VALUE;
+            int bestFirstRowNum = -1;
+            int bestFirstSeatNumInRow = -1;
+            for (int firstRowNum : firstRowNums) {
+                if (isWorkExhausted()) {
+                    break;
+                }
+                if (!blockHasEnoughSeats(firstRowNum, partSizes)) {
+                    continue;
+                }
+                for (int firstSeatNumInRow = 0; firstSeatNumInRow + widestPart <= numSeatsPerRow; firstSeatNumInRow++) {
+                    if (isWorkExhausted()) {
+                        break;
+                    }
+                    work += 1;
+                    int total = 0;
+                    for (int part = 0; (part < numRows) && (total >= 0); part++) {
+                        int rowNum = firstRowNum + part;
+                        int partStart = firstSeatNumInRow + ((widestPart - partSizes[part]) / 2);
+                        total = (getRunFrom(rowNum)[partStart] >= partSizes[part])
+                                ? total + seatGrid.getTotalBestness(rowNum, partStart, partSizes[part]) : -1;
+                    }
+                    if (total >= 0) {
+                        numPlacementsEvaluated += 1;
+                        if (total < bestTotalSoFar) {   // smaller bestness values implies better seats
+                            bestTotalSoFar = total;
+                            bestFirstRowNum = firstRowNum;
+                            bestFirstSeatNumInRow = firstSeatNumInRow;
+                        }
+                    }
+                }
+                if (isWorkExhausted()) {
+                    break;
+                }
+            }
+            if (bestFirstRowNum < 0) {
+                return null;
+            }
+            List<SeatImpl> seats = new ArrayList<>(numSeats);
+            for (int part = 0; part < numRows; part++) {
+                int partStart = bestFirstSeatNumInRow + ((widestPart - partSizes[part]) / 2);
+                for (int seatNumInRow = partStart; seatNumInRow < partStart + partSizes[part]; seatNumInRow++) {
+                    seats.add(seatGrid.getSeat(bestFirstRowNum + part, seatNumInRow));
+                }
+            }
+            return seats;
+        }
+
+        private boolean blockHasEnoughSeats(int firstRowNum, int[] partSizes) {
+            for (int part = 0; part < partSizes.length; part++) {
+                work += 1;
+                if (seatGrid.getNumSeatsAvailableInRow(firstRowNum + part) < partSizes[part]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int[] getRunFrom(int rowNum) {
+            if (runFrom[rowNum] == null) {
+                final int numSeatsPerRow = seatGrid.getNumSeatsPerRow();
+                int[] row = new int[numSeatsPerRow + 1];   // positions beyond the end of a short row stay zero
+                for (int seatNumInRow = seatGrid.getRowLength(rowNum) - 1; seatNumInRow >= 0; seatNumInRow--) {
+                    row[seatNumInRow] = seatGrid.isAvailable(rowNum, seatNumInRow) ? (row[seatNumInRow + 1] + 1) : 0;
+                }
+                runFrom[rowNum] = row;
+                work += numSeatsPerRow;
+            }
+            return runFrom[rowNum];
+        }
+    }
+}
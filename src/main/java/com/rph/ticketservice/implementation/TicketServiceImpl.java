@@ -8,7 +8,9 @@ import com.rph.ticketservice.TicketService;
 import com.rph.ticketservice.Venue;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -28,181 +30,1482 @@ public class TicketServiceImpl implements TicketService {
     /** Number of seconds until an unreserved SeatHold expires. */
     private static final long EXPIRE_SECONDS = 5 * 60;   // five minutes
 
+    /** Resolution of the expiration wheel, and the least interval between sweeps unless expiration is lazy. */
+    static final long EXPIRATION_TICK_MILLIS = 10;
+
+    /**
+     * Number of slots in each level of the expiration wheel: the fine level spans 2.56 seconds,
+     * and the coarse level about eleven minutes, so a hold is moved at most twice before it expires.
+     */
+    private static final int EXPIRATION_WHEEL_SLOTS = 256;
+
+    /** Greatest number of IDs drawn for one seatHold, skipping those in use, before giving up. */
+    private static final int MAX_SEAT_HOLD_ID_DRAWS = 1 << 16;
+
+    /** The original seat selection heuristic. Stateless, so it may be shared. */
+    private static final SeatSelectionStrategy DEFAULT_SEAT_SELECTION_STRATEGY =
+            new TopCandidatesStrategy(TopCandidatesStrategy.DEFAULT_NUM_CANDIDATES);
+
+    /**
+     * Issues reservation IDs for every TicketServiceImpl in this process that is not given its own
+     * generator, so reservation IDs are unique across engines. It uses node ID 0; processes that
+     * share a reservation store must each configure a generator with a different node ID.
+     */
+    private static final IdGenerator DEFAULT_RESERVATION_ID_GENERATOR = new SnowflakeIdGenerator(0);
+
+    /**
+     * Packs batched parties against the ends of runs, for {@code PartyPlacement.LEAST_FRAGMENTATION}.
+     * The split penalty exceeds any sideways move within a row, so a run is never split in two. Stateless.
+     */
+    private static final SeatSelectionStrategy PACKING_STRATEGY = new FragmentationAwareStrategy(
+            TopCandidatesStrategy.DEFAULT_NUM_CANDIDATES, FragmentationAwareStrategy.DEFAULT_ORPHAN_PENALTY, 1000.0);
+
+    /**
+     * How a batch of parties is placed.
+     */
+    public enum PartyPlacement {
+        /** Parties are placed in request order, using the seat selection strategy. */
+        IN_REQUEST_ORDER,
+        /** Larger parties, which are the hardest to place, are placed first, using the seat selection strategy. */
+        LARGEST_FIRST,
+        /**
+         * Larger parties are placed first, using the seat selection strategy. If that leaves some
+         * party unplaced, the batch is placed again, largest first, packing each party against an
+         * end of a run of available seats (see {@code FragmentationAwareStrategy}), so that each
+         * placement leaves one run rather than two; the placement that seats more people is kept.
+         * Packing trades seat quality for room, so it is only paid for when it is needed.
+         */
+        LEAST_FRAGMENTATION,
+    }
+
+    /** Emits Flight Recorder events, if Flight Recorder is available. */
+    private static final FlightRecorderEvents FLIGHT_RECORDER_EVENTS = FlightRecorderEvents.load();
+
     /** Global synchronization lock. */
     private final Object synchroLock = new Object();
 
     /** Dynamic list of available seats, ordered by decreasing bestness (increasing bestness number). */
     private final List<SeatImpl> bestAvailableSeats;
 
-    /** Encapsulates a rectangular grid of per-seat info. */
-    private SeatGrid seatGrid;
+    /** Encapsulates a rectangular grid of per-seat info. */
+    private SeatGrid seatGrid;
+
+    /** Maps a SeatHold ID to a SeatHold instance. */
+    private final Map<Integer, SeatHoldImpl> seatHolds = new HashMap<>();
+
+    /** Maps a reservation ID to a Reservation instance. */
+    private final Map<String, Reservation> reservations = new HashMap<>();
+
+    /** The customers with outstanding requests, seatHolds or reservations, by dense int ID. */
+    private final CustomerRegistry customers = new CustomerRegistry();
+
+    /** Expiration timer, which runs the sweeper. */
+    private final Timer expirationTimer = new Timer(true);   // isDaemon: true
+
+    /** Number of milliseconds until an unreserved SeatHold is expired. */
+    private final long expireMillies;
+
+    /**
+     * The deadline of each held seatHold. A seatHold leaves the wheel when it is reserved or
+     * expires, and moves within it when it is extended. Guarded by the lock.
+     */
+    private final TimingWheel<SeatHoldImpl> expirations =
+            new TimingWheel<>(EXPIRATION_TICK_MILLIS, EXPIRATION_WHEEL_SLOTS, System.currentTimeMillis());
+
+    /** The seatHolds whose deadlines have passed, found by the latest sweep. Used only while the lock is held. */
+    private final List<SeatHoldImpl> dueSeatHolds = new ArrayList<>();
+
+    /** Milliseconds between sweeps. Guarded by the lock. */
+    private long sweepIntervalMillis = EXPIRATION_TICK_MILLIS;
+
+    /** True once lazy expiration has been enabled. Guarded by the lock. */
+    private boolean lazyExpirationEnabled = false;
+
+    /**
+     * Reclaims the seats of expired seatHolds. Runs once, when the earliest deadline has passed
+     * (or later, if expiration is lazy), and is scheduled again only if there are still seatHolds
+     * in the expiration wheel, so it does not run while nothing is held. Guarded by the lock.
+     */
+    private TimerTask sweeper = null;
+
+    /**
+     * The earliest deadline in the expiration wheel (milliseconds since the epoch), or
+     * Long.MAX_VALUE if none. It may be earlier than the true earliest deadline, never later.
+     * Written while the lock is held; read without it, to tell whether the seat map snapshot
+     * may be missing the seats of holds whose deadlines have passed.
+     */
+    private volatile long earliestDeadlineMillis = Long.MAX_VALUE;
+
+    /** When the sweeper is due to run (milliseconds since the epoch). Guarded by the lock. */
+    private long sweepDueMillis;
+
+    /** When the latest sweep ran, or the TicketService was constructed (milliseconds since the epoch). Guarded by the lock. */
+    private long lastSweepMillis = System.currentTimeMillis();
+
+    /**
+     * Issues SeatHold IDs (0, 1, 2, ... by default), which must fit in an int. An ID is drawn for
+     * every hold request, so the IDs of requests that could not be satisfied are skipped.
+     */
+    private volatile IdGenerator seatHoldIdGenerator = new BlockIdGenerator(0, 1);
+
+    /** Issues the IDs that are encoded as reservation codes. */
+    private volatile IdGenerator reservationIdGenerator = DEFAULT_RESERVATION_ID_GENERATOR;
+
+    /** Sequence-numbered feed of seat map changes. */
+    private final SeatMapChangeFeed changeFeed = new SeatMapChangeFeed(SeatMapChangeFeed.DEFAULT_CAPACITY);
+
+    /** The most recently published seat map snapshot. Read without the lock. */
+    private volatile SeatMapSnapshot seatMapSnapshot;
+
+    /** Operational counters and histograms. */
+    private final TicketServiceMetrics metrics = new TicketServiceMetrics();
+
+    /** Lock and search profiler, or null if profiling is not enabled. */
+    private volatile LockProfiler lockProfiler = null;
+
+    /** The venue served. */
+    private final VenueImpl venueImpl;
+
+    /** Work done by the current search. Used only while the lock is held. */
+    private final SearchStats searchStats = new SearchStats();
+
+    /** Chooses the seats to be held. Searches use it only while the lock is held. */
+    private volatile SeatSelectionStrategy seatSelectionStrategy = DEFAULT_SEAT_SELECTION_STRATEGY;
+
+
+    /**
+     * Constructs a new TicketServiceImpl.
+     *
+     * @param venue the venue to be served by this TicketService
+     */
+    public TicketServiceImpl(Venue venue) {
+        this(venue, EXPIRE_SECONDS * 1000);
+    }
+
+    /**
+     * Constructs a new TicketServiceImpl.
+     *
+     * @param venue the venue to be served by this TicketService
+     * @param expireMillies seatHold expiration duration
+     */
+    public TicketServiceImpl(Venue venue, long expireMillies) {
+        this.venueImpl = (VenueImpl) venue;
+        this.bestAvailableSeats = new ArrayList<>(venueImpl.getBestSeats());
+        this.seatGrid = new SeatGrid(venueImpl);
+        this.expireMillies = expireMillies;
+        this.seatMapSnapshot = SeatMapSnapshot.build(seatGrid, bestAvailableSeats.size());
+    }
+
+    /**
+     * The number of seats in the venue that are neither held nor reserved.
+     * This never blocks; it reads the most recently published snapshot.
+     *
+     * @return the number of tickets available in the venue
+     */
+    @Override
+    public int numSeatsAvailable() {
+        return seatMapSnapshot.getNumSeatsAvailable();
+    }
+
+    /**
+     * The most recently published seat map snapshot. This never blocks. The snapshot
+     * reflects every change up to and including its version.
+     *
+     * @return the seat map snapshot
+     */
+    public SeatMapSnapshot getSeatMapSnapshot() {
+        return seatMapSnapshot;
+    }
+
+    /**
+     * Reports how the available seats are broken up into runs, and how many parties of each
+     * size could still be seated together. This never blocks; it describes the most recently
+     * published snapshot.
+     *
+     * @return the fragmentation report
+     */
+    public FragmentationReport getFragmentationReport() {
+        return FragmentationReport.build(seatMapSnapshot);
+    }
+
+    /**
+     * The operational metrics of this TicketService.
+     *
+     * @return the metrics
+     */
+    public TicketServiceMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets the strategy used to choose the seats to be held by subsequent requests.
+     *
+     * @param strategy the seat selection strategy
+     */
+    public void setSeatSelectionStrategy(SeatSelectionStrategy strategy) {
+        if (strategy == null) {
+            throw new IllegalArgumentException("null seat selection strategy");
+        }
+        synchronized (synchroLock) {
+            seatSelectionStrategy = strategy;
+        }
+    }
+
+    /**
+     * Switches to lazy expiration. Each hold records its deadline, which is checked whenever
+     * the hold is accessed, so a hold whose deadline has passed is expired at once; but its
+     * seats are reclaimed only by the sweeper, in batches, taking the lock once per sweep, which
+     * normally runs as each deadline passes (at most once per tick of the expiration wheel).
+     * Lazy expiration makes the sweeps less frequent. Holds and reservations also reclaim expired holds' seats, since they hold the
+     * lock anyway, so seats are never unavailable for long, however infrequent the sweeps.
+     * Lazy expiration cannot be switched off.
+     *
+     * @param sweepIntervalMillis milliseconds between sweeps
+     * @throws IllegalArgumentException if the sweep interval is not positive
+     * @throws IllegalStateException if lazy expiration is already enabled
+     */
+    public void enableLazyExpiration(long sweepIntervalMillis) {
+        if (sweepIntervalMillis <= 0) {
+            throw new IllegalArgumentException("sweep interval must be positive: " + sweepIntervalMillis);
+        }
+        synchronized (synchroLock) {
+            if (lazyExpirationEnabled) {
+                throw new IllegalStateException("lazy expiration already enabled");
+            }
+            lazyExpirationEnabled = true;
+            this.sweepIntervalMillis = sweepIntervalMillis;
+            if (sweeper != null) {
+                sweeper.cancel();
+                sweeper = null;
+                scheduleSweep();
+            }
+        }
+    }
+
+    /**
+     * Sets the generator of subsequent SeatHold IDs. SeatHold IDs need only be unique within this
+     * TicketService, but a generator that claims blocks from a counter shared with other engines
+     * (see {@code BlockIdGenerator}) makes them unique across those engines too. IDs are drawn
+     * only for seatHolds that are made. An ID beyond the range of an int wraps around, and an
+     * ID already in use here is skipped, so a generator may run past Integer.MAX_VALUE.
+     *
+     * @param generator the SeatHold ID generator
+     */
+    public void setSeatHoldIdGenerator(IdGenerator generator) {
+        if (generator == null) {
+            throw new IllegalArgumentException("null seat hold ID generator");
+        }
+        seatHoldIdGenerator = generator;
+    }
+
+    /**
+     * Sets the generator of the IDs of subsequent reservations. Each ID is presented as a
+     * {@code ReservationCode}. For reservation codes to be unique across processes, give each
+     * process a {@code SnowflakeIdGenerator} with its own node ID.
+     *
+     * @param generator the reservation ID generator
+     */
+    public void setReservationIdGenerator(IdGenerator generator) {
+        if (generator == null) {
+            throw new IllegalArgumentException("null reservation ID generator");
+        }
+        reservationIdGenerator = generator;
+    }
+
+    /**
+     * Enables lock contention and search profiling. Profiling adds a little work to every
+     * operation, so it is not enabled by default. Enabling it more than once has no further effect.
+     *
+     * @return the profiler
+     */
+    public LockProfiler enableLockProfiling() {
+        synchronized (synchroLock) {
+            if (lockProfiler == null) {
+                lockProfiler = new LockProfiler();
+            }
+            return lockProfiler;
+        }
+    }
+
+    /**
+     * The lock contention and search profiler.
+     *
+     * @return the profiler, or null if profiling is not enabled
+     */
+    public LockProfiler getLockProfiler() {
+        return lockProfiler;
+    }
+
+    /**
+     * The number of available seats in the specified range of rows (such as a section).
+     * This never blocks; it reads the most recently published snapshot.
+     *
+     * @param firstRowNum the first row number of the range (zero based, inclusive)
+     * @param lastRowNum the last row number of the range (zero based, inclusive)
+     * @return the number of available seats in the rows
+     */
+    public int numSeatsAvailable(int firstRowNum, int lastRowNum) {
+        return seatMapSnapshot.getNumSeatsAvailable(firstRowNum, lastRowNum);
+    }
+
+    /**
+     * Whether the specified number of adjacent seats is available anywhere in the specified
+     * range of rows. This never blocks; it reads the most recently published snapshot.
+     *
+     * @param numSeats the number of adjacent seats
+     * @param firstRowNum the first row number of the range (zero based, inclusive)
+     * @param lastRowNum the last row number of the range (zero based, inclusive)
+     * @return true if a run of at least {@code numSeats} available seats exists in the rows
+     */
+    public boolean hasAdjacentSeatsAvailable(int numSeats, int firstRowNum, int lastRowNum) {
+        return seatMapSnapshot.getLongestRun(firstRowNum, lastRowNum) >= numSeats;
+    }
+
+    /**
+     * Find and hold the best available seats for a customer
+     *
+     * @param numSeats      the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @return a SeatHold instance identifying the specific seats and related information
+     * @throws SeatsUnavailableException if there are insufficient adjacent available seats
+     */
+    @Override
+    public SeatHold findAndHoldSeats(int numSeats, String customerEmail) throws SeatsUnavailableException {
+        return findAndHoldSeats(numSeats, customerEmail, expireMillies);
+    }
+
+    /**
+     * Find and hold the best available seats for a customer, for a specific length of time,
+     * rather than this TicketService's expiration duration.
+     *
+     * @param numSeats      the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @param holdMillis    number of milliseconds until the hold expires, unless reserved or extended
+     * @return a SeatHold instance identifying the specific seats and related information
+     * @throws SeatsUnavailableException if there are insufficient adjacent available seats
+     */
+    public SeatHold findAndHoldSeats(int numSeats, String customerEmail, long holdMillis)
+            throws SeatsUnavailableException {
+        HoldResult result = tryFindAndHoldSeats(numSeats, customerEmail, holdMillis, new HoldResult());
+        if (!result.isHeld()) {
+            throw new SeatsUnavailableException();
+        }
+        return result.getSeatHold();
+    }
+
+    /**
+     * Determines how good the seats that {@code findAndHoldSeats} would choose right now are,
+     * without holding them. This lets a caller compare several TicketServices (for example,
+     * the sections of a venue) before holding seats in the best one.
+     *
+     * @param numSeats the number of seats needed
+     * @return the average bestness of the seats that would be chosen, or NaN if there
+     *         are insufficient adjacent available seats
+     */
+    public double peekBestAverageBestness(int numSeats) {
+        if (cannotFit(numSeats)) {
+            return Double.NaN;   // answered without the lock
+        }
+        long lockRequestedNanos = System.nanoTime();
+        synchronized (synchroLock) {
+            long lockAcquiredNanos = lockAcquired(lockRequestedNanos);
+            try {
+                reclaimExpiredHolds();
+                searchStats.reset();
+                List<SeatImpl> seats =
+                        seatSelectionStrategy.selectSeats(numSeats, bestAvailableSeats, seatGrid, searchStats);
+                searchesDone();
+                return (seats != null) ? searchStats.getWinningAverageBestness() : Double.NaN;
+            } finally {
+                lockReleasing(LockProfiler.Operation.PEEK, lockRequestedNanos, lockAcquiredNanos);
+            }
+        }
+    }
+
+    /**
+     * Determines, from the latest snapshot and without the lock, how good the seats that
+     * {@code findAndHoldSeats} would choose right now are. The seat selection strategy is run
+     * against a private copy of the seat grid built from the snapshot, so it scores the seats
+     * it would actually choose; this costs time proportional to the number of seats in the
+     * venue, but never blocks, and many callers may run it at once.
+     *
+     * @param numSeats the number of seats needed
+     * @return the average bestness of the seats that would be chosen; positive infinity if
+     *         none fit in the snapshot, but some hold's deadline has passed (its seats are
+     *         missing from the snapshot until reclaimed); or NaN if the party cannot fit
+     */
+    public double snapshotBestAverageBestness(int numSeats) {
+        if (numSeats < 1) {
+            return Double.NaN;
+        }
+        boolean holdsMayHaveExpired = System.currentTimeMillis() >= earliestDeadlineMillis;   // read before the snapshot
+        SeatMapSnapshot snapshot = seatMapSnapshot;
+        SeatSelectionStrategy strategy = seatSelectionStrategy;
+        if (numSeats <= snapshot.getLongestRun() * strategy.getMaxRowsPerParty()) {
+            SeatGrid snapshotSeatGrid = new SeatGrid(venueImpl);
+            List<SeatImpl> snapshotBestAvailableSeats = new ArrayList<>(snapshot.getNumSeatsAvailable());
+            for (SeatImpl seat : venueImpl.getBestSeats()) {
+                if (snapshot.isAvailable(seat.getRowNum(), seat.getSeatNumInRow())) {
+                    snapshotBestAvailableSeats.add(seat);
+                } else {
+                    snapshotSeatGrid.setAvailability(seat.getRowNum(), seat.getSeatNumInRow(), false);
+                }
+            }
+            SearchStats snapshotSearchStats = new SearchStats();
+            if (strategy.selectSeats(numSeats, snapshotBestAvailableSeats, snapshotSeatGrid, snapshotSearchStats) != null) {
+                return snapshotSearchStats.getWinningAverageBestness();
+            }
+        }
+        return holdsMayHaveExpired ? Double.POSITIVE_INFINITY : Double.NaN;
+    }
+
+    /**
+     * Checks, without the lock, whether a party certainly cannot fit: it needs more seats than
+     * the runs of adjacent available seats in the latest snapshot allow, and no hold's deadline
+     * has passed (the seats of such a hold are missing from the snapshot until reclaimed).
+     *
+     * @param numSeats the number of seats needed
+     * @return true if the party cannot fit, false if it may
+     */
+    private boolean cannotFit(int numSeats) {
+        if (System.currentTimeMillis() >= earliestDeadlineMillis) {   // read before the snapshot
+            return false;   // the seats of expired holds may fit it, once reclaimed under the lock
+        }
+        return numSeats > seatMapSnapshot.getLongestRun() * seatSelectionStrategy.getMaxRowsPerParty();
+    }
+
+    /**
+     * Find and hold the best available seats for a customer. Unlike {@code findAndHoldSeats},
+     * insufficient adjacent available seats is reported in the result rather than by throwing
+     * an exception. The result may be reused from one call to the next. A party that could not
+     * fit in the runs of adjacent available seats in the latest snapshot is turned away without
+     * taking the lock, unless some hold's deadline has passed, in which case its seats are
+     * reclaimed first.
+     *
+     * @param numSeats      the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @param result        where the outcome is reported
+     * @return the result
+     */
+    public HoldResult tryFindAndHoldSeats(int numSeats, String customerEmail, HoldResult result) {
+        return tryFindAndHoldSeats(numSeats, customerEmail, expireMillies, result);
+    }
+
+    /**
+     * Find and hold the best available seats for a customer, for a specific length of time.
+     * Unlike {@code findAndHoldSeats}, insufficient adjacent available seats is reported in
+     * the result rather than by throwing an exception. The result may be reused from one call
+     * to the next.
+     *
+     * @param numSeats      the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @param holdMillis    number of milliseconds until the hold expires, unless reserved or extended
+     * @param result        where the outcome is reported
+     * @return the result
+     */
+    public HoldResult tryFindAndHoldSeats(int numSeats, String customerEmail, long holdMillis, HoldResult result) {
+        if (holdMillis < 0) {
+            throw new IllegalArgumentException("negative hold duration: " + holdMillis);
+        }
+        Object event = FLIGHT_RECORDER_EVENTS.beginHold();
+        SeatHoldImpl seatHold = null;
+        int entriesScanned = 0;
+        int candidatesEvaluated = 0;
+        double winningAverageBestness = Double.NaN;
+        if (cannotFit(numSeats)) {
+            SeatHoldImpl.checkEmailAddress(customerEmail);
+            metrics.recordUnavailable();   // answered without the lock or a search
+        } else {
+            int customerId = customers.acquire(customerEmail);   // validated and registered before locking
+            try {
+                long lockRequestedNanos = System.nanoTime();
+                synchronized (synchroLock) {
+                    long lockAcquiredNanos = lockAcquired(lockRequestedNanos);
+                    try {
+                        seatHold = tryFindAndHoldSeatsInternal(numSeats, customerId, holdMillis);
+                        entriesScanned = searchStats.getNumEntriesScanned();
+                        candidatesEvaluated = searchStats.getNumCandidatesEvaluated();
+                        winningAverageBestness = searchStats.getWinningAverageBestness();
+                    } finally {
+                        lockReleasing(LockProfiler.Operation.HOLD, lockRequestedNanos, lockAcquiredNanos);
+                    }
+                }
+            } finally {
+                customers.release(customerId);   // the seatHold, if any, has its own reference
+            }
+        }
+        if (seatHold == null) {
+            result.set(HoldResult.Status.UNAVAILABLE, null);
+        } else {
+            result.set(HoldResult.Status.HELD, getCustomerSeatHold(seatHold));
+        }
+        if (event != null) {
+            FLIGHT_RECORDER_EVENTS.commitHold(event, numSeats, entriesScanned, candidatesEvaluated,
+                    winningAverageBestness, result.getStatus().toString(),
+                    (seatHold == null) ? -1 : seatHold.getSeatHoldId());
+        }
+        return result;
+    }
+
+    /**
+     * Find and hold the best available seats for a customer. Unlike {@code findAndHoldSeats},
+     * insufficient adjacent available seats is reported in the result rather than by throwing
+     * an exception.
+     *
+     * @param numSeats      the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @return a new result
+     */
+    public HoldResult tryFindAndHoldSeats(int numSeats, String customerEmail) {
+        return tryFindAndHoldSeats(numSeats, customerEmail, new HoldResult());
+    }
+
+    /**
+     * Find and hold the best available seats for each of several parties of a customer,
+     * in a single operation. Larger parties are placed first, since they are the hardest
+     * to place. A party that cannot be placed does not prevent the others from being placed.
+     *
+     * @param partySizes    the number of seats to find and hold for each party
+     * @param customerEmail unique identifier for the customer
+     * @return a SeatHold for each party (same order as {@code partySizes}), or null for
+     *         each party for which there were insufficient adjacent available seats
+     */
+    public SeatHold[] findAndHoldSeats(int[] partySizes, String customerEmail) {
+        return holdParties(partySizes, customerEmail, false, PartyPlacement.LARGEST_FIRST, expireMillies);
+    }
+
+    /**
+     * Find and hold the best available seats for each of several parties of a customer,
+     * in a single operation. Larger parties are placed first, since they are the hardest
+     * to place.
+     *
+     * @param partySizes    the number of seats to find and hold for each party
+     * @param customerEmail unique identifier for the customer
+     * @param allOrNothing  if true, either every party is placed or none is
+     * @return a SeatHold for each party (same order as {@code partySizes}), or null for
+     *         each party for which there were insufficient adjacent available seats
+     * @throws SeatsUnavailableException if {@code allOrNothing} and some party could not be placed
+     */
+    public SeatHold[] findAndHoldSeats(int[] partySizes, String customerEmail, boolean allOrNothing)
+            throws SeatsUnavailableException {
+        return findAndHoldSeats(partySizes, customerEmail, allOrNothing, PartyPlacement.LARGEST_FIRST);
+    }
+
+    /**
+     * Find and hold the best available seats for each of several parties of a customer,
+     * in a single operation, placing the parties as specified.
+     *
+     * @param partySizes    the number of seats to find and hold for each party
+     * @param customerEmail unique identifier for the customer
+     * @param allOrNothing  if true, either every party is placed or none is
+     * @param placement     the order in which the parties are placed, and how their seats are chosen
+     * @return a SeatHold for each party (same order as {@code partySizes}), or null for
+     *         each party for which there were insufficient adjacent available seats
+     * @throws SeatsUnavailableException if {@code allOrNothing} and some party could not be placed
+     */
+    public SeatHold[] findAndHoldSeats(int[] partySizes, String customerEmail, boolean allOrNothing,
+                                       PartyPlacement placement)
+            throws SeatsUnavailableException {
+        return findAndHoldSeats(partySizes, customerEmail, allOrNothing, placement, expireMillies);
+    }
+
+    /**
+     * Find and hold the best available seats for each of several parties of a customer,
+     * in a single operation, placing the parties as specified, for a specific length of time,
+     * rather than this TicketService's expiration duration.
+     *
+     * @param partySizes    the number of seats to find and hold for each party
+     * @param customerEmail unique identifier for the customer
+     * @param allOrNothing  if true, either every party is placed or none is
+     * @param placement     the order in which the parties are placed, and how their seats are chosen
+     * @param holdMillis    number of milliseconds until the holds expire, unless reserved or extended
+     * @return a SeatHold for each party (same order as {@code partySizes}), or null for
+     *         each party for which there were insufficient adjacent available seats
+     * @throws SeatsUnavailableException if {@code allOrNothing} and some party could not be placed
+     */
+    public SeatHold[] findAndHoldSeats(int[] partySizes, String customerEmail, boolean allOrNothing,
+                                       PartyPlacement placement, long holdMillis)
+            throws SeatsUnavailableException {
+        SeatHold[] customerSeatHolds = holdParties(partySizes, customerEmail, allOrNothing, placement, holdMillis);
+        if (customerSeatHolds == null) {
+            throw new SeatsUnavailableException();
+        }
+        return customerSeatHolds;
+    }
+
+    /**
+     * Finds and holds seats for each of several parties of a customer, under one lock acquisition.
+     *
+     * @param partySizes    the number of seats to find and hold for each party
+     * @param customerEmail unique identifier for the customer
+     * @param allOrNothing  if true, either every party is placed or none is
+     * @param placement     the order in which the parties are placed, and how their seats are chosen
+     * @param holdMillis    number of milliseconds until the holds expire
+     * @return a SeatHold (or null) for each party, or null if {@code allOrNothing} and some
+     *         party could not be placed
+     */
+    private SeatHold[] holdParties(int[] partySizes, String customerEmail, boolean allOrNothing,
+                                   PartyPlacement placement, long holdMillis) {
+        if (placement == null) {
+            throw new IllegalArgumentException("null party placement");
+        }
+        if (holdMillis < 0) {
+            throw new IllegalArgumentException("negative hold duration: " + holdMillis);
+        }
+        int customerId = customers.acquire(customerEmail);   // before locking, and before any seats are held
+        try {
+            long lockRequestedNanos = System.nanoTime();
+            synchronized (synchroLock) {
+                long lockAcquiredNanos = lockAcquired(lockRequestedNanos);
+                try {
+                    SeatHoldImpl[] seatHolds = findAndHoldSeatsInternal(partySizes, customerId, allOrNothing,
+                            placement, holdMillis);
+                    if (seatHolds == null) {
+                        return null;
+                    }
+                    SeatHold[] customerSeatHolds = new SeatHold[partySizes.length];
+                    for (int i = 0; i < seatHolds.length; i++) {
+                        customerSeatHolds[i] = (seatHolds[i] == null) ? null : getCustomerSeatHold(seatHolds[i]);
+                    }
+                    return customerSeatHolds;
+                } finally {
+                    lockReleasing(LockProfiler.Operation.HOLD_BATCH, lockRequestedNanos, lockAcquiredNanos);
+                }
+            }
+        } finally {
+            customers.release(customerId);   // each seatHold has its own reference
+        }
+    }
+
+    /**
+     * Commit seats held for a specific customer
+     *
+     * @param seatHoldId    the seat hold identifier
+     * @param customerEmail the email address of the customer to which the
+     *                      seat hold is assigned
+     * @return a reservation confirmation code
+     * @throws SeatHoldNotFoundException if the epecified SeatHold cannot be found
+     * @throws SeatHoldExpiredException if the specified SeatHold has expired
+     */
+    @Override
+    public String reserveSeats(int seatHoldId, String customerEmail)
+            throws SeatHoldNotFoundException, SeatHoldExpiredException {
+        ReserveResult result = tryReserveSeats(seatHoldId, customerEmail, new ReserveResult());
+        switch (result.getStatus()) {
+            case NOT_FOUND:
+                throw new SeatHoldNotFoundException(seatHoldId);
+            case EXPIRED:
+                throw new SeatHoldExpiredException();
+            default:
+                return result.getReservationId();
+        }
+    }
+
+    /**
+     * Commit seats held for a specific customer. Unlike {@code reserveSeats}, failures
+     * are reported in the result rather than by throwing exceptions. The result may be
+     * reused from one call to the next.
+     *
+     * @param seatHoldId    the seat hold identifier
+     * @param customerEmail the email address of the customer to which the
+     *                      seat hold is assigned
+     * @param result        where the outcome is reported
+     * @return the result
+     */
+    public ReserveResult tryReserveSeats(int seatHoldId, String customerEmail, ReserveResult result) {
+        Object event = FLIGHT_RECORDER_EVENTS.beginReserve();
+        long lockRequestedNanos = System.nanoTime();
+        synchronized (synchroLock) {
+            long lockAcquiredNanos = lockAcquired(lockRequestedNanos);
+            try {
+                SeatHoldImpl newlyReservedSeatHold = reserveSeatsInternal(seatHoldId, CustomerRegistry.NO_CUSTOMER, result);
+                if (newlyReservedSeatHold != null) {
+                    publishChange(SeatMapChange.Type.RESERVED, newlyReservedSeatHold);
+                }
+            } finally {
+                lockReleasing(LockProfiler.Operation.RESERVE, lockRequestedNanos, lockAcquiredNanos);
+            }
+        }
+        if (event != null) {
+            FLIGHT_RECORDER_EVENTS.commitReserve(event, seatHoldId, result.getStatus().toString());
+        }
+        return result;
+    }
+
+    /**
+     * Commit several seat holds, in a single operation. Unlike the single seat hold
+     * version, failures are reported in the results rather than by throwing exceptions.
+     * Unlike the single seat hold version, each SeatHold must be assigned to the specified
+     * customer: a SeatHold assigned to another customer is reported as not found.
+     *
+     * @param seatHoldIds    the seat hold identifiers
+     * @param customerEmails the email address of the customer to which each
+     *                       seat hold is assigned (same order as {@code seatHoldIds})
+     * @return the outcome for each seat hold (same order as {@code seatHoldIds})
+     * @throws IllegalArgumentException if any email address is invalid (nothing is reserved)
+     */
+    public ReserveResult[] reserveSeats(int[] seatHoldIds, String[] customerEmails) {
+        if (seatHoldIds.length != customerEmails.length) {
+            throw new IllegalArgumentException("mismatched lengths: " + seatHoldIds.length + ", " + customerEmails.length);
+        }
+        int[] customerIds = new int[customerEmails.length];   // before locking, and before anything is reserved
+        int numCustomerIds = 0;
+        try {
+            for (; numCustomerIds < customerEmails.length; numCustomerIds++) {
+                customerIds[numCustomerIds] = customers.acquire(customerEmails[numCustomerIds]);
+            }
+            ReserveResult[] results = new ReserveResult[seatHoldIds.length];
+            for (int i = 0; i < results.length; i++) {
+                results[i] = new ReserveResult();
+            }
+            long lockRequestedNanos = System.nanoTime();
+            synchronized (synchroLock) {
+                long lockAcquiredNanos = lockAcquired(lockRequestedNanos);
+                try {
+                    List<SeatHoldImpl> newlyReservedSeatHolds = new ArrayList<>(seatHoldIds.length);
+                    for (int i = 0; i < seatHoldIds.length; i++) {
+                        SeatHoldImpl newlyReservedSeatHold = reserveSeatsInternal(seatHoldIds[i], customerIds[i], results[i]);
+                        if (newlyReservedSeatHold != null) {
+                            newlyReservedSeatHolds.add(newlyReservedSeatHold);
+                        }
+                    }
+                    publishChanges(SeatMapChange.Type.RESERVED, newlyReservedSeatHolds);
+                } finally {
+                    lockReleasing(LockProfiler.Operation.RESERVE_BATCH, lockRequestedNanos, lockAcquiredNanos);
+                }
+            }
+            return results;
+        } finally {
+            for (int i = 0; i < numCustomerIds; i++) {
+                customers.release(customerIds[i]);
+            }
+        }
+    }
+
+    /**
+     * Reserves the specified seatHold, if it is held (for the specified customer, if any), and
+     * reports the outcome. Must be invoked while the lock is held. The change is not published.
+     *
+     * An expired seatHold whose customer has been forgotten is reported as expired, whichever
+     * customer is specified.
+     *
+     * @param seatHoldId the seat hold identifier
+     * @param customerId the ID of the customer to which the seat hold must be assigned, or
+     *                   NO_CUSTOMER to reserve it whoever it is assigned to
+     * @param result where the outcome is reported
+     * @return the seatHold if it was newly reserved, otherwise null
+     */
+    @VisibleForTesting
+    SeatHoldImpl reserveSeatsInternal(int seatHoldId, int customerId, ReserveResult result) {
+        reclaimExpiredHolds();
+        SeatHoldImpl seatHold = getSeatHold(seatHoldId);
+        if ((seatHold == null)
+                || ((customerId != CustomerRegistry.NO_CUSTOMER)
+                    && (seatHold.getCustomerId() != CustomerRegistry.NO_CUSTOMER)
+                    && (seatHold.getCustomerId() != customerId))) {   // not this customer's
+            result.set(ReserveResult.Status.NOT_FOUND, null);
+            metrics.recordReserve(ReserveResult.Status.NOT_FOUND);
+            return null;
+        }
+        if (seatHold.isReserved()) {
+            result.set(ReserveResult.Status.RESERVED, seatHold.getReservationId());
+            return null;
+        }
+        if (seatHold.isExpired()) {
+            result.set(ReserveResult.Status.EXPIRED, null);
+            metrics.recordReserve(ReserveResult.Status.EXPIRED);
+            return null;
+        }
+        String reservationId = ReservationCode.encode(reservationIdGenerator.nextId());
+        seatHold.reserve(reservationId);
+        cancelExpiration(seatHold);
+        Reservation reservation = new Reservation(seatHold, reservationId);
+        reservations.put(reservationId, reservation);
+        result.set(ReserveResult.Status.RESERVED, reservationId);
+        metrics.recordReserve(ReserveResult.Status.RESERVED);
+        return seatHold;
+    }
+
+    /**
+     * Registers a listener to be notified of each subsequent seat map change, in order.
+     * The listener is invoked while the lock is held, so it must be quick.
+     *
+     * @param listener the listener
+     * @return the sequence number of the last change published before the listener was registered
+     */
+    public long addSeatMapChangeListener(SeatMapChangeListener listener) {
+        synchronized (synchroLock) {
+            changeFeed.addListener(listener);
+            return changeFeed.getLastSequenceNumber();
+        }
+    }
+
+    /**
+     * Unregisters a seat map change listener.
+     *
+     * @param listener the listener
+     */
+    public void removeSeatMapChangeListener(SeatMapChangeListener listener) {
+        changeFeed.removeListener(listener);
+    }
+
+    /**
+     * Returns the recent seat map changes published after the specified sequence number, in order.
+     *
+     * @param sequenceNumber the sequence number of the last change already seen (zero if none)
+     * @return the subsequent changes (possibly empty), or null if the caller has fallen
+     *         too far behind and must resynchronize from the full seat map
+     */
+    public List<SeatMapChange> getSeatMapChangesSince(long sequenceNumber) {
+        synchronized (synchroLock) {
+            return changeFeed.getChangesSince(sequenceNumber);
+        }
+    }
+
+    /**
+     * Finds and returns the reservation associated with the specified reservation ID.
+     *
+     * @param reservationId the reservation ID
+     * @return the corresponding reservation
+     */
+    public Reservation getReservation(String reservationId) {
+        synchronized (synchroLock) {
+            return reservations.get(reservationId);
+        }
+    }
+
+    @VisibleForTesting
+    static SeatHoldImpl getCustomerSeatHold(SeatHoldImpl seatHold) {
+        return seatHold;
+    }
+
+    @VisibleForTesting
+    SeatHoldImpl findAndHoldSeatsInternal(int numSeats, String customerEmail) throws SeatsUnavailableException {
+        SeatHoldImpl seatHold = tryFindAndHoldSeatsInternal(numSeats, customerEmail);
+        if (seatHold == null) {
+            throw new SeatsUnavailableException();
+        }
+        return seatHold;
+    }
+
+    @VisibleForTesting
+    SeatHoldImpl tryFindAndHoldSeatsInternal(int numSeats, String customerEmail) {
+        int customerId = customers.acquire(customerEmail);
+        try {
+            return tryFindAndHoldSeatsInternal(numSeats, customerId, expireMillies);
+        } finally {
+            customers.release(customerId);
+        }
+    }
+
+    /**
+     * Finds and holds the best available seats for a customer. Must be invoked while the lock is held.
+     *
+     * @param numSeats the number of seats to find and hold
+     * @param customerId the customer's ID, to which the caller holds a reference
+     * @param holdMillis number of milliseconds until the hold expires
+     * @return the new seatHold, or null if there are insufficient adjacent available seats
+     */
+    private SeatHoldImpl tryFindAndHoldSeatsInternal(int numSeats, int customerId, long holdMillis) {
+        reclaimExpiredHolds();
+        long searchStartNanos = System.nanoTime();
+        searchStats.reset();
+        List<SeatImpl> heldSeats =
+                tryHoldBestAdjacentSeats(numSeats, bestAvailableSeats, seatGrid, searchStats, seatSelectionStrategy);
+        metrics.recordHoldSearch(System.nanoTime() - searchStartNanos);
+        searchesDone();
+        if (heldSeats == null) {
+            metrics.recordUnavailable();
+            return null;
+        }
+        int seatHoldId;
+        try {
+            seatHoldId = nextSeatHoldId();   // only once seats are found, so failed requests use up no IDs
+        } catch (IllegalStateException e) {
+            makeSeatsAvailable(heldSeats, bestAvailableSeats, seatGrid);
+            throw e;
+        }
+        metrics.recordHold();
+        SeatHoldImpl seatHold = newSeatHold(seatHoldId, customerId, heldSeats);
+        seatHolds.put(seatHold.getSeatHoldId(), seatHold);
+        scheduleExpiration(seatHold, deadlineAfter(holdMillis));
+        publishChange(SeatMapChange.Type.HELD, seatHold);
+        return seatHold;
+    }
+
+    /**
+     * Finds and holds seats for each of several parties of a customer. Must be invoked while
+     * the lock is held.
+     *
+     * @param partySizes the number of seats to find and hold for each party
+     * @param customerId the customer's ID, to which the caller holds a reference
+     * @param allOrNothing if true, either every party is placed or none is
+     * @param placement the order in which the parties are placed, and how their seats are chosen
+     * @param holdMillis number of milliseconds until the holds expire
+     * @return the new seatHold (or null) for each party, or null if {@code allOrNothing} and
+     *         some party could not be placed
+     */
+    @VisibleForTesting
+    SeatHoldImpl[] findAndHoldSeatsInternal(int[] partySizes, int customerId, boolean allOrNothing,
+                                            PartyPlacement placement, long holdMillis) {
+        reclaimExpiredHolds();
+        searchStats.reset();
+        List<List<SeatImpl>> heldSeatsPerParty;
+        if (placement == PartyPlacement.LEAST_FRAGMENTATION) {
+            heldSeatsPerParty = holdLeastFragmentingSeatsForParties(partySizes, allOrNothing);
+        } else {
+            heldSeatsPerParty = holdBestAdjacentSeatsForParties(partySizes, allOrNothing,
+                    placement == PartyPlacement.LARGEST_FIRST, bestAvailableSeats, seatGrid, searchStats,
+                    seatSelectionStrategy);
+        }
+        searchesDone();
+        if (heldSeatsPerParty == null) {
+            for (int party = 0; party < partySizes.length; party++) {
+                metrics.recordUnavailable();
+            }
+            return null;
+        }
+        int[] seatHoldIds = new int[partySizes.length];   // only for the parties placed
+        try {
+            for (int party = 0; party < partySizes.length; party++) {
+                if (heldSeatsPerParty.get(party) != null) {
+                    seatHoldIds[party] = nextSeatHoldId();
+                }
+            }
+        } catch (IllegalStateException e) {
+            rollBack(heldSeatsPerParty, bestAvailableSeats, seatGrid);
+            throw e;
+        }
+        long deadlineMillis = deadlineAfter(holdMillis);
+        SeatHoldImpl[] partySeatHolds = new SeatHoldImpl[partySizes.length];
+        List<SeatHoldImpl> newSeatHolds = new ArrayList<>(partySizes.length);
+        for (int party = 0; party < partySizes.length; party++) {
+            List<SeatImpl> heldSeats = heldSeatsPerParty.get(party);
+            if (heldSeats == null) {
+                metrics.recordUnavailable();
+            } else {
+                metrics.recordHold();
+                SeatHoldImpl seatHold = newSeatHold(seatHoldIds[party], customerId, heldSeats);
+                seatHolds.put(seatHold.getSeatHoldId(), seatHold);
+                scheduleExpiration(seatHold, deadlineMillis);
+                partySeatHolds[party] = seatHold;
+                newSeatHolds.add(seatHold);
+            }
+        }
+        publishChanges(SeatMapChange.Type.HELD, newSeatHolds);
+        return partySeatHolds;
+    }
+
+    /**
+     * Constructs a new seatHold, with a reference of its own to its customer.
+     *
+     * @param seatHoldId the seatHold's ID
+     * @param customerId the customer's ID, to which the caller holds a reference
+     * @param heldSeats the held seats
+     * @return the new seatHold
+     */
+    private SeatHoldImpl newSeatHold(int seatHoldId, int customerId, List<SeatImpl> heldSeats) {
+        customers.retain(customerId);
+        return new SeatHoldImpl(seatHoldId, customers, customerId, heldSeats);
+    }
+
+    /**
+     * Places a batch of parties largest first, using the seat selection strategy, and, if some
+     * party could not be placed, places it again packing each party against an end of a run,
+     * keeping the placement that seats more people. Must be invoked while the lock is held.
+     *
+     * @param partySizes the number of seats needed by each party
+     * @param allOrNothing if true, and some party cannot be placed, no seats are held
+     * @return for each party, the list of held seats, or null if the party could not be
+     *         placed; or null if {@code allOrNothing} and some party could not be placed
+     */
+    private List<List<SeatImpl>> holdLeastFragmentingSeatsForParties(int[] partySizes, boolean allOrNothing) {
+        List<List<SeatImpl>> heldSeatsPerParty = holdBestAdjacentSeatsForParties(partySizes, false, true,
+                bestAvailableSeats, seatGrid, searchStats, seatSelectionStrategy);
+        int numSeatsHeld = countSeats(heldSeatsPerParty);
+        if (heldSeatsPerParty.contains(null)) {
+            rollBack(heldSeatsPerParty, bestAvailableSeats, seatGrid);
+            List<List<SeatImpl>> packedSeatsPerParty = holdBestAdjacentSeatsForParties(partySizes, false, true,
+                    bestAvailableSeats, seatGrid, searchStats, PACKING_STRATEGY);
+            if (countSeats(packedSeatsPerParty) > numSeatsHeld) {
+                heldSeatsPerParty = packedSeatsPerParty;
+            } else {
+                rollBack(packedSeatsPerParty, bestAvailableSeats, seatGrid);   // same state, so the same seats
+                heldSeatsPerParty = holdBestAdjacentSeatsForParties(partySizes, false, true,
+                        bestAvailableSeats, seatGrid, searchStats, seatSelectionStrategy);
+            }
+        }
+        if (allOrNothing && heldSeatsPerParty.contains(null)) {
+            return rollBack(heldSeatsPerParty, bestAvailableSeats, seatGrid);
+        }
+        return heldSeatsPerParty;
+    }
+
+    /**
+     * Counts the seats held for a batch of parties.
+     *
+     * @param heldSeatsPerParty the list of held seats (or null) for each party
+     * @return the number of seats
+     */
+    private static int countSeats(List<List<SeatImpl>> heldSeatsPerParty) {
+        int numSeats = 0;
+        for (List<SeatImpl> heldSeats : heldSeatsPerParty) {
+            if (heldSeats != null) {
+                numSeats += heldSeats.size();
+            }
+        }
+        return numSeats;
+    }
+
+    /**
+     * The registry of the customers with outstanding requests, seatHolds or reservations.
+     *
+     * @return the customer registry
+     */
+    @VisibleForTesting
+    CustomerRegistry getCustomerRegistry() {
+        return customers;
+    }
 
-    /** Maps a SeatHold ID to a SeatHold instance. */
-    private final Map<Integer, SeatHoldImpl> seatHolds = new HashMap<>();
+    /**
+     * Finds and returns the seatHold associated with the specified seat hold ID.
+     *
+     * @param seatHoldId the seat hold ID
+     * @return the corresponding seatHold
+     */
+    @VisibleForTesting
+    SeatHoldImpl getSeatHold(int seatHoldId) {   // TODO: check test
+        return seatHolds.get(seatHoldId);
+    }
 
-    /** Maps a reservation ID to a Reservation instance. */
-    private final Map<String, Reservation> reservations = new HashMap<>();
+    /**
+     * Number of milliseconds until an unreserved SeatHold is expired.
+     *
+     * @return the expiration duration
+     */
+    long getExpireMillies() {
+        return expireMillies;
+    }
 
-    /** Expiration timer. */
-    private final Timer expirationTimer = new Timer(true);   // isDaemon: true
+    /**
+     * Applies one entry of a primary's replication log to this replica, making the same change
+     * (with the same seatHold ID, customer, seats and reservation ID) and publishing it with the
+     * same sequence number. The seatHold's deadline is the primary's, but no expiration is
+     * scheduled; the primary's expirations are replicated (see {@code scheduleReplicatedExpirations}).
+     *
+     * @param entry the entry, which must be the next in sequence
+     * @throws IllegalStateException if the entry does not follow on from this replica's state
+     */
+    void applyReplicated(ReplicationBatch.Entry entry) {
+        synchronized (synchroLock) {
+            if (entry.getSequenceNumber() != changeFeed.getLastSequenceNumber() + 1) {
+                throw new IllegalStateException("out of sequence: " + entry.getSequenceNumber());
+            }
+            SeatHoldImpl seatHold = seatHolds.get(entry.getSeatHoldId());
+            switch (entry.getType()) {
+                case HELD:
+                    if (seatHold != null) {
+                        throw new IllegalStateException("replica has diverged at " + entry.getSequenceNumber());
+                    }
+                    List<SeatImpl> seats = new ArrayList<>();
+                    for (SeatRun seatRun : entry.getSeatRuns()) {
+                        for (int i = 0; i < seatRun.getNumSeats(); i++) {
+                            int seatNumInRow = seatRun.getFirstSeatNumInRow() + i;
+                            if (!seatGrid.isAvailable(seatRun.getRowNum(), seatNumInRow)) {
+                                throw new IllegalStateException("replica has diverged at " + entry.getSequenceNumber());
+                            }
+                            seats.add(seatGrid.getSeat(seatRun.getRowNum(), seatNumInRow));
+                        }
+                    }
+                    holdSeats(seats, bestAvailableSeats, seatGrid);
+                    seatHold = new SeatHoldImpl(entry.getSeatHoldId(), customers,
+                            customers.acquire(entry.getCustomerEmail()), seats);
+                    seatHold.setDeadlineMillis(entry.getExpirationMillis());
+                    seatHolds.put(seatHold.getSeatHoldId(), seatHold);
+                    break;
+                case EXTENDED:
+                    if ((seatHold == null) || !seatHold.isPending()) {
+                        throw new IllegalStateException("replica has diverged at " + entry.getSequenceNumber());
+                    }
+                    seatHold.setDeadlineMillis(entry.getExpirationMillis());
+                    break;
+                case RESERVED:
+                    if ((seatHold == null) || !seatHold.reserve(entry.getReservationId())) {
+                        throw new IllegalStateException("replica has diverged at " + entry.getSequenceNumber());
+                    }
+                    reservations.put(entry.getReservationId(), new Reservation(seatHold, entry.getReservationId()));
+                    break;
+                default:   // RELEASED
+                    if ((seatHold == null) || !seatHold.expire()) {
+                        throw new IllegalStateException("replica has diverged at " + entry.getSequenceNumber());
+                    }
+                    makeSeatsAvailable(seatHold.getHeldSeats(), bestAvailableSeats, seatGrid);
+                    break;
+            }
+            publishChange(entry.getType(), seatHold);
+            if (entry.getType() == SeatMapChange.Type.RELEASED) {
+                seatHold.forgetCustomer();   // once the change has been published with the customer
+            }
+        }
+    }
 
-    /** Number of milliseconds until an unreserved SeatHold is expired. */
-    private final long expireMillies;
+    /**
+     * Schedules the expirations of the outstanding seatHolds applied to this replica, at the
+     * primary's deadlines (at once, if a deadline has passed). Invoked when the replica is promoted.
+     */
+    void scheduleReplicatedExpirations() {
+        synchronized (synchroLock) {
+            for (SeatHoldImpl seatHold : seatHolds.values()) {
+                if (seatHold.isPending()) {
+                    scheduleExpiration(seatHold, seatHold.getDeadlineMillis());
+                }
+            }
+        }
+    }
 
-    /** Next SeatHold ID. */
-    private int nextSeatHoldId = 0;
+    /**
+     * Tries to expire the specified seatHold. If the seatHold was not previously
+     * expired or reserved, the seatHold is marked expired and the seats are
+     * made available.
+     *
+     * @param seatHold the seatHold to be expired
+     */
+    void expire(SeatHoldImpl seatHold) {
+        expire(seatHold, System.currentTimeMillis());
+    }
 
+    /**
+     * Tries to expire the specified seatHold. If the seatHold was not previously
+     * expired or reserved, the seatHold is marked expired and the seats are
+     * made available.
+     *
+     * @param seatHold the seatHold to be expired
+     * @param deadlineMillis when the seatHold was due to expire (for measuring expiration lag)
+     */
+    void expire(SeatHoldImpl seatHold, long deadlineMillis) {
+        Object event = FLIGHT_RECORDER_EVENTS.beginExpire();
+        boolean expired;
+        long lockRequestedNanos = System.nanoTime();
+        synchronized (synchroLock) {
+            long lockAcquiredNanos = lockAcquired(lockRequestedNanos);
+            try {
+                expired = seatHold.isPending();
+                if (expired) {
+                    seatHold.expire();
+                    cancelExpiration(seatHold);
+                    makeSeatsAvailable(seatHold.getHeldSeats(), bestAvailableSeats, seatGrid);
+                    publishChange(SeatMapChange.Type.RELEASED, seatHold);
+                    seatHold.forgetCustomer();
+                    metrics.recordExpiration(System.currentTimeMillis() - deadlineMillis);
+                }
+            } finally {
+                lockReleasing(LockProfiler.Operation.EXPIRE, lockRequestedNanos, lockAcquiredNanos);
+            }
+        }
+        if (event != null) {
+            FLIGHT_RECORDER_EVENTS.commitExpire(event, seatHold.getSeatHoldId(), seatHold.numSeatsHeld(),
+                    System.currentTimeMillis() - deadlineMillis,
+                    expired ? "EXPIRED" : (seatHold.isReserved() ? "RESERVED" : "ALREADY_EXPIRED"));
+        }
+    }
 
     /**
-     * Constructs a new TicketServiceImpl.
+     * Records the time spent waiting for the lock, which has just been acquired.
      *
-     * @param venue the venue to be served by this TicketService
+     * @param lockRequestedNanos when the lock was requested ({@code System.nanoTime()})
+     * @return when the lock was acquired
      */
-    public TicketServiceImpl(Venue venue) {
-        this(venue, EXPIRE_SECONDS * 1000);
+    private long lockAcquired(long lockRequestedNanos) {
+        long lockAcquiredNanos = System.nanoTime();
+        metrics.recordLockWait(lockAcquiredNanos - lockRequestedNanos);
+        return lockAcquiredNanos;
     }
 
     /**
-     * Constructs a new TicketServiceImpl.
+     * Profiles an operation that is about to release the lock, if profiling is enabled.
      *
-     * @param venue the venue to be served by this TicketService
-     * @param expireMillies seatHold expiration duration
+     * @param operation the kind of operation
+     * @param lockRequestedNanos when the lock was requested ({@code System.nanoTime()})
+     * @param lockAcquiredNanos when the lock was acquired
      */
-    public TicketServiceImpl(Venue venue, long expireMillies) {
-        VenueImpl venueImpl = (VenueImpl) venue;
-        this.bestAvailableSeats = new ArrayList<>(venueImpl.getBestSeats());
-        this.seatGrid = new SeatGrid(venueImpl);
-        this.expireMillies = expireMillies;
+    private void lockReleasing(LockProfiler.Operation operation, long lockRequestedNanos, long lockAcquiredNanos) {
+        LockProfiler profiler = lockProfiler;
+        if (profiler != null) {
+            profiler.recordLock(operation, lockRequestedNanos, lockAcquiredNanos, System.nanoTime());
+        }
     }
 
     /**
-     * The number of seats in the venue that are neither held nor reserved
+     * Issues the next SeatHold ID that is not in use. The generator's IDs wrap around at the
+     * range of an int (only their low 31 bits are kept), and an ID that belongs to a seatHold
+     * this TicketService still knows of (held, reserved or expired) is skipped. So once the
+     * generator runs past Integer.MAX_VALUE, the IDs it never issued here (gaps, or IDs issued
+     * by other engines sharing its counter) are issued, and holding goes on. Must be invoked
+     * while the lock is held.
      *
-     * @return the number of tickets available in the venue
+     * @return the SeatHold ID
+     * @throws IllegalStateException if every one of {@code MAX_SEAT_HOLD_ID_DRAWS} IDs drawn is in
+     *                               use; the next request carries on from there
      */
-    @Override
-    public int numSeatsAvailable() {
-        synchronized (synchroLock) {
-            return bestAvailableSeats.size();
+    private int nextSeatHoldId() {
+        for (int draw = 0; draw < MAX_SEAT_HOLD_ID_DRAWS; draw++) {
+            int seatHoldId = (int) (seatHoldIdGenerator.nextId() & Integer.MAX_VALUE);
+            if (!seatHolds.containsKey(seatHoldId)) {
+                return seatHoldId;
+            }
         }
+        throw new IllegalStateException("no unused seat hold ID in " + MAX_SEAT_HOLD_ID_DRAWS + " draws");
     }
 
     /**
-     * Find and hold the best available seats for a customer
+     * Profiles the searches just done, if profiling is enabled. Must be invoked while the lock is held.
+     */
+    private void searchesDone() {
+        LockProfiler profiler = lockProfiler;
+        if (profiler != null) {
+            profiler.recordSearches(searchStats);
+        }
+    }
+
+    /**
+     * Publishes a new seat map snapshot reflecting a seat map change, and then publishes
+     * the change itself to the change feed (so listeners already see the new snapshot).
+     * Must be invoked while the lock is held.
      *
-     * @param numSeats      the number of seats to find and hold
-     * @param customerEmail unique identifier for the customer
-     * @return a SeatHold instance identifying the specific seats and related information
-     * @throws SeatsUnavailableException if there are insufficient adjacent available seats
+     * @param type the kind of change
+     * @param seatHold the seatHold whose seats changed
      */
-    @Override
-    public SeatHold findAndHoldSeats(int numSeats, String customerEmail) throws SeatsUnavailableException {
-        synchronized (synchroLock) {
-            return getCustomerSeatHold(findAndHoldSeatsInternal(numSeats, customerEmail));
+    private void publishChange(SeatMapChange.Type type, SeatHoldImpl seatHold) {
+        publishChanges(type, Collections.singletonList(seatHold));
+    }
+
+    /**
+     * Publishes a single new seat map snapshot reflecting several seat map changes of the
+     * same kind, and then publishes the changes themselves to the change feed, in order.
+     * Must be invoked while the lock is held.
+     *
+     * @param type the kind of change
+     * @param changedSeatHolds the seatHolds whose seats changed
+     */
+    private void publishChanges(SeatMapChange.Type type, List<SeatHoldImpl> changedSeatHolds) {
+        if (changedSeatHolds.isEmpty()) {
+            return;
+        }
+        seatMapSnapshot = SeatMapSnapshot.update(seatMapSnapshot, seatGrid, bestAvailableSeats.size(),
+                changeFeed.getLastSequenceNumber() + changedSeatHolds.size());
+        for (SeatHoldImpl seatHold : changedSeatHolds) {
+            changeFeed.publish(type, seatHold);
         }
     }
 
     /**
-     * Commit seats held for a specific customer
+     * Extends a hold: its deadline is moved later by the specified number of milliseconds
+     * (a checkout that needs more time, say). The expiration is rescheduled, not duplicated,
+     * so a hold may be extended any number of times at constant cost. The extension is
+     * published as an EXTENDED change, so replicas learn the new deadline.
      *
-     * @param seatHoldId    the seat hold identifier
-     * @param customerEmail the email address of the customer to which the
-     *                      seat hold is assigned
-     * @return a reservation confirmation code
-     * @throws SeatHoldNotFoundException if the epecified SeatHold cannot be found
+     * @param seatHoldId the seat hold identifier
+     * @param extensionMillis number of milliseconds by which the hold is extended
+     * @return the new deadline (milliseconds since the epoch)
+     * @throws SeatHoldNotFoundException if the specified SeatHold cannot be found
      * @throws SeatHoldExpiredException if the specified SeatHold has expired
+     * @throws IllegalStateException if the specified SeatHold has been reserved
      */
-    @Override
-    public String reserveSeats(int seatHoldId, String customerEmail)
+    public long extendHold(int seatHoldId, long extensionMillis)
             throws SeatHoldNotFoundException, SeatHoldExpiredException {
+        if (extensionMillis < 0) {
+            throw new IllegalArgumentException("negative extension: " + extensionMillis);
+        }
+        long lockRequestedNanos = System.nanoTime();
         synchronized (synchroLock) {
-            SeatHoldImpl seatHold = getSeatHold(seatHoldId);
-            if (seatHold == null) {
-                throw new SeatHoldNotFoundException();
-            }
-            String reservationId = Integer.toString(seatHold.getSeatHoldId());
-            if (seatHold.isReserved()) {
-                return reservationId;
-            }
-            if (seatHold.isExpired()) {
-                throw new SeatHoldExpiredException();
+            long lockAcquiredNanos = lockAcquired(lockRequestedNanos);
+            try {
+                reclaimExpiredHolds();
+                SeatHoldImpl seatHold = getSeatHold(seatHoldId);
+                if (seatHold == null) {
+                    throw new SeatHoldNotFoundException(seatHoldId);
+                }
+                if (seatHold.isExpired()) {
+                    throw new SeatHoldExpiredException();
+                }
+                if (seatHold.isReserved()) {
+                    throw new IllegalStateException("seatHold " + seatHoldId + " has been reserved");
+                }
+                long deadlineMillis = seatHold.getDeadlineMillis();
+                deadlineMillis = (deadlineMillis > Long.MAX_VALUE - 1 - extensionMillis)
+                        ? (Long.MAX_VALUE - 1) : (deadlineMillis + extensionMillis);
+                scheduleExpiration(seatHold, deadlineMillis);
+                publishChange(SeatMapChange.Type.EXTENDED, seatHold);
+                return deadlineMillis;
+            } finally {
+                lockReleasing(LockProfiler.Operation.EXTEND, lockRequestedNanos, lockAcquiredNanos);
             }
-            seatHold.reserve();
-            Reservation reservation = new Reservation(seatHold, reservationId);
-            reservations.put(reservationId, reservation);
-            return reservationId;
         }
     }
 
     /**
-     * Finds and returns the reservation associated with the specified reservation ID.
+     * The deadline of a hold made now.
      *
-     * @param reservationId the reservation ID
-     * @return the corresponding reservation
+     * @param holdMillis number of milliseconds until the hold expires
+     * @return the deadline (milliseconds since the epoch), short of Long.MAX_VALUE (no deadline)
      */
-    public Reservation getReservation(String reservationId) {
-        synchronized (synchroLock) {
-            return reservations.get(reservationId);
+    private static long deadlineAfter(long holdMillis) {
+        long nowMillis = System.currentTimeMillis();
+        return (holdMillis > Long.MAX_VALUE - 1 - nowMillis) ? (Long.MAX_VALUE - 1) : (nowMillis + holdMillis);
+    }
+
+    /**
+     * Sets (or moves) the deadline of a seatHold, and (re)schedules its expiration in the
+     * expiration wheel, scheduling the sweeper if need be. Must be invoked while the lock is held.
+     *
+     * @param seatHold the seatHold
+     * @param deadlineMillis when it expires (milliseconds since the epoch)
+     */
+    private void scheduleExpiration(SeatHoldImpl seatHold, long deadlineMillis) {
+        seatHold.setDeadlineMillis(deadlineMillis);
+        TimingWheel.Timeout<SeatHoldImpl> timeout = seatHold.getExpirationTimeout();
+        if (timeout == null) {
+            seatHold.setExpirationTimeout(expirations.schedule(seatHold, deadlineMillis));
+        } else {
+            expirations.reschedule(timeout, deadlineMillis);
         }
+        scheduleSweep();
     }
 
-    @VisibleForTesting
-    static SeatHoldImpl getCustomerSeatHold(SeatHoldImpl seatHold) {
-        return seatHold;
+    /**
+     * Removes a seatHold that has been reserved or expired from the expiration wheel.
+     * Must be invoked while the lock is held.
+     *
+     * @param seatHold the seatHold
+     */
+    private void cancelExpiration(SeatHoldImpl seatHold) {
+        TimingWheel.Timeout<SeatHoldImpl> timeout = seatHold.getExpirationTimeout();
+        if (timeout != null) {
+            expirations.cancel(timeout);
+            seatHold.setExpirationTimeout(null);
+        }
     }
 
-    @VisibleForTesting
-    SeatHoldImpl findAndHoldSeatsInternal(int numSeats, String customerEmail) throws SeatsUnavailableException {
-        List<SeatImpl> heldSeats = holdBestAdjacentSeats(numSeats, bestAvailableSeats, seatGrid);
-        SeatHoldImpl seatHold = new SeatHoldImpl(nextSeatHoldId++, customerEmail, heldSeats);
-        seatHolds.put(seatHold.getSeatHoldId(), seatHold);
-        setExpirationTimeout(seatHold, expireMillies);
-        return seatHold;
+    /**
+     * Schedules the sweeper to run when the earliest deadline in the expiration wheel passes,
+     * but no sooner than the sweep interval after the latest sweep, unless it is already due
+     * to run by then. Must be invoked while the lock is held.
+     */
+    private void scheduleSweep() {
+        long earliestDeadlineMillis = expirations.getEarliestDeadlineMillis();
+        this.earliestDeadlineMillis = earliestDeadlineMillis;
+        if (earliestDeadlineMillis >= Long.MAX_VALUE - 1) {
+            return;   // nothing is held, or nothing that will ever expire
+        }
+        long dueMillis = Math.max(earliestDeadlineMillis, lastSweepMillis + sweepIntervalMillis);
+        if (sweeper != null) {
+            if (sweepDueMillis <= dueMillis) {
+                return;
+            }
+            sweeper.cancel();
+        }
+        sweeper = new TimerTask() {
+            @Override
+            public void run() {
+                sweepExpiredHolds();
+            }
+        };
+        sweepDueMillis = dueMillis;
+        expirationTimer.schedule(sweeper, Math.max(0, dueMillis - System.currentTimeMillis()));
     }
 
     /**
-     * Finds and returns the seatHold associated with the specified seat hold ID.
+     * Checks whether the sweeper is scheduled.
      *
-     * @param seatHoldId the seat hold ID
-     * @return the corresponding seatHold
+     * @return true if the sweeper is due to run, otherwise false
      */
     @VisibleForTesting
-    SeatHoldImpl getSeatHold(int seatHoldId) {   // TODO: check test
-        return seatHolds.get(seatHoldId);
+    boolean isSweepScheduled() {
+        synchronized (synchroLock) {
+            return sweeper != null;
+        }
     }
 
     /**
-     * Tries to expire the specified seatHold. If the seatHold was not previously
-     * expired or reserved, the seatHold is marked expired and the seats are
-     * made available.
+     * Reclaims the seats of the seatHolds whose deadlines have passed, publishes the changes,
+     * and schedules the next sweep, if any seatHolds remain. Takes the lock once.
      *
-     * @param seatHold the seatHold to be expired
+     * @return the number of seatHolds whose seats were reclaimed
      */
-    void expire(SeatHoldImpl seatHold) {
+    @VisibleForTesting
+    int sweepExpiredHolds() {
+        long lockRequestedNanos = System.nanoTime();
         synchronized (synchroLock) {
-            if (seatHold.isHeld()) {
+            long lockAcquiredNanos = lockAcquired(lockRequestedNanos);
+            try {
+                int numReclaimed = reclaimExpiredHolds();
+                lastSweepMillis = System.currentTimeMillis();
+                if (sweeper != null) {
+                    sweeper.cancel();   // this sweep, or one due later
+                    sweeper = null;
+                }
+                scheduleSweep();
+                return numReclaimed;
+            } finally {
+                lockReleasing(LockProfiler.Operation.SWEEP, lockRequestedNanos, lockAcquiredNanos);
+            }
+        }
+    }
+
+    /**
+     * Reclaims the seats of the seatHolds whose deadlines have passed, and publishes the
+     * changes. Must be invoked while the lock is held. This is cheap if no deadline has passed:
+     * it compares the time with the earliest deadline.
+     *
+     * @return the number of seatHolds whose seats were reclaimed
+     */
+    private int reclaimExpiredHolds() {
+        long nowMillis = System.currentTimeMillis();
+        if (nowMillis < earliestDeadlineMillis) {
+            return 0;
+        }
+        int numDue = expirations.advance(nowMillis, dueSeatHolds);
+        earliestDeadlineMillis = expirations.getEarliestDeadlineMillis();
+        if (numDue == 0) {
+            return 0;
+        }
+        List<SeatHoldImpl> expiredSeatHolds = new ArrayList<>(dueSeatHolds.size());
+        for (SeatHoldImpl seatHold : dueSeatHolds) {
+            seatHold.setExpirationTimeout(null);
+            if (seatHold.isPending()) {
+                Object event = FLIGHT_RECORDER_EVENTS.beginExpire();
                 seatHold.expire();
                 makeSeatsAvailable(seatHold.getHeldSeats(), bestAvailableSeats, seatGrid);
+                long lagMillis = nowMillis - seatHold.getDeadlineMillis();
+                metrics.recordExpiration(lagMillis);
+                expiredSeatHolds.add(seatHold);
+                if (event != null) {
+                    FLIGHT_RECORDER_EVENTS.commitExpire(event, seatHold.getSeatHoldId(), seatHold.numSeatsHeld(),
+                            lagMillis, "EXPIRED");
+                }
             }
         }
+        dueSeatHolds.clear();
+        publishChanges(SeatMapChange.Type.RELEASED, expiredSeatHolds);
+        for (SeatHoldImpl seatHold : expiredSeatHolds) {
+            seatHold.forgetCustomer();   // once the changes have been published with the customers
+        }
+        return expiredSeatHolds.size();
     }
 
     /**
-     * Sets an expiration timeout for the specified seatHold. When the timer expires,
-     * if the seats have not been reserved (committed) they will be returned to
-     * the list of available seats.
+     * Sets an expiration timeout for the specified seatHold, replacing any previous one. When
+     * the timeout passes, if the seats have not been reserved (committed) they will be
+     * returned to the list of available seats.
      *
      * @param seatHold the held seats
      * @param timeoutMilliseconds number of milliseconds until expiration
      */
     @VisibleForTesting
-    void setExpirationTimeout(final SeatHoldImpl seatHold, long timeoutMilliseconds) {
-        expirationTimer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                expire(seatHold);
-            }
-        }, timeoutMilliseconds);
+    void setExpirationTimeout(SeatHoldImpl seatHold, long timeoutMilliseconds) {
+        synchronized (synchroLock) {
+            scheduleExpiration(seatHold, deadlineAfter(timeoutMilliseconds));
+        }
     }
 
     /**
@@ -217,28 +1520,146 @@ public class TicketServiceImpl implements TicketService {
     @VisibleForTesting
     static List<SeatImpl> holdBestAdjacentSeats(int numSeats, List<SeatImpl> bestAvailableSeats, SeatGrid seatGrid)
             throws SeatsUnavailableException {
-        /*
-         * This method populates and evaluates 10 lists of sufficient available seats,
-         * working off of the bestAvailableSeats list. The best list found (best
-         * average bestness of the collected adjacent seats) is held and returned.
-         */
-        int numCandidatesRemaining = 10;
-        Collection<List<SeatImpl>> candidates = new ArrayList<>(numCandidatesRemaining);
-        for (SeatImpl nextBestAvailableSeat : bestAvailableSeats) {
-            if (getNumberOfAdjacentAvailableSeats(nextBestAvailableSeat, seatGrid) >= numSeats) {
-                // found a seat with sufficient adjacent available seats
-                candidates.add(collectAdjacentSeats(numSeats, nextBestAvailableSeat, seatGrid));
-                if (--numCandidatesRemaining == 0) {
-                    break;
+        List<SeatImpl> heldSeats = tryHoldBestAdjacentSeats(numSeats, bestAvailableSeats, seatGrid);
+        if (heldSeats == null) {
+            throw new SeatsUnavailableException();   // almost sold out -- insufficient adjacent available seats
+        }
+        return heldSeats;
+    }
+
+    /**
+     * Finds the best adjacent available seats, and holds them. Unlike {@code holdBestAdjacentSeats},
+     * this does not throw an exception when there are insufficient adjacent available seats.
+     *
+     * @param numSeats number of seats needed
+     * @param bestAvailableSeats the destination list of seats, ordered by bestness
+     * @param seatGrid the grid of all seats
+     * @return list of the best adjacent available seats, which are now held, or null
+     *         if there are insufficient adjacent available seats
+     */
+    @VisibleForTesting
+    static List<SeatImpl> tryHoldBestAdjacentSeats(int numSeats, List<SeatImpl> bestAvailableSeats, SeatGrid seatGrid) {
+        return tryHoldBestAdjacentSeats(numSeats, bestAvailableSeats, seatGrid, new SearchStats());
+    }
+
+    /**
+     * Finds the best adjacent available seats, and holds them. Unlike {@code holdBestAdjacentSeats},
+     * this does not throw an exception when there are insufficient adjacent available seats.
+     *
+     * @param numSeats number of seats needed
+     * @param bestAvailableSeats the destination list of seats, ordered by bestness
+     * @param seatGrid the grid of all seats
+     * @param searchStats accumulates the work done by the search
+     * @return list of the best adjacent available seats, which are now held, or null
+     *         if there are insufficient adjacent available seats
+     */
+    @VisibleForTesting
+    static List<SeatImpl> tryHoldBestAdjacentSeats(int numSeats, List<SeatImpl> bestAvailableSeats, SeatGrid seatGrid,
+                                                   SearchStats searchStats) {
+        return tryHoldBestAdjacentSeats(
+                numSeats, bestAvailableSeats, seatGrid, searchStats, DEFAULT_SEAT_SELECTION_STRATEGY);
+    }
+
+    /**
+     * Finds adjacent available seats using the specified strategy, and holds them.
+     *
+     * @param numSeats number of seats needed
+     * @param bestAvailableSeats the destination list of seats, ordered by bestness
+     * @param seatGrid the grid of all seats
+     * @param searchStats accumulates the work done by the search
+     * @param strategy chooses the seats to be held
+     * @return list of the chosen adjacent available seats, which are now held, or null
+     *         if there are insufficient adjacent available seats
+     */
+    @VisibleForTesting
+    static List<SeatImpl> tryHoldBestAdjacentSeats(int numSeats, List<SeatImpl> bestAvailableSeats, SeatGrid seatGrid,
+                                                   SearchStats searchStats, SeatSelectionStrategy strategy) {
+        Object searchEvent = FLIGHT_RECORDER_EVENTS.beginSearch();
+        int entriesScannedBefore = searchStats.getNumEntriesScanned();
+        int candidatesEvaluatedBefore = searchStats.getNumCandidatesEvaluated();
+        List<SeatImpl> winner = strategy.selectSeats(numSeats, bestAvailableSeats, seatGrid, searchStats);
+        if (searchEvent != null) {
+            FLIGHT_RECORDER_EVENTS.commitSearch(searchEvent, numSeats,
+                    searchStats.getNumEntriesScanned() - entriesScannedBefore,
+                    searchStats.getNumCandidatesEvaluated() - candidatesEvaluatedBefore,
+                    searchStats.getWinningAverageBestness(), winner != null);
+        }
+        if (winner != null) {
+            holdSeats(winner, bestAvailableSeats, seatGrid);
+        }
+        return winner;   // null if almost sold out -- insufficient adjacent available seats
+    }
+
+    /**
+     * Finds the best adjacent available seats for each of several parties, and holds them.
+     * Parties are placed largest first (ties in request order), or in request order. Holding
+     * seats never makes a larger run available, so once a party size cannot be placed, no party
+     * of that size or larger is searched for again; and each search for a party size resumes
+     * from the first fit found by the previous search for that size (see {@code SeatGrid}),
+     * so parties of the same size do not rescan the seats before it.
+     *
+     * @param partySizes the number of seats needed by each party
+     * @param allOrNothing if true, and some party cannot be placed, no seats are held
+     * @param largestFirst if true, larger parties are placed first, otherwise parties are placed in request order
+     * @param bestAvailableSeats the destination list of seats, ordered by bestness
+     * @param seatGrid the grid of all seats
+     * @param searchStats accumulates the work done by the searches
+     * @param strategy chooses the seats to be held
+     * @return for each party (same order as {@code partySizes}), the list of held seats, or
+     *         null if there were insufficient adjacent available seats; or null if
+     *         {@code allOrNothing} and some party could not be placed
+     */
+    @VisibleForTesting
+    static List<List<SeatImpl>> holdBestAdjacentSeatsForParties(int[] partySizes, boolean allOrNothing,
+                                                                boolean largestFirst,
+                                                                List<SeatImpl> bestAvailableSeats, SeatGrid seatGrid,
+                                                                SearchStats searchStats,
+                                                                SeatSelectionStrategy strategy) {
+        Integer[] placementOrder = new Integer[partySizes.length];
+        for (int party = 0; party < partySizes.length; party++) {
+            placementOrder[party] = party;
+        }
+        if (largestFirst) {
+            Arrays.sort(placementOrder, (p1, p2) -> Integer.compare(partySizes[p2], partySizes[p1]));   // stable
+        }
+        List<List<SeatImpl>> heldSeatsPerParty = new ArrayList<>(Collections.nCopies(partySizes.length, null));
+        int smallestUnplaceablePartySize = Integer.MAX_VALUE;
+        for (int party : placementOrder) {
+            if (partySizes[party] >= smallestUnplaceablePartySize) {
+                if (allOrNothing) {
+                    return rollBack(heldSeatsPerParty, bestAvailableSeats, seatGrid);
+                }
+                continue;   // known not to fit
+            }
+            List<SeatImpl> heldSeats =
+                    tryHoldBestAdjacentSeats(partySizes[party], bestAvailableSeats, seatGrid, searchStats, strategy);
+            heldSeatsPerParty.set(party, heldSeats);
+            if (heldSeats == null) {
+                smallestUnplaceablePartySize = partySizes[party];
+                if (allOrNothing) {
+                    return rollBack(heldSeatsPerParty, bestAvailableSeats, seatGrid);
                 }
             }
         }
-        if (candidates.size() > 0) {
-            List<SeatImpl> winner = getBestCandidate(candidates);
-            holdSeats(winner, bestAvailableSeats, seatGrid);
-            return winner;
+        return heldSeatsPerParty;
+    }
+
+    /**
+     * Makes the seats held for a batch of parties available again.
+     *
+     * @param heldSeatsPerParty the list of held seats (or null) for each party
+     * @param bestAvailableSeats the destination list of seats, ordered by bestness
+     * @param seatGrid the grid of all seats
+     * @return null
+     */
+    private static List<List<SeatImpl>> rollBack(List<List<SeatImpl>> heldSeatsPerParty,
+                                                 List<SeatImpl> bestAvailableSeats, SeatGrid seatGrid) {
+        for (List<SeatImpl> heldSeats : heldSeatsPerParty) {
+            if (heldSeats != null) {
+                makeSeatsAvailable(heldSeats, bestAvailableSeats, seatGrid);
+            }
         }
-        throw new SeatsUnavailableException();   // almost sold out -- insufficient adjacent available seats
+        return null;
     }
 
     /**
@@ -281,6 +1702,7 @@ public class TicketServiceImpl implements TicketService {
 
     /**
      * Determines the number of seats adjacent to the specified seat that are available.
+     * Aisles and blocked seats are never available, so a run of adjacent seats stops at them.
      *
      * @param seat the seat
      * @param seatGrid the grid of all seats
@@ -290,7 +1712,7 @@ public class TicketServiceImpl implements TicketService {
     static int getNumberOfAdjacentAvailableSeats(SeatImpl seat, SeatGrid seatGrid) {
         final int rowNum = seat.getRowNum();
         final int initialSeatNumInRow = seat.getSeatNumInRow();
-        final int numSeatsInRow = seatGrid.getNumSeatsPerRow();
+        final int numSeatsInRow = seatGrid.getRowLength(rowNum);
         int numAdjacentAvailableSeats = 0;
         for (int seatNumInRow = initialSeatNumInRow;
              seatNumInRow < numSeatsInRow && seatGrid.isAvailable(rowNum, seatNumInRow); seatNumInRow++) {
@@ -303,6 +1725,49 @@ public class TicketServiceImpl implements TicketService {
         return numAdjacentAvailableSeats;
     }
 
+    /**
+     * Determines where the run of seats chosen by {@code collectAdjacentSeats} would start, without
+     * building it. That method takes seats alternately to the right and left of the initial seat,
+     * until one side is blocked, and then takes the rest from the other side. So the run is
+     * determined by the number of adjacent available seats on each side (only as many as could
+     * be needed are counted).
+     *
+     * @param numSeatsNeeded the number of seats needed
+     * @param initialSeat the initial (available) seat in the row
+     * @param seatGrid the grid of all seats
+     * @return the seat number in the row of the first (leftmost) seat of the run, or -1 if
+     *         there are insufficient adjacent available seats
+     */
+    @VisibleForTesting
+    static int getAdjacentRunStart(int numSeatsNeeded, SeatImpl initialSeat, SeatGrid seatGrid) {
+        final int rowNum = initialSeat.getRowNum();
+        final int initialSeatNumInRow = initialSeat.getSeatNumInRow();
+        final int numSeatsInRow = seatGrid.getRowLength(rowNum);
+        final int numOtherSeatsNeeded = numSeatsNeeded - 1;
+        int numAvailableOnRight = 0;
+        for (int seatNumInRow = initialSeatNumInRow + 1; (numAvailableOnRight < numOtherSeatsNeeded)
+                && (seatNumInRow < numSeatsInRow) && seatGrid.isAvailable(rowNum, seatNumInRow); seatNumInRow++) {
+            numAvailableOnRight += 1;
+        }
+        int numAvailableOnLeft = 0;
+        for (int seatNumInRow = initialSeatNumInRow - 1; (numAvailableOnLeft < numOtherSeatsNeeded)
+                && (seatNumInRow >= 0) && seatGrid.isAvailable(rowNum, seatNumInRow); seatNumInRow--) {
+            numAvailableOnLeft += 1;
+        }
+        if (numAvailableOnLeft + numAvailableOnRight < numOtherSeatsNeeded) {
+            return -1;
+        }
+        int numOnRight = (numOtherSeatsNeeded + 1) / 2;   // the right side is taken first
+        int numOnLeft = numOtherSeatsNeeded / 2;
+        if (numOnRight > numAvailableOnRight) {
+            numOnRight = numAvailableOnRight;
+            numOnLeft = numOtherSeatsNeeded - numOnRight;
+        } else if (numOnLeft > numAvailableOnLeft) {
+            numOnLeft = numAvailableOnLeft;
+        }
+        return initialSeatNumInRow - numOnLeft;
+    }
+
     /**
      * Finds the required number of seats that are available and adjacent.
      *
@@ -329,7 +1794,7 @@ public class TicketServiceImpl implements TicketService {
          */
         final int rowNum = initialSeat.getRowNum();
         final int initialSeatNumInRow = initialSeat.getSeatNumInRow();
-        final int numSeatsInRow = seatGrid.getNumSeatsPerRow();
+        final int numSeatsInRow = seatGrid.getRowLength(rowNum);
         List<SeatImpl> adjacentSeats = new LinkedList<>();
         int numSeatsRemaining = numSeatsNeeded;
         boolean encounteredUnavailableSeat = false;
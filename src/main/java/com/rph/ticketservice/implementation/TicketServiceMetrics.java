@@ -0,0 +1,249 @@
+package com.rph.ticketservice.implementation;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@code TicketServiceMetrics} contains the operational counters and histograms of a
+ * TicketService. Everything is recorded lock free (striped counters and atomic histogram
+ * buckets), so recording costs a few nanoseconds and never contends with the service lock.
+ * The metrics of a replica's engine also report how far the replica lags behind its primary.
+ */
+public class TicketServiceMetrics implements TicketServiceMetricsMBean {
+
+    /** Number of seatHolds created. */
+    private final LongAdder holdCount = new LongAdder();
+
+    /** Number of hold requests that failed for lack of adjacent available seats. */
+    private final LongAdder unavailableCount = new LongAdder();
+
+    /** Number of seatHolds newly reserved. */
+    private final LongAdder reserveCount = new LongAdder();
+
+    /** Number of reserve requests for an unknown seatHold. */
+    private final LongAdder reserveNotFoundCount = new LongAdder();
+
+    /** Number of reserve requests for an expired seatHold. */
+    private final LongAdder reserveExpiredCount = new LongAdder();
+
+    /** Number of seatHolds expired. */
+    private final LongAdder expirationCount = new LongAdder();
+
+    /** Time spent searching for (and holding) the best adjacent seats, in nanoseconds. */
+    private final LatencyHistogram holdSearchNanos = new LatencyHistogram();
+
+    /** Time spent waiting for the service lock, in nanoseconds. */
+    private final LatencyHistogram lockWaitNanos = new LatencyHistogram();
+
+    /** How late each expiration ran compared with its deadline, in milliseconds. */
+    private final LatencyHistogram expirationLagMillis = new LatencyHistogram();
+
+    /** The replica whose engine these metrics belong to, until it is promoted; otherwise null. */
+    private volatile Replica replica = null;
+
+
+    /** Counts a newly created seatHold. */
+    void recordHold() {
+        holdCount.increment();
+    }
+
+    /** Counts a hold request that found insufficient adjacent available seats. */
+    void recordUnavailable() {
+        unavailableCount.increment();
+    }
+
+    /**
+     * Counts a reserve request.
+     *
+     * @param status the outcome
+     */
+    void recordReserve(ReserveResult.Status status) {
+        switch (status) {
+            case NOT_FOUND:
+                reserveNotFoundCount.increment();
+                break;
+            case EXPIRED:
+                reserveExpiredCount.increment();
+                break;
+            default:
+                reserveCount.increment();
+                break;
+        }
+    }
+
+    /**
+     * Counts an expiration.
+     *
+     * @param lagMillis how late the expiration ran, compared with its deadline
+     */
+    void recordExpiration(long lagMillis) {
+        expirationCount.increment();
+        expirationLagMillis.record(lagMillis);
+    }
+
+    /**
+     * Records the duration of a search for the best adjacent seats.
+     *
+     * @param nanos the duration
+     */
+    void recordHoldSearch(long nanos) {
+        holdSearchNanos.record(nanos);
+    }
+
+    /**
+     * Records the time spent waiting for the service lock.
+     *
+     * @param nanos the duration
+     */
+    void recordLockWait(long nanos) {
+        lockWaitNanos.record(nanos);
+    }
+
+    /**
+     * Sets the replica whose engine these metrics belong to, so that its lag is reported.
+     *
+     * @param replica the replica, or null once it has been promoted
+     */
+    void setReplica(Replica replica) {
+        this.replica = replica;
+    }
+
+    /**
+     * Checks whether these metrics belong to a replica that has not been promoted, so that
+     * its lag is reported.
+     *
+     * @return true if these are the metrics of an unpromoted replica's engine
+     */
+    boolean isReplica() {
+        return replica != null;
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server.
+     *
+     * @param name the value of the {@code name} key of the MBean's object name, identifying the performance
+     * @return the object name under which the MBean was registered
+     * @throws JMException if the MBean cannot be registered (for example, the name is already in use)
+     */
+    public ObjectName registerMBean(String name) throws JMException {
+        ObjectName objectName = new ObjectName("com.rph.ticketservice:type=TicketService,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+
+    /**
+     * Durations of searches for the best adjacent seats, in nanoseconds.
+     *
+     * @return the histogram
+     */
+    public LatencyHistogram getHoldSearchNanos() {
+        return holdSearchNanos;
+    }
+
+    /**
+     * Times spent waiting for the service lock, in nanoseconds.
+     *
+     * @return the histogram
+     */
+    public LatencyHistogram getLockWaitNanos() {
+        return lockWaitNanos;
+    }
+
+    /**
+     * How late each expiration ran compared with its deadline, in milliseconds.
+     *
+     * @return the histogram
+     */
+    public LatencyHistogram getExpirationLagMillis() {
+        return expirationLagMillis;
+    }
+
+    @Override
+    public long getHoldCount() {
+        return holdCount.sum();
+    }
+
+    @Override
+    public long getUnavailableCount() {
+        return unavailableCount.sum();
+    }
+
+    @Override
+    public long getReserveCount() {
+        return reserveCount.sum();
+    }
+
+    @Override
+    public long getReserveNotFoundCount() {
+        return reserveNotFoundCount.sum();
+    }
+
+    @Override
+    public long getReserveExpiredCount() {
+        return reserveExpiredCount.sum();
+    }
+
+    @Override
+    public long getExpirationCount() {
+        return expirationCount.sum();
+    }
+
+    @Override
+    public double getHoldSearchNanosMean() {
+        return holdSearchNanos.getMean();
+    }
+
+    @Override
+    public long getHoldSearchNanosP99() {
+        return holdSearchNanos.getPercentile(99);
+    }
+
+    @Override
+    public long getHoldSearchNanosMax() {
+        return holdSearchNanos.getMax();
+    }
+
+    @Override
+    public double getLockWaitNanosMean() {
+        return lockWaitNanos.getMean();
+    }
+
+    @Override
+    public long getLockWaitNanosP99() {
+        return lockWaitNanos.getPercentile(99);
+    }
+
+    @Override
+    public long getLockWaitNanosMax() {
+        return lockWaitNanos.getMax();
+    }
+
+    @Override
+    public double getExpirationLagMillisMean() {
+        return expirationLagMillis.getMean();
+    }
+
+    @Override
+    public long getExpirationLagMillisP99() {
+        return expirationLagMillis.getPercentile(99);
+    }
+
+    @Override
+    public long getExpirationLagMillisMax() {
+        return expirationLagMillis.getMax();
+    }
+
+    @Override
+    public long getReplicaLag() {
+        Replica replica = this.replica;
+        return (replica == null) ? 0 : replica.getLag();
+    }
+
+    @Override
+    public long getReplicaLagMillis() {
+        Replica replica = this.replica;
+        return (replica == null) ? 0 : replica.getLagMillis();
+    }
+}
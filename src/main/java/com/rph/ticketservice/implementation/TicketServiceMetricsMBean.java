@@ -0,0 +1,60 @@
+package com.rph.ticketservice.implementation;
+
+/**
+ * The JMX management interface of {@code TicketServiceMetrics}. Durations are in nanoseconds,
+ * except for expiration lag and replica lag, which are in milliseconds. Percentiles are
+ * approximate. Replica lag is zero except on a replica that has not been promoted.
+ */
+public interface TicketServiceMetricsMBean {
+
+    /** @return number of seatHolds created */
+    long getHoldCount();
+
+    /** @return number of hold requests that failed for lack of adjacent available seats */
+    long getUnavailableCount();
+
+    /** @return number of seatHolds newly reserved */
+    long getReserveCount();
+
+    /** @return number of reserve requests for an unknown seatHold */
+    long getReserveNotFoundCount();
+
+    /** @return number of reserve requests for an expired seatHold */
+    long getReserveExpiredCount();
+
+    /** @return number of seatHolds expired */
+    long getExpirationCount();
+
+    /** @return mean time spent searching for seats */
+    double getHoldSearchNanosMean();
+
+    /** @return 99th percentile of the time spent searching for seats */
+    long getHoldSearchNanosP99();
+
+    /** @return maximum time spent searching for seats */
+    long getHoldSearchNanosMax();
+
+    /** @return mean time spent waiting for the lock */
+    double getLockWaitNanosMean();
+
+    /** @return 99th percentile of the time spent waiting for the lock */
+    long getLockWaitNanosP99();
+
+    /** @return maximum time spent waiting for the lock */
+    long getLockWaitNanosMax();
+
+    /** @return mean delay between a seatHold's deadline and its expiration */
+    double getExpirationLagMillisMean();
+
+    /** @return 99th percentile of the delay between a seatHold's deadline and its expiration */
+    long getExpirationLagMillisP99();
+
+    /** @return maximum delay between a seatHold's deadline and its expiration */
+    long getExpirationLagMillisMax();
+
+    /** @return number of the primary's changes, as of the latest batch, not yet applied by the replica */
+    long getReplicaLag();
+
+    /** @return time since the primary made the last change the replica applied, or zero if it is caught up */
+    long getReplicaLagMillis();
+}
@@ -0,0 +1,351 @@
+package com.rph.ticketservice.implementation;
+
+import java.util.List;
+
+/**
+ * A {@code TimingWheel} is a hierarchical timing wheel. Each level is a ring of slots, each slot
+ * a doubly linked list of timeouts, so scheduling, rescheduling and cancelling are O(1), and a
+ * rescheduled timeout is moved, not duplicated, so nothing stale is left behind to fire later.
+ * <p>
+ * The fine wheel has one slot per tick, and holds the timeouts whose deadlines fall in the
+ * current revolution of the fine wheel. The coarse wheel has one slot per revolution of the fine
+ * wheel, and holds the timeouts due in the rest of the current revolution of the coarse wheel;
+ * so the fine wheel's deadlines precede the coarse wheel's, which precede the rest. When the
+ * fine wheel starts a revolution, the coarse slot for that revolution is emptied into it; when
+ * the coarse wheel starts a revolution, the few timeouts beyond its reach (kept in a list of
+ * their own) are placed again. So a timeout is moved at most twice before it times out (plus
+ * once per revolution of the coarse wheel that it is beyond the reach of), rather than visited
+ * once per revolution of a single wheel.
+ * <p>
+ * Advancing the wheel visits the slots of the ticks that have passed, skipping the rest of a
+ * revolution of the fine wheel once the fine wheel is empty.
+ * <p>
+ * The wheel is not thread safe; the caller synchronizes.
+ *
+ * @param <T> the kind of item that times out
+ */
+public class TimingWheel<T> {
+
+    /**
+     * A scheduled item. A Timeout is created by {@code schedule}, and may be rescheduled or
+     * cancelled until it has timed out.
+     *
+     * @param <T> the kind of item that times out
+     */
+    public static final class Timeout<T> {
+
+        /** The item. */
+        private final T item;
+
+        /** When the item times out (milliseconds). */
+        private long deadlineMillis;
+
+        /** The slot the timeout is in, or -1 if it is not scheduled. */
+        private int slot = -1;
+
+        /** Neighbors in the slot's list. */
+        private Timeout<T> previous = null, next = null;
+
+        private Timeout(T item) {
+            this.item = item;
+        }
+
+        /**
+         * The item.
+         *
+         * @return the item
+         */
+        public T getItem() {
+            return item;
+        }
+
+        /**
+         * When the item times out.
+         *
+         * @return the deadline (milliseconds)
+         */
+        public long getDeadlineMillis() {
+            return deadlineMillis;
+        }
+
+        /**
+         * Checks whether the timeout is scheduled: neither cancelled nor timed out.
+         *
+         * @return true if scheduled, otherwise false
+         */
+        public boolean isScheduled() {
+            return slot >= 0;
+        }
+    }
+
+    /** Milliseconds per tick. */
+    private final long tickMillis;
+
+    /** Number of slots in each wheel, a power of two. */
+    private final int numSlots;
+
+    /** log2(numSlots): a tick shifted right by this much is a revolution of the fine wheel (a coarse tick). */
+    private final int shift;
+
+    /**
+     * The head of each slot's list of timeouts: the fine wheel's slots ({@code [0, numSlots)}),
+     * the coarse wheel's ({@code [numSlots, 2 * numSlots)}), and the list of timeouts beyond the
+     * coarse wheel's reach ({@code 2 * numSlots}).
+     */
+    private final Timeout<T>[] slots;
+
+    /** The tick up to which the wheel has been advanced (the slots of earlier ticks have been visited). */
+    private long currentTick;
+
+    /** The number of scheduled timeouts. */
+    private int size = 0;
+
+    /** The number of scheduled timeouts in the fine wheel. */
+    private int numFine = 0;
+
+
+    /**
+     * Constructs a new TimingWheel. The fine wheel spans {@code tickMillis * numSlots}
+     * milliseconds, and the coarse wheel {@code numSlots} times as long.
+     *
+     * @param tickMillis milliseconds per tick (the resolution)
+     * @param numSlots the number of slots in each wheel; rounded up to a power of two
+     * @param startMillis the current time (milliseconds)
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    TimingWheel(long tickMillis, int numSlots, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("bad tick: " + tickMillis);
+        }
+        if ((numSlots <= 0) || (numSlots > (1 << 20))) {
+            throw new IllegalArgumentException("bad number of slots: " + numSlots);
+        }
+        int shift = 0;
+        while ((1 << shift) < numSlots) {
+            shift += 1;
+        }
+        this.tickMillis = tickMillis;
+        this.numSlots = 1 << shift;
+        this.shift = shift;
+        this.slots = (Timeout<T>[]) new Timeout[(2 * this.numSlots) + 1];
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * The number of slots in each wheel.
+     *
+     * @return the number of slots, a power of two
+     */
+    int getNumSlots() {
+        return numSlots;
+    }
+
+    /**
+     * The number of scheduled timeouts.
+     *
+     * @return the number of timeouts
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Schedules an item to time out. A deadline that has already passed times out at the next
+     * advance. O(1).
+     *
+     * @param item the item
+     * @param deadlineMillis when the item times out (milliseconds)
+     * @return the timeout, by which it may be rescheduled or cancelled
+     */
+    Timeout<T> schedule(T item, long deadlineMillis) {
+        Timeout<T> timeout = new Timeout<>(item);
+        insert(timeout, deadlineMillis);
+        return timeout;
+    }
+
+    /**
+     * Moves a timeout to a new deadline, which may be earlier or later. A timeout that has been
+     * cancelled or has timed out is scheduled again. O(1).
+     *
+     * @param timeout the timeout
+     * @param deadlineMillis the new deadline (milliseconds)
+     */
+    void reschedule(Timeout<T> timeout, long deadlineMillis) {
+        remove(timeout);
+        insert(timeout, deadlineMillis);
+    }
+
+    /**
+     * Cancels a timeout. O(1).
+     *
+     * @param timeout the timeout
+     * @return true if it was scheduled, false if it had already been cancelled or timed out
+     */
+    boolean cancel(Timeout<T> timeout) {
+        return remove(timeout);
+    }
+
+    /**
+     * Advances the wheel to the current time, removing the timeouts whose deadlines have passed.
+     * This visits the slot of each tick since the previous advance, so it is cheap when called
+     * often; once the fine wheel is empty, it skips to the start of its next revolution.
+     *
+     * @param nowMillis the current time (milliseconds)
+     * @param expired where the items of the removed timeouts are added, in no particular order
+     * @return the number of items added
+     */
+    int advance(long nowMillis, List<T> expired) {
+        long nowTick = nowMillis / tickMillis;
+        if (nowTick < currentTick) {
+            return 0;
+        }
+        int numExpired = 0;
+        while (true) {
+            if (size == 0) {
+                currentTick = nowTick;
+                break;
+            }
+            numExpired += expireSlot((int) currentTick & (numSlots - 1), nowMillis, expired);
+            if (currentTick == nowTick) {
+                break;   // the current tick is visited again next time: it is not over yet
+            }
+            if (numFine > 0) {
+                currentTick += 1;
+            } else {
+                long nextRevolutionTick = ((currentTick >>> shift) + 1) << shift;
+                if (nextRevolutionTick > nowTick) {
+                    currentTick = nowTick;
+                    break;
+                }
+                currentTick = nextRevolutionTick;
+            }
+            if ((currentTick & (numSlots - 1)) == 0) {
+                cascade();
+            }
+        }
+        return numExpired;
+    }
+
+    /**
+     * The earliest deadline of the scheduled timeouts. This visits at most every slot once,
+     * and the timeouts of one slot.
+     *
+     * @return the earliest deadline (milliseconds), or Long.MAX_VALUE if no timeouts are scheduled
+     */
+    long getEarliestDeadlineMillis() {
+        if (size == 0) {
+            return Long.MAX_VALUE;
+        }
+        if (numFine > 0) {
+            for (long tick = currentTick; ; tick++) {   // the fine wheel's timeouts are in the current revolution
+                Timeout<T> timeout = slots[(int) tick & (numSlots - 1)];
+                if (timeout != null) {
+                    return getEarliestDeadlineMillis(timeout);
+                }
+            }
+        }
+        long coarseTick = currentTick >>> shift;
+        for (int i = 1; i < numSlots; i++) {
+            Timeout<T> timeout = slots[numSlots + ((int) (coarseTick + i) & (numSlots - 1))];
+            if (timeout != null) {
+                return getEarliestDeadlineMillis(timeout);
+            }
+        }
+        return getEarliestDeadlineMillis(slots[2 * numSlots]);
+    }
+
+    private static <T> long getEarliestDeadlineMillis(Timeout<T> timeout) {
+        long earliestDeadlineMillis = Long.MAX_VALUE;
+        for (; timeout != null; timeout = timeout.next) {
+            earliestDeadlineMillis = Math.min(earliestDeadlineMillis, timeout.deadlineMillis);
+        }
+        return earliestDeadlineMillis;
+    }
+
+    /**
+     * Removes the timeouts in a slot of the fine wheel whose deadlines have passed.
+     */
+    private int expireSlot(int slot, long nowMillis, List<T> expired) {
+        int numExpired = 0;
+        Timeout<T> timeout = slots[slot];
+        while (timeout != null) {
+            Timeout<T> next = timeout.next;
+            if (timeout.deadlineMillis <= nowMillis) {
+                remove(timeout);
+                expired.add(timeout.item);
+                numExpired += 1;
+            }
+            timeout = next;
+        }
+        return numExpired;
+    }
+
+    /**
+     * At the start of a revolution of the fine wheel, moves the timeouts due in it from the
+     * coarse wheel into the fine wheel; and at the start of a revolution of the coarse wheel,
+     * places the timeouts beyond its reach again.
+     */
+    private void cascade() {
+        long coarseTick = currentTick >>> shift;
+        if ((coarseTick & (numSlots - 1)) == 0) {
+            reinsert(2 * numSlots);
+        }
+        reinsert(numSlots + ((int) coarseTick & (numSlots - 1)));
+    }
+
+    private void reinsert(int slot) {
+        Timeout<T> timeout = slots[slot];
+        while (timeout != null) {
+            Timeout<T> next = timeout.next;
+            remove(timeout);
+            insert(timeout, timeout.deadlineMillis);
+            timeout = next;
+        }
+    }
+
+    private void insert(Timeout<T> timeout, long deadlineMillis) {
+        timeout.deadlineMillis = deadlineMillis;
+        long tick = Math.max(deadlineMillis / tickMillis, currentTick);
+        long coarseTick = tick >>> shift;
+        long currentCoarseTick = currentTick >>> shift;
+        int slot;
+        if (coarseTick == currentCoarseTick) {
+            slot = (int) tick & (numSlots - 1);
+            numFine += 1;
+        } else if ((coarseTick >>> shift) == (currentCoarseTick >>> shift)) {   // the same revolution of the coarse wheel
+            slot = numSlots + ((int) coarseTick & (numSlots - 1));
+        } else {
+            slot = 2 * numSlots;   // beyond the coarse wheel's reach
+        }
+        timeout.slot = slot;
+        timeout.previous = null;
+        timeout.next = slots[slot];
+        if (slots[slot] != null) {
+            slots[slot].previous = timeout;
+        }
+        slots[slot] = timeout;
+        size += 1;
+    }
+
+    private boolean remove(Timeout<T> timeout) {
+        if (timeout.slot < 0) {
+            return false;
+        }
+        if (timeout.previous != null) {
+            timeout.previous.next = timeout.next;
+        } else {
+            slots[timeout.slot] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.previous = timeout.previous;
+        }
+        if (timeout.slot < numSlots) {
+            numFine -= 1;
+        }
+        timeout.slot = -1;
+        timeout.previous = null;
+        timeout.next = null;
+        size -= 1;
+        return true;
+    }
+}
@@ -0,0 +1,73 @@
+package com.rph.ticketservice.implementation;
+
+import java.util.List;
+
+
+/**
+ * The original seat selection heuristic: walk {@code bestAvailableSeats} from the best seat,
+ * build a candidate (spreading outward from the seat) for each of the first few seats having
+ * enough adjacent available seats, and choose the candidate with the best average bestness.
+ */
+public class TopCandidatesStrategy implements SeatSelectionStrategy {
+
+    /** Default number of candidates built and evaluated. */
+    public static final int DEFAULT_NUM_CANDIDATES = 10;
+
+    /** Number of candidates built and evaluated. */
+    private final int numCandidates;
+
+
+    /**
+     * Constructs a new TopCandidatesStrategy.
+     *
+     * @param numCandidates the maximum number of candidates built and evaluated per search
+     */
+    public TopCandidatesStrategy(int numCandidates) {
+        if (numCandidates <= 0) {
+            throw new IllegalArgumentException("bad numCandidates: " + numCandidates);
+        }
+        this.numCandidates = numCandidates;
+    }
+
+    @Override
+    public List<SeatImpl> selectSeats(int numSeats, List<SeatImpl> bestAvailableSeats, SeatGrid seatGrid,
+                                      SearchStats searchStats) {
+        /*
+         * Each candidate is a run of adjacent seats in one row, so it is scored from its endpoints
+         * using the venue's bestness prefix sums. Only the winner is materialized. The scan
+         * skips the best seats already known to be too crowded for the party.
+         */
+        int numCandidatesRemaining = numCandidates;
+        int numEntriesScanned = 0;
+        int numCandidatesEvaluated = 0;
+        int bestTotalSoFar = Integer.MAX_VALUE;
+        SeatImpl bestInitialSeatSoFar = null;
+        final int numAvailableSeats = bestAvailableSeats.size();
+        for (int index = seatGrid.getScanStartIndex(numSeats, bestAvailableSeats); index < numAvailableSeats; index++) {
+            SeatImpl nextBestAvailableSeat = bestAvailableSeats.get(index);
+            numEntriesScanned += 1;
+            int firstSeatNumInRow = TicketServiceImpl.getAdjacentRunStart(numSeats, nextBestAvailableSeat, seatGrid);
+            if (firstSeatNumInRow >= 0) {
+                // found a seat with sufficient adjacent available seats
+                if (numCandidatesEvaluated++ == 0) {
+                    seatGrid.recordFirstFit(numSeats, nextBestAvailableSeat.getBestness());
+                }
+                int total = seatGrid.getTotalBestness(nextBestAvailableSeat.getRowNum(), firstSeatNumInRow, numSeats);
+                if (total < bestTotalSoFar) {   // smaller bestness values implies better seats
+                    bestTotalSoFar = total;
+                    bestInitialSeatSoFar = nextBestAvailableSeat;
+                }
+                if (--numCandidatesRemaining == 0) {
+                    break;
+                }
+            }
+        }
+        if (bestInitialSeatSoFar == null) {
+            seatGrid.recordFirstFit(numSeats, Integer.MAX_VALUE);   // nothing fits
+            searchStats.recordSearch(numEntriesScanned, numCandidatesEvaluated, Double.NaN);
+            return null;
+        }
+        searchStats.recordSearch(numEntriesScanned, numCandidatesEvaluated, (double) bestTotalSoFar / numSeats);
+        return TicketServiceImpl.collectAdjacentSeats(numSeats, bestInitialSeatSoFar, seatGrid);
+    }
+}
@@ -0,0 +1,170 @@
+package com.rph.ticketservice.implementation;
+
+import com.rph.ticketservice.SeatHold;
+import com.rph.ticketservice.SeatHoldExpiredException;
+import com.rph.ticketservice.SeatHoldNotFoundException;
+import com.rph.ticketservice.SeatsUnavailableException;
+import com.rph.ticketservice.TicketService;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+
+/**
+ * A {@code TrafficRecorder} is a TicketService that passes every call through to another
+ * TicketService, recording each hold and reservation, with its outcome, to a
+ * {@code TrafficTrace}. If the other TicketService is a TicketServiceImpl, its expirations are
+ * recorded too. The trace can then be replayed against any TicketService by a
+ * {@code TrafficReplayer}.
+ * <p>
+ * A call is timestamped when it is made, and recorded when it completes. Recording never fails
+ * a call: if the trace cannot be written, recording stops, and the failure is reported by
+ * {@code getFailure}. An expiration is queued while the TicketServiceImpl's lock is held, and
+ * written by the next call (or by {@code close}), so no I/O is done under the lock.
+ * <p>
+ * Records are written in the order the calls complete, not the order they took the lock, so
+ * concurrent calls may be replayed in a different order than they ran, and the replay may
+ * diverge.
+ */
+public class TrafficRecorder implements TicketService, SeatMapChangeListener, Closeable {
+
+    /** The recorded TicketService. */
+    private final TicketService delegate;
+
+    /** Where the trace is written. */
+    private final TrafficTrace.Writer writer;
+
+    /** The start of the recording ({@code System.nanoTime()}). */
+    private final long startNanos = System.nanoTime();
+
+    /** Expiration records queued under the TicketServiceImpl's lock, to be written outside it. */
+    private final Queue<TrafficTrace.Record> pendingExpirations = new ConcurrentLinkedQueue<>();
+
+    /** The first failure to write the trace, or null. */
+    private volatile IOException failure = null;
+
+
+    /**
+     * Constructs a new TrafficRecorder, and writes the trace header.
+     *
+     * @param delegate the TicketService to be recorded
+     * @param out where the trace is written; should be buffered
+     * @throws IOException if the trace header cannot be written
+     */
+    public TrafficRecorder(TicketService delegate, DataOutputStream out) throws IOException {
+        this.delegate = delegate;
+        this.writer = new TrafficTrace.Writer(out);
+        if (delegate instanceof TicketServiceImpl) {
+            ((TicketServiceImpl) delegate).addSeatMapChangeListener(this);
+        }
+    }
+
+    @Override
+    public int numSeatsAvailable() {
+        return delegate.numSeatsAvailable();
+    }
+
+    @Override
+    public SeatHold findAndHoldSeats(int numSeats, String customerEmail) throws SeatsUnavailableException {
+        long timestampNanos = System.nanoTime() - startNanos;
+        SeatHold seatHold;
+        try {
+            seatHold = delegate.findAndHoldSeats(numSeats, customerEmail);
+        } catch (SeatsUnavailableException e) {
+            record(TrafficTrace.Record.hold(timestampNanos, numSeats, customerEmail, -1, null));
+            throw e;
+        }
+        record(TrafficTrace.Record.hold(timestampNanos, numSeats, customerEmail,
+                seatHold.getSeatHoldId(), TrafficTrace.getSeats(seatHold)));
+        return seatHold;
+    }
+
+    @Override
+    public String reserveSeats(int seatHoldId, String customerEmail)
+            throws SeatHoldNotFoundException, SeatHoldExpiredException {
+        long timestampNanos = System.nanoTime() - startNanos;
+        String reservationId;
+        try {
+            reservationId = delegate.reserveSeats(seatHoldId, customerEmail);
+        } catch (SeatHoldNotFoundException e) {
+            record(TrafficTrace.Record.reserve(timestampNanos, seatHoldId, customerEmail, ReserveResult.Status.NOT_FOUND));
+            throw e;
+        } catch (SeatHoldExpiredException e) {
+            record(TrafficTrace.Record.reserve(timestampNanos, seatHoldId, customerEmail, ReserveResult.Status.EXPIRED));
+            throw e;
+        }
+        record(TrafficTrace.Record.reserve(timestampNanos, seatHoldId, customerEmail, ReserveResult.Status.RESERVED));
+        return reservationId;
+    }
+
+    /**
+     * Queues an expiration to be recorded. Invoked while the TicketServiceImpl's lock is held,
+     * so nothing is written here.
+     *
+     * @param change the change
+     */
+    @Override
+    public void seatMapChanged(SeatMapChange change) {
+        if ((change.getType() == SeatMapChange.Type.RELEASED) && (failure == null)) {
+            pendingExpirations.add(TrafficTrace.Record.expire(System.nanoTime() - startNanos, change.getSeatHoldId()));
+        }
+    }
+
+    /**
+     * The first failure to write the trace.
+     *
+     * @return the failure, or null if the whole trace has been written
+     */
+    public IOException getFailure() {
+        return failure;
+    }
+
+    /**
+     * Stops recording expirations, writes those still queued, and flushes the trace. The stream
+     * is not closed.
+     *
+     * @throws IOException if the trace could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (delegate instanceof TicketServiceImpl) {
+            ((TicketServiceImpl) delegate).removeSeatMapChangeListener(this);
+        }
+        writePendingExpirations();
+        if (failure == null) {
+            writer.flush();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Records a call, after the expirations queued before it completed.
+     */
+    private void record(TrafficTrace.Record record) {
+        writePendingExpirations();
+        write(record);
+    }
+
+    private void writePendingExpirations() {
+        TrafficTrace.Record record;
+        while ((record = pendingExpirations.poll()) != null) {
+            write(record);
+        }
+    }
+
+    private void write(TrafficTrace.Record record) {
+        if (failure != null) {
+            return;
+        }
+        try {
+            writer.write(record);
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+}
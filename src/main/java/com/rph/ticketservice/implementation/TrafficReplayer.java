@@ -0,0 +1,287 @@
+package com.rph.ticketservice.implementation;
+
+import com.rph.ticketservice.SeatHold;
+import com.rph.ticketservice.SeatHoldExpiredException;
+import com.rph.ticketservice.SeatHoldNotFoundException;
+import com.rph.ticketservice.SeatsUnavailableException;
+import com.rph.ticketservice.TicketService;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * A {@code TrafficReplayer} drives a TicketService from a {@code TrafficTrace}, making the
+ * recorded calls in the recorded order, at the original speed, N times faster, or as fast as
+ * possible. It checks that each call has the recorded outcome (held or unavailable; reserved,
+ * not found or expired) and that each hold got the recorded seats, and it measures the latency
+ * of each call and the overall throughput.
+ * <p>
+ * SeatHold IDs are mapped from the recorded IDs to those issued by the target, so any
+ * TicketService may be the target. Recorded expirations are replayed only if the target is a
+ * TicketServiceImpl (they are otherwise skipped); the target should be constructed with an
+ * expiration duration longer than the trace, so that holds expire when the trace says, and only
+ * then. Calls are replayed one at a time, on one thread, so a replay is deterministic; but it
+ * cannot reproduce the contention of concurrent callers (an on-sale rush), even at the
+ * original speed.
+ */
+public class TrafficReplayer {
+
+    /** The speed factor that replays without pausing. */
+    public static final double AS_FAST_AS_POSSIBLE = 0;
+
+    /**
+     * The outcome of a replay.
+     */
+    public static class Report {
+
+        private long numHolds = 0;
+        private long numReserves = 0;
+        private long numExpires = 0;
+        private long numExpiresSkipped = 0;
+        private long numOutcomeMismatches = 0;
+        private long numSeatMismatches = 0;
+        private String firstMismatch = null;
+        private long elapsedNanos = 0;
+        private final LatencyHistogram holdNanos = new LatencyHistogram();
+        private final LatencyHistogram reserveNanos = new LatencyHistogram();
+
+        /**
+         * Number of holds replayed.
+         *
+         * @return number of holds
+         */
+        public long getNumHolds() {
+            return numHolds;
+        }
+
+        /**
+         * Number of reservations replayed.
+         *
+         * @return number of reservations
+         */
+        public long getNumReserves() {
+            return numReserves;
+        }
+
+        /**
+         * Number of expirations replayed.
+         *
+         * @return number of expirations
+         */
+        public long getNumExpires() {
+            return numExpires;
+        }
+
+        /**
+         * Number of expirations that could not be replayed (the target is not a TicketServiceImpl,
+         * or the hold was not replayed).
+         *
+         * @return number of expirations skipped
+         */
+        public long getNumExpiresSkipped() {
+            return numExpiresSkipped;
+        }
+
+        /**
+         * Number of calls whose outcome differed from the recorded outcome.
+         *
+         * @return number of outcome mismatches
+         */
+        public long getNumOutcomeMismatches() {
+            return numOutcomeMismatches;
+        }
+
+        /**
+         * Number of holds that held different seats from the recorded seats.
+         *
+         * @return number of seat mismatches
+         */
+        public long getNumSeatMismatches() {
+            return numSeatMismatches;
+        }
+
+        /**
+         * A description of the first mismatch.
+         *
+         * @return the description, or null if there were no mismatches
+         */
+        public String getFirstMismatch() {
+            return firstMismatch;
+        }
+
+        /**
+         * Checks whether every call had its recorded outcome and seats.
+         *
+         * @return true if the replay was equivalent to the recording, otherwise false
+         */
+        public boolean isEquivalent() {
+            return (numOutcomeMismatches == 0) && (numSeatMismatches == 0);
+        }
+
+        /**
+         * Latency of the replayed holds.
+         *
+         * @return the hold latency histogram, in nanoseconds
+         */
+        public LatencyHistogram getHoldNanos() {
+            return holdNanos;
+        }
+
+        /**
+         * Latency of the replayed reservations.
+         *
+         * @return the reservation latency histogram, in nanoseconds
+         */
+        public LatencyHistogram getReserveNanos() {
+            return reserveNanos;
+        }
+
+        /**
+         * Duration of the replay.
+         *
+         * @return elapsed nanoseconds
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * Throughput of the replay: holds and reservations per second.
+         *
+         * @return calls per second
+         */
+        public double getCallsPerSecond() {
+            return (numHolds + numReserves) * 1e9 / Math.max(elapsedNanos, 1);
+        }
+
+        private void mismatch(String description) {
+            if (firstMismatch == null) {
+                firstMismatch = description;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Replay: %d holds, %d reserves, %d expires (%d skipped), %.0f calls/sec, %s%n"
+                            + "  hold latency: mean %.0f ns, p50 %d ns, p99 %d ns, max %d ns%n"
+                            + "  reserve latency: mean %.0f ns, p50 %d ns, p99 %d ns, max %d ns%n",
+                    numHolds, numReserves, numExpires, numExpiresSkipped, getCallsPerSecond(),
+                    isEquivalent() ? "equivalent" : (numOutcomeMismatches + " outcome mismatches, "
+                            + numSeatMismatches + " seat mismatches; first: " + firstMismatch),
+                    holdNanos.getMean(), holdNanos.getPercentile(50), holdNanos.getPercentile(99), holdNanos.getMax(),
+                    reserveNanos.getMean(), reserveNanos.getPercentile(50), reserveNanos.getPercentile(99),
+                    reserveNanos.getMax());
+        }
+    }
+
+    /** The TicketService driven by the trace. */
+    private final TicketService target;
+
+
+    /**
+     * Constructs a new TrafficReplayer.
+     *
+     * @param target the TicketService to be driven by the trace
+     */
+    public TrafficReplayer(TicketService target) {
+        this.target = target;
+    }
+
+    /**
+     * Replays a trace.
+     *
+     * @param reader the trace
+     * @param speedFactor how many times faster than recorded to replay, or AS_FAST_AS_POSSIBLE
+     * @return the report
+     * @throws IOException if the trace cannot be read
+     * @throws InterruptedException if interrupted while pausing between calls
+     */
+    public Report replay(TrafficTrace.Reader reader, double speedFactor) throws IOException, InterruptedException {
+        Report report = new Report();
+        Map<Integer, Integer> seatHoldIds = new HashMap<>();   // replayed ID by recorded ID
+        long startNanos = System.nanoTime();
+        for (TrafficTrace.Record record = reader.read(); record != null; record = reader.read()) {
+            if (speedFactor > 0) {
+                long dueNanos = startNanos + (long) (record.getTimestampNanos() / speedFactor);
+                long waitNanos = dueNanos - System.nanoTime();
+                if (waitNanos > 0) {
+                    Thread.sleep(waitNanos / 1000000, (int) (waitNanos % 1000000));
+                }
+            }
+            switch (record.getType()) {
+                case HOLD:
+                    replayHold(record, seatHoldIds, report);
+                    break;
+                case RESERVE:
+                    replayReserve(record, seatHoldIds, report);
+                    break;
+                default:   // EXPIRE
+                    replayExpire(record, seatHoldIds, report);
+                    break;
+            }
+        }
+        report.elapsedNanos = System.nanoTime() - startNanos;
+        return report;
+    }
+
+    private void replayHold(TrafficTrace.Record record, Map<Integer, Integer> seatHoldIds, Report report) {
+        report.numHolds += 1;
+        SeatHold seatHold = null;
+        long callNanos = System.nanoTime();
+        try {
+            seatHold = target.findAndHoldSeats(record.getNumSeats(), record.getCustomerEmail());
+        } catch (SeatsUnavailableException e) {
+            // compared below
+        }
+        report.holdNanos.record(System.nanoTime() - callNanos);
+        boolean recordedHeld = record.getSeatHoldId() >= 0;
+        if (recordedHeld != (seatHold != null)) {
+            report.numOutcomeMismatches += 1;
+            report.mismatch("hold " + record.getSeatHoldId() + " of " + record.getNumSeats() + " seats: "
+                    + (recordedHeld ? "HELD" : "UNAVAILABLE") + " recorded, not replayed");
+        } else if (seatHold != null) {
+            if (!Arrays.equals(record.getSeats(), TrafficTrace.getSeats(seatHold))) {
+                report.numSeatMismatches += 1;
+                report.mismatch("hold " + record.getSeatHoldId() + " of " + record.getNumSeats()
+                        + " seats: different seats held");
+            }
+        }
+        if ((seatHold != null) && recordedHeld) {
+            seatHoldIds.put(record.getSeatHoldId(), seatHold.getSeatHoldId());
+        }
+    }
+
+    private void replayReserve(TrafficTrace.Record record, Map<Integer, Integer> seatHoldIds, Report report) {
+        report.numReserves += 1;
+        Integer seatHoldId = seatHoldIds.get(record.getSeatHoldId());
+        ReserveResult.Status status = ReserveResult.Status.RESERVED;
+        long callNanos = System.nanoTime();
+        try {
+            target.reserveSeats((seatHoldId == null) ? -1 : seatHoldId, record.getCustomerEmail());
+        } catch (SeatHoldNotFoundException e) {
+            status = ReserveResult.Status.NOT_FOUND;
+        } catch (SeatHoldExpiredException e) {
+            status = ReserveResult.Status.EXPIRED;
+        }
+        report.reserveNanos.record(System.nanoTime() - callNanos);
+        if (status != record.getReserveStatus()) {
+            report.numOutcomeMismatches += 1;
+            report.mismatch("reserve " + record.getSeatHoldId() + ": " + record.getReserveStatus()
+                    + " recorded, " + status + " replayed");
+        }
+    }
+
+    private void replayExpire(TrafficTrace.Record record, Map<Integer, Integer> seatHoldIds, Report report) {
+        Integer seatHoldId = seatHoldIds.get(record.getSeatHoldId());
+        if (!(target instanceof TicketServiceImpl) || (seatHoldId == null)) {
+            report.numExpiresSkipped += 1;
+            return;
+        }
+        TicketServiceImpl ticketService = (TicketServiceImpl) target;
+        ticketService.expire(ticketService.getSeatHold(seatHoldId));
+        report.numExpires += 1;
+    }
+}
@@ -0,0 +1,380 @@
+package com.rph.ticketservice.implementation;
+
+import com.rph.ticketservice.SeatHold;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * A {@code TrafficTrace} is a compact binary recording of the calls made to a TicketService,
+ * with their outcomes: holds, reservations and expirations (see {@code TrafficRecorder} and
+ * {@code TrafficReplayer}). The trace starts with a magic number and a version, followed by
+ * one record per call, in the order the calls completed. Each record is a type byte, the time
+ * since the previous record (nanoseconds, as a variable-length integer), and the type's fields:
+ * <pre>
+ *     HOLD:    numSeats, customer, seatHoldId + 1 (zero if unavailable), seats held (row, seat)
+ *     RESERVE: seatHoldId, customer, status (ReserveResult.Status ordinal)
+ *     EXPIRE:  seatHoldId
+ * </pre>
+ * Integers are variable-length (seven bits per byte). A customer's email address is written
+ * the first time it appears, and is referred to by index after that, so a record is typically
+ * only a few bytes long.
+ */
+public class TrafficTrace {
+
+    /** The kinds of record. */
+    public enum Type {
+        HOLD,      // findAndHoldSeats
+        RESERVE,   // reserveSeats
+        EXPIRE,    // a seatHold expired
+    }
+
+    /** Identifies a trace: "TSTR". */
+    private static final int MAGIC = 0x54535452;
+
+    /** The version of the format. */
+    private static final int VERSION = 1;
+
+    /**
+     * One recorded call and its outcome. A Record is immutable.
+     */
+    public static class Record {
+
+        /** The kind of call. */
+        private final Type type;
+
+        /** When the call was made, in nanoseconds since the start of the recording. */
+        private final long timestampNanos;
+
+        /** The seatHold ID (as recorded), or -1 if a hold was unavailable. */
+        private final int seatHoldId;
+
+        /** The number of seats requested (HOLD only). */
+        private final int numSeats;
+
+        /** The customer's email address (HOLD and RESERVE only). */
+        private final String customerEmail;
+
+        /** The seats held, as (row number, seat number in row) pairs (HOLD only). */
+        private final int[] seats;
+
+        /** The outcome (RESERVE only). */
+        private final ReserveResult.Status reserveStatus;
+
+        /**
+         * Constructs a new immutable Record.
+         *
+         * @param type the kind of call
+         * @param timestampNanos when the call was made
+         * @param seatHoldId the seatHold ID, or -1
+         * @param numSeats the number of seats requested, or zero
+         * @param customerEmail the customer's email address, or null
+         * @param seats the seats held, as (row number, seat number in row) pairs, or null
+         * @param reserveStatus the outcome of a reservation, or null
+         */
+        Record(Type type, long timestampNanos, int seatHoldId, int numSeats, String customerEmail,
+               int[] seats, ReserveResult.Status reserveStatus) {
+            this.type = type;
+            this.timestampNanos = timestampNanos;
+            this.seatHoldId = seatHoldId;
+            this.numSeats = numSeats;
+            this.customerEmail = customerEmail;
+            this.seats = seats;
+            this.reserveStatus = reserveStatus;
+        }
+
+        static Record hold(long timestampNanos, int numSeats, String customerEmail, int seatHoldId, int[] seats) {
+            return new Record(Type.HOLD, timestampNanos, seatHoldId, numSeats, customerEmail, seats, null);
+        }
+
+        static Record reserve(long timestampNanos, int seatHoldId, String customerEmail, ReserveResult.Status status) {
+            return new Record(Type.RESERVE, timestampNanos, seatHoldId, 0, customerEmail, null, status);
+        }
+
+        static Record expire(long timestampNanos, int seatHoldId) {
+            return new Record(Type.EXPIRE, timestampNanos, seatHoldId, 0, null, null, null);
+        }
+
+        /**
+         * The kind of call.
+         *
+         * @return the type
+         */
+        public Type getType() {
+            return type;
+        }
+
+        /**
+         * When the call was made.
+         *
+         * @return nanoseconds since the start of the recording
+         */
+        public long getTimestampNanos() {
+            return timestampNanos;
+        }
+
+        /**
+         * The seatHold ID, as recorded.
+         *
+         * @return the seatHold ID, or -1 if a hold was unavailable
+         */
+        public int getSeatHoldId() {
+            return seatHoldId;
+        }
+
+        /**
+         * The number of seats requested (HOLD only).
+         *
+         * @return the number of seats
+         */
+        public int getNumSeats() {
+            return numSeats;
+        }
+
+        /**
+         * The customer's email address (HOLD and RESERVE only).
+         *
+         * @return the email address, or null
+         */
+        public String getCustomerEmail() {
+            return customerEmail;
+        }
+
+        /**
+         * The seats held, as (row number, seat number in row) pairs, sorted (HOLD only).
+         *
+         * @return the seats, or null
+         */
+        int[] getSeats() {
+            return seats;
+        }
+
+        /**
+         * The outcome of a reservation (RESERVE only).
+         *
+         * @return the status, or null
+         */
+        public ReserveResult.Status getReserveStatus() {
+            return reserveStatus;
+        }
+    }
+
+    /**
+     * Writes a trace. Thread safe.
+     */
+    public static class Writer {
+
+        private final DataOutputStream out;
+
+        /** Index of each customer email address written so far. */
+        private final Map<String, Integer> customerIndexes = new HashMap<>();
+
+        /** Timestamp of the previous record. */
+        private long previousTimestampNanos = 0;
+
+        /**
+         * Constructs a new Writer, and writes the trace header.
+         *
+         * @param out where the trace is written; should be buffered
+         * @throws IOException if the header cannot be written
+         */
+        public Writer(DataOutputStream out) throws IOException {
+            this.out = out;
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+        }
+
+        /**
+         * Writes a record. Records should be written in timestamp order; a record that is
+         * earlier than the previous one is written with the previous one's timestamp.
+         *
+         * @param record the record
+         * @throws IOException if the record cannot be written
+         */
+        public synchronized void write(Record record) throws IOException {
+            out.writeByte(record.getType().ordinal());
+            long timestampNanos = Math.max(record.getTimestampNanos(), previousTimestampNanos);
+            writeVarLong(out, timestampNanos - previousTimestampNanos);
+            previousTimestampNanos = timestampNanos;
+            switch (record.getType()) {
+                case HOLD:
+                    writeVarLong(out, record.getNumSeats());
+                    writeCustomer(record.getCustomerEmail());
+                    writeVarLong(out, record.getSeatHoldId() + 1L);
+                    if (record.getSeatHoldId() >= 0) {
+                        int[] seats = record.getSeats();
+                        writeVarLong(out, seats.length / 2);
+                        for (int seat : seats) {
+                            writeVarLong(out, seat);
+                        }
+                    }
+                    break;
+                case RESERVE:
+                    writeVarLong(out, record.getSeatHoldId() & 0xFFFFFFFFL);
+                    writeCustomer(record.getCustomerEmail());
+                    out.writeByte(record.getReserveStatus().ordinal());
+                    break;
+                default:   // EXPIRE
+                    writeVarLong(out, record.getSeatHoldId());
+                    break;
+            }
+        }
+
+        /**
+         * Flushes the underlying stream.
+         *
+         * @throws IOException if the stream cannot be flushed
+         */
+        public synchronized void flush() throws IOException {
+            out.flush();
+        }
+
+        private void writeCustomer(String customerEmail) throws IOException {
+            Integer index = customerIndexes.get(customerEmail);
+            if (index != null) {
+                writeVarLong(out, index + 1L);
+            } else {
+                writeVarLong(out, 0);   // a new customer follows
+                out.writeUTF(customerEmail);
+                customerIndexes.put(customerEmail, customerIndexes.size());
+            }
+        }
+    }
+
+    /**
+     * Reads a trace. Not thread safe.
+     */
+    public static class Reader {
+
+        private final DataInputStream in;
+
+        /** The customer email addresses read so far, by index. */
+        private final List<String> customers = new ArrayList<>();
+
+        /** Timestamp of the previous record. */
+        private long previousTimestampNanos = 0;
+
+        /**
+         * Constructs a new Reader, and reads the trace header.
+         *
+         * @param in where the trace is read from; should be buffered
+         * @throws IOException if the header cannot be read, or is not a trace header
+         */
+        public Reader(DataInputStream in) throws IOException {
+            this.in = in;
+            if ((in.readInt() != MAGIC) || (in.readByte() != VERSION)) {
+                throw new IOException("not a traffic trace");
+            }
+        }
+
+        /**
+         * Reads the next record.
+         *
+         * @return the record, or null at the end of the trace
+         * @throws IOException if the record cannot be read
+         */
+        public Record read() throws IOException {
+            int typeOrdinal = in.read();
+            if (typeOrdinal < 0) {
+                return null;
+            }
+            Type type = Type.values()[typeOrdinal];
+            long timestampNanos = previousTimestampNanos + readVarLong(in);
+            previousTimestampNanos = timestampNanos;
+            switch (type) {
+                case HOLD:
+                    int numSeats = (int) readVarLong(in);
+                    String customerEmail = readCustomer();
+                    int seatHoldId = (int) (readVarLong(in) - 1);
+                    int[] seats = null;
+                    if (seatHoldId >= 0) {
+                        seats = new int[2 * (int) readVarLong(in)];
+                        for (int i = 0; i < seats.length; i++) {
+                            seats[i] = (int) readVarLong(in);
+                        }
+                    }
+                    return Record.hold(timestampNanos, numSeats, customerEmail, seatHoldId, seats);
+                case RESERVE:
+                    int reservedSeatHoldId = (int) readVarLong(in);
+                    String reservingCustomerEmail = readCustomer();
+                    return Record.reserve(timestampNanos, reservedSeatHoldId, reservingCustomerEmail,
+                            ReserveResult.Status.values()[in.readByte()]);
+                default:   // EXPIRE
+                    return Record.expire(timestampNanos, (int) readVarLong(in));
+            }
+        }
+
+        private String readCustomer() throws IOException {
+            int index = (int) readVarLong(in);
+            if (index == 0) {
+                String customerEmail = in.readUTF();
+                customers.add(customerEmail);
+                return customerEmail;
+            }
+            return customers.get(index - 1);
+        }
+    }
+
+    /**
+     * Encodes the seats of a seatHold as sorted (row number, seat number in row) pairs.
+     *
+     * @param seatHold the seatHold
+     * @return the seats
+     */
+    static int[] getSeats(SeatHold seatHold) {
+        long[] keys = new long[seatHold.numSeatsHeld()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = ((long) seatHold.getSeat(i).getRowNum() << 32) | seatHold.getSeat(i).getSeatNumInRow();
+        }
+        Arrays.sort(keys);
+        int[] seats = new int[2 * keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            seats[2 * i] = (int) (keys[i] >>> 32);
+            seats[(2 * i) + 1] = (int) keys[i];
+        }
+        return seats;
+    }
+
+    /**
+     * Writes a non-negative integer, seven bits per byte, least significant first.
+     *
+     * @param out the stream
+     * @param value the value
+     * @throws IOException if the value cannot be written
+     */
+    @VisibleForTesting
+    static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    /**
+     * Reads an integer written by {@code writeVarLong}.
+     *
+     * @param in the stream
+     * @return the value
+     * @throws IOException if the value cannot be read
+     */
+    @VisibleForTesting
+    static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("malformed variable-length integer");
+    }
+}
@@ -4,6 +4,8 @@ import com.rph.ticketservice.Seat;
 import com.rph.ticketservice.Venue;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
@@ -15,8 +17,14 @@ import java.util.stream.Stream;
  * A {@code Venue} is an immutable class encapsulating the static state of the venue.
  * It contains an unmodifiable list of all the seats ordered by decreasing bestness
  * (earlier seats in the list are better than those later in the list, and have a lower
- * bestness value). Those same seats are also contained in a rectangular grid, allowing
- * them to be obtained by seat coordinate.
+ * bestness value). Those same seats are also contained in a grid, allowing them to be
+ * obtained by seat coordinate.
+ * <p>
+ * Rows need not all be the same length, and a row may contain aisles and blocked seats.
+ * The shape of each row is given by a row plan (see {@link #VenueImpl(String[], int)}).
+ * Aisles and blocked seats are dead positions: they have no {@code SeatImpl}, are never
+ * available, and are not in the list of seats, so a run of adjacent seats never spans them.
+ * The shape is stored compactly as a table of row offsets into a bitmap of seat positions.
  */
 public class VenueImpl implements Venue {
 
@@ -24,44 +32,88 @@ public class VenueImpl implements Venue {
 
     private static final int MAXIMUM_NUMBER_OF_SEATS_PER_ROW = 500;   // for sanity check
 
+    /** Row plan character for a seat. */
+    public static final char SEAT = 'o';
+
+    /** Row plan character for an aisle. */
+    public static final char AISLE = '|';
+
+    /** Row plan character for a blocked seat. */
+    public static final char BLOCKED = 'x';
+
+    /** Row plan character for a position with nothing there (e.g. to center a short row). */
+    public static final char NO_SEAT = ' ';
+
     /** Number of rows of seats at this venue. */
     private final int numRows;
 
-    /** Number of seats in each row at this venue. Each row contains the same number of seats. */
+    /** Number of seat positions in the longest row at this venue. */
     private final int numSeatsPerRow;
 
+    /** Element i is the index in {@code seatPositions} of the first position of row i; one more than the number of rows. */
+    private final int[] rowOffsets;
+
+    /** One bit per position, row after row: set for a seat, clear for an aisle or blocked seat. */
+    private final BitSet seatPositions;
+
     /** All the seats, ordered by decreasing bestness (lower index: better seat). */
     private final List<SeatImpl> bestSeatsImpl;   // unmodifiable
 
     /** All the seats, ordered by decreasing bestness (lower index: better seat). */
     private final List<Seat> bestSeats;   // unmodifiable
 
-    /** The seats in a rectangular grid. */
+    /** The seats in a grid, one array per row. Aisles and blocked seats are null. */
     private final SeatImpl[][] seatGrid;
 
+    /** Per row, element i is the total bestness of seats 0 (inclusive) through i (exclusive). */
+    private final int[][] bestnessPrefixSums;
+
 
     /**
-     * Constructs a new immutable venue.
+     * Constructs a new immutable venue, in which every row has the same number of seats.
      *
      * @param numRows number of rows in the venue
      * @param numSeatsPerRow number of seats in each row
      * @param bestRowNum the best row number of the venue (1 based)
      */
     public VenueImpl(final int numRows, final int numSeatsPerRow, final int bestRowNum) {
+        this(buildRectangularRowPlans(numRows, numSeatsPerRow), bestRowNum);
+    }
+
+    /**
+     * Constructs a new immutable venue from row plans. Each row plan is a string with one
+     * character per position in the row: {@link #SEAT} for a seat, {@link #AISLE} for an aisle,
+     * {@link #BLOCKED} for a blocked seat, and {@link #NO_SEAT} for an empty position. Rows
+     * may have different lengths; a shorter row may be padded with leading empty positions
+     * so that it is centered, since the center position of the longest row is the best.
+     * For example, {@code "  ooo|ooo  "} is a short row of six seats divided by an aisle.
+     *
+     * @param rowPlans the plan of each row, front row first
+     * @param bestRowNum the best row number of the venue (1 based)
+     */
+    public VenueImpl(final String[] rowPlans, final int bestRowNum) {
+        final int numRows = rowPlans.length;
         if (numRows <= 0 || numRows >= MAXIMUM_NUMBER_OF_ROWS) {
             throw new IllegalArgumentException("bad rows: " + numRows);
         }
-        if (numSeatsPerRow <= 0 || numSeatsPerRow >= MAXIMUM_NUMBER_OF_SEATS_PER_ROW) {
-            throw new IllegalArgumentException("bad seatsPerRow: " + numSeatsPerRow);
-        }
         if (bestRowNum <= 0 || bestRowNum > numRows) {
             throw new IllegalArgumentException("bad bestRow: " + bestRowNum);
         }
-        this.bestSeatsImpl = Collections.unmodifiableList(buildBestSeatsImplList(numRows, numSeatsPerRow, bestRowNum - 1));
+        this.rowOffsets = buildRowOffsets(rowPlans);
+        this.seatPositions = buildSeatPositions(rowPlans, rowOffsets);
+        if (seatPositions.isEmpty()) {
+            throw new IllegalArgumentException("no seats");
+        }
+        int widestRow = 0;
+        for (String rowPlan : rowPlans) {
+            widestRow = Math.max(widestRow, rowPlan.length());
+        }
+        this.bestSeatsImpl = Collections.unmodifiableList(buildBestSeatsImplList(rowPlans, widestRow, bestRowNum - 1));
         this.bestSeats = Collections.unmodifiableList(new ArrayList<Seat>(bestSeatsImpl));
-        this.seatGrid = buildSeatGrid(numRows, numSeatsPerRow, bestSeatsImpl);
+        this.seatGrid = buildSeatGrid(rowPlans, bestSeatsImpl);
+        this.bestnessPrefixSums = buildBestnessPrefixSums(seatGrid);
         this.numRows = numRows;
-        this.numSeatsPerRow = numSeatsPerRow;
+        this.numSeatsPerRow = widestRow;
     }
 
     /**
@@ -83,14 +135,58 @@ public class VenueImpl implements Venue {
     }
 
     /**
-     * Number of seats in each row.
+     * Number of seat positions in the longest row. In a venue whose rows all have the same
+     * length, this is the number of seats in each row.
      *
-     * @return number of seats in each row
+     * @return number of seat positions in the longest row
      */
     public int getNumSeatsPerRow() {
         return numSeatsPerRow;
     }
 
+    /**
+     * Number of seat positions (seats, aisles, and blocked seats) in the specified row.
+     *
+     * @param rowNum the row number
+     * @return number of positions in the row
+     */
+    public int getRowLength(int rowNum) {
+        return rowOffsets[rowNum + 1] - rowOffsets[rowNum];
+    }
+
+    /**
+     * Returns true if there is a seat at the specified coordinates, or false if the position
+     * is an aisle, a blocked seat, or beyond the end of the row.
+     *
+     * @param rowNum the row number
+     * @param seatNumInRow the seat number in the row
+     * @return whether there is a seat at the position
+     */
+    public boolean isSeat(int rowNum, int seatNumInRow) {
+        return (seatNumInRow < getRowLength(rowNum)) && seatPositions.get(rowOffsets[rowNum] + seatNumInRow);
+    }
+
+    /**
+     * The row offsets. Element i is the index of the first position of row i in a bitmap holding
+     * every position, row after row; the last element is the number of positions. The returned
+     * array must not be modified.
+     *
+     * @return the row offsets, one more than the number of rows
+     */
+    int[] getRowOffsets() {
+        return rowOffsets;
+    }
+
+    /**
+     * A bitmap of the seat positions, indexed as described by {@link #getRowOffsets()}: a bit is set
+     * for each seat, and clear for each aisle and blocked seat.
+     *
+     * @return a new copy of the bitmap
+     */
+    BitSet getSeatPositions() {
+        return (BitSet) seatPositions.clone();
+    }
+
     public List<Seat> bestSeats() {
         return bestSeats;
     }
@@ -110,12 +206,36 @@ public class VenueImpl implements Venue {
      *
      * @param rowNum the row containing the seat
      * @param seatNumInRow the seat number in the row
-     * @return the seat at the specified coordinates
+     * @return the seat at the specified coordinates, or null for an aisle or blocked seat
      */
     public SeatImpl getSeat(int rowNum, int seatNumInRow) {
         return seatGrid[rowNum][seatNumInRow];
     }
 
+    /**
+     * The total bestness of a run of adjacent seats in a row, in constant time.
+     *
+     * @param rowNum the row containing the seats
+     * @param firstSeatNumInRow the seat number of the first (leftmost) seat in the run
+     * @param numSeats the number of seats in the run
+     * @return the total bestness of the seats (aisles and blocked seats count as zero)
+     */
+    int getTotalBestness(int rowNum, int firstSeatNumInRow, int numSeats) {
+        int[] prefixSums = bestnessPrefixSums[rowNum];
+        return prefixSums[firstSeatNumInRow + numSeats] - prefixSums[firstSeatNumInRow];
+    }
+
+    /**
+     * The bestness prefix sums of a row. Element i is the total bestness of the first i seats
+     * in the row. The returned array must not be modified.
+     *
+     * @param rowNum the row number
+     * @return the prefix sums, one more than the number of positions in the row
+     */
+    int[] getBestnessPrefixSums(int rowNum) {
+        return bestnessPrefixSums[rowNum];
+    }
+
     /**
      * Builds and returns a list containing all the seats in the venue, ordered by decreasing bestness
      * (increasing numeric values -- smaller bestness numbers are better seats). The first seat in the list
@@ -159,6 +279,31 @@ public class VenueImpl implements Venue {
         return bestSeats;
     }
 
+    /**
+     * Builds the list of seats of an irregular venue, ordered by decreasing bestness. Seats are ranked
+     * as they would be in a rectangular venue as wide as the longest row (see
+     * {@link #buildBestSeatsImplList(int, int, int)}), then the aisles and blocked seats are dropped
+     * and the remaining seats are renumbered, so bestness values are still consecutive from zero.
+     *
+     * @param rowPlans the plan of each row
+     * @param numSeatsPerRow number of positions in the longest row
+     * @param bestRowNum the best row number of the venue
+     * @return the list of seats ordered by bestness
+     */
+    @VisibleForTesting
+    static List<SeatImpl> buildBestSeatsImplList(String[] rowPlans, int numSeatsPerRow, int bestRowNum) {
+        List<SeatImpl> bestSeats = new ArrayList<>();
+        int bestness = 0;
+        for (SeatImpl position : buildBestSeatsImplList(rowPlans.length, numSeatsPerRow, bestRowNum)) {
+            String rowPlan = rowPlans[position.getRowNum()];
+            int seatNumInRow = position.getSeatNumInRow();
+            if ((seatNumInRow < rowPlan.length()) && (rowPlan.charAt(seatNumInRow) == SEAT)) {
+                bestSeats.add(new SeatImpl(position.getRowNum(), seatNumInRow, bestness++));
+            }
+        }
+        return bestSeats;
+    }
+
     /**
      * Builds and returns an array of row numbers in the order that best seats should be allocated in.
      *
@@ -206,13 +351,29 @@ public class VenueImpl implements Venue {
         if (numRows * numSeatsPerRow != bestSeats.size()) {
             throw new IllegalArgumentException("bad bestSeats size: " + bestSeats.size());
         }
-        SeatImpl[][] seatGrid = new SeatImpl[numRows][];
-        for (int rowNum = 0; rowNum < numRows; rowNum++) {
-            seatGrid[rowNum] = new SeatImpl[numSeatsPerRow];
+        return buildSeatGrid(buildRectangularRowPlans(numRows, numSeatsPerRow), bestSeats);
+    }
+
+    /**
+     * Builds the grid of seats of a venue, one array per row, each as long as its row plan.
+     * Aisles and blocked seats are left null.
+     *
+     * @param rowPlans the plan of each row
+     * @param bestSeats all the seats
+     * @return the seats in a grid
+     */
+    @VisibleForTesting
+    static SeatImpl[][] buildSeatGrid(String[] rowPlans, List<SeatImpl> bestSeats) {
+        SeatImpl[][] seatGrid = new SeatImpl[rowPlans.length][];
+        for (int rowNum = 0; rowNum < rowPlans.length; rowNum++) {
+            seatGrid[rowNum] = new SeatImpl[rowPlans[rowNum].length()];
         }
         for (SeatImpl seat: bestSeats) {
             int rowNum = seat.getRowNum();
             int seatNumInRow = seat.getSeatNumInRow();
+            if (rowPlans[rowNum].charAt(seatNumInRow) != SEAT) {
+                throw new IllegalArgumentException("bestSeats contains a seat in an aisle or blocked position!");
+            }
             if (seatGrid[rowNum][seatNumInRow] != null) {
                 throw new IllegalArgumentException("bestSeats contains duplicate seats!");
             }
@@ -220,4 +381,88 @@ public class VenueImpl implements Venue {
         }
         return seatGrid;
     }
+
+    /**
+     * Builds the row plans of a rectangular venue, with no aisles or blocked seats.
+     *
+     * @param numRows number of rows in the venue
+     * @param numSeatsPerRow number of seats in each row
+     * @return the plan of each row
+     */
+    @VisibleForTesting
+    static String[] buildRectangularRowPlans(int numRows, int numSeatsPerRow) {
+        if (numRows <= 0 || numRows >= MAXIMUM_NUMBER_OF_ROWS) {
+            throw new IllegalArgumentException("bad rows: " + numRows);
+        }
+        if (numSeatsPerRow <= 0 || numSeatsPerRow >= MAXIMUM_NUMBER_OF_SEATS_PER_ROW) {
+            throw new IllegalArgumentException("bad seatsPerRow: " + numSeatsPerRow);
+        }
+        char[] row = new char[numSeatsPerRow];
+        Arrays.fill(row, SEAT);
+        String[] rowPlans = new String[numRows];
+        Arrays.fill(rowPlans, new String(row));
+        return rowPlans;
+    }
+
+    /**
+     * Builds the row offsets of a venue: element i is the number of positions in the rows before row i.
+     *
+     * @param rowPlans the plan of each row
+     * @return the row offsets, one more than the number of rows
+     */
+    @VisibleForTesting
+    static int[] buildRowOffsets(String[] rowPlans) {
+        int[] rowOffsets = new int[rowPlans.length + 1];
+        for (int rowNum = 0; rowNum < rowPlans.length; rowNum++) {
+            int rowLength = rowPlans[rowNum].length();
+            if (rowLength <= 0 || rowLength >= MAXIMUM_NUMBER_OF_SEATS_PER_ROW) {
+                throw new IllegalArgumentException("bad seatsPerRow: " + rowLength + " in row " + rowNum);
+            }
+            rowOffsets[rowNum + 1] = rowOffsets[rowNum] + rowLength;
+        }
+        return rowOffsets;
+    }
+
+    /**
+     * Builds the bitmap of seat positions of a venue, with one bit per position, set for each seat.
+     *
+     * @param rowPlans the plan of each row
+     * @param rowOffsets the row offsets
+     * @return the bitmap
+     */
+    @VisibleForTesting
+    static BitSet buildSeatPositions(String[] rowPlans, int[] rowOffsets) {
+        BitSet seatPositions = new BitSet(rowOffsets[rowPlans.length]);
+        for (int rowNum = 0; rowNum < rowPlans.length; rowNum++) {
+            for (int seatNumInRow = 0; seatNumInRow < rowPlans[rowNum].length(); seatNumInRow++) {
+                char position = rowPlans[rowNum].charAt(seatNumInRow);
+                if (position == SEAT) {
+                    seatPositions.set(rowOffsets[rowNum] + seatNumInRow);
+                } else if (position != AISLE && position != BLOCKED && position != NO_SEAT) {
+                    throw new IllegalArgumentException("bad position '" + position + "' in row " + rowNum);
+                }
+            }
+        }
+        return seatPositions;
+    }
+
+    /**
+     * Builds the per-row prefix sums of seat bestness.
+     *
+     * @param seatGrid the seats in a grid (aisles and blocked seats are null, and count as zero)
+     * @return per row, an array whose element i is the total bestness of the first i seats in the row
+     */
+    @VisibleForTesting
+    static int[][] buildBestnessPrefixSums(SeatImpl[][] seatGrid) {
+        int[][] prefixSums = new int[seatGrid.length][];
+        for (int rowNum = 0; rowNum < seatGrid.length; rowNum++) {
+            prefixSums[rowNum] = new int[seatGrid[rowNum].length + 1];
+            for (int seatNumInRow = 0; seatNumInRow < seatGrid[rowNum].length; seatNumInRow++) {
+                SeatImpl seat = seatGrid[rowNum][seatNumInRow];
+                prefixSums[rowNum][seatNumInRow + 1] =
+                        prefixSums[rowNum][seatNumInRow] + ((seat != null) ? seat.getBestness() : 0);
+            }
+        }
+        return prefixSums;
+    }
 }
@@ -0,0 +1,412 @@
+package com.rph.ticketservice.implementation;
+
+import com.rph.ticketservice.HoldThrottledException;
+import com.rph.ticketservice.SeatHold;
+import com.rph.ticketservice.SeatHoldExpiredException;
+import com.rph.ticketservice.SeatHoldNotFoundException;
+import com.rph.ticketservice.SeatsUnavailableException;
+import com.rph.ticketservice.TicketService;
+
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+
+/**
+ * A {@code WaitingRoom} is a TicketService that queues hold requests in arrival order, and
+ * admits them to the TicketServiceImpl at a steady rate, instead of letting every caller pile
+ * onto its (unfair, unbounded) lock at once. Latency is then bounded by the admission rate
+ * rather than by contention.
+ * <p>
+ * Each buyer joins the queue and gets a numbered {@link Ticket}. Buyers are admitted one at a
+ * time, in ticket order, one every admission interval. A waiting buyer's position and estimated
+ * wait are computed from the ticket number and the admission clock alone, without touching the
+ * TicketServiceImpl. Admission is lock-free: the admission clock is an immutable value replaced
+ * by compare-and-set, and waiting buyers park until their estimated admission time.
+ * <p>
+ * A buyer may leave the queue before being admitted (a waiting thread that is interrupted
+ * leaves too). A buyer who left is passed over when their turn comes, taking no admission
+ * interval, so the buyers behind them move up.
+ * <p>
+ * The admission interval adapts to the latency of the TicketServiceImpl, not to its measured
+ * throughput: whenever the moving average latency of admitted holds exceeds the latency budget,
+ * the interval grows by a quarter (admitting more slowly), and otherwise it shrinks back by a
+ * sixteenth, down to the interval of the configured maximum admission rate.
+ * <p>
+ * Reservations are not queued, since they complete a purchase and take no search.
+ */
+public class WaitingRoom implements TicketService {
+
+    /** Weight of each new hold latency sample in the moving average is 1 / 2^EWMA_SHIFT. */
+    private static final int EWMA_SHIFT = 3;
+
+    /** The admission interval never grows beyond this multiple of the minimum interval. */
+    private static final long MAX_INTERVAL_MULTIPLE = 64;
+
+    /** The TicketService to which buyers are admitted. */
+    private final TicketServiceImpl ticketService;
+
+    /** The admission interval at the maximum admission rate. */
+    private final long minIntervalNanos;
+
+    /** The admission interval never grows beyond this. */
+    private final long maxIntervalNanos;
+
+    /** Admitted holds should take no longer than this, on average. */
+    private final long latencyBudgetNanos;
+
+    /** Number of tickets issued. Ticket numbers start at zero. */
+    private final AtomicLong numTicketsIssued = new AtomicLong();
+
+    /** The admission clock. */
+    private final AtomicReference<AdmissionClock> admissionClock;
+
+    /** The numbers of the tickets whose buyers left the queue, and that the clock has not yet passed. */
+    private final NavigableSet<Long> leftTickets = new ConcurrentSkipListSet<>();
+
+    /** Exponentially weighted moving average of the latency of admitted holds. */
+    private final AtomicLong holdLatencyNanosAverage = new AtomicLong();
+
+
+    /**
+     * Constructs a new WaitingRoom.
+     *
+     * @param ticketService the TicketService to which buyers are admitted
+     * @param maxAdmissionsPerSecond the maximum rate at which buyers are admitted
+     * @param latencyBudgetMillis the average latency of admitted holds above which admission slows
+     */
+    public WaitingRoom(TicketServiceImpl ticketService, double maxAdmissionsPerSecond, long latencyBudgetMillis) {
+        if (maxAdmissionsPerSecond <= 0 || latencyBudgetMillis <= 0) {
+            throw new IllegalArgumentException("bad admission rate or latency budget");
+        }
+        this.ticketService = ticketService;
+        this.minIntervalNanos = Math.max((long) (TimeUnit.SECONDS.toNanos(1) / maxAdmissionsPerSecond), 1);
+        this.maxIntervalNanos = minIntervalNanos * MAX_INTERVAL_MULTIPLE;
+        this.latencyBudgetNanos = TimeUnit.MILLISECONDS.toNanos(latencyBudgetMillis);
+        this.admissionClock = new AtomicReference<>(new AdmissionClock(0, System.nanoTime(), minIntervalNanos));
+    }
+
+    @Override
+    public int numSeatsAvailable() {
+        return ticketService.numSeatsAvailable();
+    }
+
+    /**
+     * Joins the queue, waits to be admitted, and then finds and holds the best available seats.
+     *
+     * @param numSeats      the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @return a SeatHold object identifying the specific seats and related information
+     * @throws HoldThrottledException if the calling thread was interrupted while waiting (its
+     *                                 interrupt status is set again)
+     * @throws SeatsUnavailableException if there are insufficient adjacent available seats
+     */
+    @Override
+    public SeatHold findAndHoldSeats(int numSeats, String customerEmail) throws SeatsUnavailableException {
+        try {
+            return findAndHoldSeats(join(customerEmail), numSeats);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HoldThrottledException(HoldThrottledException.Reason.INTERRUPTED);
+        }
+    }
+
+    /**
+     * Waits until the ticket is admitted, and then finds and holds the best available seats for
+     * the ticket's customer. Each ticket may be used only once.
+     *
+     * @param ticket   the ticket
+     * @param numSeats the number of seats to find and hold
+     * @return a SeatHold object identifying the specific seats and related information
+     * @throws SeatsUnavailableException if there are insufficient adjacent available seats
+     * @throws InterruptedException if the calling thread was interrupted while waiting; the
+     *                              ticket's buyer has then left the queue
+     */
+    public SeatHold findAndHoldSeats(Ticket ticket, int numSeats) throws SeatsUnavailableException, InterruptedException {
+        if (!ticket.used.compareAndSet(false, true)) {
+            throw new IllegalArgumentException("ticket already used: " + ticket.getTicketNumber());
+        }
+        awaitAdmission(ticket);
+        long startNanos = System.nanoTime();
+        try {
+            return ticketService.findAndHoldSeats(numSeats, ticket.getCustomerEmail());
+        } finally {
+            holdCompleted(System.nanoTime() - startNanos);
+        }
+    }
+
+    @Override
+    public String reserveSeats(int seatHoldId, String customerEmail)
+            throws SeatHoldNotFoundException, SeatHoldExpiredException {
+        return ticketService.reserveSeats(seatHoldId, customerEmail);
+    }
+
+    /**
+     * Joins the end of the queue.
+     *
+     * @param customerEmail unique identifier for the customer
+     * @return the customer's ticket
+     */
+    public Ticket join(String customerEmail) {
+        long nowNanos = System.nanoTime();
+        AdmissionClock clock = advance(nowNanos);
+        if ((clock.numAdmitted == numTicketsIssued.get()) && (clock.nextAdmissionNanos < nowNanos)) {
+            // Nobody is waiting, so the clock restarts now: idle time is not banked.
+            admissionClock.compareAndSet(clock, new AdmissionClock(clock.numAdmitted, nowNanos, clock.intervalNanos));
+        }
+        return new Ticket(numTicketsIssued.getAndIncrement(), customerEmail);
+    }
+
+    /**
+     * Leaves the queue, giving up the ticket: the buyers behind it move up. A ticket that has
+     * been used, or is in use by a waiting thread, cannot be given up this way; interrupt the
+     * waiting thread instead.
+     *
+     * @param ticket the ticket
+     * @return true if the buyer left before being admitted, false if the ticket was already
+     *         admitted or used
+     */
+    public boolean leave(Ticket ticket) {
+        return ticket.used.compareAndSet(false, true) && release(ticket);
+    }
+
+    /**
+     * Returns true if the ticket has been admitted.
+     *
+     * @param ticket the ticket
+     * @return whether the ticket's customer may proceed
+     */
+    public boolean isAdmitted(Ticket ticket) {
+        return ticket.getTicketNumber() < advance(System.nanoTime()).numAdmitted;
+    }
+
+    /**
+     * The ticket's position in the queue: 1 for the next buyer to be admitted, 2 for the one
+     * after that, and so on (zero once admitted).
+     *
+     * @param ticket the ticket
+     * @return the position in the queue
+     */
+    public long getPosition(Ticket ticket) {
+        return Math.max(getNumAhead(ticket, advance(System.nanoTime())) + 1, 0);
+    }
+
+    /**
+     * Estimated time until the ticket is admitted, at the current admission rate.
+     *
+     * @param ticket the ticket
+     * @return the estimated wait, in milliseconds (zero once admitted)
+     */
+    public long getEstimatedWaitMillis(Ticket ticket) {
+        return TimeUnit.NANOSECONDS.toMillis(getEstimatedWaitNanos(ticket, System.nanoTime()));
+    }
+
+    /**
+     * The current admission rate.
+     *
+     * @return admissions per second
+     */
+    public double getAdmissionsPerSecond() {
+        return (double) TimeUnit.SECONDS.toNanos(1) / admissionClock.get().intervalNanos;
+    }
+
+    /**
+     * Number of buyers waiting to be admitted.
+     *
+     * @return the length of the queue
+     */
+    public long getQueueLength() {
+        long numAdmitted = advance(System.nanoTime()).numAdmitted;
+        return numTicketsIssued.get() - numAdmitted - leftTickets.tailSet(numAdmitted).size();
+    }
+
+    /**
+     * Parks the calling thread until the ticket is admitted. If the thread is interrupted
+     * first, the ticket's buyer leaves the queue.
+     *
+     * @param ticket the ticket
+     * @throws InterruptedException if the calling thread was interrupted while waiting
+     */
+    private void awaitAdmission(Ticket ticket) throws InterruptedException {
+        for (long waitNanos = getEstimatedWaitNanos(ticket, System.nanoTime()); waitNanos > 0;
+             waitNanos = getEstimatedWaitNanos(ticket, System.nanoTime())) {
+            if (Thread.interrupted()) {
+                release(ticket);
+                throw new InterruptedException();
+            }
+            LockSupport.parkNanos(this, waitNanos);
+        }
+    }
+
+    /**
+     * Takes the ticket's buyer out of the queue, unless the ticket has already been admitted. If
+     * the ticket is admitted while its buyer is leaving, its admission interval goes unused.
+     *
+     * @param ticket the ticket
+     * @return true if the buyer left before being admitted
+     */
+    private boolean release(Ticket ticket) {
+        if (ticket.getTicketNumber() < advance(System.nanoTime()).numAdmitted) {
+            return false;
+        }
+        leftTickets.add(ticket.getTicketNumber());
+        return true;
+    }
+
+    /**
+     * Estimated time until the ticket is admitted, at the current admission rate.
+     *
+     * @param ticket the ticket
+     * @param nowNanos the current time ({@code System.nanoTime()})
+     * @return the estimated wait, in nanoseconds (zero once admitted)
+     */
+    private long getEstimatedWaitNanos(Ticket ticket, long nowNanos) {
+        AdmissionClock clock = advance(nowNanos);
+        long numAhead = getNumAhead(ticket, clock);
+        if (numAhead < 0) {
+            return 0;
+        }
+        return Math.max(clock.nextAdmissionNanos + (numAhead * clock.intervalNanos) - nowNanos, 1);
+    }
+
+    /**
+     * Number of buyers waiting ahead of the ticket, not counting those who left.
+     *
+     * @param ticket the ticket
+     * @param clock the admission clock
+     * @return number of buyers ahead, or -1 if the ticket has been admitted
+     */
+    private long getNumAhead(Ticket ticket, AdmissionClock clock) {
+        if (ticket.getTicketNumber() < clock.numAdmitted) {
+            return -1;
+        }
+        return ticket.getTicketNumber() - clock.numAdmitted
+                - leftTickets.subSet(clock.numAdmitted, ticket.getTicketNumber()).size();
+    }
+
+    /**
+     * Advances the admission clock to the present: one more buyer is admitted for each admission
+     * interval that has passed, as long as buyers are waiting, and buyers who left are passed
+     * over without taking an interval. Time during which nobody waits is not banked (see
+     * {@code join()}), so a burst of arrivals after a lull is still admitted at the steady rate.
+     * This takes time proportional to the number of buyers passed over, not admitted.
+     *
+     * @param nowNanos the current time ({@code System.nanoTime()})
+     * @return the up to date admission clock
+     */
+    private AdmissionClock advance(long nowNanos) {
+        while (true) {
+            AdmissionClock clock = admissionClock.get();
+            long numIssued = numTicketsIssued.get();
+            long numAdmitted = clock.numAdmitted;
+            long nextAdmissionNanos = clock.nextAdmissionNanos;
+            while (numAdmitted < numIssued) {
+                Long nextLeft = leftTickets.ceiling(numAdmitted);
+                long endOfRun = (nextLeft == null) ? numIssued : Math.min(nextLeft, numIssued);   // buyers still waiting
+                if (numAdmitted == endOfRun) {
+                    numAdmitted += 1;   // passed over
+                    continue;
+                }
+                if (nowNanos < nextAdmissionNanos) {
+                    break;
+                }
+                long numDue = Math.min(((nowNanos - nextAdmissionNanos) / clock.intervalNanos) + 1, endOfRun - numAdmitted);
+                numAdmitted += numDue;
+                nextAdmissionNanos += numDue * clock.intervalNanos;
+            }
+            if (numAdmitted == clock.numAdmitted) {
+                return clock;
+            }
+            AdmissionClock advanced = new AdmissionClock(numAdmitted, nextAdmissionNanos, clock.intervalNanos);
+            if (admissionClock.compareAndSet(clock, advanced)) {
+                leftTickets.headSet(numAdmitted).clear();
+                return advanced;
+            }
+        }
+    }
+
+    /**
+     * Folds the latency of an admitted hold into the moving average, and adapts the admission
+     * interval to it.
+     *
+     * @param latencyNanos the latency of the hold
+     */
+    @VisibleForTesting
+    void holdCompleted(long latencyNanos) {
+        long average = holdLatencyNanosAverage.updateAndGet(a -> a + ((latencyNanos - a) >> EWMA_SHIFT));
+        while (true) {
+            AdmissionClock clock = admissionClock.get();
+            long intervalNanos = (average > latencyBudgetNanos)
+                    ? Math.min(clock.intervalNanos + (clock.intervalNanos / 4) + 1, maxIntervalNanos)
+                    : Math.max(clock.intervalNanos - (clock.intervalNanos / 16), minIntervalNanos);
+            if ((intervalNanos == clock.intervalNanos) || admissionClock.compareAndSet(
+                    clock, new AdmissionClock(clock.numAdmitted, clock.nextAdmissionNanos, intervalNanos))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * A {@code Ticket} is a buyer's place in the queue. It is immutable, except that it is
+     * marked when used.
+     */
+    public static class Ticket {
+
+        /** The ticket number: the number of buyers who joined the queue before this one. */
+        private final long ticketNumber;
+
+        /** The customer. */
+        private final String customerEmail;
+
+        /** Whether the ticket has been used to hold seats. */
+        private final AtomicBoolean used = new AtomicBoolean();
+
+        private Ticket(long ticketNumber, String customerEmail) {
+            this.ticketNumber = ticketNumber;
+            this.customerEmail = customerEmail;
+        }
+
+        /**
+         * The ticket number: the number of buyers who joined the queue before this one.
+         *
+         * @return the ticket number
+         */
+        public long getTicketNumber() {
+            return ticketNumber;
+        }
+
+        /**
+         * The customer holding the ticket.
+         *
+         * @return the customer email
+         */
+        public String getCustomerEmail() {
+            return customerEmail;
+        }
+    }
+
+    /**
+     * The immutable state of the admission clock.
+     */
+    private static class AdmissionClock {
+
+        /** Number of tickets admitted: every ticket number below this. */
+        final long numAdmitted;
+
+        /** When the next ticket is admitted, if anyone is waiting ({@code System.nanoTime()}). */
+        final long nextAdmissionNanos;
+
+        /** Time between admissions. */
+        final long intervalNanos;
+
+        AdmissionClock(long numAdmitted, long nextAdmissionNanos, long intervalNanos) {
+            this.numAdmitted = numAdmitted;
+            this.nextAdmissionNanos = nextAdmissionNanos;
+            this.intervalNanos = intervalNanos;
+        }
+    }
+}
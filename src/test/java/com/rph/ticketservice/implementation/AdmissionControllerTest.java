@@ -0,0 +1,158 @@
+package com.rph.ticketservice.implementation;
+
+import com.rph.ticketservice.HoldThrottledException;
+import com.rph.ticketservice.SeatHold;
+import com.rph.ticketservice.SeatsUnavailableException;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+public class AdmissionControllerTest {
+
+    private static final String CUSTOMER_EMAIL = "ronald.hughes@gmail.com";
+
+    private static final String OTHER_CUSTOMER_EMAIL = "someone.else@gmail.com";
+
+    @Test
+    public void testRateLimit() throws Exception {
+        AdmissionController controller = new AdmissionController(
+                new TicketServiceImpl(new VenueImpl(10, 20, 5)), 10, 3, 100, 64, 1000, 10, 60000);
+        for (int i = 0; i < 3; i++) {
+            controller.findAndHoldSeats(2, CUSTOMER_EMAIL);   // a burst of three
+        }
+        assertThrottled(controller, CUSTOMER_EMAIL, HoldThrottledException.Reason.RATE_LIMITED);
+        controller.findAndHoldSeats(2, OTHER_CUSTOMER_EMAIL);   // other customers are unaffected
+        Thread.sleep(250);   // more than two 100 millisecond intervals
+        controller.findAndHoldSeats(2, CUSTOMER_EMAIL);
+        assertEquals(5, controller.getNumAdmitted());
+        assertEquals(1, controller.getNumRateLimited());
+        assertEquals(200 - 10, controller.numSeatsAvailable());
+    }
+
+    @Test
+    public void testTooManyHolds() throws Exception {
+        TicketServiceImpl tsi = new TicketServiceImpl(new VenueImpl(10, 20, 5), 200);
+        AdmissionController controller = new AdmissionController(tsi, 1000, 100, 2, 64, 1000, 10, 60000);
+        SeatHold seatHold = controller.findAndHoldSeats(2, CUSTOMER_EMAIL);
+        controller.findAndHoldSeats(2, CUSTOMER_EMAIL);
+        assertThrottled(controller, CUSTOMER_EMAIL, HoldThrottledException.Reason.TOO_MANY_HOLDS);
+        controller.reserveSeats(seatHold.getSeatHoldId(), CUSTOMER_EMAIL);
+        controller.findAndHoldSeats(2, CUSTOMER_EMAIL);   // the reserved hold no longer counts
+        assertThrottled(controller, CUSTOMER_EMAIL, HoldThrottledException.Reason.TOO_MANY_HOLDS);
+        Thread.sleep(500);   // both outstanding holds expire
+        controller.findAndHoldSeats(2, CUSTOMER_EMAIL);
+        controller.findAndHoldSeats(2, CUSTOMER_EMAIL);
+        assertEquals(2, controller.getNumTooManyHolds());
+        try {
+            controller.findAndHoldSeats(21, OTHER_CUSTOMER_EMAIL);   // admitted, but cannot fit
+            fail("Exception expected!");
+        } catch (HoldThrottledException e) {
+            fail("Unexpected HoldThrottledException!");
+        } catch (SeatsUnavailableException e) {
+            // expected exception
+        }
+        controller.findAndHoldSeats(2, OTHER_CUSTOMER_EMAIL);
+        controller.findAndHoldSeats(2, OTHER_CUSTOMER_EMAIL);   // the failed request was not counted
+    }
+
+    @Test
+    public void testTooManyHoldsTakesNoToken() throws Exception {
+        TicketServiceImpl tsi = new TicketServiceImpl(new VenueImpl(10, 20, 5), 60000);
+        AdmissionController controller = new AdmissionController(tsi, 1, 3, 2, 64, 1000, 10, 60000);
+        SeatHold seatHold = controller.findAndHoldSeats(2, CUSTOMER_EMAIL);
+        controller.findAndHoldSeats(2, CUSTOMER_EMAIL);   // two of the three tokens
+        for (int i = 0; i < 5; i++) {
+            assertThrottled(controller, CUSTOMER_EMAIL, HoldThrottledException.Reason.TOO_MANY_HOLDS);
+        }
+        controller.reserveSeats(seatHold.getSeatHoldId(), CUSTOMER_EMAIL);
+        controller.findAndHoldSeats(2, CUSTOMER_EMAIL);   // the third token is still there
+        assertEquals(3, controller.getNumAdmitted());
+        assertEquals(5, controller.getNumTooManyHolds());
+        assertEquals(0, controller.getNumRateLimited());
+    }
+
+    @Test
+    public void testBoundedCustomers() throws Exception {
+        AdmissionController controller = new AdmissionController(
+                new TicketServiceImpl(new VenueImpl(10, 20, 5)), 1000, 100, 100, 64, 1000, 2, 0);
+        SeatHold seatHold = controller.findAndHoldSeats(2, CUSTOMER_EMAIL);
+        controller.findAndHoldSeats(2, OTHER_CUSTOMER_EMAIL);
+        assertEquals(2, controller.getNumCustomers());
+        assertThrottled(controller, "third@gmail.com", HoldThrottledException.Reason.OVERLOADED);   // both have holds
+        controller.reserveSeats(seatHold.getSeatHoldId(), CUSTOMER_EMAIL);
+        Thread.sleep(1);
+        controller.findAndHoldSeats(2, "third@gmail.com");   // the first customer is idle, and is forgotten
+        assertEquals(2, controller.getNumCustomers());
+        assertEquals(1, controller.getNumShed());
+    }
+
+    @Test
+    public void testBoundedCustomersUnderContention() throws Exception {
+        AdmissionController controller = new AdmissionController(
+                new TicketServiceImpl(new VenueImpl(20, 50, 5)), 1000, 100, 100, 64, 1000, 5, 60000);
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            final int thread = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 50; i++) {
+                    try {
+                        controller.findAndHoldSeats(1, "customer" + thread + "." + i + "@gmail.com");
+                    } catch (SeatsUnavailableException e) {
+                        // expected for most new customers: there is no room
+                    }
+                    assertTrue(controller.getNumCustomers() <= 5);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(5, controller.getNumCustomers());
+        assertEquals(5, controller.getNumAdmitted());   // none was idle, so none was evicted
+        assertEquals(400 - 5, controller.getNumShed());
+    }
+
+    @Test
+    public void testHoldsMadeElsewhereAreNotTracked() throws Exception {
+        TicketServiceImpl tsi = new TicketServiceImpl(new VenueImpl(10, 20, 5), 100);
+        AdmissionController controller = new AdmissionController(tsi, 1000, 100, 2, 64, 1000, 10, 60000);
+        controller.findAndHoldSeats(2, CUSTOMER_EMAIL);
+        assertEquals(1, controller.getNumHoldOwners());
+        SeatHold otherSeatHold = tsi.findAndHoldSeats(2, OTHER_CUSTOMER_EMAIL);   // not through the controller
+        assertEquals(1, controller.getNumHoldOwners());
+        tsi.reserveSeats(otherSeatHold.getSeatHoldId(), OTHER_CUSTOMER_EMAIL);
+        tsi.findAndHoldSeats(2, OTHER_CUSTOMER_EMAIL);
+        Thread.sleep(300);   // both outstanding holds expire
+        tsi.findAndHoldSeats(2, OTHER_CUSTOMER_EMAIL);   // reclaims them
+        assertEquals(0, controller.getNumHoldOwners());   // no markers are left behind
+    }
+
+    @Test
+    public void testLoadShedding() throws Exception {
+        AdmissionController controller = new AdmissionController(
+                new TicketServiceImpl(new VenueImpl(10, 20, 5)), 1, 4, 100, 64, 1, 10, 60000);
+        assertFalse(controller.isOverloaded());
+        controller.recordHoldLatency(1000L * 1000 * 1000);   // one very slow hold
+        assertTrue(controller.isOverloaded());
+        controller.findAndHoldSeats(2, CUSTOMER_EMAIL);   // the bucket is still more than half full
+        controller.findAndHoldSeats(2, CUSTOMER_EMAIL);
+        assertThrottled(controller, CUSTOMER_EMAIL, HoldThrottledException.Reason.OVERLOADED);
+        controller.findAndHoldSeats(2, OTHER_CUSTOMER_EMAIL);   // a quiet customer is still admitted
+        assertEquals(1, controller.getNumShed());
+        assertEquals(0, controller.getNumRateLimited());
+    }
+
+    private static void assertThrottled(AdmissionController controller, String customerEmail,
+                                        HoldThrottledException.Reason reason) {
+        try {
+            controller.findAndHoldSeats(2, customerEmail);
+            fail("Exception expected!");
+        } catch (HoldThrottledException e) {
+            assertEquals(reason, e.getReason());
+        } catch (SeatsUnavailableException e) {
+            fail("Unexpected SeatsUnavailableException!");
+        }
+    }
+}
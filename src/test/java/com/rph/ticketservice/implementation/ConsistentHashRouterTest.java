@@ -0,0 +1,71 @@
+package com.rph.ticketservice.implementation;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+
+public class ConsistentHashRouterTest {
+
+    private static final int NUM_KEYS = 10000;
+
+    @Test
+    public void testRoute() {
+        ConsistentHashRouter router = new ConsistentHashRouter(ConsistentHashRouter.DEFAULT_VIRTUAL_NODES);
+        try {
+            router.route("performance-0");
+            fail("Exception expected!");
+        } catch (IllegalStateException e) {
+            // expected exception
+        }
+        for (int nodeId = 0; nodeId < 4; nodeId++) {
+            router.addNode(nodeId);
+        }
+        assertEquals(4, router.getNodeIds().size());
+        int[] numKeysPerNode = new int[4];
+        Map<String, Integer> placement = new HashMap<>();
+        for (int i = 0; i < NUM_KEYS; i++) {
+            String key = "performance-" + i;
+            int nodeId = router.route(key);
+            assertEquals(nodeId, router.route(key));   // stable
+            numKeysPerNode[nodeId] += 1;
+            placement.put(key, nodeId);
+        }
+        for (int numKeys : numKeysPerNode) {
+            assertTrue(numKeys > NUM_KEYS / 4 / 2);   // roughly even
+            assertTrue(numKeys < NUM_KEYS / 4 * 2);
+        }
+
+        router.addNode(4);
+        int numMoved = 0;
+        for (Map.Entry<String, Integer> entry : placement.entrySet()) {
+            int nodeId = router.route(entry.getKey());
+            if (nodeId != entry.getValue()) {
+                assertEquals(4, nodeId);   // keys only move to the new node
+                numMoved += 1;
+            }
+        }
+        assertTrue(numMoved > NUM_KEYS / 5 / 2);
+        assertTrue(numMoved < NUM_KEYS / 5 * 2);
+
+        router.removeNode(4);
+        for (Map.Entry<String, Integer> entry : placement.entrySet()) {
+            assertEquals((int) entry.getValue(), router.route(entry.getKey()));   // back where they were
+        }
+    }
+
+    @Test
+    public void testHash() {
+        assertEquals(ConsistentHashRouter.hash("performance-1"), ConsistentHashRouter.hash("performance-1"));
+        assertNotEquals(ConsistentHashRouter.hash("performance-1"), ConsistentHashRouter.hash("performance-2"));
+        try {
+            new ConsistentHashRouter(0);
+            fail("Exception expected!");
+        } catch (IllegalArgumentException e) {
+            // expected exception
+        }
+    }
+}
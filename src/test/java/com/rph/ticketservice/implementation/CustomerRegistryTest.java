@@ -0,0 +1,59 @@
+package com.rph.ticketservice.implementation;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+public class CustomerRegistryTest {
+
+    @Test
+    public void testAcquireAndRelease() {
+        CustomerRegistry registry = new CustomerRegistry();
+        assertEquals(0, registry.acquire("ronald.hughes@gmail.com"));
+        assertEquals(1, registry.acquire("someone.else@gmail.com"));
+        assertEquals(0, registry.acquire(new String("ronald.hughes@gmail.com")));   // equal, not identical
+        assertEquals(2, registry.getNumCustomers());
+        assertEquals("someone.else@gmail.com", registry.getCustomerEmail(1));
+        for (String badEmail : new String[] { null, "", "ronald.hughesATgmail.com" }) {
+            try {
+                registry.acquire(badEmail);
+                fail("Exception expected!");
+            } catch (IllegalArgumentException e) {
+                // expected exception
+            }
+        }
+        assertEquals(2, registry.getNumCustomers());
+
+        registry.release(0);
+        assertEquals(0, registry.getCustomerId("ronald.hughes@gmail.com"));   // one reference left
+        registry.retain(0);
+        registry.release(0);
+        registry.release(0);
+        assertEquals(CustomerRegistry.NO_CUSTOMER, registry.getCustomerId("ronald.hughes@gmail.com"));
+        assertNull(registry.getCustomerEmail(0));
+        assertEquals(1, registry.getNumCustomers());
+        assertEquals(0, registry.acquire("third.customer@gmail.com"));   // the ID is reused
+        assertEquals("third.customer@gmail.com", registry.getCustomerEmail(0));
+    }
+
+    @Test
+    public void testBounded() {
+        CustomerRegistry registry = new CustomerRegistry(3000);
+        for (int i = 0; i < 3000; i++) {
+            assertEquals(i, registry.acquire("customer" + i + "@gmail.com"));
+        }
+        for (int i = 0; i < 3000; i++) {
+            assertEquals("customer" + i + "@gmail.com", registry.getCustomerEmail(i));
+        }
+        try {
+            registry.acquire("one.too.many@gmail.com");
+            fail("Exception expected!");
+        } catch (IllegalStateException e) {
+            // expected exception
+        }
+        registry.release(1234);
+        assertEquals(1234, registry.acquire("one.too.many@gmail.com"));
+        assertEquals(3000, registry.getNumCustomers());
+    }
+}
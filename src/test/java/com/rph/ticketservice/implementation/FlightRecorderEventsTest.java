@@ -0,0 +1,88 @@
+package com.rph.ticketservice.implementation;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+
+public class FlightRecorderEventsTest {
+
+    @Test
+    public void testEvents() throws Exception {
+        final String customerEmail = "ronald.hughes@gmail.com";
+        TicketServiceImpl tsi = new TicketServiceImpl(new VenueImpl(10, 20, 5));
+        tsi.tryFindAndHoldSeats(2, customerEmail);   // not recorded
+
+        File file = File.createTempFile("ticketservice", ".jfr");
+        try {
+            try (Recording recording = new Recording()) {
+                recording.enable("com.rph.ticketservice.SeatSearch");
+                recording.enable("com.rph.ticketservice.Hold");
+                recording.enable("com.rph.ticketservice.Reserve");
+                recording.enable("com.rph.ticketservice.Expire");
+                recording.start();
+                int seatHoldId = tsi.tryFindAndHoldSeats(4, customerEmail).getSeatHold().getSeatHoldId();
+                tsi.tryReserveSeats(seatHoldId, customerEmail, new ReserveResult());
+                tsi.tryFindAndHoldSeats(1000, customerEmail);
+                tsi.expire(tsi.getSeatHold(0));
+                tsi.findAndHoldSeats(3, customerEmail, 50);
+                Thread.sleep(300);   // expired by the sweeper
+                recording.stop();
+                recording.dump(file.toPath());
+            }
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file.toPath());
+            assertEquals(2, count(events, "com.rph.ticketservice.SeatSearch"));   // 1000 cannot fit: no search
+            assertEquals(3, count(events, "com.rph.ticketservice.Hold"));
+            assertEquals(1, count(events, "com.rph.ticketservice.Reserve"));
+            assertEquals(2, count(events, "com.rph.ticketservice.Expire"));
+            for (RecordedEvent event : events) {
+                switch (event.getEventType().getName()) {
+                    case "com.rph.ticketservice.Hold":
+                        if (event.getInt("partySize") == 1000) {
+                            assertEquals("UNAVAILABLE", event.getString("outcome"));
+                            assertEquals(-1, event.getInt("seatHoldId"));
+                        } else {
+                            assertEquals("HELD", event.getString("outcome"));
+                            assertFalse(Double.isNaN(event.getDouble("winningAverageBestness")));
+                        }
+                        if (event.getInt("partySize") == 4) {
+                            assertEquals(10, event.getInt("candidatesEvaluated"));
+                        }
+                        break;
+                    case "com.rph.ticketservice.Reserve":
+                        assertEquals("RESERVED", event.getString("outcome"));
+                        break;
+                    case "com.rph.ticketservice.Expire":
+                        assertEquals("EXPIRED", event.getString("outcome"));
+                        if (event.getInt("partySize") == 3) {
+                            assertTrue(event.getLong("lagMillis") >= 0);   // swept after its deadline
+                        } else {
+                            assertEquals(2, event.getInt("partySize"));
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static int count(List<RecordedEvent> events, String name) {
+        int count = 0;
+        for (RecordedEvent event : events) {
+            if (event.getEventType().getName().equals(name)) {
+                count += 1;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,55 @@
+package com.rph.ticketservice.implementation;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+public class FragmentationReportTest {
+
+    @Test
+    public void testBuild() {
+        SeatGrid seatGrid = new SeatGrid(new VenueImpl(2, 10, 1));
+        for (int seatNumInRow : new int[] { 1, 3, 4, 8 }) {
+            seatGrid.setAvailability(0, seatNumInRow, false);   // row 0: runs of 1, 1, 3, 1
+        }
+        seatGrid.setAvailability(1, 4, false);   // row 1: runs of 4, 5
+        FragmentationReport report = FragmentationReport.build(SeatMapSnapshot.build(seatGrid, 15));
+        assertEquals(0, report.getVersion());
+        assertEquals(15, report.getNumSeatsAvailable());
+        assertEquals(3, report.getNumOrphans());
+        assertEquals(3, report.getNumRunsOfLength(1));
+        assertEquals(1, report.getNumRunsOfLength(3));
+        assertEquals(0, report.getNumRunsOfLength(11));
+        assertEquals(5, report.getLongestRun());
+        assertEquals(15, report.getNumPartiesThatFit(1));
+        assertEquals(5, report.getNumPartiesThatFit(2));   // 1 + 2 + 2
+        assertEquals(3, report.getNumPartiesThatFit(3));   // 1 + 1 + 1
+        assertEquals(2, report.getNumPartiesThatFit(4));
+        assertEquals(1, report.getNumPartiesThatFit(5));
+        assertEquals(0, report.getNumPartiesThatFit(6));
+        assertEquals(0, report.getNumPartiesThatFit(50));
+        assertEquals(0.2, report.getOrphanRatio(), 1e-9);
+        try {
+            report.getNumPartiesThatFit(0);
+            fail("Exception expected!");
+        } catch (IllegalArgumentException e) {
+            // expected exception
+        }
+    }
+
+    @Test
+    public void testTicketServiceReport() {
+        final String customerEmail = "ronald.hughes@gmail.com";
+        TicketServiceImpl tsi = new TicketServiceImpl(new VenueImpl(1, 10, 1));
+        assertEquals(1, tsi.getFragmentationReport().getNumPartiesThatFit(10));
+        assertEquals(HoldResult.Status.HELD, tsi.tryFindAndHoldSeats(7, customerEmail).getStatus());
+        FragmentationReport report = tsi.getFragmentationReport();
+        assertEquals(1, report.getVersion());
+        assertEquals(3, report.getNumSeatsAvailable());
+        assertEquals(3, report.getLongestRun() + report.getNumOrphans());   // 1 + 2, or 3 + 0
+        assertEquals(HoldResult.Status.UNAVAILABLE, tsi.tryFindAndHoldSeats(4, customerEmail).getStatus());
+        assertEquals(1, tsi.getMetrics().getUnavailableCount());
+        assertEquals(1, tsi.getMetrics().getHoldSearchNanos().getCount());   // turned away without a search
+    }
+}
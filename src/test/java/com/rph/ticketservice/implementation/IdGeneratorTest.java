@@ -0,0 +1,134 @@
+package com.rph.ticketservice.implementation;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+
+public class IdGeneratorTest {
+
+    @Test
+    public void testBlockIdGenerator() {
+        BlockIdGenerator sequential = new BlockIdGenerator(5, 1);
+        assertEquals(5, sequential.nextId());
+        assertEquals(6, sequential.nextId());
+
+        AtomicLong sharedCounter = new AtomicLong(0);
+        BlockIdGenerator shard1 = new BlockIdGenerator(sharedCounter, 100);
+        BlockIdGenerator shard2 = new BlockIdGenerator(sharedCounter, 100);
+        assertEquals(0, shard1.nextId());
+        assertEquals(100, shard2.nextId());   // the next block
+        assertEquals(1, shard1.nextId());
+        assertEquals(200, sharedCounter.get());
+        try {
+            new BlockIdGenerator(0, 0);
+            fail("Exception expected!");
+        } catch (IllegalArgumentException e) {
+            // expected exception
+        }
+    }
+
+    @Test
+    public void testBlockIdGeneratorThreads() throws Exception {
+        assertUniqueAcrossThreads(new BlockIdGenerator(0, 64));
+    }
+
+    @Test
+    public void testSnowflakeIdGenerator() {
+        long[] now = { SnowflakeIdGenerator.EPOCH_MILLIS + 1000 };
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(513, () -> now[0]);
+        long id = generator.nextId();
+        assertEquals(now[0], SnowflakeIdGenerator.getTimestampMillis(id));
+        assertEquals(513, SnowflakeIdGenerator.getNodeId(id));
+        assertEquals(0, SnowflakeIdGenerator.getSequence(id));
+        assertEquals(1, SnowflakeIdGenerator.getSequence(generator.nextId()));
+
+        for (int i = 2; i < 4096; i++) {
+            generator.nextId();   // use up the millisecond
+        }
+        id = generator.nextId();
+        assertEquals(now[0] + 1, SnowflakeIdGenerator.getTimestampMillis(id));   // borrowed
+        assertEquals(0, SnowflakeIdGenerator.getSequence(id));
+
+        now[0] -= 500;   // the clock steps backwards
+        long nextId = generator.nextId();
+        assertTrue(nextId > id);
+        assertEquals(513, SnowflakeIdGenerator.getNodeId(nextId));
+
+        now[0] += 10000;
+        id = generator.nextId();
+        assertEquals(now[0], SnowflakeIdGenerator.getTimestampMillis(id));
+        assertEquals(0, SnowflakeIdGenerator.getSequence(id));
+
+        SnowflakeIdGenerator otherNode = new SnowflakeIdGenerator(514, () -> now[0]);
+        assertNotEquals(id, otherNode.nextId());   // same time, different node
+        try {
+            new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID + 1);
+            fail("Exception expected!");
+        } catch (IllegalArgumentException e) {
+            // expected exception
+        }
+    }
+
+    @Test
+    public void testSnowflakeIdGeneratorThreads() throws Exception {
+        assertUniqueAcrossThreads(new SnowflakeIdGenerator(1));
+    }
+
+    @Test
+    public void testReservationCode() {
+        for (long id : new long[] { 0, 1, 31, 32, 12345678901234L, Long.MAX_VALUE, Long.MIN_VALUE, -1 }) {
+            String code = ReservationCode.encode(id);
+            assertEquals(ReservationCode.LENGTH, code.length());
+            assertEquals(id, ReservationCode.decode(code));
+        }
+        assertEquals("000000000000Z", ReservationCode.encode(31));
+        assertEquals("0000000000010", ReservationCode.encode(32));
+        assertEquals("FZZZZZZZZZZZZ", ReservationCode.encode(-1));
+        assertEquals(32, ReservationCode.decode("0000-0000-000I0"));   // hyphens ignored; I is 1
+        assertEquals(31, ReservationCode.decode("ooooooooooooz"));   // case ignored; O is 0
+        for (String code : new String[] { null, "", "000000000000", "00000000000000", "000000000000U", "G000000000000" }) {
+            try {
+                ReservationCode.decode(code);
+                fail("Exception expected!");
+            } catch (IllegalArgumentException e) {
+                // expected exception
+            }
+        }
+    }
+
+    private static void assertUniqueAcrossThreads(IdGenerator generator) throws Exception {
+        final int numThreads = 4;
+        final int numIdsPerThread = 10000;
+        List<long[]> idsPerThread = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < numThreads; i++) {
+            long[] ids = new long[numIdsPerThread];
+            idsPerThread.add(ids);
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < ids.length; j++) {
+                    ids[j] = generator.nextId();
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Set<Long> uniqueIds = new HashSet<>();
+        for (long[] ids : idsPerThread) {
+            for (long id : ids) {
+                assertTrue(id >= 0);
+                assertTrue(uniqueIds.add(id));
+            }
+        }
+    }
+}
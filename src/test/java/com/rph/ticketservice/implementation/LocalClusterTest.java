@@ -0,0 +1,178 @@
+package com.rph.ticketservice.implementation;
+
+import com.rph.ticketservice.SeatHold;
+import com.rph.ticketservice.SeatHoldNotFoundException;
+import com.rph.ticketservice.SeatsUnavailableException;
+import com.rph.ticketservice.TicketService;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+
+public class LocalClusterTest {
+
+    private static final String CUSTOMER_EMAIL = "ronald.hughes@gmail.com";
+
+    private static final int NUM_PERFORMANCES = 20;
+
+    @Test
+    public void testRouting() throws Exception {
+        LocalCluster cluster = new LocalCluster(3, 1);
+        try {
+            for (int i = 0; i < NUM_PERFORMANCES; i++) {
+                int nodeId = cluster.addPerformance("performance-" + i, new VenueImpl(10, 20, 5), 60000);
+                assertEquals(nodeId, cluster.getOwner("performance-" + i));
+            }
+            int numOwned = 0;
+            for (ClusterNode node : cluster.getNodes()) {
+                numOwned += node.getRoutingKeys().size();
+            }
+            assertEquals(NUM_PERFORMANCES, numOwned);
+
+            TicketService ticketService = cluster.getTicketService("performance-7");
+            SeatHold seatHold = ticketService.findAndHoldSeats(4, CUSTOMER_EMAIL);
+            assertEquals(196, ticketService.numSeatsAvailable());
+            assertEquals(200, cluster.getTicketService("performance-8").numSeatsAvailable());   // independent
+            assertNotNull(ticketService.reserveSeats(seatHold.getSeatHoldId(), CUSTOMER_EMAIL));
+            try {
+                ticketService.findAndHoldSeats(21, CUSTOMER_EMAIL);
+                fail("Exception expected!");
+            } catch (SeatsUnavailableException e) {
+                // expected exception
+            }
+            try {
+                ticketService.reserveSeats(17, CUSTOMER_EMAIL);
+                fail("Exception expected!");
+            } catch (SeatHoldNotFoundException e) {
+                // expected exception
+            }
+            assertEquals("performance-7/balcony", LocalCluster.getRoutingKey("performance-7", "balcony"));
+            try {
+                cluster.getTicketService("performance-99");
+                fail("Exception expected!");
+            } catch (IllegalArgumentException e) {
+                // expected exception
+            }
+            try {
+                cluster.addPerformance("performance-7", new VenueImpl(10, 20, 5), 60000);
+                fail("Exception expected!");
+            } catch (IllegalArgumentException e) {
+                // expected exception
+            }
+        } finally {
+            cluster.shutdown();
+        }
+    }
+
+    @Test
+    public void testShutdown() throws Exception {
+        LocalCluster cluster = new LocalCluster(2, 1);
+        cluster.addPerformance("performance-0", new VenueImpl(10, 20, 5), 60000);
+        TicketService ticketService = cluster.getTicketService("performance-0");
+        assertEquals(200, ticketService.numSeatsAvailable());
+        ClusterNode node = cluster.getNodes().get(cluster.getOwner("performance-0"));
+        cluster.shutdown();
+        cluster.shutdown();   // no further effect
+        try {
+            ticketService.findAndHoldSeats(2, CUSTOMER_EMAIL);   // fails, rather than being routed forever
+            fail("Exception expected!");
+        } catch (IllegalStateException e) {
+            // expected exception
+        }
+        try {
+            cluster.getOwner("performance-0");
+            fail("Exception expected!");
+        } catch (IllegalStateException e) {
+            // expected exception
+        }
+        try {
+            node.call("performance-0", TicketServiceImpl::numSeatsAvailable);
+            fail("Exception expected!");
+        } catch (ClusterNode.NodeShutDownException e) {
+            // expected exception
+        }
+        try {
+            cluster.addNode();
+            fail("Exception expected!");
+        } catch (IllegalStateException e) {
+            // expected exception
+        }
+        assertEquals(0, cluster.getNumRedirects());
+    }
+
+    @Test
+    public void testRebalance() throws Exception {
+        LocalCluster cluster = new LocalCluster(2, 1);
+        try {
+            List<SeatHold> seatHolds = new ArrayList<>();
+            for (int i = 0; i < NUM_PERFORMANCES; i++) {
+                cluster.addPerformance("performance-" + i, new VenueImpl(10, 20, 5), 60000);
+                seatHolds.add(cluster.getTicketService("performance-" + i).findAndHoldSeats(3, CUSTOMER_EMAIL));
+            }
+            int newNodeId = cluster.addNode();
+            assertEquals(0, cluster.getNodes().get(newNodeId).getRoutingKeys().size());   // until rebalanced
+            int numMoved = cluster.rebalance();
+            assertTrue(numMoved > 0);
+            assertTrue(numMoved < NUM_PERFORMANCES);
+            assertEquals(numMoved, cluster.getNodes().get(newNodeId).getRoutingKeys().size());
+            assertEquals(0, cluster.rebalance());
+
+            cluster.removeNode(0);
+            assertEquals(2, cluster.getNodes().size());
+            for (int i = 0; i < NUM_PERFORMANCES; i++) {   // the holds moved with their engines
+                TicketService ticketService = cluster.getTicketService("performance-" + i);
+                assertNotEquals(0, cluster.getOwner("performance-" + i));
+                assertEquals(197, ticketService.numSeatsAvailable());
+                assertNotNull(ticketService.reserveSeats(seatHolds.get(i).getSeatHoldId(), CUSTOMER_EMAIL));
+            }
+            try {
+                cluster.movePerformance("performance-0", 0);
+                fail("Exception expected!");
+            } catch (IllegalArgumentException e) {
+                // expected exception
+            }
+        } finally {
+            cluster.shutdown();
+        }
+    }
+
+    @Test
+    public void testMoveWhileBusy() throws Exception {
+        LocalCluster cluster = new LocalCluster(2, 2);
+        try {
+            cluster.addPerformance("performance-0", new VenueImpl(10, 20, 5), 60000);
+            TicketService ticketService = cluster.getTicketService("performance-0");
+            AtomicInteger numHolds = new AtomicInteger();
+            List<Thread> clients = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                clients.add(new Thread(() -> {
+                    for (int j = 0; j < 10; j++) {
+                        try {
+                            ticketService.findAndHoldSeats(2, CUSTOMER_EMAIL);
+                            numHolds.incrementAndGet();
+                        } catch (SeatsUnavailableException e) {
+                            // not expected; counted below
+                        }
+                    }
+                }));
+            }
+            for (Thread client : clients) {
+                client.start();
+            }
+            for (int i = 0; i < 20; i++) {
+                cluster.movePerformance("performance-0", 1 - cluster.getOwner("performance-0"));
+            }
+            for (Thread client : clients) {
+                client.join();
+            }
+            assertEquals(40, numHolds.get());
+            assertEquals(200 - 80, ticketService.numSeatsAvailable());   // nothing lost in the moves
+        } finally {
+            cluster.shutdown();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.rph.ticketservice.implementation;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+public class LockProfilerTest {
+
+    @Test
+    public void testProfiling() {
+        final String customerEmail = "ronald.hughes@gmail.com";
+        TicketServiceImpl tsi = new TicketServiceImpl(new VenueImpl(10, 20, 5));
+        assertNull(tsi.getLockProfiler());
+        tsi.tryFindAndHoldSeats(2, customerEmail);   // not profiled
+        LockProfiler profiler = tsi.enableLockProfiling();
+        assertTrue(profiler == tsi.enableLockProfiling());
+        assertTrue(profiler == tsi.getLockProfiler());
+
+        HoldResult holdResult = tsi.tryFindAndHoldSeats(4, customerEmail);
+        tsi.tryReserveSeats(holdResult.getSeatHold().getSeatHoldId(), customerEmail, new ReserveResult());
+        tsi.findAndHoldSeats(new int[] { 3, 3 }, customerEmail);
+        tsi.reserveSeats(new int[] { 0 }, new String[] { customerEmail });
+        tsi.expire(tsi.getSeatHold(0));
+
+        assertEquals(1, profiler.getLockWaitNanos(LockProfiler.Operation.HOLD).getCount());
+        assertEquals(1, profiler.getLockHoldNanos(LockProfiler.Operation.HOLD).getCount());
+        assertEquals(1, profiler.getLockHoldNanos(LockProfiler.Operation.HOLD_BATCH).getCount());
+        assertEquals(1, profiler.getLockHoldNanos(LockProfiler.Operation.RESERVE).getCount());
+        assertEquals(1, profiler.getLockHoldNanos(LockProfiler.Operation.RESERVE_BATCH).getCount());
+        assertEquals(1, profiler.getLockHoldNanos(LockProfiler.Operation.EXPIRE).getCount());
+        assertEquals(2, profiler.getCandidatesEvaluated().getCount());   // one single, one batch
+        assertEquals(10, profiler.getCandidatesEvaluated().getMax());
+        assertTrue(profiler.getEntriesScanned().getMax() >= 10);
+
+        String report = profiler.report();
+        assertTrue(report.contains("HOLD lock wait (ns): count 1,"));
+        assertTrue(report.contains("EXPIRE lock hold (ns): count 1,"));
+        assertTrue(report.contains("candidates evaluated per search: count 2, mean 10.0, p50 10, p99 10, max 10"));
+        assertTrue(report.contains("#"));
+    }
+
+    @Test
+    public void testSearchStats() {
+        SearchStats searchStats = new SearchStats();
+        assertTrue(Double.isNaN(searchStats.getWinningAverageBestness()));
+        searchStats.recordSearch(17, 10, 3.5);
+        searchStats.recordSearch(3, 1, 42.0);
+        assertEquals(2, searchStats.getNumSearches());
+        assertEquals(20, searchStats.getNumEntriesScanned());
+        assertEquals(11, searchStats.getNumCandidatesEvaluated());
+        assertEquals(42.0, searchStats.getWinningAverageBestness(), 0.0);
+        searchStats.reset();
+        assertEquals(0, searchStats.getNumSearches());
+        assertEquals(0, searchStats.getNumEntriesScanned());
+        assertEquals(0, searchStats.getNumCandidatesEvaluated());
+        assertTrue(Double.isNaN(searchStats.getWinningAverageBestness()));
+    }
+}
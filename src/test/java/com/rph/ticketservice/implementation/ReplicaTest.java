@@ -0,0 +1,158 @@
+package com.rph.ticketservice.implementation;
+
+import com.rph.ticketservice.SeatHold;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+
+public class ReplicaTest {
+
+    private static final String CUSTOMER_EMAIL = "ronald.hughes@gmail.com";
+
+    @Test
+    public void testReplication() throws Exception {
+        TicketServiceImpl primary = new TicketServiceImpl(new VenueImpl(10, 20, 5), 200);
+        ReplicationSource source = new ReplicationSource(primary, ReplicationSource.DEFAULT_CAPACITY);
+        Replica replica = new Replica(new VenueImpl(10, 20, 5), 200);
+
+        List<SeatHold> seatHolds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            seatHolds.add(primary.findAndHoldSeats(3, CUSTOMER_EMAIL));
+        }
+        String reservationId = primary.reserveSeats(seatHolds.get(1).getSeatHoldId(), CUSTOMER_EMAIL);
+        assertEquals(6, source.getLastSequenceNumber());
+
+        assertEquals(2, replica.apply(ship(source.getBatch(0, 2))));
+        assertEquals(4, replica.getLag());
+        assertTrue(replica.getLagMillis() >= 0);
+        assertEquals(4, replica.getMetrics().getReplicaLag());
+        String text = PrometheusTextExporter.format(replica.getMetrics(), "Hamlet");
+        assertTrue(text.contains("# TYPE ticketservice_replica_lag_changes gauge\n"));
+        assertTrue(text.contains("ticketservice_replica_lag_changes{performance=\"Hamlet\"} 4\n"));
+        assertTrue(text.contains("ticketservice_replica_lag_milliseconds{performance=\"Hamlet\"} "));
+        assertEquals(200 - 6, replica.numSeatsAvailable());
+        assertEquals(6, replica.apply(ship(source.getBatch(0, 100))));   // overlaps; 1 and 2 are skipped
+        assertEquals(0, replica.getLag());
+        assertEquals(0, replica.getLagMillis());
+        assertEquals(0, replica.getMetrics().getReplicaLag());
+        assertEquals(0, replica.getMetrics().getReplicaLagMillis());
+        assertSameSeatMap(primary.getSeatMapSnapshot(), replica.getSeatMapSnapshot());
+        assertEquals(seatHolds.get(1).getSeatHoldId(),
+                replica.getReservation(reservationId).getSeatHold().getSeatHoldId());
+        assertEquals(CUSTOMER_EMAIL, replica.getReservation(reservationId).getSeatHold().getCustomerEmail());
+
+        Thread.sleep(400);   // the four unreserved holds expire on the primary
+        assertEquals(10, source.getLastSequenceNumber());
+        assertEquals(10, replica.apply(source.getBatch(replica.getAppliedSequenceNumber(), 100)));
+        assertEquals(200 - 3, replica.numSeatsAvailable());
+        assertSameSeatMap(primary.getSeatMapSnapshot(), replica.getSeatMapSnapshot());
+        try {
+            replica.findAndHoldSeats(2, CUSTOMER_EMAIL);
+            fail("Exception expected!");
+        } catch (IllegalStateException e) {
+            // expected exception
+        }
+    }
+
+    @Test
+    public void testGapsAndRetention() {
+        TicketServiceImpl primary = new TicketServiceImpl(new VenueImpl(10, 20, 5));
+        ReplicationSource source = new ReplicationSource(primary, 4);
+        Replica replica = new Replica(new VenueImpl(10, 20, 5), 60000);
+        for (int i = 0; i < 3; i++) {
+            primary.tryFindAndHoldSeats(2, CUSTOMER_EMAIL);
+        }
+        try {
+            replica.apply(source.getBatch(1, 100));   // misses entry 1
+            fail("Exception expected!");
+        } catch (IllegalStateException e) {
+            // expected exception
+        }
+        assertEquals(0, replica.getAppliedSequenceNumber());
+        assertEquals(0, source.getBatch(3, 100).getEntries().size());
+        for (int i = 0; i < 3; i++) {
+            primary.tryFindAndHoldSeats(2, CUSTOMER_EMAIL);
+        }
+        assertNull(source.getBatch(0, 100));   // entries 1 and 2 are no longer retained
+        assertEquals(3, source.getBatch(3, 100).getEntries().size());
+        try {
+            new ReplicationSource(primary, 4);   // too late to start recording
+            fail("Exception expected!");
+        } catch (IllegalStateException e) {
+            // expected exception
+        }
+    }
+
+    @Test
+    public void testPromote() throws Exception {
+        TicketServiceImpl primary = new TicketServiceImpl(new VenueImpl(10, 20, 5), 300);
+        ReplicationSource source = new ReplicationSource(primary, ReplicationSource.DEFAULT_CAPACITY);
+        Replica replica = new Replica(new VenueImpl(10, 20, 5), 300);
+        SeatHold seatHold1 = primary.findAndHoldSeats(4, CUSTOMER_EMAIL);
+        SeatHold seatHold2 = primary.findAndHoldSeats(4, CUSTOMER_EMAIL);
+        replica.apply(source.getBatch(0, 100));
+
+        TicketServiceImpl promoted = replica.promote();   // the primary fails
+        assertTrue(replica.isPromoted());
+        assertTrue(promoted == replica.promote());
+        assertFalse(PrometheusTextExporter.format(replica.getMetrics(), "Hamlet").contains("replica_lag"));
+        assertNotNull(replica.reserveSeats(seatHold1.getSeatHoldId(), CUSTOMER_EMAIL));   // held on the primary
+        SeatHold seatHold3 = replica.findAndHoldSeats(4, CUSTOMER_EMAIL);
+        assertEquals(seatHold2.getSeatHoldId() + 1, seatHold3.getSeatHoldId());
+        assertEquals(200 - 12, replica.numSeatsAvailable());
+        Thread.sleep(500);   // seatHold2 expires as it would have on the primary, and so does seatHold3
+        assertEquals(200 - 4, replica.numSeatsAvailable());
+        try {
+            replica.apply(source.getBatch(0, 100));
+            fail("Exception expected!");
+        } catch (IllegalStateException e) {
+            // expected exception
+        }
+    }
+
+    @Test
+    public void testReplicatedDeadlines() throws Exception {
+        TicketServiceImpl primary = new TicketServiceImpl(new VenueImpl(10, 20, 5), 300);
+        ReplicationSource source = new ReplicationSource(primary, ReplicationSource.DEFAULT_CAPACITY);
+        Replica replica = new Replica(new VenueImpl(10, 20, 5), 300);
+        SeatHold longHold = primary.findAndHoldSeats(4, CUSTOMER_EMAIL, 60000);
+        SeatHold extendedHold = primary.findAndHoldSeats(4, CUSTOMER_EMAIL);
+        SeatHold shortHold = primary.findAndHoldSeats(4, CUSTOMER_EMAIL);
+        long deadlineMillis = primary.extendHold(extendedHold.getSeatHoldId(), 60000);
+        assertEquals(4, replica.apply(ship(source.getBatch(0, 100))));
+        assertEquals(SeatMapChange.Type.EXTENDED, source.getBatch(3, 100).getEntries().get(0).getType());
+        assertEquals(deadlineMillis,
+                replica.promote().getSeatHold(extendedHold.getSeatHoldId()).getDeadlineMillis());
+
+        Thread.sleep(500);   // only the short hold expires, as it would have on the primary
+        assertEquals(200 - 8, replica.numSeatsAvailable());
+        assertNotNull(replica.reserveSeats(longHold.getSeatHoldId(), CUSTOMER_EMAIL));
+        assertNotNull(replica.reserveSeats(extendedHold.getSeatHoldId(), CUSTOMER_EMAIL));
+        assertTrue(shortHold.isExpired());
+    }
+
+    private static ReplicationBatch ship(ReplicationBatch batch) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        batch.writeTo(new DataOutputStream(bytes));
+        return ReplicationBatch.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+
+    private static void assertSameSeatMap(SeatMapSnapshot expected, SeatMapSnapshot actual) {
+        assertEquals(expected.getVersion(), actual.getVersion());
+        assertEquals(expected.getNumSeatsAvailable(), actual.getNumSeatsAvailable());
+        for (int rowNum = 0; rowNum < expected.getNumRows(); rowNum++) {
+            for (int seatNumInRow = 0; seatNumInRow < expected.getRowLength(rowNum); seatNumInRow++) {
+                assertEquals(expected.isAvailable(rowNum, seatNumInRow), actual.isAvailable(rowNum, seatNumInRow));
+            }
+        }
+    }
+}
@@ -2,6 +2,9 @@ package com.rph.ticketservice.implementation;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.Assert.*;
 
 
@@ -21,14 +24,66 @@ public class SeatGridTest {
     }
 
     @Test
-    public void testBuildSeatAvailabilityGrid() {
-        boolean[][] seatsAvailabilityGrid = SeatGrid.buildSeatAvailabilityGrid(10, 20);
-        assertEquals(10, seatsAvailabilityGrid.length);
-        assertEquals(20, seatsAvailabilityGrid[0].length);
-        assertTrue(seatsAvailabilityGrid[5][15]);
-        seatsAvailabilityGrid[5][15] = false;
-        assertFalse(seatsAvailabilityGrid[5][15]);
-        seatsAvailabilityGrid[5][15] = true;
-        assertTrue(seatsAvailabilityGrid[5][15]);
+    public void testIrregularRows() {
+        SeatGrid seatGrid = new SeatGrid(new VenueImpl(new String[] { "  ooo|ooo", "ooooo|ooxoo", "oooooooooooo" }, 2));
+        assertEquals(12, seatGrid.getNumSeatsPerRow());
+        assertEquals(9, seatGrid.getRowLength(0));
+        assertEquals(6, seatGrid.getNumSeatsAvailableInRow(0));
+        assertEquals(9, seatGrid.getNumSeatsAvailableInRow(1));
+        assertTrue(seatGrid.isAvailable(0, 4));
+        assertFalse(seatGrid.isAvailable(0, 5));   // aisle
+        assertFalse(seatGrid.isAvailable(0, 9));   // beyond the end of the row
+        assertFalse(seatGrid.isAvailable(1, 8));   // blocked
+        assertTrue(seatGrid.isAvailable(1, 0));   // not the end of the previous row
+        seatGrid.setAvailability(0, 4, false);
+        assertFalse(seatGrid.isAvailable(0, 4));
+        assertTrue(seatGrid.isAvailable(0, 6));
+        assertEquals(5, seatGrid.getNumSeatsAvailableInRow(0));
+        assertEquals(0, seatGrid.getRowMinBestness(1));   // the best center seat is an aisle
+    }
+
+    @Test
+    public void testRowBlocksByBestness() {
+        SeatGrid seatGrid = new SeatGrid(new VenueImpl(10, 20, 5));
+        int[] blocks = seatGrid.getRowBlocksByBestness(2);
+        assertEquals(9, blocks.length);
+        assertTrue((blocks[0] == 3) || (blocks[0] == 4));   // rows 3 and 4, or 4 and 5 (row 4 is the best)
+        for (int block = 1; block < blocks.length; block++) {
+            assertTrue(getBlockBestness(seatGrid, blocks[block - 1], 2) <= getBlockBestness(seatGrid, blocks[block], 2));
+        }
+        assertSame(blocks, seatGrid.getRowBlocksByBestness(2));   // computed once
+        assertEquals(1, seatGrid.getRowBlocksByBestness(10).length);
+    }
+
+    @Test
+    public void testScanStartIndex() {
+        VenueImpl venue = new VenueImpl(10, 20, 5);
+        SeatGrid seatGrid = new SeatGrid(venue);
+        List<SeatImpl> bestAvailableSeats = new ArrayList<>(venue.getBestSeats());
+        assertEquals(0, seatGrid.getScanStartIndex(4, bestAvailableSeats));
+        seatGrid.recordFirstFit(4, 50);
+        assertEquals(0, seatGrid.getScanStartIndex(3, bestAvailableSeats));
+        assertEquals(50, seatGrid.getScanStartIndex(4, bestAvailableSeats));
+        assertEquals(50, seatGrid.getScanStartIndex(5, bestAvailableSeats));   // larger parties fit no better
+        bestAvailableSeats.remove(0);
+        assertEquals(49, seatGrid.getScanStartIndex(4, bestAvailableSeats));
+        seatGrid.recordFirstFit(6, Integer.MAX_VALUE);
+        assertEquals(bestAvailableSeats.size(), seatGrid.getScanStartIndex(7, bestAvailableSeats));
+        assertEquals(0, seatGrid.getScanStartIndex(SeatGrid.MAX_CACHED_PARTY_SIZE + 1, bestAvailableSeats));
+
+        SeatImpl seat = venue.getBestSeats().get(0);
+        seatGrid.setAvailability(seat.getRowNum(), seat.getSeatNumInRow(), false);   // holding changes nothing
+        assertEquals(49, seatGrid.getScanStartIndex(4, bestAvailableSeats));
+        seatGrid.setAvailability(seat.getRowNum(), seat.getSeatNumInRow(), true);   // the best row must be rescanned
+        assertEquals(0, seatGrid.getScanStartIndex(4, bestAvailableSeats));
+        assertEquals(0, seatGrid.getScanStartIndex(7, bestAvailableSeats));
+    }
+
+    private static long getBlockBestness(SeatGrid seatGrid, int firstRowNum, int numRows) {
+        long blockBestness = 0;
+        for (int rowNum = firstRowNum; rowNum < firstRowNum + numRows; rowNum++) {
+            blockBestness += seatGrid.getRowMinBestness(rowNum);
+        }
+        return blockBestness;
     }
 }
@@ -35,8 +35,11 @@ public class SeatHoldTest {
         assertFalse(seatHold.isReserved());
         assertFalse(seatHold.isExpired());
         assertEquals(1, heldSeats.size());
-        boolean isReserved = seatHold.reserve();
+        assertNull(seatHold.getReservationId());
+        boolean isReserved = seatHold.reserve("R17");
         assertTrue(isReserved);
+        assertTrue(seatHold.reserve("R18"));
+        assertEquals("R17", seatHold.getReservationId());   // the original reservation ID is kept
         assertFalse(seatHold.isHeld());
         assertTrue(seatHold.isReserved());
         assertFalse(seatHold.isExpired());
@@ -48,7 +51,8 @@ public class SeatHoldTest {
         seatHold.expire();
         assertEquals(1, heldSeats.size());
         assertFalse(seatHold.isHeld());
-        assertFalse(seatHold.reserve());
+        assertFalse(seatHold.reserve("R17"));
+        assertNull(seatHold.getReservationId());
         assertTrue(seatHold.isExpired());
         assertEquals(1, heldSeats.size());
     }
@@ -66,6 +70,24 @@ public class SeatHoldTest {
         assertEquals(1, heldSeats.size());
     }
 
+    @Test
+    public void testDeadline() {
+        List<SeatImpl> heldSeats = new LinkedList<>();
+        heldSeats.add(new SeatImpl(4, 9, 99));
+        SeatHoldImpl seatHold = new SeatHoldImpl(17, "ronald.hughes@gmail.com", heldSeats);
+        assertEquals(Long.MAX_VALUE, seatHold.getDeadlineMillis());
+        seatHold.setDeadlineMillis(System.currentTimeMillis() + 60000);
+        assertTrue(seatHold.isHeld());
+        assertFalse(seatHold.isExpired());
+        seatHold.setDeadlineMillis(System.currentTimeMillis() - 1);
+        assertFalse(seatHold.isHeld());
+        assertTrue(seatHold.isExpired());
+        assertTrue(seatHold.isPending());   // not yet reclaimed
+        assertTrue(seatHold.expire());
+        assertFalse(seatHold.isPending());
+        assertTrue(seatHold.isExpired());
+    }
+
     @Test
     public void testGetters() {
         List<SeatImpl> heldSeats = new LinkedList<>();
@@ -94,5 +116,23 @@ public class SeatHoldTest {
         } catch (IllegalArgumentException e) {
             // expected exception
         }
+        try {
+            SeatHoldImpl.checkEmailAddress(null);
+            fail("Exception expected!");
+        } catch (IllegalArgumentException e) {
+            // expected exception
+        }
+        SeatHoldImpl.checkEmailAddress("ronald.hughes@gmail.com");
+
+        CustomerRegistry customers = new CustomerRegistry();
+        int customerId = customers.acquire("ronald.hughes@gmail.com");   // handed on to the seatHold
+        seatHold = new SeatHoldImpl(18, customers, customerId, heldSeats);
+        assertEquals(customerId, seatHold.getCustomerId());
+        assertEquals("ronald.hughes@gmail.com", seatHold.getCustomerEmail());
+        seatHold.forgetCustomer();
+        assertEquals(CustomerRegistry.NO_CUSTOMER, seatHold.getCustomerId());
+        assertNull(seatHold.getCustomerEmail());
+        assertEquals(0, customers.getNumCustomers());
+        seatHold.forgetCustomer();   // no trauma
     }
 }
@@ -0,0 +1,106 @@
+package com.rph.ticketservice.implementation;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+
+public class SeatMapChangeFeedTest {
+
+    @Test
+    public void testEncode() {
+        List<SeatImpl> seats = new LinkedList<>();
+        seats.add(new SeatImpl(4, 10, 1));
+        seats.add(new SeatImpl(4, 8, 2));
+        seats.add(new SeatImpl(4, 9, 0));
+        seats.add(new SeatImpl(5, 9, 3));
+        seats.add(new SeatImpl(4, 12, 4));
+        List<SeatRun> runs = SeatRun.encode(seats);
+        assertEquals(3, runs.size());
+        assertEquals("5x9-11", runs.get(0).toString());
+        assertEquals(4, runs.get(0).getRowNum());
+        assertEquals(8, runs.get(0).getFirstSeatNumInRow());
+        assertEquals(3, runs.get(0).getNumSeats());
+        assertEquals("5x13-13", runs.get(1).toString());
+        assertEquals("6x10-10", runs.get(2).toString());
+        assertEquals(5, seats.size());
+        assertEquals(0, SeatRun.encode(new LinkedList<>()).size());
+    }
+
+    @Test
+    public void testPublishAndListen() {
+        SeatMapChangeFeed feed = new SeatMapChangeFeed(4);
+        List<SeatMapChange> heard = new ArrayList<>();
+        SeatMapChangeListener listener = heard::add;
+        feed.addListener(listener);
+        SeatMapChange change = feed.publish(SeatMapChange.Type.HELD, newSeatHold(17));
+        assertEquals(1, change.getSequenceNumber());
+        assertEquals(SeatMapChange.Type.HELD, change.getType());
+        assertEquals(17, change.getSeatHoldId());
+        assertEquals(1, change.getSeatRuns().size());
+        assertEquals("1 HELD 17: 5x10-11", change.toString());
+        assertEquals(1, heard.size());
+        assertTrue(change == heard.get(0));
+        feed.removeListener(listener);
+        feed.publish(SeatMapChange.Type.RESERVED, newSeatHold(17));
+        assertEquals(1, heard.size());
+        assertEquals(2, feed.getLastSequenceNumber());
+    }
+
+    @Test
+    public void testFailingListener() throws Exception {
+        SeatMapChangeFeed feed = new SeatMapChangeFeed(4);
+        List<SeatMapChange> heard = new ArrayList<>();
+        feed.addListener(change -> {
+            throw new IllegalStateException("listener failure (expected by the test)");
+        });
+        feed.addListener(heard::add);
+        feed.publish(SeatMapChange.Type.HELD, newSeatHold(17));
+        assertEquals(1, heard.size());   // later listeners still hear the change
+        assertEquals(1, feed.getNumListenerFailures());
+
+        TicketServiceImpl tsi = new TicketServiceImpl(new VenueImpl(10, 20, 5), 50);
+        tsi.addSeatMapChangeListener(change -> {
+            throw new IllegalStateException("listener failure (expected by the test)");
+        });
+        assertNotNull(tsi.findAndHoldSeats(4, "ronald.hughes@gmail.com"));   // the hold is not leaked
+        Thread.sleep(200);
+        assertEquals(200, tsi.numSeatsAvailable());   // the sweeper survived, and expired the hold
+        tsi.findAndHoldSeats(4, "ronald.hughes@gmail.com");
+        Thread.sleep(200);
+        assertEquals(200, tsi.numSeatsAvailable());
+    }
+
+    @Test
+    public void testGetChangesSince() {
+        SeatMapChangeFeed feed = new SeatMapChangeFeed(4);
+        assertEquals(0, feed.getChangesSince(0).size());
+        for (int i = 0; i < 6; i++) {
+            feed.publish(SeatMapChange.Type.HELD, newSeatHold(i));
+        }
+        assertEquals(0, feed.getChangesSince(6).size());
+        List<SeatMapChange> changes = feed.getChangesSince(3);
+        assertEquals(3, changes.size());
+        assertEquals(4, changes.get(0).getSequenceNumber());
+        assertEquals(6, changes.get(2).getSequenceNumber());
+        assertEquals(4, feed.getChangesSince(2).size());
+        assertNull(feed.getChangesSince(1));   // no longer retained
+        try {
+            feed.getChangesSince(-1);
+            fail("Exception expected!");
+        } catch (IllegalArgumentException e) {
+            // expected exception
+        }
+    }
+
+    private static SeatHoldImpl newSeatHold(int seatHoldId) {
+        List<SeatImpl> heldSeats = new LinkedList<>();
+        heldSeats.add(new SeatImpl(4, 10, 1));
+        heldSeats.add(new SeatImpl(4, 9, 0));
+        return new SeatHoldImpl(seatHoldId, "ronald.hughes@gmail.com", heldSeats);
+    }
+}
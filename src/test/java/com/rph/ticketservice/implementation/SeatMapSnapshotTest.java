@@ -0,0 +1,85 @@
+package com.rph.ticketservice.implementation;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+public class SeatMapSnapshotTest {
+
+    @Test
+    public void testBuildAndUpdate() {
+        SeatGrid seatGrid = new SeatGrid(new VenueImpl(10, 20, 5));
+        seatGrid.setAvailability(5, 15, false);
+        SeatMapSnapshot snapshot1 = SeatMapSnapshot.build(seatGrid, 199);
+        assertEquals(0, snapshot1.getVersion());
+        assertEquals(199, snapshot1.getNumSeatsAvailable());
+        assertEquals(10, snapshot1.getNumRows());
+        assertEquals(20, snapshot1.getNumSeatsPerRow());
+        assertFalse(snapshot1.isAvailable(5, 15));
+        assertTrue(snapshot1.isAvailable(5, 14));
+
+        seatGrid.setAvailability(5, 14, false);
+        seatGrid.setAvailability(5, 15, true);
+        SeatMapSnapshot snapshot2 = SeatMapSnapshot.update(snapshot1, seatGrid, 199, 1);
+        assertEquals(1, snapshot2.getVersion());
+        assertFalse(snapshot2.isAvailable(5, 14));
+        assertTrue(snapshot2.isAvailable(5, 15));
+        assertTrue(snapshot1.isAvailable(5, 14));   // the previous snapshot is unchanged
+        assertFalse(snapshot1.isAvailable(5, 15));
+
+        SeatMapSnapshot snapshot3 = SeatMapSnapshot.update(snapshot2, seatGrid, 199, 2);   // nothing changed
+        assertEquals(2, snapshot3.getVersion());
+        assertFalse(snapshot3.isAvailable(5, 14));
+    }
+
+    @Test
+    public void testRowSummaries() {
+        SeatGrid seatGrid = new SeatGrid(new VenueImpl(10, 20, 5));
+        SeatMapSnapshot snapshot = SeatMapSnapshot.build(seatGrid, 200);
+        assertEquals(20, snapshot.getNumSeatsAvailableInRow(3));
+        assertEquals(20, snapshot.getLongestRunInRow(3));
+        seatGrid.setAvailability(3, 5, false);
+        seatGrid.setAvailability(3, 12, false);
+        seatGrid.setAvailability(4, 0, false);
+        snapshot = SeatMapSnapshot.update(snapshot, seatGrid, 197, 1);
+        assertEquals(18, snapshot.getNumSeatsAvailableInRow(3));
+        assertEquals(7, snapshot.getLongestRunInRow(3));   // seats 13-19
+        assertEquals(19, snapshot.getLongestRunInRow(4));
+        assertEquals(20, snapshot.getLongestRunInRow(5));
+        assertEquals(37, snapshot.getNumSeatsAvailable(3, 4));
+        assertEquals(197, snapshot.getNumSeatsAvailable(0, 9));
+        assertEquals(7, snapshot.getLongestRun(3, 3));
+        assertEquals(19, snapshot.getLongestRun(3, 4));
+        try {
+            snapshot.getNumSeatsAvailable(4, 3);
+            fail("Exception expected!");
+        } catch (IllegalArgumentException e) {
+            // expected exception
+        }
+        try {
+            snapshot.getLongestRun(0, 10);
+            fail("Exception expected!");
+        } catch (IllegalArgumentException e) {
+            // expected exception
+        }
+    }
+
+    @Test
+    public void testOrphansAndLongestRun() {
+        SeatGrid seatGrid = new SeatGrid(new VenueImpl(2, 10, 1));
+        SeatMapSnapshot snapshot = SeatMapSnapshot.build(seatGrid, 20);
+        assertEquals(10, snapshot.getLongestRun());
+        assertEquals(0, snapshot.getNumOrphansInRow(0));
+        for (int seatNumInRow : new int[] { 1, 3, 4, 8 }) {
+            seatGrid.setAvailability(0, seatNumInRow, false);   // row 0: 0 | 2 | 5 6 7 | 9
+        }
+        for (int seatNumInRow = 0; seatNumInRow < 10; seatNumInRow += 2) {
+            seatGrid.setAvailability(1, seatNumInRow, false);   // row 1: 1 | 3 | 5 | 7 | 9
+        }
+        snapshot = SeatMapSnapshot.update(snapshot, seatGrid, 11, 1);
+        assertEquals(3, snapshot.getNumOrphansInRow(0));
+        assertEquals(5, snapshot.getNumOrphansInRow(1));
+        assertEquals(3, snapshot.getLongestRun());
+    }
+}
@@ -0,0 +1,315 @@
+package com.rph.ticketservice.implementation;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static com.rph.ticketservice.implementation.VenueTest.buildAndValidateVenue;
+import static org.junit.Assert.*;
+
+
+public class SeatSelectionStrategyTest {
+
+    @Test
+    public void testForName() {
+        assertTrue(SeatSelectionStrategy.forName("topCandidates") instanceof TopCandidatesStrategy);
+        assertTrue(SeatSelectionStrategy.forName("firstFit") instanceof FirstFitStrategy);
+        assertTrue(SeatSelectionStrategy.forName("bestAverageRun") instanceof BestAverageRunStrategy);
+        assertTrue(SeatSelectionStrategy.forName("fragmentationAware") instanceof FragmentationAwareStrategy);
+        try {
+            SeatSelectionStrategy.forName("worstFit");
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Every candidate built by the top-candidates strategy is a run of adjacent seats, and its first
+     * candidate is the first fit. So, on any seat map, the exact strategy can be no worse than
+     * top-candidates, which can be no worse than first-fit. The exact strategy must also agree with
+     * a brute force search.
+     */
+    @Test
+    public void testQuality() {
+        Random random = new Random(0);   // deterministic
+        for (int trial = 0; trial < 200; trial++) {
+            int numRows = 1 + random.nextInt(10);
+            int numSeatsPerRow = (2 * numRows) + random.nextInt(30);   // narrower venues are not fully populated
+            VenueImpl venue = buildAndValidateVenue(numRows, numSeatsPerRow, random.nextInt(numRows));
+            SeatGrid seatGrid = new SeatGrid(venue);
+            List<SeatImpl> bestAvailableSeats = new ArrayList<>();
+            int percentAvailable = random.nextInt(101);
+            for (SeatImpl seat : venue.getBestSeats()) {
+                if (random.nextInt(100) < percentAvailable) {
+                    bestAvailableSeats.add(seat);
+                } else {
+                    seatGrid.setAvailability(seat.getRowNum(), seat.getSeatNumInRow(), false);
+                }
+            }
+            int numSeats = 1 + random.nextInt(Math.min(numSeatsPerRow, 8));
+
+            List<SeatImpl> firstFit = new FirstFitStrategy().selectSeats(
+                    numSeats, bestAvailableSeats, seatGrid, new SearchStats());
+            List<SeatImpl> topCandidates = new TopCandidatesStrategy(10).selectSeats(
+                    numSeats, bestAvailableSeats, seatGrid, new SearchStats());
+            SearchStats searchStats = new SearchStats();
+            List<SeatImpl> bestAverageRun = new BestAverageRunStrategy().selectSeats(
+                    numSeats, bestAvailableSeats, seatGrid, searchStats);
+            double bruteForce = getBestAverageBestnessByBruteForce(numSeats, seatGrid);
+
+            if (Double.isNaN(bruteForce)) {
+                assertNull(new FragmentationAwareStrategy(10, 1.0).selectSeats(
+                        numSeats, bestAvailableSeats, seatGrid, new SearchStats()));
+                assertNull(firstFit);
+                assertNull(topCandidates);
+                assertNull(bestAverageRun);
+                assertTrue(Double.isNaN(searchStats.getWinningAverageBestness()));
+                continue;
+            }
+            assertAvailableRun(numSeats, firstFit, seatGrid);
+            assertAvailableRun(numSeats, topCandidates, seatGrid);
+            assertAvailableRun(numSeats, bestAverageRun, seatGrid);
+            assertAvailableRun(numSeats, new FragmentationAwareStrategy(10, 1.0).selectSeats(
+                    numSeats, bestAvailableSeats, seatGrid, new SearchStats()), seatGrid);
+            double exact = TicketServiceImpl.getAverageBestness(bestAverageRun);
+            assertEquals(bruteForce, exact, 0.0);
+            assertEquals(exact, searchStats.getWinningAverageBestness(), 0.0);
+            assertTrue(exact <= TicketServiceImpl.getAverageBestness(topCandidates));
+            assertEquals(getTopCandidatesByBuildingEach(numSeats, bestAvailableSeats, seatGrid), topCandidates);
+            assertTrue(TicketServiceImpl.getAverageBestness(topCandidates)
+                    <= TicketServiceImpl.getAverageBestness(firstFit));
+        }
+    }
+
+    /**
+     * The scan start cached per party size must never skip a seat that fits: through a random
+     * series of holds and releases, the strategies must choose what an uncached scan chooses.
+     */
+    @Test
+    public void testScanStartCache() {
+        Random random = new Random(1);   // deterministic
+        VenueImpl venue = buildAndValidateVenue(10, 30, 4);
+        SeatGrid seatGrid = new SeatGrid(venue);
+        List<SeatImpl> bestAvailableSeats = new ArrayList<>(venue.getBestSeats());
+        List<List<SeatImpl>> heldSeatLists = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            if (!heldSeatLists.isEmpty() && (random.nextInt(100) < 40)) {
+                List<SeatImpl> heldSeats = heldSeatLists.remove(random.nextInt(heldSeatLists.size()));
+                TicketServiceImpl.makeSeatsAvailable(heldSeats, bestAvailableSeats, seatGrid);
+                continue;
+            }
+            int numSeats = 1 + random.nextInt(8);
+            List<SeatImpl> expected = getTopCandidatesByBuildingEach(numSeats, bestAvailableSeats, seatGrid);
+            SeatSelectionStrategy strategy = random.nextBoolean()
+                    ? new TopCandidatesStrategy(10) : new FirstFitStrategy();
+            List<SeatImpl> seats = strategy.selectSeats(numSeats, bestAvailableSeats, seatGrid, new SearchStats());
+            if (strategy instanceof FirstFitStrategy) {
+                expected = getTopCandidatesByBuildingEach(numSeats, bestAvailableSeats, seatGrid, 1);
+            }
+            assertEquals(expected, seats);
+            if (seats != null) {
+                TicketServiceImpl.holdSeats(seats, bestAvailableSeats, seatGrid);
+                heldSeatLists.add(new ArrayList<>(seats));
+            }
+        }
+    }
+
+    @Test
+    public void testFragmentationAware() {
+        // One row of 10, bestness by seat number: 8 6 4 2 0 1 3 5 7 9. Seat 9 is taken.
+        VenueImpl venue = new VenueImpl(1, 10, 1);
+        SeatGrid seatGrid = new SeatGrid(venue);
+        List<SeatImpl> bestAvailableSeats = new ArrayList<>(venue.getBestSeats());
+        TicketServiceImpl.holdSeats(Collections.singletonList(venue.getSeat(0, 9)), bestAvailableSeats, seatGrid);
+
+        // Spreading out from the center takes seats 1-7, leaving orphans at 0 and 8.
+        List<SeatImpl> topCandidates = new TopCandidatesStrategy(10).selectSeats(
+                7, bestAvailableSeats, seatGrid, new SearchStats());
+        assertEquals(1, getMinSeatNumInRow(topCandidates));
+
+        // Seats 2-8 are slightly worse (22 vs 21), but leave a pair at 0-1.
+        SearchStats searchStats = new SearchStats();
+        List<SeatImpl> fragmentationAware = new FragmentationAwareStrategy(10, 1.0).selectSeats(
+                7, bestAvailableSeats, seatGrid, searchStats);
+        assertAvailableRun(7, fragmentationAware, seatGrid);
+        assertEquals(2, getMinSeatNumInRow(fragmentationAware));
+        assertEquals(22.0 / 7, searchStats.getWinningAverageBestness(), 1e-9);
+
+        // With no penalty, it chooses like top-candidates.
+        List<SeatImpl> noPenalty = new FragmentationAwareStrategy(10, 0.0).selectSeats(
+                7, bestAvailableSeats, seatGrid, new SearchStats());
+        assertEquals(1, getMinSeatNumInRow(noPenalty));
+
+        // With a large split penalty, it packs the party against an end of the run.
+        List<SeatImpl> packed = new FragmentationAwareStrategy(10, 1.0, 100.0).selectSeats(
+                3, bestAvailableSeats, seatGrid, new SearchStats());
+        assertAvailableRun(3, packed, seatGrid);
+        assertTrue((getMinSeatNumInRow(packed) == 0) || (getMinSeatNumInRow(packed) == 6));
+
+        assertEquals(0, FragmentationAwareStrategy.getRunEnd(0, 4, -1, seatGrid));
+        assertEquals(8, FragmentationAwareStrategy.getRunEnd(0, 4, +1, seatGrid));
+        try {
+            new FragmentationAwareStrategy(10, -1.0);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            new FragmentationAwareStrategy(10, 1.0, Double.NaN);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testSplitFallback() {
+        VenueImpl venue = new VenueImpl(3, 10, 2);
+        SeatGrid seatGrid = new SeatGrid(venue);
+        List<SeatImpl> bestAvailableSeats = new ArrayList<>(venue.getBestSeats());
+        List<SeatImpl> taken = new ArrayList<>();
+        for (int rowNum = 0; rowNum < 3; rowNum++) {
+            for (int seatNumInRow = 0; seatNumInRow < 10; seatNumInRow++) {
+                boolean free = (rowNum < 2) ? (seatNumInRow >= 3 && seatNumInRow <= 6) : (seatNumInRow <= 1);
+                if (!free) {
+                    taken.add(venue.getSeat(rowNum, seatNumInRow));   // rows 0-1: 3-6 free; row 2: 0-1 free
+                }
+            }
+        }
+        TicketServiceImpl.holdSeats(taken, bestAvailableSeats, seatGrid);
+
+        SplitFallbackStrategy strategy = new SplitFallbackStrategy(new TopCandidatesStrategy(10), 2, 1000);
+        assertEquals(2, strategy.getMaxRowsPerParty());
+        SearchStats searchStats = new SearchStats();
+        List<SeatImpl> seats = strategy.selectSeats(7, bestAvailableSeats, seatGrid, searchStats);
+        assertNotNull(seats);
+        assertEquals(1, searchStats.getNumSearches());
+        assertEquals("[0x3, 0x4, 0x5, 0x6, 1x3, 1x4, 1x5]", getSeatCoordinates(seats));   // 4 over 3, aligned
+        assertNull(strategy.selectSeats(9, bestAvailableSeats, seatGrid, new SearchStats()));   // 5 + 4 cannot fit
+
+        List<SeatImpl> single = strategy.selectSeats(4, bestAvailableSeats, seatGrid, new SearchStats());
+        assertAvailableRun(4, single, seatGrid);   // one row: no split needed
+
+        assertNull(new SplitFallbackStrategy(new TopCandidatesStrategy(10), 2, 1)   // work cap reached at once
+                .selectSeats(7, bestAvailableSeats, seatGrid, new SearchStats()));
+
+        assertEquals("[3, 2, 2]", Arrays.toString(SplitFallbackStrategy.getPartSizes(7, 3)));
+        try {
+            new SplitFallbackStrategy(new FirstFitStrategy(), 1, 1000);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testTicketServiceSplitFallback() {
+        final String customerEmail = "ronald.hughes@gmail.com";
+        TicketServiceImpl tsi = new TicketServiceImpl(new VenueImpl(3, 10, 2));
+        assertEquals(HoldResult.Status.UNAVAILABLE, tsi.tryFindAndHoldSeats(14, customerEmail).getStatus());
+        tsi.setSeatSelectionStrategy(new SplitFallbackStrategy(new TopCandidatesStrategy(10), 2, 10000));
+        HoldResult holdResult = tsi.tryFindAndHoldSeats(14, customerEmail);
+        assertEquals(HoldResult.Status.HELD, holdResult.getStatus());
+        assertEquals(14, holdResult.getSeatHold().numSeatsHeld());
+        assertEquals(16, tsi.numSeatsAvailable());
+        assertEquals(HoldResult.Status.UNAVAILABLE, tsi.tryFindAndHoldSeats(21, customerEmail).getStatus());
+    }
+
+    private static String getSeatCoordinates(List<SeatImpl> seats) {
+        List<String> coordinates = new ArrayList<>();
+        for (SeatImpl seat : seats) {
+            coordinates.add(seat.getRowNum() + "x" + seat.getSeatNumInRow());
+        }
+        return coordinates.toString();
+    }
+
+    private static int getMinSeatNumInRow(List<SeatImpl> seats) {
+        int minSeatNumInRow = Integer.MAX_VALUE;
+        for (SeatImpl seat : seats) {
+            minSeatNumInRow = Math.min(minSeatNumInRow, seat.getSeatNumInRow());
+        }
+        return minSeatNumInRow;
+    }
+
+    @Test
+    public void testTicketServiceStrategy() {
+        final String customerEmail = "ronald.hughes@gmail.com";
+        TicketServiceImpl tsi = new TicketServiceImpl(new VenueImpl(10, 20, 5));
+        tsi.setSeatSelectionStrategy(new BestAverageRunStrategy());
+        HoldResult holdResult = tsi.tryFindAndHoldSeats(4, customerEmail);
+        assertEquals(HoldResult.Status.HELD, holdResult.getStatus());
+        List<Integer> seatNums = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            assertEquals(4, holdResult.getSeatHold().getSeat(i).getRowNum());
+            seatNums.add(holdResult.getSeatHold().getSeat(i).getSeatNumInRow());
+        }
+        Collections.sort(seatNums);
+        assertEquals("[8, 9, 10, 11]", seatNums.toString());
+        try {
+            tsi.setSeatSelectionStrategy(null);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private static void assertAvailableRun(int numSeats, List<SeatImpl> seats, SeatGrid seatGrid) {
+        assertNotNull(seats);
+        assertEquals(numSeats, seats.size());
+        int rowNum = seats.get(0).getRowNum();
+        int minSeatNumInRow = Integer.MAX_VALUE;
+        int maxSeatNumInRow = Integer.MIN_VALUE;
+        for (SeatImpl seat : seats) {
+            assertEquals(rowNum, seat.getRowNum());
+            assertTrue(seatGrid.isAvailable(rowNum, seat.getSeatNumInRow()));
+            minSeatNumInRow = Math.min(minSeatNumInRow, seat.getSeatNumInRow());
+            maxSeatNumInRow = Math.max(maxSeatNumInRow, seat.getSeatNumInRow());
+        }
+        assertEquals(numSeats - 1, maxSeatNumInRow - minSeatNumInRow);
+    }
+
+    /**
+     * The top-candidates heuristic as originally written: every candidate is built, and then scored.
+     */
+    private static List<SeatImpl> getTopCandidatesByBuildingEach(int numSeats, List<SeatImpl> bestAvailableSeats,
+                                                                SeatGrid seatGrid) {
+        return getTopCandidatesByBuildingEach(numSeats, bestAvailableSeats, seatGrid, 10);
+    }
+
+    private static List<SeatImpl> getTopCandidatesByBuildingEach(int numSeats, List<SeatImpl> bestAvailableSeats,
+                                                                SeatGrid seatGrid, int numCandidates) {
+        List<List<SeatImpl>> candidates = new ArrayList<>();
+        for (SeatImpl seat : bestAvailableSeats) {
+            if (TicketServiceImpl.getNumberOfAdjacentAvailableSeats(seat, seatGrid) >= numSeats) {
+                candidates.add(TicketServiceImpl.collectAdjacentSeats(numSeats, seat, seatGrid));
+                if (candidates.size() == numCandidates) {
+                    break;
+                }
+            }
+        }
+        return TicketServiceImpl.getBestCandidate(candidates);
+    }
+
+    private static double getBestAverageBestnessByBruteForce(int numSeats, SeatGrid seatGrid) {
+        double best = Double.NaN;
+        for (int rowNum = 0; rowNum < seatGrid.getNumRows(); rowNum++) {
+            for (int first = 0; first + numSeats <= seatGrid.getNumSeatsPerRow(); first++) {
+                double total = 0;
+                boolean available = true;
+                for (int seatNumInRow = first; seatNumInRow < first + numSeats; seatNumInRow++) {
+                    available &= seatGrid.isAvailable(rowNum, seatNumInRow);
+                    total += seatGrid.getSeat(rowNum, seatNumInRow).getBestness();
+                }
+                if (available && !(total / numSeats >= best)) {
+                    best = total / numSeats;
+                }
+            }
+        }
+        return best;
+    }
+}
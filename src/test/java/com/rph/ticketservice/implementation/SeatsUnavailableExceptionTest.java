@@ -1,9 +1,12 @@
 package com.rph.ticketservice.implementation;
 
+import com.rph.ticketservice.SeatHoldExpiredException;
+import com.rph.ticketservice.SeatHoldNotFoundException;
 import com.rph.ticketservice.SeatsUnavailableException;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 
 public class SeatsUnavailableExceptionTest {
@@ -35,4 +38,27 @@ public class SeatsUnavailableExceptionTest {
             assertEquals("This exception was the cause!", e.getCause().getMessage());
         }
     }
+
+    @Test
+    public void testNoStackTrace() {
+        assertEquals(0, new SeatsUnavailableException().getStackTrace().length);
+        assertEquals(0, new SeatHoldNotFoundException().getStackTrace().length);
+        assertEquals(0, new SeatHoldExpiredException("Bummer!").getStackTrace().length);
+    }
+
+    @Test
+    public void testSeatHoldId() {
+        assertEquals(17, new SeatHoldNotFoundException(17).getSeatHoldId());
+        assertEquals("seat hold not found: 17", new SeatHoldNotFoundException(17).getMessage());
+        assertEquals(SeatHoldNotFoundException.UNKNOWN_SEAT_HOLD_ID, new SeatHoldNotFoundException().getSeatHoldId());
+        TicketServiceImpl tsi = new TicketServiceImpl(new VenueImpl(10, 20, 5));
+        try {
+            tsi.reserveSeats(-17, "ronald.hughes@gmail.com");
+            fail("Exception expected!");
+        } catch (SeatHoldNotFoundException e) {
+            assertEquals(-17, e.getSeatHoldId());
+        } catch (SeatHoldExpiredException e) {
+            fail("Unexpected SeatHoldExpiredException!");
+        }
+    }
 }
@@ -0,0 +1,161 @@
+package com.rph.ticketservice.implementation;
+
+import com.rph.ticketservice.SeatHold;
+import com.rph.ticketservice.SeatHoldNotFoundException;
+import com.rph.ticketservice.SeatsUnavailableException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+
+public class SectionedTicketServiceTest {
+
+    private static final String CUSTOMER_EMAIL = "ronald.hughes@gmail.com";
+
+    /** Number of seat hold IDs in each section's range, for the three sections of the venue. */
+    private static final long ID_RANGE_SIZE = (Integer.MAX_VALUE + 1L) / 3;
+
+    private static SectionedVenue buildVenue() {
+        return new SectionedVenue(Arrays.asList(
+                new SectionedVenue.Section("orchestra", new VenueImpl(4, 10, 2), 0),
+                new SectionedVenue.Section("mezzanine", new VenueImpl(2, 8, 1), 20),
+                new SectionedVenue.Section("balcony", new VenueImpl(3, 12, 1), 40)));
+    }
+
+    @Test
+    public void testVenue() {
+        SectionedVenue venue = buildVenue();
+        assertEquals(3, venue.getSections().size());
+        assertEquals(40 + 16 + 36, venue.getNumberOfSeats());
+        try {
+            new SectionedVenue(Arrays.asList(
+                    new SectionedVenue.Section("orchestra", new VenueImpl(4, 10, 2), 0),
+                    new SectionedVenue.Section("orchestra", new VenueImpl(2, 8, 1), 20)));
+            fail("Exception expected!");
+        } catch (IllegalArgumentException e) {
+            // expected exception
+        }
+    }
+
+    @Test
+    public void testHoldAndReserve() throws Exception {
+        SectionedTicketService ticketService = new SectionedTicketService(buildVenue(), 60000);
+        assertEquals(92, ticketService.numSeatsAvailable());
+
+        SectionSeatHold seatHold = (SectionSeatHold) ticketService.findAndHoldSeats(4, CUSTOMER_EMAIL);
+        assertEquals("orchestra", seatHold.getSectionName());   // best seats, and no offset
+        assertEquals(0, seatHold.getSeatHoldId());   // the orchestra's first hold
+        assertEquals(88, ticketService.numSeatsAvailable());
+
+        seatHold = (SectionSeatHold) ticketService.findAndHoldSeats(11, CUSTOMER_EMAIL);
+        assertEquals("balcony", seatHold.getSectionName());   // only the balcony rows are long enough
+        int balconySeatHoldId = (int) (2 * ID_RANGE_SIZE);   // the balcony's first hold
+        assertEquals(balconySeatHoldId, seatHold.getSeatHoldId());
+        String reservationId = ticketService.reserveSeats(balconySeatHoldId, CUSTOMER_EMAIL);
+        assertEquals(reservationId, ticketService.reserveSeats(balconySeatHoldId, CUSTOMER_EMAIL));   // idempotent
+        assertEquals(balconySeatHoldId, ticketService.getSectionTicketService("balcony")
+                .getReservation(reservationId).getSeatHold().getSeatHoldId());   // the section's own ID
+        assertTrue(seatHold.isReserved());
+        assertEquals(1, ticketService.getSectionTicketService("balcony").getMetrics().getReserveCount());
+
+        for (int seatHoldId : new int[] { balconySeatHoldId + 1, 1, -1, Integer.MAX_VALUE }) {
+            try {
+                ticketService.reserveSeats(seatHoldId, CUSTOMER_EMAIL);   // no such hold, or no such section
+                fail("Exception expected!");
+            } catch (SeatHoldNotFoundException e) {
+                // expected exception
+            }
+        }
+        try {
+            ticketService.findAndHoldSeats(13, CUSTOMER_EMAIL);
+            fail("Exception expected!");
+        } catch (SeatsUnavailableException e) {
+            // expected exception
+        }
+        try {
+            ticketService.getSectionTicketService("lobby");
+            fail("Exception expected!");
+        } catch (IllegalArgumentException e) {
+            // expected exception
+        }
+    }
+
+    @Test
+    public void testFindBestSection() throws Exception {
+        SectionedTicketService ticketService = new SectionedTicketService(buildVenue(), 60000);
+        assertEquals(0, ticketService.findBestSection(2));
+        while (ticketService.findBestSection(8) == 0) {
+            ticketService.findAndHoldSeats(8, CUSTOMER_EMAIL);   // the better orchestra rows fill up
+        }
+        assertEquals(1, ticketService.findBestSection(8));   // mezzanine beats the back orchestra row
+        assertEquals(0, ticketService.findBestSection(9));   // too wide for the mezzanine
+        assertEquals(2, ticketService.findBestSection(11));   // too wide for the orchestra
+        assertEquals(-1, ticketService.findBestSection(13));
+    }
+
+    @Test
+    public void testSectionRankedByItsStrategy() throws Exception {
+        SectionedTicketService ticketService = new SectionedTicketService(buildVenue(), 60000);
+        ticketService.getSectionTicketService("orchestra").setSeatSelectionStrategy(new SplitFallbackStrategy(
+                new TopCandidatesStrategy(TopCandidatesStrategy.DEFAULT_NUM_CANDIDATES),
+                SplitFallbackStrategy.DEFAULT_MAX_ROWS_PER_PARTY, SplitFallbackStrategy.DEFAULT_MAX_WORK));
+        // The orchestra can fit a party of 12 only by splitting it across rows. It is ranked by
+        // the split seats its strategy chooses, which beat the balcony's while two adjacent rows are free.
+        SectionSeatHold seatHold = (SectionSeatHold) ticketService.findAndHoldSeats(12, CUSTOMER_EMAIL);
+        assertEquals("orchestra", seatHold.getSectionName());
+        Set<Integer> rowNums = new HashSet<>();
+        for (int i = 0; i < seatHold.numSeatsHeld(); i++) {
+            rowNums.add(seatHold.getSeat(i).getRowNum());
+        }
+        assertEquals(2, rowNums.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals("balcony", ((SectionSeatHold) ticketService.findAndHoldSeats(12, CUSTOMER_EMAIL)).getSectionName());
+        }
+        assertEquals(-1, ticketService.findBestSection(12));
+    }
+
+    @Test
+    public void testConcurrentHolds() throws Exception {
+        final SectionedTicketService ticketService = new SectionedTicketService(buildVenue(), 60000);
+        final List<SeatHold> seatHolds = new ArrayList<>();
+        final AtomicInteger numFailures = new AtomicInteger();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 20; i++) {
+                    try {
+                        SeatHold seatHold = ticketService.findAndHoldSeats(2, CUSTOMER_EMAIL);
+                        synchronized (seatHolds) {
+                            seatHolds.add(seatHold);
+                        }
+                    } catch (SeatsUnavailableException e) {
+                        numFailures.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(80, seatHolds.size() + numFailures.get());
+        assertTrue(seatHolds.size() > 40);   // at most 46, if every seat paired up
+        assertEquals(92 - (2 * seatHolds.size()), ticketService.numSeatsAvailable());
+        Set<String> seats = new HashSet<>();
+        Set<Integer> seatHoldIds = new HashSet<>();
+        for (SeatHold seatHold : seatHolds) {
+            assertTrue(seatHoldIds.add(seatHold.getSeatHoldId()));
+            for (int i = 0; i < seatHold.numSeatsHeld(); i++) {
+                assertTrue(seats.add(((SectionSeatHold) seatHold).getSectionName() + " "
+                        + seatHold.getSeat(i).getRowNum() + "x" + seatHold.getSeat(i).getSeatNumInRow()));
+            }
+        }
+    }
+}
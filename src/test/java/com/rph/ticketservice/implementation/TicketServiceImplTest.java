@@ -9,9 +9,12 @@ import org.junit.Test;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.rph.ticketservice.implementation.VenueTest.buildAndValidateVenue;
 import static org.junit.Assert.*;
@@ -175,6 +178,36 @@ public class TicketServiceImplTest {
         }
     }
 
+    @Test
+    public void testGetAdjacentRunStart() {
+        initialize(10, 20);
+        try {
+            Random random = new Random(0);   // deterministic
+            for (int i = 0; i < 100; i++) {
+                SeatImpl seat = bestAvailableSeats.get(random.nextInt(bestAvailableSeats.size()));
+                TicketServiceImpl.holdSeats(Collections.singletonList(seat), bestAvailableSeats, seatGrid);
+            }
+            for (SeatImpl initialSeat : bestAvailableSeats) {
+                for (int numSeatsNeeded = 1; numSeatsNeeded <= 8; numSeatsNeeded++) {
+                    int firstSeatNumInRow = TicketServiceImpl.getAdjacentRunStart(numSeatsNeeded, initialSeat, seatGrid);
+                    if (TicketServiceImpl.getNumberOfAdjacentAvailableSeats(initialSeat, seatGrid) < numSeatsNeeded) {
+                        assertEquals(-1, firstSeatNumInRow);
+                        continue;
+                    }
+                    List<SeatImpl> collectedSeats =
+                            TicketServiceImpl.collectAdjacentSeats(numSeatsNeeded, initialSeat, seatGrid);
+                    int expectedFirstSeatNumInRow = Integer.MAX_VALUE;
+                    for (SeatImpl seat : collectedSeats) {
+                        expectedFirstSeatNumInRow = Math.min(expectedFirstSeatNumInRow, seat.getSeatNumInRow());
+                    }
+                    assertEquals(expectedFirstSeatNumInRow, firstSeatNumInRow);
+                }
+            }
+        } finally {
+            reset();
+        }
+    }
+
     @Test
     public void testGetAverageBestness() {
         List<SeatImpl> seatList = new LinkedList<>();
@@ -277,6 +310,37 @@ public class TicketServiceImplTest {
         }
     }
 
+    @Test
+    public void testCustomerIds() throws Exception {
+        TicketServiceImpl tsi = new TicketServiceImpl(new VenueImpl(10, 20, 5));
+        CustomerRegistry customers = tsi.getCustomerRegistry();
+        SeatHoldImpl seatHold1 = (SeatHoldImpl) tsi.findAndHoldSeats(3, "ronald.hughes@gmail.com");
+        SeatHoldImpl seatHold2 = (SeatHoldImpl) tsi.findAndHoldSeats(3, new String("ronald.hughes@gmail.com"));
+        SeatHold[] seatHolds = tsi.findAndHoldSeats(new int[] { 2, 2 }, "ronald.hughes@gmail.com");
+        SeatHoldImpl seatHold3 = (SeatHoldImpl) tsi.findAndHoldSeats(4, "someone.else@gmail.com");
+        assertEquals(seatHold1.getCustomerId(), seatHold2.getCustomerId());   // one customer, one ID
+        assertEquals(seatHold1.getCustomerId(), ((SeatHoldImpl) seatHolds[0]).getCustomerId());
+        assertEquals(seatHold1.getCustomerId(), ((SeatHoldImpl) seatHolds[1]).getCustomerId());
+        assertNotEquals(seatHold1.getCustomerId(), seatHold3.getCustomerId());
+        assertEquals("ronald.hughes@gmail.com", seatHold2.getCustomerEmail());
+        assertEquals(2, customers.getNumCustomers());   // requests have released their references
+
+        tsi.reserveSeats(seatHold3.getSeatHoldId(), "someone.else@gmail.com");
+        tsi.expire(seatHold1);
+        assertNull(seatHold1.getCustomerEmail());   // released its reference
+        assertEquals("ronald.hughes@gmail.com", seatHold2.getCustomerEmail());
+        tsi.expire(seatHold2);
+        tsi.expire((SeatHoldImpl) seatHolds[0]);
+        tsi.expire((SeatHoldImpl) seatHolds[1]);
+        assertEquals(1, customers.getNumCustomers());   // forgotten, once none of its holds is outstanding
+        assertEquals("someone.else@gmail.com", seatHold3.getCustomerEmail());   // a reservation keeps its customer
+        ReserveResult[] results = tsi.reserveSeats(new int[] { seatHold1.getSeatHoldId(), seatHold3.getSeatHoldId() },
+                new String[] { "someone.else@gmail.com", "someone.else@gmail.com" });
+        assertEquals(ReserveResult.Status.EXPIRED, results[0].getStatus());
+        assertTrue(results[1].isReserved());
+        assertEquals(1, customers.getNumCustomers());
+    }
+
     @Test
     public void testGetCustomerSeatHold() {
         initialize(10, 20);
@@ -316,7 +380,7 @@ public class TicketServiceImplTest {
             String reservationId = doReserveSeats(tsi, seatHold.getSeatHoldId(), customerEmail);
             Reservation reservation = tsi.getReservation(reservationId);
             assertEquals(reservationId, reservation.getReservationId());
-            reservationId = doReserveSeats(tsi, seatHold.getSeatHoldId(), customerEmail);
+            assertEquals(reservationId, doReserveSeats(tsi, seatHold.getSeatHoldId(), customerEmail));   // same code again
 
             seatHold = doFindAndHoldSeatsInternal(tsi,7, customerEmail);
             try {
@@ -338,6 +402,96 @@ public class TicketServiceImplTest {
             } catch (SeatHoldExpiredException e) {
                 // expected exception
             }
+
+            seatHold = doFindAndHoldSeatsInternal(tsi,7, "someone.else@gmail.com");
+            reservationId = doReserveSeats(tsi, seatHold.getSeatHoldId(), customerEmail);   // the customer is not checked
+            assertEquals(seatHold.getSeatHoldId(), tsi.getReservation(reservationId).getSeatHold().getSeatHoldId());
+        } finally {
+            reset();
+        }
+    }
+
+    @Test
+    public void testReserveSeatsBatch() {
+        initialize(10, 20);
+        try {
+            final String customerEmail = "ronald.hughes@gmail.com";
+            TicketServiceImpl tsi = new TicketServiceImpl(venue);
+            SeatHoldImpl seatHold1 = doFindAndHoldSeatsInternal(tsi, 7, customerEmail);
+            SeatHoldImpl seatHold2 = doFindAndHoldSeatsInternal(tsi, 7, customerEmail);
+            SeatHoldImpl seatHold3 = doFindAndHoldSeatsInternal(tsi, 7, customerEmail);
+            String reservationId1 = doReserveSeats(tsi, seatHold1.getSeatHoldId(), customerEmail);
+            tsi.expire(seatHold3);
+            long version = tsi.getSeatMapSnapshot().getVersion();
+            int[] seatHoldIds = { seatHold1.getSeatHoldId(), seatHold2.getSeatHoldId(), seatHold3.getSeatHoldId(), -17 };
+            String[] customerEmails = { customerEmail, customerEmail, customerEmail, customerEmail };
+            ReserveResult[] results = tsi.reserveSeats(seatHoldIds, customerEmails);
+            assertEquals(4, results.length);
+            assertEquals(ReserveResult.Status.RESERVED, results[0].getStatus());
+            assertEquals(reservationId1, results[0].getReservationId());
+            assertTrue(results[1].isReserved());
+            assertTrue(seatHold2.isReserved());
+            assertEquals(results[1].getReservationId(), tsi.getReservation(results[1].getReservationId()).getReservationId());
+            assertEquals(ReserveResult.Status.EXPIRED, results[2].getStatus());
+            assertNull(results[2].getReservationId());
+            assertEquals(ReserveResult.Status.NOT_FOUND, results[3].getStatus());
+            assertEquals("NOT_FOUND", results[3].toString());
+            assertEquals(version + 1, tsi.getSeatMapSnapshot().getVersion());   // only seatHold2 changed
+            try {
+                tsi.reserveSeats(seatHoldIds, new String[] { customerEmail });
+                fail("Exception expected!");
+            } catch (IllegalArgumentException e) {
+                // expected exception
+            }
+
+            SeatHoldImpl seatHold4 = doFindAndHoldSeatsInternal(tsi, 7, customerEmail);
+            SeatHoldImpl seatHold5 = doFindAndHoldSeatsInternal(tsi, 7, "someone.else@gmail.com");
+            seatHoldIds = new int[] { seatHold4.getSeatHoldId(), seatHold5.getSeatHoldId() };
+            try {
+                tsi.reserveSeats(seatHoldIds, new String[] { customerEmail, "foo" });
+                fail("Exception expected!");
+            } catch (IllegalArgumentException e) {
+                // expected exception
+            }
+            assertFalse(seatHold4.isReserved());   // nothing is reserved
+            results = tsi.reserveSeats(seatHoldIds, new String[] { customerEmail, customerEmail });
+            assertTrue(results[0].isReserved());
+            assertEquals(ReserveResult.Status.NOT_FOUND, results[1].getStatus());   // another customer's
+            assertFalse(seatHold5.isReserved());
+            assertTrue(tsi.tryReserveSeats(seatHold5.getSeatHoldId(), customerEmail, new ReserveResult())
+                    .isReserved());   // the single seat hold version does not check the customer
+        } finally {
+            reset();
+        }
+    }
+
+    @Test
+    public void testTryFindAndHoldSeatsAndTryReserveSeats() {
+        initialize(10, 20);
+        try {
+            final String customerEmail = "ronald.hughes@gmail.com";
+            TicketServiceImpl tsi = new TicketServiceImpl(venue);
+            HoldResult holdResult = new HoldResult();
+            ReserveResult reserveResult = new ReserveResult();
+            Set<String> reservationIds = new HashSet<>();
+            for (int i = 0; i < 10; i++) {
+                assertTrue(holdResult == tsi.tryFindAndHoldSeats(20, customerEmail, holdResult));
+                assertEquals(HoldResult.Status.HELD, holdResult.getStatus());
+                assertEquals(20, holdResult.getSeatHold().numSeatsHeld());
+                int seatHoldId = holdResult.getSeatHold().getSeatHoldId();
+                assertTrue(reserveResult == tsi.tryReserveSeats(seatHoldId, customerEmail, reserveResult));
+                assertTrue(reserveResult.isReserved());
+                assertEquals(ReservationCode.LENGTH, reserveResult.getReservationId().length());
+                assertTrue(reservationIds.add(reserveResult.getReservationId()));
+            }
+            tsi.tryFindAndHoldSeats(1, customerEmail, holdResult);
+            assertFalse(holdResult.isHeld());
+            assertEquals(HoldResult.Status.UNAVAILABLE, holdResult.getStatus());
+            assertNull(holdResult.getSeatHold());
+            assertEquals("UNAVAILABLE", tsi.tryFindAndHoldSeats(1, customerEmail).toString());
+            tsi.tryReserveSeats(-17, customerEmail, reserveResult);
+            assertEquals(ReserveResult.Status.NOT_FOUND, reserveResult.getStatus());
+            assertNull(reserveResult.getReservationId());
         } finally {
             reset();
         }
@@ -439,6 +593,434 @@ public class TicketServiceImplTest {
         }
     }
 
+    @Test
+    public void testGetSeatMapSnapshot() {
+        initialize(10, 20);
+        try {
+            final String customerEmail = "ronald.hughes@gmail.com";
+            TicketServiceImpl tsi = new TicketServiceImpl(venue);
+            SeatMapSnapshot snapshot = tsi.getSeatMapSnapshot();
+            assertEquals(200, snapshot.getNumSeatsAvailable());
+            SeatHoldImpl seatHold = doFindAndHoldSeatsInternal(tsi, 7, customerEmail);
+            SeatImpl seat = seatHold.getSeat(0);
+            assertTrue(snapshot.isAvailable(seat.getRowNum(), seat.getSeatNumInRow()));
+            snapshot = tsi.getSeatMapSnapshot();
+            assertEquals(1, snapshot.getVersion());
+            assertEquals(193, snapshot.getNumSeatsAvailable());
+            assertFalse(snapshot.isAvailable(seat.getRowNum(), seat.getSeatNumInRow()));
+            int rowNum = seat.getRowNum();
+            assertEquals(13, tsi.numSeatsAvailable(rowNum, rowNum));
+            assertEquals(193, tsi.numSeatsAvailable(0, 9));
+            assertTrue(tsi.hasAdjacentSeatsAvailable(20, 0, 9));
+            assertFalse(tsi.hasAdjacentSeatsAvailable(8, rowNum, rowNum));
+            tsi.expire(seatHold);
+            assertEquals(2, tsi.getSeatMapSnapshot().getVersion());
+            assertEquals(200, tsi.numSeatsAvailable());
+            assertTrue(tsi.hasAdjacentSeatsAvailable(20, rowNum, rowNum));
+        } finally {
+            reset();
+        }
+    }
+
+    @Test
+    public void testSeatMapChanges() {
+        initialize(10, 20);
+        try {
+            final String customerEmail = "ronald.hughes@gmail.com";
+            TicketServiceImpl tsi = new TicketServiceImpl(venue);
+            List<SeatMapChange> heard = new ArrayList<>();
+            assertEquals(0, tsi.addSeatMapChangeListener(heard::add));
+            SeatHoldImpl seatHold1 = doFindAndHoldSeatsInternal(tsi, 7, customerEmail);
+            SeatHoldImpl seatHold2 = doFindAndHoldSeatsInternal(tsi, 3, customerEmail);
+            doReserveSeats(tsi, seatHold1.getSeatHoldId(), customerEmail);
+            doReserveSeats(tsi, seatHold1.getSeatHoldId(), customerEmail);   // no change
+            tsi.expire(seatHold2);
+            assertEquals(4, heard.size());
+            assertEquals(SeatMapChange.Type.HELD, heard.get(0).getType());
+            assertEquals(SeatMapChange.Type.HELD, heard.get(1).getType());
+            assertEquals(SeatMapChange.Type.RESERVED, heard.get(2).getType());
+            assertEquals(SeatMapChange.Type.RELEASED, heard.get(3).getType());
+            assertEquals(seatHold2.getSeatHoldId(), heard.get(3).getSeatHoldId());
+            assertEquals(7, heard.get(2).getSeatRuns().get(0).getNumSeats());
+            assertEquals(heard.subList(1, 4), tsi.getSeatMapChangesSince(1));
+        } finally {
+            reset();
+        }
+    }
+
+    @Test
+    public void testFindAndHoldSeatsForParties() {
+        initialize(10, 20);
+        try {
+            final String customerEmail = "ronald.hughes@gmail.com";
+            TicketServiceImpl tsi = new TicketServiceImpl(venue);
+            int[] partySizes = { 2, 20, 20, 20, 20, 20, 20, 20, 20, 8, 20, 21 };
+            SeatHold[] seatHolds = tsi.findAndHoldSeats(partySizes, customerEmail);
+            assertEquals(partySizes.length, seatHolds.length);
+            for (int party = 1; party <= 8; party++) {
+                assertEquals(20, seatHolds[party].numSeatsHeld());   // whole rows, placed first
+            }
+            assertEquals(20, seatHolds[10].numSeatsHeld());
+            assertNull(seatHolds[11]);   // wider than a row
+            assertEquals(2, seatHolds[0].numSeatsHeld());   // both fit in the remaining row
+            assertEquals(8, seatHolds[9].numSeatsHeld());
+            assertEquals(10, tsi.numSeatsAvailable());
+            assertEquals(11, tsi.getSeatMapSnapshot().getVersion());
+            assertEquals(seatHolds[0].getSeatHoldId(), tsi.getSeatMapChangesSince(0).get(0).getSeatHoldId());
+        } finally {
+            reset();
+        }
+    }
+
+    @Test
+    public void testFindAndHoldSeatsForPartiesAllOrNothing() {
+        initialize(10, 20);
+        try {
+            final String customerEmail = "ronald.hughes@gmail.com";
+            TicketServiceImpl tsi = new TicketServiceImpl(venue);
+            try {
+                tsi.findAndHoldSeats(new int[] { 4, 6, 19, 21 }, customerEmail, true);
+                fail("Exception expected!");
+            } catch (SeatsUnavailableException e) {
+                // expected exception
+            }
+            assertEquals(200, tsi.numSeatsAvailable());
+            assertEquals(200, bestAvailableSeats.size());
+            VenueTest.assertBestAvailableSeatListIsValid(10, 20, bestAvailableSeats);
+            SeatHold[] seatHolds = tsi.findAndHoldSeats(new int[] { 4, 6 }, customerEmail, true);
+            assertEquals(4, seatHolds[0].numSeatsHeld());
+            assertEquals(6, seatHolds[1].numSeatsHeld());
+            assertEquals(190, tsi.numSeatsAvailable());
+            try {
+                tsi.findAndHoldSeats(new int[] { 4 }, "foo");
+                fail("Exception expected!");
+            } catch (IllegalArgumentException e) {
+                // expected exception
+            }
+            assertEquals(190, tsi.numSeatsAvailable());
+        } catch (SeatsUnavailableException e) {
+            fail("Unexpected SeatsUnavailableException!");
+        } finally {
+            reset();
+        }
+    }
+
+    @Test
+    public void testFindAndHoldSeatsForPartiesPlacement() throws SeatsUnavailableException {
+        venue = new VenueImpl(1, 20, 1);
+        final String customerEmail = "ronald.hughes@gmail.com";
+        final int[] partySizes = { 4, 16, 1 };
+        TicketServiceImpl tsi = new TicketServiceImpl(venue);
+        SeatHold[] seatHolds = tsi.findAndHoldSeats(partySizes, customerEmail, false,
+                TicketServiceImpl.PartyPlacement.IN_REQUEST_ORDER);
+        assertEquals(4, seatHolds[0].numSeatsHeld());   // placed first, in the middle of the row
+        assertNull(seatHolds[1]);   // no run of 16 is left
+        assertEquals(1, seatHolds[2].numSeatsHeld());
+        assertEquals(15, tsi.numSeatsAvailable());
+
+        tsi = new TicketServiceImpl(venue);
+        seatHolds = tsi.findAndHoldSeats(partySizes, customerEmail, false, TicketServiceImpl.PartyPlacement.LARGEST_FIRST);
+        assertNull(seatHolds[0]);   // the 16 in the middle of the row leaves runs of 2
+        assertEquals(16, seatHolds[1].numSeatsHeld());
+        assertEquals(1, seatHolds[2].numSeatsHeld());
+        assertEquals(3, tsi.numSeatsAvailable());
+
+        tsi = new TicketServiceImpl(venue);
+        seatHolds = tsi.findAndHoldSeats(partySizes, customerEmail, false,
+                TicketServiceImpl.PartyPlacement.LEAST_FRAGMENTATION);
+        assertEquals(4, seatHolds[0].numSeatsHeld());   // the 16 is packed against one end of the row
+        assertEquals(16, seatHolds[1].numSeatsHeld());
+        assertNull(seatHolds[2]);
+        assertEquals(0, tsi.numSeatsAvailable());
+
+        tsi = new TicketServiceImpl(venue);
+        seatHolds = tsi.findAndHoldSeats(new int[] { 9, 9 }, customerEmail, true,
+                TicketServiceImpl.PartyPlacement.LEAST_FRAGMENTATION);
+        assertEquals(2, tsi.numSeatsAvailable());
+        try {
+            tsi.findAndHoldSeats(new int[] { 1, 2 }, customerEmail, true, TicketServiceImpl.PartyPlacement.IN_REQUEST_ORDER);
+            fail("Exception expected!");
+        } catch (SeatsUnavailableException e) {
+            // expected exception
+        }
+        assertEquals(2, tsi.numSeatsAvailable());   // rolled back
+        venue = null;
+    }
+
+    @Test
+    public void testIrregularRows() {
+        venue = new VenueImpl(new String[] { "  ooo|ooo", "ooooo|ooxoo", "oooooooooooo" }, 2);
+        bestAvailableSeats = new ArrayList<>(venue.getBestSeats());
+        seatGrid = new SeatGrid(venue);
+        try {
+            assertEquals(3, TicketServiceImpl.getNumberOfAdjacentAvailableSeats(seatGrid.getSeat(0, 4), seatGrid));
+            assertEquals(2, TicketServiceImpl.getNumberOfAdjacentAvailableSeats(seatGrid.getSeat(1, 9), seatGrid));
+            assertEquals(-1, TicketServiceImpl.getAdjacentRunStart(4, seatGrid.getSeat(0, 6), seatGrid));
+            assertEquals(2, TicketServiceImpl.getAdjacentRunStart(3, seatGrid.getSeat(0, 4), seatGrid));
+            List<SeatImpl> seats = TicketServiceImpl.collectAdjacentSeats(3, seatGrid.getSeat(0, 4), seatGrid);
+            assertAdjacent(seats);
+            assertEquals(2, seats.get(seats.size() - 1).getSeatNumInRow());   // stops at the aisle
+
+            TicketServiceImpl tsi = new TicketServiceImpl(venue);
+            assertEquals(27, tsi.numSeatsAvailable());
+            List<SeatImpl> heldSeats = new ArrayList<>();
+            while (true) {
+                try {
+                    SeatHoldImpl seatHold = (SeatHoldImpl) tsi.findAndHoldSeats(3, "ronald.hughes@gmail.com");
+                    seats = new ArrayList<>(seatHold.getHeldSeats());
+                    assertAdjacent(seats);   // never across an aisle or blocked seat
+                    for (SeatImpl seat : seats) {
+                        assertEquals(seats.get(0).getRowNum(), seat.getRowNum());
+                        assertTrue(venue.isSeat(seat.getRowNum(), seat.getSeatNumInRow()));
+                        assertFalse(heldSeats.contains(seat));
+                    }
+                    heldSeats.addAll(seats);
+                } catch (SeatsUnavailableException e) {
+                    break;
+                }
+            }
+            assertEquals(27 - heldSeats.size(), tsi.numSeatsAvailable());
+            assertEquals(2, tsi.getSeatMapSnapshot().getLongestRun());   // e.g. seats 9 and 10 of row 1
+            assertEquals(2, tsi.getSeatMapSnapshot().getLongestRunInRow(1));
+        } finally {
+            reset();
+        }
+    }
+
+    @Test
+    public void testIdGenerators() throws Exception {
+        final String customerEmail = "ronald.hughes@gmail.com";
+        AtomicLong sharedCounter = new AtomicLong(100);
+        TicketServiceImpl tsi1 = new TicketServiceImpl(new VenueImpl(10, 20, 5));
+        TicketServiceImpl tsi2 = new TicketServiceImpl(new VenueImpl(10, 20, 5));
+        tsi1.setSeatHoldIdGenerator(new BlockIdGenerator(sharedCounter, 1));
+        tsi2.setSeatHoldIdGenerator(new BlockIdGenerator(sharedCounter, 1));
+        assertEquals(100, tsi1.findAndHoldSeats(2, customerEmail).getSeatHoldId());
+        assertEquals(101, tsi2.findAndHoldSeats(2, customerEmail).getSeatHoldId());
+        SeatHold seatHold = tsi1.findAndHoldSeats(2, customerEmail);
+        assertEquals(102, seatHold.getSeatHoldId());
+
+        tsi1.setReservationIdGenerator(new SnowflakeIdGenerator(7));
+        String reservationId = tsi1.reserveSeats(seatHold.getSeatHoldId(), customerEmail);
+        assertEquals(7, SnowflakeIdGenerator.getNodeId(ReservationCode.decode(reservationId)));
+
+        tsi2.setSeatHoldIdGenerator(new BlockIdGenerator(Integer.MAX_VALUE, 1));
+        assertEquals(Integer.MAX_VALUE, tsi2.findAndHoldSeats(2, customerEmail).getSeatHoldId());
+        assertEquals(0, tsi2.findAndHoldSeats(2, customerEmail).getSeatHoldId());   // wrapped around
+        tsi1.setSeatHoldIdGenerator(new BlockIdGenerator(Integer.MAX_VALUE + 101L, 1));
+        assertEquals(101, tsi1.findAndHoldSeats(2, customerEmail).getSeatHoldId());   // 100 is in use here
+        assertEquals(103, tsi1.findAndHoldSeats(2, customerEmail).getSeatHoldId());   // and so is 102
+    }
+
+    @Test
+    public void testSeatHoldIdsDrawnOnlyOnSuccess() throws Exception {
+        final String customerEmail = "ronald.hughes@gmail.com";
+        TicketServiceImpl tsi = new TicketServiceImpl(new VenueImpl(10, 20, 5));
+        assertEquals(0, tsi.findAndHoldSeats(2, customerEmail).getSeatHoldId());
+        assertFalse(tsi.tryFindAndHoldSeats(21, customerEmail).isHeld());
+        try {
+            tsi.findAndHoldSeats(new int[] { 2, 21 }, customerEmail, true);
+            fail("Exception expected!");
+        } catch (SeatsUnavailableException e) {
+            // expected exception
+        }
+        assertEquals(1, tsi.findAndHoldSeats(2, customerEmail).getSeatHoldId());   // no IDs used up
+
+        tsi.setSeatHoldIdGenerator(() -> 1);   // always in use
+        try {
+            tsi.findAndHoldSeats(2, customerEmail);
+            fail("Exception expected!");
+        } catch (IllegalStateException e) {
+            // expected exception
+        }
+        try {
+            tsi.findAndHoldSeats(new int[] { 2, 3 }, customerEmail);
+            fail("Exception expected!");
+        } catch (IllegalStateException e) {
+            // expected exception
+        }
+        assertEquals(200 - 4, tsi.numSeatsAvailable());   // the seats found were given back
+    }
+
+    @Test
+    public void testLazyExpiration() throws Exception {
+        final String customerEmail = "ronald.hughes@gmail.com";
+        TicketServiceImpl tsi = new TicketServiceImpl(new VenueImpl(10, 20, 5), 100);
+        tsi.enableLazyExpiration(60000);   // in effect, no sweeps
+        SeatHold seatHold1 = tsi.findAndHoldSeats(5, customerEmail);
+        SeatHold seatHold2 = tsi.findAndHoldSeats(5, customerEmail);
+        SeatHold seatHold3 = tsi.findAndHoldSeats(5, customerEmail);
+        tsi.reserveSeats(seatHold1.getSeatHoldId(), customerEmail);
+        assertEquals(0, tsi.sweepExpiredHolds());
+        Thread.sleep(200);
+        assertTrue(seatHold2.isExpired());   // checked on access
+        assertFalse(seatHold2.isHeld());
+        assertTrue(seatHold1.isReserved());
+        assertEquals(200 - 15, tsi.numSeatsAvailable());   // not yet reclaimed
+        try {
+            tsi.reserveSeats(seatHold2.getSeatHoldId(), customerEmail);
+            fail("Exception expected!");
+        } catch (SeatHoldExpiredException e) {
+            // expected exception
+        }
+        assertEquals(200 - 5, tsi.numSeatsAvailable());   // reclaimed by the reservation, in one batch
+        assertTrue(tsi.getSeatHold(seatHold3.getSeatHoldId()).isExpired());
+        assertEquals(0, tsi.sweepExpiredHolds());
+        assertEquals(2, tsi.getMetrics().getExpirationCount());
+
+        SeatHold seatHold4 = tsi.findAndHoldSeats(5, customerEmail);
+        Thread.sleep(200);
+        assertEquals(1, tsi.sweepExpiredHolds());
+        assertTrue(seatHold4.isExpired());
+        assertEquals(200 - 5, tsi.numSeatsAvailable());
+
+        tsi = new TicketServiceImpl(new VenueImpl(10, 20, 5), 50);
+        tsi.enableLazyExpiration(20);
+        tsi.findAndHoldSeats(5, customerEmail);
+        Thread.sleep(200);
+        assertEquals(200, tsi.numSeatsAvailable());   // reclaimed by the sweeper
+        try {
+            tsi.enableLazyExpiration(20);
+            fail("Exception expected!");
+        } catch (IllegalStateException e) {
+            // expected exception
+        }
+
+        tsi = new TicketServiceImpl(new VenueImpl(10, 20, 5));
+        tsi.enableLazyExpiration(TicketServiceImpl.EXPIRATION_TICK_MILLIS);   // the same interval, but still lazy
+        try {
+            tsi.enableLazyExpiration(20);
+            fail("Exception expected!");
+        } catch (IllegalStateException e) {
+            // expected exception
+        }
+    }
+
+    @Test
+    public void testSnapshotBestAverageBestness() throws Exception {
+        final String customerEmail = "ronald.hughes@gmail.com";
+        for (String strategyName : new String[] { "topCandidates", "firstFit", "bestAverageRun", "fragmentationAware" }) {
+            TicketServiceImpl tsi = new TicketServiceImpl(new VenueImpl(3, 10, 2), 50);
+            tsi.enableLazyExpiration(60000);   // in effect, no sweeps
+            tsi.setSeatSelectionStrategy(SeatSelectionStrategy.forName(strategyName));
+            assertTrue(tsi.tryFindAndHoldSeats(3, customerEmail).isHeld());
+            assertTrue(tsi.tryFindAndHoldSeats(1, customerEmail).isHeld());
+            for (int numSeats = 1; numSeats <= 10; numSeats++) {   // the seats the strategy itself chooses
+                assertEquals(strategyName, tsi.peekBestAverageBestness(numSeats),
+                        tsi.snapshotBestAverageBestness(numSeats), 1e-9);
+            }
+        }
+
+        TicketServiceImpl tsi = new TicketServiceImpl(new VenueImpl(3, 10, 2), 50);
+        tsi.enableLazyExpiration(60000);
+        assertTrue(Double.isNaN(tsi.snapshotBestAverageBestness(11)));
+        assertTrue(Double.isNaN(tsi.snapshotBestAverageBestness(0)));
+        double bestPair = tsi.snapshotBestAverageBestness(2);
+        assertTrue(tsi.tryFindAndHoldSeats(2, customerEmail).isHeld());
+        assertTrue(tsi.snapshotBestAverageBestness(2) > bestPair);   // the best pair is taken
+        while (tsi.numSeatsAvailable() > 0) {
+            assertTrue(tsi.tryFindAndHoldSeats(tsi.getSeatMapSnapshot().getLongestRun(), customerEmail).isHeld());
+        }
+        assertTrue(Double.isNaN(tsi.snapshotBestAverageBestness(1)));
+        Thread.sleep(200);
+        assertEquals(Double.POSITIVE_INFINITY, tsi.snapshotBestAverageBestness(1), 0);   // expired, not yet reclaimed
+    }
+
+    @Test
+    public void testCannotFitReclaimsFirst() throws Exception {
+        final String customerEmail = "ronald.hughes@gmail.com";
+        TicketServiceImpl tsi = new TicketServiceImpl(new VenueImpl(1, 20, 1), 50);
+        tsi.enableLazyExpiration(60000);   // in effect, no sweeps
+        assertTrue(tsi.tryFindAndHoldSeats(20, customerEmail).isHeld());
+        assertTrue(Double.isNaN(tsi.peekBestAverageBestness(1)));
+        Thread.sleep(200);
+        assertEquals(0, tsi.numSeatsAvailable());   // not yet reclaimed, so the snapshot has no room
+        assertFalse(Double.isNaN(tsi.peekBestAverageBestness(20)));   // reclaimed, not turned away
+        assertEquals(20, tsi.numSeatsAvailable());
+
+        assertTrue(tsi.tryFindAndHoldSeats(20, customerEmail).isHeld());
+        Thread.sleep(200);
+        assertTrue(tsi.tryFindAndHoldSeats(20, customerEmail).isHeld());
+        assertFalse(tsi.tryFindAndHoldSeats(1, customerEmail).isHeld());
+        assertEquals(2, tsi.getMetrics().getExpirationCount());
+    }
+
+    @Test
+    public void testHoldDurationAndExtendHold() throws Exception {
+        final String customerEmail = "ronald.hughes@gmail.com";
+        TicketServiceImpl tsi = new TicketServiceImpl(new VenueImpl(10, 20, 5), 150);
+        SeatHold shortHold = tsi.findAndHoldSeats(2, customerEmail, 50);
+        SeatHold longHold = tsi.findAndHoldSeats(3, customerEmail, 60000);
+        SeatHold extendedHold = tsi.findAndHoldSeats(4, customerEmail);
+        SeatHold reservedHold = tsi.findAndHoldSeats(5, customerEmail);
+        long deadlineMillis = tsi.getSeatHold(extendedHold.getSeatHoldId()).getDeadlineMillis();
+        for (int i = 1; i <= 1000; i++) {
+            assertEquals(deadlineMillis + i, tsi.extendHold(extendedHold.getSeatHoldId(), 1));
+        }
+        assertEquals(deadlineMillis + 1000 + 300, tsi.extendHold(extendedHold.getSeatHoldId(), 300));
+        tsi.reserveSeats(reservedHold.getSeatHoldId(), customerEmail);
+        try {
+            tsi.extendHold(reservedHold.getSeatHoldId(), 100);
+            fail("Exception expected!");
+        } catch (IllegalStateException e) {
+            // expected exception
+        }
+        try {
+            tsi.extendHold(9999, 100);
+            fail("Exception expected!");
+        } catch (SeatHoldNotFoundException e) {
+            // expected exception
+        }
+
+        Thread.sleep(300);
+        assertTrue(shortHold.isExpired());
+        assertTrue(longHold.isHeld());
+        assertTrue(extendedHold.isHeld());
+        try {
+            tsi.extendHold(shortHold.getSeatHoldId(), 100);
+            fail("Exception expected!");
+        } catch (SeatHoldExpiredException e) {
+            // expected exception
+        }
+        assertEquals(200 - 3 - 4 - 5, tsi.numSeatsAvailable());
+        Thread.sleep(1500);
+        assertTrue(extendedHold.isExpired());
+        assertEquals(200 - 3 - 5, tsi.numSeatsAvailable());   // reclaimed by the sweeper
+        assertEquals(2, tsi.getMetrics().getExpirationCount());
+        try {
+            tsi.findAndHoldSeats(2, customerEmail, -1);
+            fail("Exception expected!");
+        } catch (IllegalArgumentException e) {
+            // expected exception
+        }
+    }
+
+    @Test
+    public void testBatchHoldDurationAndSweeper() throws Exception {
+        final String customerEmail = "ronald.hughes@gmail.com";
+        TicketServiceImpl tsi = new TicketServiceImpl(new VenueImpl(10, 20, 5));
+        assertFalse(tsi.isSweepScheduled());
+        SeatHold[] seatHolds = tsi.findAndHoldSeats(new int[] { 2, 3 }, customerEmail, true,
+                TicketServiceImpl.PartyPlacement.IN_REQUEST_ORDER, 50);
+        assertTrue(tsi.isSweepScheduled());
+        SeatHold longHold = tsi.findAndHoldSeats(4, customerEmail, 60000);
+        Thread.sleep(300);
+        assertTrue(seatHolds[0].isExpired());
+        assertTrue(seatHolds[1].isExpired());
+        assertEquals(200 - 4, tsi.numSeatsAvailable());   // reclaimed by the sweeper
+        assertTrue(tsi.isSweepScheduled());   // for the long hold
+        tsi.reserveSeats(longHold.getSeatHoldId(), customerEmail);
+        assertEquals(0, tsi.sweepExpiredHolds());
+        assertFalse(tsi.isSweepScheduled());   // nothing is held
+        try {
+            tsi.findAndHoldSeats(new int[] { 2 }, customerEmail, false,
+                    TicketServiceImpl.PartyPlacement.IN_REQUEST_ORDER, -1);
+            fail("Exception expected!");
+        } catch (IllegalArgumentException e) {
+            // expected exception
+        }
+    }
+
     @Test
     public void testConstructor() {
         VenueImpl venue = new VenueImpl(10, 20, 8);
@@ -0,0 +1,107 @@
+package com.rph.ticketservice.implementation;
+
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+
+public class TicketServiceMetricsTest {
+
+    @Test
+    public void testLatencyHistogram() {
+        assertEquals(0, LatencyHistogram.getBucketIndex(0));
+        assertEquals(1, LatencyHistogram.getBucketIndex(1));
+        assertEquals(2, LatencyHistogram.getBucketIndex(3));
+        assertEquals(3, LatencyHistogram.getBucketIndex(4));
+        assertEquals(63, LatencyHistogram.getBucketIndex(Long.MAX_VALUE));
+        assertEquals(7, LatencyHistogram.getBucketUpperBound(3));
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentile(99));
+        assertEquals(0, histogram.getMean(), 0.001);
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        histogram.record(-5);   // recorded as zero
+        assertEquals(101, histogram.getCount());
+        assertEquals(5050, histogram.getSum());
+        assertEquals(100, histogram.getMax());
+        assertEquals(1, histogram.getBucketCount(0));
+        assertEquals(2, histogram.getBucketCount(2));   // 2, 3
+        assertEquals(63, histogram.getPercentile(50));   // 51 is in [32, 63]
+        assertEquals(100, histogram.getPercentile(99));   // capped by the maximum
+    }
+
+    @Test
+    public void testServiceMetrics() {
+        TicketServiceImpl tsi = new TicketServiceImpl(new VenueImpl(10, 20, 5));
+        final String customerEmail = "ronald.hughes@gmail.com";
+        HoldResult holdResult = new HoldResult();
+        ReserveResult reserveResult = new ReserveResult();
+        tsi.tryFindAndHoldSeats(20, customerEmail, holdResult);
+        tsi.tryReserveSeats(holdResult.getSeatHold().getSeatHoldId(), customerEmail, reserveResult);
+        tsi.tryReserveSeats(-17, customerEmail, reserveResult);
+        tsi.tryFindAndHoldSeats(21, customerEmail, holdResult);
+        SeatHoldImpl seatHold = tsi.tryFindAndHoldSeatsInternal(4, customerEmail);
+        tsi.expire(seatHold, System.currentTimeMillis() - 10);
+        tsi.tryReserveSeats(seatHold.getSeatHoldId(), customerEmail, reserveResult);
+
+        TicketServiceMetrics metrics = tsi.getMetrics();
+        assertEquals(2, metrics.getHoldCount());
+        assertEquals(1, metrics.getUnavailableCount());
+        assertEquals(1, metrics.getReserveCount());
+        assertEquals(1, metrics.getReserveNotFoundCount());
+        assertEquals(1, metrics.getReserveExpiredCount());
+        assertEquals(1, metrics.getExpirationCount());
+        assertTrue(metrics.getExpirationLagMillisMax() >= 10);
+        assertTrue(metrics.getExpirationLagMillisP99() >= 10);
+        assertTrue(metrics.getExpirationLagMillisMean() >= 10);
+        assertEquals(2, metrics.getHoldSearchNanos().getCount());   // 21 cannot fit: no search, no lock
+        assertTrue(metrics.getHoldSearchNanosMax() >= metrics.getHoldSearchNanosP99());
+        assertTrue(metrics.getHoldSearchNanosMean() > 0);
+        assertEquals(5, metrics.getLockWaitNanos().getCount());
+        assertTrue(metrics.getLockWaitNanosMax() >= metrics.getLockWaitNanosP99());
+        assertTrue(metrics.getLockWaitNanosMean() >= 0);
+    }
+
+    @Test
+    public void testRegisterMBean() throws Exception {
+        TicketServiceMetrics metrics = new TicketServiceMetrics();
+        metrics.recordHold();
+        ObjectName objectName = metrics.registerMBean("testRegisterMBean");
+        try {
+            assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, "HoldCount"));
+        } finally {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        }
+    }
+
+    @Test
+    public void testPrometheusTextExporter() throws Exception {
+        TicketServiceMetrics metrics = new TicketServiceMetrics();
+        metrics.recordHold();
+        metrics.recordHold();
+        metrics.recordHoldSearch(5);
+        String text = PrometheusTextExporter.format(metrics, "Hamlet \"matinee\"");
+        assertTrue(text.contains("# TYPE ticketservice_holds_total counter\n"));
+        assertTrue(text.contains("ticketservice_holds_total{performance=\"Hamlet \\\"matinee\\\"\"} 2\n"));
+        assertTrue(text.contains("ticketservice_hold_search_nanoseconds_bucket{performance=\"Hamlet \\\"matinee\\\"\",le=\"7\"} 1\n"));
+        assertTrue(text.contains("ticketservice_hold_search_nanoseconds_sum{performance=\"Hamlet \\\"matinee\\\"\"} 5\n"));
+        assertTrue(text.contains("ticketservice_expiration_lag_milliseconds_count{performance=\"Hamlet \\\"matinee\\\"\"} 0\n"));
+        assertFalse(text.contains("ticketservice_replica_lag"));   // a primary's metrics
+
+        File file = File.createTempFile("ticketservice", ".prom");
+        try {
+            new PrometheusTextExporter(file, "Hamlet \"matinee\"").export(metrics);
+            assertEquals(text, new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+        } finally {
+            file.delete();
+        }
+    }
+}
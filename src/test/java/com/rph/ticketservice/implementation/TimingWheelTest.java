@@ -0,0 +1,193 @@
+package com.rph.ticketservice.implementation;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+
+public class TimingWheelTest {
+
+    @Test
+    public void testScheduleAndAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, 1000);
+        assertEquals(8, wheel.getNumSlots());
+        wheel.schedule("a", 1015);
+        wheel.schedule("b", 1025);
+        wheel.schedule("c", 1025 + 80);   // in the coarse wheel
+        wheel.schedule("d", 900);          // already passed
+        assertEquals(4, wheel.size());
+
+        List<String> expired = new ArrayList<>();
+        assertEquals(1, wheel.advance(1009, expired));
+        assertEquals(Collections.singletonList("d"), expired);
+        expired.clear();
+        assertEquals(0, wheel.advance(1014, expired));
+        assertEquals(1, wheel.advance(1015, expired));
+        assertEquals(Collections.singletonList("a"), expired);
+        expired.clear();
+        assertEquals(1, wheel.advance(1030, expired));
+        assertEquals(Collections.singletonList("b"), expired);
+        expired.clear();
+        assertEquals(0, wheel.advance(1104, expired));
+        assertEquals(1, wheel.advance(5000, expired));   // more than a revolution: every slot is visited
+        assertEquals(Collections.singletonList("c"), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testRescheduleAndCancel() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 5, 0);
+        assertEquals(8, wheel.getNumSlots());
+        TimingWheel.Timeout<String> a = wheel.schedule("a", 50);
+        TimingWheel.Timeout<String> b = wheel.schedule("b", 50);
+        TimingWheel.Timeout<String> c = wheel.schedule("c", 50);
+        assertTrue(a.isScheduled());
+        wheel.reschedule(b, 500);   // moved, not duplicated
+        assertEquals(500, b.getDeadlineMillis());
+        assertTrue(wheel.cancel(c));
+        assertFalse(wheel.cancel(c));
+        assertFalse(c.isScheduled());
+        assertEquals(2, wheel.size());
+
+        List<String> expired = new ArrayList<>();
+        wheel.advance(100, expired);
+        assertEquals(Collections.singletonList("a"), expired);
+        assertFalse(a.isScheduled());
+        wheel.reschedule(b, 120);   // earlier
+        wheel.reschedule(a, 130);   // timed out, so scheduled again
+        assertEquals(2, wheel.size());
+        expired.clear();
+        wheel.advance(200, expired);
+        Collections.sort(expired);
+        assertEquals(2, expired.size());
+        assertEquals("a", expired.get(0));
+        assertEquals("b", expired.get(1));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testRandomized() {
+        Random random = new Random(17);
+        TimingWheel<Integer> wheel = new TimingWheel<>(7, 16, 0);
+        List<TimingWheel.Timeout<Integer>> timeouts = new ArrayList<>();
+        long[] deadlines = new long[1000];
+        boolean[] cancelled = new boolean[deadlines.length];
+        for (int i = 0; i < deadlines.length; i++) {
+            deadlines[i] = random.nextInt(2000);
+            timeouts.add(wheel.schedule(i, deadlines[i]));
+        }
+        for (int i = 0; i < deadlines.length; i += 3) {
+            deadlines[i] = random.nextInt(2000);
+            wheel.reschedule(timeouts.get(i), deadlines[i]);
+        }
+        for (int i = 1; i < deadlines.length; i += 5) {
+            cancelled[i] = wheel.cancel(timeouts.get(i));
+        }
+        List<Integer> expired = new ArrayList<>();
+        for (long nowMillis = 0; nowMillis <= 2000; nowMillis += random.nextInt(40)) {
+            expired.clear();
+            wheel.advance(nowMillis, expired);
+            for (int i : expired) {
+                assertFalse(cancelled[i]);
+                assertTrue(deadlines[i] <= nowMillis);
+                assertTrue(deadlines[i] > nowMillis - 40);
+                cancelled[i] = true;   // must not expire again
+            }
+        }
+        expired.clear();
+        wheel.advance(2000, expired);
+        for (int i : expired) {
+            assertFalse(cancelled[i]);
+            cancelled[i] = true;
+        }
+        for (boolean done : cancelled) {
+            assertTrue(done);
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testCascade() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 4, 0);   // fine: 40ms; coarse: 160ms
+        wheel.schedule("fine", 25);
+        wheel.schedule("coarse", 95);
+        wheel.schedule("far", 1000);
+        wheel.schedule("farther", 100000);
+        assertEquals(25, wheel.getEarliestDeadlineMillis());
+
+        List<String> expired = new ArrayList<>();
+        assertEquals(1, wheel.advance(30, expired));
+        assertEquals(95, wheel.getEarliestDeadlineMillis());
+        assertEquals(0, wheel.advance(94, expired));
+        assertEquals(1, wheel.advance(95, expired));
+        assertEquals(1000, wheel.getEarliestDeadlineMillis());
+        assertEquals(0, wheel.advance(999, expired));
+        assertEquals(1000, wheel.getEarliestDeadlineMillis());
+        assertEquals(1, wheel.advance(1000, expired));
+        assertEquals(100000, wheel.getEarliestDeadlineMillis());
+        assertEquals(0, wheel.advance(99999, expired));
+        assertEquals(1, wheel.advance(100005, expired));
+        assertEquals(4, expired.size());
+        assertEquals(Long.MAX_VALUE, wheel.getEarliestDeadlineMillis());
+
+        wheel.schedule("late", 100010);   // scheduled after a skip
+        expired.clear();
+        assertEquals(1, wheel.advance(100010, expired));
+        assertEquals(Collections.singletonList("late"), expired);
+    }
+
+    @Test
+    public void testRandomizedEarliestDeadline() {
+        Random random = new Random(23);
+        TimingWheel<Integer> wheel = new TimingWheel<>(3, 8, 0);   // coarse reach: 192ms
+        List<TimingWheel.Timeout<Integer>> timeouts = new ArrayList<>();
+        long nowMillis = 0;
+        for (int step = 0; step < 2000; step++) {
+            int action = random.nextInt(4);
+            if ((action == 0) || timeouts.isEmpty()) {
+                timeouts.add(wheel.schedule(step, nowMillis + random.nextInt(1000)));
+            } else if (action == 1) {
+                TimingWheel.Timeout<Integer> timeout = timeouts.get(random.nextInt(timeouts.size()));
+                if (timeout.isScheduled()) {
+                    wheel.reschedule(timeout, nowMillis + random.nextInt(1000));
+                }
+            } else {
+                nowMillis += random.nextInt(30);
+                List<Integer> expired = new ArrayList<>();
+                wheel.advance(nowMillis, expired);
+            }
+            long earliestDeadlineMillis = Long.MAX_VALUE;
+            int size = 0;
+            for (TimingWheel.Timeout<Integer> timeout : timeouts) {
+                if (timeout.isScheduled()) {
+                    assertTrue(timeout.getDeadlineMillis() > nowMillis - 3);   // not left behind
+                    earliestDeadlineMillis = Math.min(earliestDeadlineMillis, timeout.getDeadlineMillis());
+                    size += 1;
+                }
+            }
+            assertEquals(size, wheel.size());
+            assertEquals(earliestDeadlineMillis, wheel.getEarliestDeadlineMillis());
+        }
+    }
+
+    @Test
+    public void testConstructor() {
+        try {
+            new TimingWheel<String>(0, 8, 0);
+            fail("Exception expected!");
+        } catch (IllegalArgumentException e) {
+            // expected exception
+        }
+        try {
+            new TimingWheel<String>(10, 0, 0);
+            fail("Exception expected!");
+        } catch (IllegalArgumentException e) {
+            // expected exception
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.rph.ticketservice.implementation;
+
+import com.rph.ticketservice.SeatHold;
+import com.rph.ticketservice.SeatHoldExpiredException;
+import com.rph.ticketservice.SeatHoldNotFoundException;
+import com.rph.ticketservice.SeatsUnavailableException;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+
+public class TrafficReplayerTest {
+
+    private static final String CUSTOMER_EMAIL = "ronald.hughes@gmail.com";
+
+    @Test
+    public void testVarLong() throws IOException {
+        long[] values = { 0, 1, 127, 128, 300, Integer.MAX_VALUE, 0xFFFFFFFFL, Long.MAX_VALUE, -1 };
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (long value : values) {
+            TrafficTrace.writeVarLong(out, value);
+        }
+        assertEquals(1 + 1 + 1 + 2 + 2 + 5 + 5 + 9 + 10, bytes.size());
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        for (long value : values) {
+            assertEquals(value, TrafficTrace.readVarLong(in));
+        }
+    }
+
+    @Test
+    public void testTraceRoundTrip() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        TrafficTrace.Writer writer = new TrafficTrace.Writer(new DataOutputStream(bytes));
+        writer.write(TrafficTrace.Record.hold(1000, 2, CUSTOMER_EMAIL, 7, new int[] { 4, 9, 4, 10 }));
+        writer.write(TrafficTrace.Record.hold(900, 30, "someone@example.com", -1, null));   // out of order
+        writer.write(TrafficTrace.Record.reserve(5000, 7, CUSTOMER_EMAIL, ReserveResult.Status.RESERVED));
+        writer.write(TrafficTrace.Record.reserve(6000, -1, CUSTOMER_EMAIL, ReserveResult.Status.NOT_FOUND));
+        writer.write(TrafficTrace.Record.expire(7000, 7));
+        writer.flush();
+
+        TrafficTrace.Reader reader = new TrafficTrace.Reader(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        TrafficTrace.Record record = reader.read();
+        assertEquals(TrafficTrace.Type.HOLD, record.getType());
+        assertEquals(1000, record.getTimestampNanos());
+        assertEquals(2, record.getNumSeats());
+        assertEquals(CUSTOMER_EMAIL, record.getCustomerEmail());
+        assertEquals(7, record.getSeatHoldId());
+        assertArrayEquals(new int[] { 4, 9, 4, 10 }, record.getSeats());
+        record = reader.read();
+        assertEquals(1000, record.getTimestampNanos());   // clamped
+        assertEquals(-1, record.getSeatHoldId());
+        assertNull(record.getSeats());
+        assertEquals("someone@example.com", record.getCustomerEmail());
+        record = reader.read();
+        assertEquals(TrafficTrace.Type.RESERVE, record.getType());
+        assertEquals(7, record.getSeatHoldId());
+        assertEquals(CUSTOMER_EMAIL, record.getCustomerEmail());
+        assertEquals(ReserveResult.Status.RESERVED, record.getReserveStatus());
+        record = reader.read();
+        assertEquals(-1, record.getSeatHoldId());
+        assertEquals(ReserveResult.Status.NOT_FOUND, record.getReserveStatus());
+        record = reader.read();
+        assertEquals(TrafficTrace.Type.EXPIRE, record.getType());
+        assertEquals(7000, record.getTimestampNanos());
+        assertEquals(7, record.getSeatHoldId());
+        assertNull(reader.read());
+
+        try {
+            new TrafficTrace.Reader(new DataInputStream(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 5 })));
+            fail("Exception expected!");
+        } catch (IOException e) {
+            // expected exception
+        }
+    }
+
+    @Test
+    public void testRecordAndReplay() throws Exception {
+        byte[] trace = record();
+
+        TicketServiceImpl target = new TicketServiceImpl(new VenueImpl(10, 20, 5), Integer.MAX_VALUE);
+        TrafficReplayer.Report report = new TrafficReplayer(target).replay(traceReader(trace),
+                TrafficReplayer.AS_FAST_AS_POSSIBLE);
+        assertTrue(report.getFirstMismatch(), report.isEquivalent());
+        assertEquals(7, report.getNumHolds());
+        assertEquals(5, report.getNumReserves());
+        assertEquals(2, report.getNumExpires());
+        assertEquals(0, report.getNumExpiresSkipped());
+        assertEquals(7, report.getHoldNanos().getCount());
+        assertEquals(5, report.getReserveNanos().getCount());
+        assertTrue(report.getCallsPerSecond() > 0);
+        assertEquals(200 - 3 - 4 - 5 - 1, target.numSeatsAvailable());
+        assertTrue(report.toString().contains("equivalent"));
+
+        long startNanos = System.nanoTime();   // the recording took over 300ms; replay it at 10x
+        report = new TrafficReplayer(new TicketServiceImpl(new VenueImpl(10, 20, 5), Integer.MAX_VALUE))
+                .replay(traceReader(trace), 10);
+        assertTrue(report.isEquivalent());
+        assertTrue(System.nanoTime() - startNanos >= 25000000L);
+    }
+
+    @Test
+    public void testReplayMismatches() throws Exception {
+        byte[] trace = record();
+
+        TicketServiceImpl target = new TicketServiceImpl(new VenueImpl(10, 20, 5), Integer.MAX_VALUE);
+        target.setSeatSelectionStrategy(new FirstFitStrategy());
+        TrafficReplayer.Report report = new TrafficReplayer(target).replay(traceReader(trace),
+                TrafficReplayer.AS_FAST_AS_POSSIBLE);
+        assertFalse(report.isEquivalent());
+        assertTrue(report.getNumSeatMismatches() > 0);
+        assertEquals(0, report.getNumOutcomeMismatches());
+        assertNotNull(report.getFirstMismatch());
+
+        report = new TrafficReplayer(new TicketServiceImpl(new VenueImpl(5, 40, 2), Integer.MAX_VALUE))
+                .replay(traceReader(trace), TrafficReplayer.AS_FAST_AS_POSSIBLE);
+        assertTrue(report.getNumOutcomeMismatches() > 0);   // the 30-seat party fits now
+    }
+
+    @Test
+    public void testExpirationsWrittenOutsideLock() throws Exception {
+        TicketServiceImpl ticketService = new TicketServiceImpl(new VenueImpl(10, 20, 5), 100);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        TrafficRecorder recorder = new TrafficRecorder(ticketService, new DataOutputStream(bytes));
+        recorder.findAndHoldSeats(3, CUSTOMER_EMAIL);
+        int size = bytes.size();
+        Thread.sleep(300);   // the hold expires; its record is queued, not written
+        assertEquals(200, ticketService.numSeatsAvailable());
+        assertEquals(size, bytes.size());
+        recorder.close();
+        assertTrue(bytes.size() > size);
+
+        TrafficTrace.Reader reader = traceReader(bytes.toByteArray());
+        assertEquals(TrafficTrace.Type.HOLD, reader.read().getType());
+        assertEquals(TrafficTrace.Type.EXPIRE, reader.read().getType());
+        assertNull(reader.read());
+    }
+
+    /**
+     * Records a short session: holds (one unavailable), reservations (one of an expired hold, one
+     * of an unknown hold) and expirations.
+     *
+     * @return the trace
+     */
+    private static byte[] record() throws Exception {
+        TicketServiceImpl ticketService = new TicketServiceImpl(new VenueImpl(10, 20, 5), 150);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        TrafficRecorder recorder = new TrafficRecorder(ticketService, new DataOutputStream(bytes));
+        SeatHold seatHold1 = recorder.findAndHoldSeats(3, CUSTOMER_EMAIL);
+        SeatHold seatHold2 = recorder.findAndHoldSeats(6, "someone@example.com");
+        try {
+            recorder.findAndHoldSeats(30, CUSTOMER_EMAIL);
+            fail("Exception expected!");
+        } catch (SeatsUnavailableException e) {
+            // expected exception
+        }
+        recorder.findAndHoldSeats(2, CUSTOMER_EMAIL);
+        recorder.reserveSeats(seatHold1.getSeatHoldId(), CUSTOMER_EMAIL);
+        Thread.sleep(300);   // seatHold2 and the 2-seat hold expire
+        try {
+            recorder.reserveSeats(seatHold2.getSeatHoldId(), "someone@example.com");
+            fail("Exception expected!");
+        } catch (SeatHoldExpiredException e) {
+            // expected exception
+        }
+        SeatHold seatHold4 = recorder.findAndHoldSeats(4, CUSTOMER_EMAIL);
+        SeatHold seatHold5 = recorder.findAndHoldSeats(5, CUSTOMER_EMAIL);
+        recorder.findAndHoldSeats(1, CUSTOMER_EMAIL);
+        recorder.reserveSeats(seatHold4.getSeatHoldId(), CUSTOMER_EMAIL);
+        recorder.reserveSeats(seatHold5.getSeatHoldId(), CUSTOMER_EMAIL);
+        try {
+            recorder.reserveSeats(9999, CUSTOMER_EMAIL);
+            fail("Exception expected!");
+        } catch (SeatHoldNotFoundException e) {
+            // expected exception
+        }
+        recorder.close();   // the 1-seat hold expires later, unrecorded
+        assertNull(recorder.getFailure());
+        return bytes.toByteArray();
+    }
+
+    private static TrafficTrace.Reader traceReader(byte[] trace) throws IOException {
+        return new TrafficTrace.Reader(new DataInputStream(new ByteArrayInputStream(trace)));
+    }
+}
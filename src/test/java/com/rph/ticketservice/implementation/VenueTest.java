@@ -4,6 +4,7 @@ import com.rph.ticketservice.Seat;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import static org.junit.Assert.*;
@@ -158,4 +159,66 @@ public class VenueTest {
             assertTrue(highestBestnesValueSoFar < numRows * numSeatsPerRow);
         }
     }
+
+    @Test
+    public void testBestnessPrefixSums() {
+        VenueImpl venue = buildAndValidateVenue(3, 7, 1);
+        for (int rowNum = 0; rowNum < 3; rowNum++) {
+            int[] prefixSums = venue.getBestnessPrefixSums(rowNum);
+            assertEquals(8, prefixSums.length);
+            assertEquals(0, prefixSums[0]);
+            for (int first = 0; first < 7; first++) {
+                int total = 0;
+                for (int seatNumInRow = first; seatNumInRow < 7; seatNumInRow++) {
+                    total += venue.getSeat(rowNum, seatNumInRow).getBestness();
+                    assertEquals(total, venue.getTotalBestness(rowNum, first, seatNumInRow - first + 1));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRowPlans() {
+        String[] rowPlans = { "  ooo|ooo", "ooooo|ooxoo", "oooooooooooo" };
+        VenueImpl venue = new VenueImpl(rowPlans, 2);
+        assertEquals(3, venue.getNumRows());
+        assertEquals(12, venue.getNumSeatsPerRow());
+        assertEquals(6 + 9 + 12, venue.getNumberOfSeats());
+        assertEquals(9, venue.getRowLength(0));
+        assertEquals(11, venue.getRowLength(1));
+        assertArrayEquals(new int[] { 0, 9, 20, 32 }, venue.getRowOffsets());
+        assertTrue(venue.isSeat(0, 2));
+        assertFalse(venue.isSeat(0, 0));   // nothing there
+        assertFalse(venue.isSeat(0, 5));   // aisle
+        assertFalse(venue.isSeat(1, 8));   // blocked
+        assertFalse(venue.isSeat(0, 10));   // beyond the end of the row
+        assertNull(venue.getSeat(1, 8));
+        assertEquals(7, venue.getSeat(0, 7).getSeatNumInRow());
+        List<SeatImpl> bestSeats = venue.getBestSeats();
+        assertBestAvailableSeatListIsValid(3, 12, bestSeats);
+        for (int bestness = 0; bestness < bestSeats.size(); bestness++) {
+            SeatImpl seat = bestSeats.get(bestness);
+            assertEquals(bestness, seat.getBestness());   // renumbered without gaps
+            assertTrue(venue.isSeat(seat.getRowNum(), seat.getSeatNumInRow()));
+        }
+        assertEquals(venue.getSeat(1, 9).getBestness() + venue.getSeat(1, 10).getBestness(),
+                     venue.getTotalBestness(1, 9, 2));
+        assertEquals(venue.getSeat(1, 7).getBestness() + venue.getSeat(1, 9).getBestness(),
+                     venue.getTotalBestness(1, 7, 3));   // the blocked seat counts as zero
+
+        for (String[] badRowPlans : new String[][] { {}, { "ooo", "" }, { "ooo", "oo-o" }, { "x|x", "   " } }) {
+            try {
+                new VenueImpl(badRowPlans, 1);
+                fail("Exception expected!");
+            } catch (IllegalArgumentException e) {
+                // expected exception
+            }
+        }
+        try {
+            VenueImpl.buildSeatGrid(new String[] { "o|o" }, Collections.singletonList(new SeatImpl(0, 1, 0)));
+            fail("Exception expected!");
+        } catch (IllegalArgumentException e) {
+            // expected exception
+        }
+    }
 }
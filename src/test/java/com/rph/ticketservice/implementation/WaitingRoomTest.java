@@ -0,0 +1,168 @@
+package com.rph.ticketservice.implementation;
+
+import com.rph.ticketservice.HoldThrottledException;
+import com.rph.ticketservice.SeatHold;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+
+public class WaitingRoomTest {
+
+    private static final String CUSTOMER_EMAIL = "ronald.hughes@gmail.com";
+
+    @Test
+    public void testPositionAndWait() throws Exception {
+        WaitingRoom waitingRoom = new WaitingRoom(new TicketServiceImpl(new VenueImpl(10, 20, 5)), 10, 1000);
+        List<WaitingRoom.Ticket> tickets = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            tickets.add(waitingRoom.join(CUSTOMER_EMAIL));
+            assertEquals(i, tickets.get(i).getTicketNumber());
+        }
+        WaitingRoom.Ticket last = tickets.get(4);
+        assertTrue(waitingRoom.getPosition(last) >= 4);   // the first ticket may already be admitted
+        assertTrue(waitingRoom.getEstimatedWaitMillis(last) > 300);
+        assertTrue(waitingRoom.getEstimatedWaitMillis(last) <= 400);   // one every 100 milliseconds
+        assertTrue(waitingRoom.getQueueLength() >= 4);
+        Thread.sleep(150);
+        assertTrue(waitingRoom.isAdmitted(tickets.get(1)));
+        assertFalse(waitingRoom.isAdmitted(last));
+        assertEquals(0, waitingRoom.getPosition(tickets.get(1)));
+        assertEquals(0, waitingRoom.getEstimatedWaitMillis(tickets.get(0)));
+        for (int i = 1; i < tickets.size(); i++) {   // admitted in ticket order
+            assertTrue(waitingRoom.isAdmitted(tickets.get(i - 1)) || !waitingRoom.isAdmitted(tickets.get(i)));
+        }
+    }
+
+    @Test
+    public void testFindAndHoldSeats() throws Exception {
+        WaitingRoom waitingRoom = new WaitingRoom(new TicketServiceImpl(new VenueImpl(10, 20, 5)), 100, 1000);
+        final int numBuyers = 10;
+        List<Thread> threads = new ArrayList<>();
+        List<SeatHold> seatHolds = new ArrayList<>();
+        long startMillis = System.currentTimeMillis();
+        for (int i = 0; i < numBuyers; i++) {
+            WaitingRoom.Ticket ticket = waitingRoom.join(CUSTOMER_EMAIL);
+            threads.add(new Thread(() -> {
+                try {
+                    SeatHold seatHold = waitingRoom.findAndHoldSeats(ticket, 2);
+                    synchronized (seatHolds) {
+                        seatHolds.add(seatHold);
+                    }
+                } catch (Exception e) {
+                    // counted below
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(numBuyers, seatHolds.size());
+        assertTrue(System.currentTimeMillis() - startMillis >= 85);   // nine 10 millisecond intervals
+        assertEquals(200 - (2 * numBuyers), waitingRoom.numSeatsAvailable());
+        assertEquals(0, waitingRoom.getQueueLength());
+
+        WaitingRoom.Ticket ticket = waitingRoom.join(CUSTOMER_EMAIL);
+        SeatHold seatHold = waitingRoom.findAndHoldSeats(ticket, 3);
+        assertNotNull(waitingRoom.reserveSeats(seatHold.getSeatHoldId(), CUSTOMER_EMAIL));
+        try {
+            waitingRoom.findAndHoldSeats(ticket, 3);
+            fail("Exception expected!");
+        } catch (IllegalArgumentException e) {
+            // expected exception
+        }
+    }
+
+    @Test
+    public void testLeave() throws Exception {
+        WaitingRoom waitingRoom = new WaitingRoom(new TicketServiceImpl(new VenueImpl(10, 20, 5)), 10, 1000);
+        List<WaitingRoom.Ticket> tickets = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            tickets.add(waitingRoom.join(CUSTOMER_EMAIL));
+        }
+        WaitingRoom.Ticket last = tickets.get(3);
+        long position = waitingRoom.getPosition(last);
+        assertTrue(waitingRoom.leave(tickets.get(2)));
+        assertFalse(waitingRoom.leave(tickets.get(2)));   // already left
+        assertEquals(position - 1, waitingRoom.getPosition(last));   // moved up
+        assertTrue(waitingRoom.getEstimatedWaitMillis(last) <= 200);
+        try {
+            waitingRoom.findAndHoldSeats(tickets.get(2), 2);
+            fail("Exception expected!");
+        } catch (IllegalArgumentException e) {
+            // expected exception
+        }
+        Thread.sleep(250);   // two 100 millisecond intervals, not three
+        assertTrue(waitingRoom.isAdmitted(last));
+        assertEquals(0, waitingRoom.getQueueLength());
+        assertFalse(waitingRoom.leave(last));   // already admitted
+    }
+
+    @Test
+    public void testInterruptedWhileWaiting() throws Exception {
+        WaitingRoom waitingRoom = new WaitingRoom(new TicketServiceImpl(new VenueImpl(10, 20, 5)), 1, 1000);
+        waitingRoom.join(CUSTOMER_EMAIL);   // admitted at once; the next waits a second
+        WaitingRoom.Ticket ticket = waitingRoom.join(CUSTOMER_EMAIL);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        Thread thread = new Thread(() -> {
+            try {
+                waitingRoom.findAndHoldSeats(ticket, 2);
+            } catch (Exception e) {
+                failure.set(e);
+            }
+        });
+        thread.start();
+        Thread.sleep(50);
+        thread.interrupt();
+        thread.join(500);   // not a spin: the interrupt ends the wait
+        assertFalse(thread.isAlive());
+        assertTrue(failure.get() instanceof InterruptedException);
+        assertEquals(0, waitingRoom.getQueueLength());   // the buyer left
+
+        AtomicReference<Boolean> stillInterrupted = new AtomicReference<>();
+        thread = new Thread(() -> {
+            Thread.currentThread().interrupt();
+            try {
+                waitingRoom.findAndHoldSeats(2, CUSTOMER_EMAIL);
+            } catch (HoldThrottledException e) {
+                failure.set(e);
+            } catch (Exception e) {
+                failure.set(null);
+            }
+            stillInterrupted.set(Thread.currentThread().isInterrupted());
+        });
+        thread.start();
+        thread.join(500);
+        assertFalse(thread.isAlive());
+        assertEquals(HoldThrottledException.Reason.INTERRUPTED, ((HoldThrottledException) failure.get()).getReason());
+        assertTrue(stillInterrupted.get());
+        assertEquals(200, waitingRoom.numSeatsAvailable());
+    }
+
+    @Test
+    public void testAdaptiveAdmissionRate() {
+        WaitingRoom waitingRoom = new WaitingRoom(new TicketServiceImpl(new VenueImpl(10, 20, 5)), 100, 10);
+        assertEquals(100, waitingRoom.getAdmissionsPerSecond(), 0.001);
+        for (int i = 0; i < 10; i++) {
+            waitingRoom.holdCompleted(1000L * 1000 * 1000);   // far over the latency budget
+        }
+        double slowedRate = waitingRoom.getAdmissionsPerSecond();
+        assertTrue(slowedRate < 20);
+        assertTrue(slowedRate >= 100.0 / 64);
+        for (int i = 0; i < 100; i++) {
+            waitingRoom.holdCompleted(0);
+        }
+        assertTrue(waitingRoom.getAdmissionsPerSecond() > slowedRate);
+        for (int i = 0; i < 1000; i++) {
+            waitingRoom.holdCompleted(0);
+        }
+        assertEquals(100, waitingRoom.getAdmissionsPerSecond(), 0.001);
+    }
+}